@@ -1,21 +1,26 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api;
 
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.TimeZoneInitializer;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.boot.web.servlet.support.SpringBootServletInitializer;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DweseTicketLoggerApiApplication extends SpringBootServletInitializer {
 
     @Override
     protected SpringApplicationBuilder configure(SpringApplicationBuilder application) {
-        return application.sources(DweseTicketLoggerApiApplication.class);
+        return application.sources(DweseTicketLoggerApiApplication.class)
+                .listeners(new TimeZoneInitializer());
     }
 
         public static void main(String[] args) {
-                SpringApplication.run(DweseTicketLoggerApiApplication.class, args);
+                SpringApplication application = new SpringApplication(DweseTicketLoggerApiApplication.class);
+                application.addListeners(new TimeZoneInitializer());
+                application.run(args);
         }
 
 }
-
@@ -0,0 +1,51 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuración de la caché de datos de referencia (regiones, provincias, supermercados,
+ * ubicaciones y categorías).
+ *
+ * Cada tipo tiene su propia caché de Caffeine, limitada por tamaño y por tiempo desde la
+ * escritura. Las cachés se declaran al arrancar para que Actuator publique sus métricas
+ * (`cache.gets` con `result=hit|miss`, `cache.evictions`, `cache.size`). Las invalidaciones
+ * hechas dentro de una transacción se aplican al confirmarla, de modo que una lectura
+ * concurrente no vuelve a cachear los datos anteriores.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String REGIONS = "regions";
+    public static final String PROVINCES = "provinces";
+    public static final String SUPERMARKETS = "supermarkets";
+    public static final String LOCATIONS = "locations";
+    public static final String CATEGORIES = "categories";
+
+    // Entradas máximas de cada caché
+    @Value("${cache.reference.maximum-size:10000}")
+    private long maximumSize;
+
+    // Minutos que se conserva una entrada desde que se escribe
+    @Value("${cache.reference.expire-after-write-minutes:60}")
+    private long expireAfterWriteMinutes;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(REGIONS, PROVINCES, SUPERMARKETS, LOCATIONS, CATEGORIES);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMinutes(expireAfterWriteMinutes))
+                .recordStats());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -1,16 +1,22 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.CustomUserDetailsService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.TokenRevocationService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.UserStatusCache;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -27,6 +33,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService; // Servicio personalizado para cargar detalles del usuario
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService; // Lista en memoria de tokens revocados
+
+    @Autowired
+    private UserStatusCache userStatusCache; // Estado de los usuarios en memoria para el modo de claims de confianza
+
+    // Si es true, la autenticación se construye sólo con los claims verificados del token,
+    // sin cargar el usuario y sus roles de la base de datos en cada petición
+    @Value("${jwt.trusted-claims.enabled:false}")
+    private boolean trustedClaims;
+
     /**
      * Método principal del filtro que intercepta cada solicitud HTTP entrante
      * y valida el token JWT si está presente en el encabezado de autorización.
@@ -46,34 +63,56 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         // 3. Extraer el token JWT del encabezado (sin el prefijo "Bearer ")
         jwt = authHeader.substring(7); // Elimina los primeros 7 caracteres ("Bearer ")
-        // 4. Extraer el nombre de usuario (claim "sub") del token
-        username = jwtUtil.extractUsername(jwt);
+        // 4. Verificar el token una sola vez y extraer sus claims (se reutilizan de la caché de JwtUtil)
+        final Claims claims;
+        try {
+            claims = jwtUtil.extractAllClaims(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Token mal formado, con firma no válida o expirado: la solicitud continúa sin autenticar
+            logger.debug("Token JWT no válido: " + e.getMessage());
+            filterChain.doFilter(request, response);
+            return;
+        }
+        // Token revocado (cierre de sesión): se comprueba en memoria, sin consultar la base de datos
+        if (tokenRevocationService.isRevoked(claims.getId())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        username = claims.getSubject();
         // 5. Verificar si:
         // - El nombre de usuario extraído no es nulo
         // - No hay una autenticación existente en el contexto de seguridad
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // 6. Cargar los detalles del usuario desde el servicio personalizado
-            var userDetails = userDetailsService.loadUserByUsername(username);
-            // 7. Validar el token JWT con el nombre de usuario del usuario cargado
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
-                // 8. Extraer los claims del token (como los roles)
-                Claims claims = jwtUtil.extractAllClaims(jwt);
-                // 9. Extraer los roles del claim "roles" y convertirlos en GrantedAuthority
+            // 6. Obtener los detalles del usuario: en modo de claims de confianza se construyen
+            // desde el token y sólo se comprueba el estado del usuario (en caché); si no, se cargan
+            UserDetails userDetails;
+            if (trustedClaims) {
+                if (!userStatusCache.isTokenAllowed(username, claims.getIssuedAt())) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                userDetails = User.withUsername(username).password("").authorities(List.of()).build();
+            } else {
+                userDetails = userDetailsService.loadUserByUsername(username);
+            }
+            // 7. Validar los claims con el nombre de usuario del usuario cargado
+            if (jwtUtil.validateToken(claims, userDetails.getUsername())) {
+                // 8. Extraer los roles del claim "roles" y convertirlos en GrantedAuthority
                 List<String> roles = claims.get("roles", List.class); // Obtiene la lista de roles del token
                 List<SimpleGrantedAuthority> authorities = roles.stream()
                         .map(SimpleGrantedAuthority::new) // Convierte cada rol en SimpleGrantedAuthority
                         .toList();
-                // 10. Crear un objeto UsernamePasswordAuthenticationToken con los detalles del usuario y sus roles
+                // 9. Crear un objeto UsernamePasswordAuthenticationToken con los detalles del usuario y sus roles
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
 
-                // 11. Configurar los detalles adicionales de la solicitud actual (por ejemplo, dirección IP)
+                // 10. Configurar los detalles adicionales de la solicitud actual (por ejemplo, dirección IP)
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                // 12. Establecer la autenticación en el contexto de seguridad de Spring
+                // 11. Establecer la autenticación en el contexto de seguridad de Spring
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
-        // 13. Continuar con el siguiente filtro en la cadena de filtros
+        // 12. Continuar con el siguiente filtro en la cadena de filtros
         filterChain.doFilter(request, response);
     }
 }
@@ -0,0 +1,69 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
+
+import org.springframework.messaging.Message;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Punto de encuentro, dentro de la JVM, de los nodos que usan el modo de broker
+ * {@code local-cluster}.
+ *
+ * Sustituye al broker externo cuando varios contextos de la aplicación se arrancan en el mismo
+ * proceso (pruebas de carga con N nodos simulados): cada nodo se registra con su identificador
+ * y lo que publica uno se entrega a todos los demás. No sirve entre procesos distintos; para
+ * eso está el modo {@code relay}.
+ */
+public final class LocalClusterBrokerHub {
+
+    // Nodos registrados: identificador → entrega en el canal del broker del nodo
+    private static final Map<String, Consumer<Message<?>>> NODES = new ConcurrentHashMap<>();
+
+    private LocalClusterBrokerHub() {
+    }
+
+    /**
+     * Registra un nodo.
+     *
+     * @param nodeId identificador único del nodo.
+     * @param delivery entrega un mensaje en el broker local del nodo.
+     */
+    public static void register(String nodeId, Consumer<Message<?>> delivery) {
+        NODES.put(nodeId, delivery);
+    }
+
+    /**
+     * Elimina un nodo, por ejemplo al cerrar su contexto.
+     *
+     * @param nodeId identificador del nodo.
+     */
+    public static void unregister(String nodeId) {
+        NODES.remove(nodeId);
+    }
+
+    /**
+     * Entrega un mensaje a todos los nodos salvo al de origen.
+     *
+     * @param originNodeId identificador del nodo que publica.
+     * @param message el mensaje, ya marcado con su nodo de origen.
+     * @return número de nodos a los que se ha entregado.
+     */
+    public static int publish(String originNodeId, Message<?> message) {
+        int delivered = 0;
+        for (Map.Entry<String, Consumer<Message<?>>> node : NODES.entrySet()) {
+            if (!node.getKey().equals(originNodeId)) {
+                node.getValue().accept(message);
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * @return número de nodos registrados.
+     */
+    public static int size() {
+        return NODES.size();
+    }
+}
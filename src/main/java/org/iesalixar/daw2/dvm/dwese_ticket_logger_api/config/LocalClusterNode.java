@@ -0,0 +1,109 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Nodo del modo de broker {@code local-cluster}: intercepta el canal del broker para reenviar
+ * al resto de nodos de la JVM (ver {@link LocalClusterBrokerHub}) los mensajes publicados aquí,
+ * y recibe los suyos en el broker simple local.
+ *
+ * Sólo se reenvían los destinos de difusión ({@code /topic/...}) y los de usuario
+ * ({@code /user/...}), que cada nodo resuelve con sus propias sesiones. Los mensajes recibidos
+ * llevan la cabecera de origen y no se vuelven a reenviar.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.broker.mode", havingValue = "local-cluster")
+public class LocalClusterNode implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalClusterNode.class);
+
+    // Cabecera que marca los mensajes llegados desde otro nodo
+    static final String ORIGIN_HEADER = "clusterOrigin";
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Identificador del nodo; vacío genera uno aleatorio
+    @Value("${websocket.cluster.node-id:}")
+    private String nodeId;
+
+    private Counter published;
+
+    private Counter received;
+
+    @PostConstruct
+    public void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        published = Counter.builder("websocket.fanout.messages")
+                .description("Mensajes STOMP reenviados entre nodos")
+                .tag("node", nodeId)
+                .tag("direction", "published")
+                .register(meterRegistry);
+        received = Counter.builder("websocket.fanout.messages")
+                .description("Mensajes STOMP reenviados entre nodos")
+                .tag("node", nodeId)
+                .tag("direction", "received")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Se registra en el hub cuando el contexto (y con él el canal del broker) está listo.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void join() {
+        MessageChannel brokerChannel = applicationContext.getBean("brokerChannel", MessageChannel.class);
+        LocalClusterBrokerHub.register(nodeId, brokerChannel::send);
+        logger.info("Nodo {} unido al broker local-cluster ({} nodos)", nodeId, LocalClusterBrokerHub.size());
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void leave() {
+        LocalClusterBrokerHub.unregister(nodeId);
+        logger.info("Nodo {} retirado del broker local-cluster", nodeId);
+    }
+
+    @Override
+    public void postSend(Message<?> message, MessageChannel channel, boolean sent) {
+        if (!sent || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        if (message.getHeaders().containsKey(ORIGIN_HEADER)) {
+            received.increment();
+            return;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !(destination.startsWith("/topic/") || destination.startsWith("/user/"))) {
+            return;
+        }
+        Message<?> forwarded = MessageBuilder.fromMessage(message).setHeader(ORIGIN_HEADER, nodeId).build();
+        int nodes = LocalClusterBrokerHub.publish(nodeId, forwarded);
+        if (nodes > 0) {
+            published.increment(nodes);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
 
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.Notification;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.NotificationRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,9 +41,9 @@ public class NotificationDataLoader implements CommandLineRunner {
         notificationRepository.deleteAll() // Limpia las notificaciones previas
                 .thenMany(
                         Flux.just(
-                                new Notification(UUID.randomUUID().toString(), "Precio más bajo", "Precio más bajo para el producto en el supermercado Mercadona", false, Instant.now()),
-                                new Notification(UUID.randomUUID().toString(), "Producto nuevo añadido", "Se ha añadido un nuevo producto", false, Instant.now()),
-                                new Notification(UUID.randomUUID().toString(), "Nuevo usuario", "Se ha registrado un nuevo usuario", false, Instant.now())
+                                new Notification(UUID.randomUUID().toString(), "Precio más bajo", "Precio más bajo para el producto en el supermercado Mercadona", false, NotificationRecipientType.ALL, null, Instant.now()),
+                                new Notification(UUID.randomUUID().toString(), "Producto nuevo añadido", "Se ha añadido un nuevo producto", false, NotificationRecipientType.ALL, null, Instant.now()),
+                                new Notification(UUID.randomUUID().toString(), "Nuevo usuario", "Se ha registrado un nuevo usuario", false, NotificationRecipientType.ALL, null, Instant.now())
                         )
                 )
                 .flatMap(notificationRepository::save) // Inserta las notificaciones en MongoDB
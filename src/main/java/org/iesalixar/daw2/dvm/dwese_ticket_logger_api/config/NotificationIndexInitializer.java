@@ -0,0 +1,50 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.Set;
+
+/**
+ * Crea al arrancar los índices declarados en {@link Notification}, sin depender de la
+ * creación automática de índices de Spring Data (desactivada por defecto), y elimina los que
+ * ya no usa ninguna consulta.
+ */
+@Component
+public class NotificationIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationIndexInitializer.class);
+
+    // Índices del feed completo creados por versiones anteriores; el feed filtra siempre por destinatario
+    private static final Set<String> OBSOLETE_INDEXES = Set.of("idx_notifications_feed", "idx_notifications_read_feed");
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        ReactiveIndexOperations indexOps = mongoTemplate.indexOps(Notification.class);
+        Flux.fromIterable(resolver.resolveIndexFor(Notification.class))
+                .concatMap(indexOps::ensureIndex)
+                .doOnNext(name -> logger.info("Índice de notificaciones disponible: {}", name))
+                .thenMany(indexOps.getIndexInfo())
+                .map(IndexInfo::getName)
+                .filter(OBSOLETE_INDEXES::contains)
+                .concatMap(name -> indexOps.dropIndex(name).thenReturn(name))
+                .doOnNext(name -> logger.info("Índice de notificaciones obsoleto eliminado: {}", name))
+                .doOnError(error -> logger.error("Error al crear los índices de notificaciones", error))
+                .subscribe();
+    }
+}
@@ -0,0 +1,92 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.CategoryDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.LocationDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProvinceDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.RegionDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.SupermarketDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.CategoryService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.LocationService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.ProvinceService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.RegionService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.SupermarketService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Precarga al arrancar las cachés de datos de referencia: las listas completas a través de los
+ * propios servicios y, a partir de ellas, la entrada por ID de cada elemento, de modo que las
+ * primeras lecturas ya no consultan la base de datos.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.reference.warm-up", havingValue = "true", matchIfMissing = true)
+public class ReferenceCacheWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceCacheWarmer.class);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RegionService regionService;
+
+    @Autowired
+    private ProvinceService provinceService;
+
+    @Autowired
+    private SupermarketService supermarketService;
+
+    @Autowired
+    private LocationService locationService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    /**
+     * Se ejecuta en una transacción de sólo lectura para que los mappers puedan recorrer las
+     * relaciones perezosas (supermercado, provincia, región) fuera de una petición web.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        try {
+            long start = System.currentTimeMillis();
+            int entries = putById(CacheConfig.REGIONS, regionService.getAllRegions(Pageable.unpaged()).getContent(), RegionDTO::getId)
+                    + putById(CacheConfig.PROVINCES, provinceService.getAllProvinces(), ProvinceDTO::getId)
+                    + putById(CacheConfig.SUPERMARKETS, supermarketService.getAllSupermarkets(), SupermarketDTO::getId)
+                    + putById(CacheConfig.LOCATIONS, locationService.getAllLocations(), LocationDTO::getId)
+                    + putById(CacheConfig.CATEGORIES, categoryService.getAllCategories(), CategoryDTO::getId);
+            logger.info("Cachés de datos de referencia precargadas en {} ms: {} elementos.",
+                    System.currentTimeMillis() - start, entries);
+        } catch (Exception e) {
+            logger.error("Error al precargar las cachés de datos de referencia: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda cada elemento de una lista en su caché con su ID como clave (la misma clave que
+     * usan los métodos `get...ById` de los servicios).
+     *
+     * @return número de elementos guardados.
+     */
+    private <T> int putById(String cacheName, List<T> items, Function<T, Long> id) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return 0;
+        }
+        items.forEach(item -> cache.put(id.apply(item), item));
+        return items.size();
+    }
+}
@@ -4,8 +4,10 @@ import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.CustomUserDetails
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -37,6 +39,10 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    // Coste de BCrypt (log2 de las rondas); cada unidad duplica el tiempo de verificación
+    @Value("${auth.bcrypt.strength:10}")
+    private int bcryptStrength;
+
 
     /**
      * Configura el filtro de seguridad para las solicitudes HTTP, especificando las
@@ -54,15 +60,20 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable()) // Las APIs REST no suelen necesitar CSRF
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Sin sesiones
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/tickets").hasRole("USER") // Solo USER
-                        .requestMatchers("/api/admin").hasRole("ADMIN") // Solo ADMIN
+                        .requestMatchers("/api/tickets", "/api/tickets/stream", "/api/tickets/bulk").hasRole("USER") // Solo USER
+                        .requestMatchers("/api/admin", "/api/admin/**").hasRole("ADMIN") // Solo ADMIN
+                        // Catálogo de productos: lectura y búsqueda para cualquier usuario autenticado, escritura sólo MANAGER
+                        .requestMatchers(HttpMethod.POST, "/api/products", "/api/products/**").hasRole("MANAGER")
+                        .requestMatchers(HttpMethod.PUT, "/api/products/**").hasRole("MANAGER")
+                        .requestMatchers(HttpMethod.DELETE, "/api/products/**").hasRole("MANAGER")
                         .requestMatchers(
                                 "/api/regions",
                                 "/api/provinces",
                                 "/api/supermarkets",
                                 "/api/locations",
-                                "/api/categories").hasRole("MANAGER") // Solo MANAGER
-                        .requestMatchers("/api/v1/authenticate", "/api/v1/register").permitAll() // Endpoints públicos
+                                "/api/categories",
+                                "/api/analytics/**").hasRole("MANAGER") // Solo MANAGER
+                        .requestMatchers("/api/v1/authenticate", "/api/v1/register", "/api/v1/refresh", "/api/v1/logout").permitAll() // Endpoints públicos
                         .anyRequest().authenticated() // El resto requiere autenticación
                 )
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class); // Filtro JWT
@@ -88,14 +99,15 @@ public class SecurityConfig {
 
     /**
      * Configura el codificador de contraseñas para cifrar las contraseñas de los usuarios
-     * utilizando BCrypt.
+     * utilizando BCrypt. La verificación del login se ejecuta en el pool de
+     * {@link org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.PasswordHashingService}.
      *
      * @return una instancia de {@link PasswordEncoder} que utiliza BCrypt para cifrar contraseñas.
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
         logger.info("Entrando en el método passwordEncoder");
-        PasswordEncoder encoder = new BCryptPasswordEncoder();
+        PasswordEncoder encoder = new BCryptPasswordEncoder(bcryptStrength);
         logger.info("Saliendo del método passwordEncoder");
         return encoder;
     }
@@ -0,0 +1,163 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationTopics;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.CustomUserDetailsService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.TokenRevocationService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.UserStatusCache;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Autentica las conexiones STOMP con el JWT de la cabecera Authorization del frame CONNECT.
+ *
+ * La verificación del token y la carga del usuario se hacen una sola vez por sesión: el
+ * {@code Principal} se asocia a la sesión y Spring lo añade al resto de frames
+ * (SUBSCRIBE, SEND...), que sólo comprueban, en memoria, que el token no haya expirado y, en
+ * las suscripciones, que el destino no tenga comodines y que el usuario tenga acceso al topic.
+ */
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompAuthChannelInterceptor.class);
+
+    // Todos los topics del broker son de notificaciones y pasan por NotificationTopics.canSubscribe
+    private static final String TOPIC_PREFIX = "/topic/";
+
+    // Caracteres que el registro de suscripciones del broker trata como patrón Ant
+    private static final Pattern PATTERN_CHARS = Pattern.compile("[*?{]");
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private UserStatusCache userStatusCache;
+
+    @Autowired
+    private WebSocketSessionRegistry sessionRegistry;
+
+    @Autowired
+    private NotificationTopics notificationTopics;
+
+    // Igual que en JwtAuthenticationFilter: construir el usuario sólo con los claims del token
+    @Value("${jwt.trusted-claims.enabled:false}")
+    private boolean trustedClaims;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        // Accessor mutable del propio mensaje, para que el usuario asignado quede en la sesión
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            authenticate(accessor);
+            return message;
+        }
+        // Resto de frames: sin criptografía ni base de datos, sólo la expiración del token
+        if (sessionRegistry.isExpired(accessor.getSessionId())) {
+            sessionRegistry.close(accessor.getSessionId());
+            throw new MessageDeliveryException(message, "El token de la sesión WebSocket ha expirado.");
+        }
+        if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            authorizeSubscription(message, accessor);
+        }
+        return message;
+    }
+
+    /**
+     * Comprueba, con el usuario ya asociado a la sesión, que pueda suscribirse a un topic (ver
+     * {@link NotificationTopics#canSubscribe}). Se rechazan los destinos con patrones, ya que el
+     * broker los interpreta como comodines (`/topic/**` recibiría todas las particiones).
+     *
+     * @param message el frame SUBSCRIBE.
+     * @param accessor sus cabeceras.
+     */
+    private void authorizeSubscription(Message<?> message, StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination != null && PATTERN_CHARS.matcher(destination).find()) {
+            logger.warn("Suscripción con comodines denegada a {} para la sesión {}", destination, accessor.getSessionId());
+            throw new MessageDeliveryException(message, "Suscripción no permitida: " + destination);
+        }
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)) {
+            return;
+        }
+        Authentication authentication = accessor.getUser() instanceof Authentication auth ? auth : null;
+        if (!notificationTopics.canSubscribe(destination, authentication)) {
+            logger.warn("Suscripción denegada a {} para la sesión {}", destination, accessor.getSessionId());
+            throw new MessageDeliveryException(message, "Suscripción no permitida: " + destination);
+        }
+    }
+
+    /**
+     * Verifica el token del frame CONNECT y asocia el usuario autenticado a la sesión. Las
+     * conexiones sin token se aceptan como anónimas; las que traen un token no válido se rechazan.
+     *
+     * @param accessor cabeceras del frame CONNECT.
+     */
+    private void authenticate(StompHeaderAccessor accessor) {
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            logger.debug("Conexión WebSocket sin token: sesión anónima.");
+            return;
+        }
+
+        Claims claims;
+        try {
+            claims = jwtUtil.extractAllClaims(header.substring(7));
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.warn("Token no válido en la conexión WebSocket: {}", e.getMessage());
+            throw new MessageDeliveryException("Token no válido.");
+        }
+        if (tokenRevocationService.isRevoked(claims.getId())) {
+            throw new MessageDeliveryException("Token revocado.");
+        }
+
+        String username = claims.getSubject();
+        UserDetails userDetails;
+        if (trustedClaims) {
+            if (!userStatusCache.isTokenAllowed(username, claims.getIssuedAt())) {
+                throw new MessageDeliveryException("Token no válido para el usuario.");
+            }
+            userDetails = User.withUsername(username).password("").authorities(List.of()).build();
+        } else {
+            userDetails = userDetailsService.loadUserByUsername(username);
+        }
+
+        List<?> roles = claims.get("roles", List.class);
+        List<SimpleGrantedAuthority> authorities = roles == null ? List.of() : roles.stream()
+                .map(String::valueOf)
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+        accessor.setUser(new UsernamePasswordAuthenticationToken(userDetails, null, authorities));
+        sessionRegistry.expireAt(accessor.getSessionId(), claims.getExpiration().getTime());
+
+        logger.info("Usuario {} autenticado en WebSocket con roles {}", username, roles);
+    }
+}
@@ -0,0 +1,138 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Construye los ejecutores de los canales STOMP de entrada y salida a partir de su
+ * configuración, con métricas de saturación etiquetadas por canal:
+ * <ul>
+ *     <li>{@code websocket.channel.queue}: mensajes en cola (sólo pools de hilos de plataforma).</li>
+ *     <li>{@code websocket.channel.active}: mensajes procesándose en este momento.</li>
+ *     <li>{@code websocket.channel.wait} y {@code websocket.channel.execution}: tiempo en cola y de proceso.</li>
+ *     <li>{@code websocket.channel.rejected}: mensajes rechazados por el pool.</li>
+ * </ul>
+ */
+public final class StompChannelExecutors {
+
+    private StompChannelExecutors() {
+    }
+
+    /**
+     * Configuración de un canal.
+     *
+     * @param mode platform (pool acotado) o virtual (un hilo virtual por mensaje).
+     * @param corePoolSize hilos mínimos del pool.
+     * @param maxPoolSize hilos máximos del pool; los extra sólo se crean con la cola llena.
+     * @param queueCapacity mensajes que pueden esperar en cola.
+     * @param rejectionPolicy abort, caller-runs, discard o discard-oldest.
+     * @param maxConcurrency en modo virtual, mensajes procesándose a la vez (-1 sin límite).
+     */
+    public record Settings(String mode, int corePoolSize, int maxPoolSize, int queueCapacity,
+                           String rejectionPolicy, int maxConcurrency) {
+    }
+
+    /**
+     * Crea el ejecutor de un canal y registra sus métricas.
+     *
+     * @param channel nombre del canal para los hilos y las etiquetas (inbound, outbound).
+     * @param settings configuración del canal.
+     * @param meterRegistry registro de métricas.
+     * @return el ejecutor, todavía sin inicializar si es un pool (lo inicializa Spring).
+     */
+    public static Executor create(String channel, Settings settings, MeterRegistry meterRegistry) {
+        TaskDecorator decorator = timing(channel, meterRegistry);
+        switch (settings.mode()) {
+            case "virtual" -> {
+                SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ws-" + channel + "-");
+                executor.setVirtualThreads(true);
+                executor.setTaskDecorator(decorator);
+                // Con límite, el emisor espera cuando se alcanza: contrapresión sin cola
+                executor.setConcurrencyLimit(settings.maxConcurrency());
+                return executor;
+            }
+            case "platform" -> {
+                ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+                executor.setThreadNamePrefix("ws-" + channel + "-");
+                executor.setCorePoolSize(settings.corePoolSize());
+                executor.setMaxPoolSize(Math.max(settings.corePoolSize(), settings.maxPoolSize()));
+                executor.setQueueCapacity(settings.queueCapacity());
+                executor.setTaskDecorator(decorator);
+                executor.setRejectedExecutionHandler(counting(channel, settings.rejectionPolicy(), meterRegistry));
+                Gauge.builder("websocket.channel.queue", executor, pool -> pool.getThreadPoolExecutor().getQueue().size())
+                        .description("Mensajes en cola en el canal STOMP")
+                        .tag("channel", channel)
+                        .register(meterRegistry);
+                return executor;
+            }
+            default -> throw new IllegalArgumentException("Modo de ejecutor no válido para " + channel + ": " + settings.mode());
+        }
+    }
+
+    /**
+     * Decorador que mide el tiempo que cada mensaje pasa en cola y procesándose, y cuenta los
+     * mensajes en proceso.
+     */
+    private static TaskDecorator timing(String channel, MeterRegistry meterRegistry) {
+        Timer wait = Timer.builder("websocket.channel.wait")
+                .description("Tiempo en cola de los mensajes del canal STOMP")
+                .tag("channel", channel)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Timer execution = Timer.builder("websocket.channel.execution")
+                .description("Tiempo de proceso de los mensajes del canal STOMP")
+                .tag("channel", channel)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        AtomicInteger active = new AtomicInteger();
+        Gauge.builder("websocket.channel.active", active, AtomicInteger::get)
+                .description("Mensajes procesándose en el canal STOMP")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        return task -> {
+            long submitted = System.nanoTime();
+            return () -> {
+                wait.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                active.incrementAndGet();
+                try {
+                    execution.record(task);
+                } finally {
+                    active.decrementAndGet();
+                }
+            };
+        };
+    }
+
+    /**
+     * Política de rechazo configurada que además cuenta los rechazos.
+     */
+    private static RejectedExecutionHandler counting(String channel, String policy, MeterRegistry meterRegistry) {
+        RejectedExecutionHandler delegate = switch (policy) {
+            case "abort" -> new ThreadPoolExecutor.AbortPolicy();
+            case "caller-runs" -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case "discard" -> new ThreadPoolExecutor.DiscardPolicy();
+            case "discard-oldest" -> new ThreadPoolExecutor.DiscardOldestPolicy();
+            default -> throw new IllegalArgumentException("Política de rechazo no válida para " + channel + ": " + policy);
+        };
+        Counter rejected = Counter.builder("websocket.channel.rejected")
+                .description("Mensajes que no cabían en el pool del canal STOMP")
+                .tag("channel", channel)
+                .tag("policy", policy)
+                .register(meterRegistry);
+        return (runnable, executor) -> {
+            rejected.increment();
+            delegate.rejectedExecution(runnable, executor);
+        };
+    }
+}
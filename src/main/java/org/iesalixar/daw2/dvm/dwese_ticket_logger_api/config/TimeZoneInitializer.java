@@ -0,0 +1,34 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.time.ZoneId;
+import java.util.TimeZone;
+
+/**
+ * Fija la zona horaria por defecto de la JVM a partir de `app.time-zone` en cuanto el entorno
+ * está preparado, antes de crear el DataSource o cualquier bean.
+ *
+ * Los tickets guardan la fecha en una columna DATETIME sin zona: el driver la convierte con la
+ * zona por defecto de la JVM, y el día de cada ticket se calcula con esa misma zona tanto en los
+ * agregados incrementales como en `DATE(t.date)` al reconstruirlos. Fijarla evita que dos
+ * instancias con zonas distintas asignen el mismo ticket a días diferentes.
+ */
+public class TimeZoneInitializer implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimeZoneInitializer.class);
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        String zone = event.getEnvironment().getProperty("app.time-zone");
+        if (zone == null || zone.isBlank()) {
+            return;
+        }
+        // ZoneId.of falla con una zona desconocida, en lugar de usar GMT como TimeZone.getTimeZone
+        TimeZone.setDefault(TimeZone.getTimeZone(ZoneId.of(zone)));
+        logger.info("Zona horaria de la aplicación: {}", zone);
+    }
+}
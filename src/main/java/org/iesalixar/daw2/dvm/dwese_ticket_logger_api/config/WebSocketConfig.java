@@ -1,26 +1,23 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
 
-import java.util.List;
-import io.jsonwebtoken.Claims;
-import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.CustomUserDetailsService;
-import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.messaging.Message;
-import org.springframework.messaging.MessageChannel;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
-import org.springframework.messaging.support.ChannelInterceptor;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -29,10 +26,96 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     private static final Logger logger = LoggerFactory.getLogger(WebSocketConfig.class);
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private StompAuthChannelInterceptor stompAuthChannelInterceptor;
 
     @Autowired
-    private CustomUserDetailsService userDetailsService;
+    private WebSocketSessionRegistry sessionRegistry;
+
+    // Planificador de Spring para el broker; se usa para los heartbeats del broker simple
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Nodo del modo local-cluster; sólo existe con ese modo
+    @Autowired
+    private ObjectProvider<LocalClusterNode> localClusterNode;
+
+    // Broker de mensajes: simple (en memoria, un solo nodo), relay (broker STOMP externo) o
+    // local-cluster (varios nodos en la misma JVM, para pruebas de carga)
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    // Conexión con el broker STOMP externo (modo relay)
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    // Ejecutor del canal de entrada (frames de los clientes): platform o virtual
+    @Value("${websocket.inbound.mode:platform}")
+    private String inboundMode;
+
+    @Value("${websocket.inbound.pool-size:8}")
+    private int inboundPoolSize;
+
+    @Value("${websocket.inbound.max-pool-size:16}")
+    private int inboundMaxPoolSize;
+
+    @Value("${websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${websocket.inbound.rejection-policy:abort}")
+    private String inboundRejectionPolicy;
+
+    @Value("${websocket.inbound.max-concurrency:-1}")
+    private int inboundMaxConcurrency;
+
+    // Ejecutor del canal de salida (mensajes hacia los clientes): platform o virtual
+    @Value("${websocket.outbound.mode:platform}")
+    private String outboundMode;
+
+    @Value("${websocket.outbound.pool-size:8}")
+    private int outboundPoolSize;
+
+    @Value("${websocket.outbound.max-pool-size:16}")
+    private int outboundMaxPoolSize;
+
+    @Value("${websocket.outbound.queue-capacity:100000}")
+    private int outboundQueueCapacity;
+
+    @Value("${websocket.outbound.rejection-policy:caller-runs}")
+    private String outboundRejectionPolicy;
+
+    @Value("${websocket.outbound.max-concurrency:-1}")
+    private int outboundMaxConcurrency;
+
+    // Límites por sesión: un cliente lento que los supera se desconecta en lugar de bloquear al resto
+    @Value("${websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+
+    @Value("${websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    // Intervalo de heartbeat (ms) en ambos sentidos; detecta clientes caídos
+    @Value("${websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -42,54 +125,76 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/queue", "/topic");
+        switch (brokerMode) {
+            case "relay" -> {
+                logger.info("Broker STOMP externo en {}:{}", relayHost, relayPort);
+                StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/queue", "/topic")
+                        .setRelayHost(relayHost)
+                        .setRelayPort(relayPort)
+                        .setClientLogin(relayLogin)
+                        .setClientPasscode(relayPasscode)
+                        .setSystemLogin(relayLogin)
+                        .setSystemPasscode(relayPasscode)
+                        .setSystemHeartbeatSendInterval(heartbeatMs)
+                        .setSystemHeartbeatReceiveInterval(heartbeatMs);
+                if (!relayVirtualHost.isBlank()) {
+                    relay.setVirtualHost(relayVirtualHost);
+                }
+                // Los mensajes a /user/... sin sesión local se difunden al resto de nodos por el broker
+                relay.setUserDestinationBroadcast("/topic/unresolved-user-destination");
+                relay.setUserRegistryBroadcast("/topic/simp-user-registry");
+            }
+            case "local-cluster" -> {
+                logger.info("Broker simple con reenvío entre nodos de la JVM (local-cluster)");
+                enableSimpleBroker(registry);
+                registry.configureBrokerChannel().interceptors(localClusterNode.getObject());
+            }
+            case "simple" -> enableSimpleBroker(registry);
+            default -> throw new IllegalArgumentException("Modo de broker no válido: " + brokerMode);
+        }
         registry.setUserDestinationPrefix("/user");
     }
 
-    @Override
-    public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors (new ChannelInterceptor() {
-            @Override
-            public Message<?> preSend(Message<?> message, MessageChannel channel) {
-                StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
-                String token = accessor.getFirstNativeHeader("Authorization");
-
-                logger.info("WebSocket intentando autenticar...");
-
-                if (token != null && token.startsWith("Bearer ")) {
-                    token = token.substring(7);
-                    String username = jwtUtil.extractUsername(token);
-
-                    logger.info("Token recibido en WebSocket: " + token);
-                    logger.info("Usuario extraído del token: " + username);
-
-                    if (jwtUtil.validateToken(token, username)) {
-                        var userDetails = userDetailsService.loadUserByUsername(username);
-                        Claims claims = jwtUtil.extractAllClaims(token);
-                        List<String> roles = claims.get("roles", List.class);
-
-                        logger.info("✔ Usuario autenticado en WebSocket: " + username + "con roles: " + roles);
-
-                        List<SimpleGrantedAuthority> authorities = roles.stream()
-                                .map(SimpleGrantedAuthority::new)
-                                .toList();
-
-                        UsernamePasswordAuthenticationToken authToken =
-                                new UsernamePasswordAuthenticationToken (userDetails, null, authorities);
+    /**
+     * Activa el broker simple en memoria con heartbeats en ambos sentidos.
+     */
+    private void enableSimpleBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/queue", "/topic")
+                .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                .setTaskScheduler(messageBrokerTaskScheduler);
+    }
 
-                        SecurityContextHolder.getContext().setAuthentication (authToken);
+    /**
+     * Canal de salida hacia los clientes. Con un pool de plataforma, la cola absorbe las ráfagas
+     * de difusión y, llena, la política caller-runs frena al broker en lugar de perder mensajes.
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.executor(StompChannelExecutors.create("outbound",
+                new StompChannelExecutors.Settings(outboundMode, outboundPoolSize, outboundMaxPoolSize,
+                        outboundQueueCapacity, outboundRejectionPolicy, outboundMaxConcurrency),
+                meterRegistry));
+    }
 
-                        accessor.setUser(authToken);
-                    } else {
-                        logger.warn("X Token inválido en WebSocket para el usuario: " + username);
-                    }
-                } else {
-                    logger.warn("▲ No se encontró un token en la conexión WebSocket.");
-                }
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(sessionRegistry); // Registro de sesiones para cerrar las expiradas
+    }
 
-                return message;
-            }
-        });
+    /**
+     * Canal de entrada desde los clientes, con su ejecutor configurable.
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.executor(StompChannelExecutors.create("inbound",
+                new StompChannelExecutors.Settings(inboundMode, inboundPoolSize, inboundMaxPoolSize,
+                        inboundQueueCapacity, inboundRejectionPolicy, inboundMaxConcurrency),
+                meterRegistry));
+        // Autenticación en el CONNECT; el resto de frames sólo comprueba la expiración
+        registration.interceptors(stompAuthChannelInterceptor);
     }
 }
 
@@ -3,6 +3,7 @@ package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -18,8 +19,13 @@ public class WebSocketSecurityConfig {
         http
                 .securityMatcher("/ws/**")
                 .authorizeHttpRequests(auth -> auth
+                        // Creación de notificaciones, individual o masiva: sólo ADMIN
+                        .requestMatchers(HttpMethod.POST, "/ws/notifications", "/ws/notifications/batch").hasRole("ADMIN")
+                        // Destinos de suscripción: los anónimos reciben sólo la difusión general
+                        .requestMatchers("/ws/notifications/topics").permitAll()
+                        .requestMatchers("/ws/notifications", "/ws/notifications/**").authenticated()
+                        // Handshake de STOMP: la autenticación se comprueba en el frame CONNECT
                         .anyRequest().permitAll()
-
                 )
                 .csrf(csrf -> csrf.disable())
                 .headers(headers -> headers.frameOptions(frame -> frame.disable()))
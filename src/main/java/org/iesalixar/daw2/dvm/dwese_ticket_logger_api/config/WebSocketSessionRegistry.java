@@ -0,0 +1,106 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de las sesiones WebSocket abiertas en este nodo y de la expiración del token con
+ * el que se autenticó cada una.
+ *
+ * Las tramas STOMP de una sesión con el token expirado se rechazan (ver
+ * {@link StompAuthChannelInterceptor}); además, una tarea periódica con la cadencia del
+ * heartbeat cierra las sesiones expiradas aunque no envíen nada.
+ */
+@Component
+public class WebSocketSessionRegistry implements WebSocketHandlerDecoratorFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketSessionRegistry.class);
+
+    // Sesiones abiertas: identificador → sesión
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    // Expiración (epoch ms) del token de cada sesión autenticada
+    private final Map<String, Long> expirations = new ConcurrentHashMap<>();
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                expirations.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Guarda la expiración del token con el que se ha autenticado una sesión.
+     *
+     * @param sessionId identificador de la sesión WebSocket.
+     * @param expiresAtMillis expiración del token (epoch ms).
+     */
+    public void expireAt(String sessionId, long expiresAtMillis) {
+        expirations.put(sessionId, expiresAtMillis);
+    }
+
+    /**
+     * Indica si el token de una sesión ha expirado. Las sesiones sin autenticar no expiran.
+     *
+     * @param sessionId identificador de la sesión WebSocket.
+     * @return true si la sesión se autenticó con un token ya expirado.
+     */
+    public boolean isExpired(String sessionId) {
+        Long expiresAt = sessionId == null ? null : expirations.get(sessionId);
+        return expiresAt != null && expiresAt <= System.currentTimeMillis();
+    }
+
+    /**
+     * Cierra las sesiones cuyo token ha expirado. Se ejecuta con la cadencia del heartbeat.
+     */
+    @Scheduled(fixedDelayString = "${websocket.heartbeat-ms:10000}")
+    public void closeExpired() {
+        long now = System.currentTimeMillis();
+        expirations.forEach((sessionId, expiresAt) -> {
+            if (expiresAt <= now) {
+                close(sessionId);
+            }
+        });
+    }
+
+    /**
+     * Cierra una sesión por expiración de su token.
+     *
+     * @param sessionId identificador de la sesión WebSocket.
+     */
+    public void close(String sessionId) {
+        expirations.remove(sessionId);
+        WebSocketSession session = sessions.remove(sessionId);
+        if (session == null || !session.isOpen()) {
+            return;
+        }
+        try {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Token expirado"));
+            logger.info("Sesión WebSocket {} cerrada por expiración del token", sessionId);
+        } catch (IOException e) {
+            logger.warn("No se pudo cerrar la sesión WebSocket {}: {}", sessionId, e.getMessage());
+        }
+    }
+}
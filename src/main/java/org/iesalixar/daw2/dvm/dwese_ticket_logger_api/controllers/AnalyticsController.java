@@ -0,0 +1,130 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.SpendAggregateDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.SpendAnalyticsRepository.Dimension;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.SpendAnalyticsRepository.TimeBucket;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.SpendAnalyticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsController.class);
+
+    @Autowired
+    private SpendAnalyticsService spendAnalyticsService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Segundos durante los que el cliente puede reutilizar una respuesta de analítica
+    @Value("${analytics.cache.max-age-seconds:300}")
+    private long cacheMaxAgeSeconds;
+
+    /**
+     * Obtiene el gasto agregado por periodo de tiempo y, opcionalmente, por supermercado,
+     * provincia, región y/o categoría.
+     *
+     * La respuesta incluye un ETag derivado de la versión de los datos de la analítica: si el
+     * cliente envía `If-None-Match` con el mismo valor se devuelve 304 sin ejecutar la consulta.
+     *
+     * @param from Primer día incluido (formato ISO, p. ej. 2024-01-01).
+     * @param to Último día incluido (formato ISO).
+     * @param bucket Periodo de agrupación: DAY, WEEK o MONTH.
+     * @param groupBy Dimensiones adicionales separadas por comas: SUPERMARKET, PROVINCE, REGION, CATEGORY.
+     * @param request Petición web, usada para resolver la caché condicional.
+     * @return ResponseEntity con los grupos de gasto o un mensaje de error.
+     */
+    @GetMapping("/spend")
+    public ResponseEntity<?> getSpend(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "MONTH") TimeBucket bucket,
+            @RequestParam(required = false) List<Dimension> groupBy,
+            WebRequest request) {
+        logger.info("Solicitando el gasto entre {} y {}...", from, to);
+        try {
+            String etag = spendAnalyticsService.getSpendETag(from, to, bucket, groupBy);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            List<SpendAggregateDTO> spend = spendAnalyticsService.getSpend(from, to, bucket, groupBy);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate())
+                    .eTag(etag)
+                    .body(spend);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Parámetros de analítica no válidos: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al calcular el gasto: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al calcular el gasto.");
+        }
+    }
+
+    /**
+     * Vuelca el gasto agregado en formato NDJSON (un grupo JSON por línea), a medida que la
+     * base de datos devuelve las filas.
+     *
+     * @param from Primer día incluido (formato ISO).
+     * @param to Último día incluido (formato ISO).
+     * @param bucket Periodo de agrupación: DAY, WEEK o MONTH.
+     * @param groupBy Dimensiones adicionales separadas por comas.
+     * @return ResponseEntity con el cuerpo de la respuesta en streaming o un mensaje de error.
+     */
+    @GetMapping(value = "/spend/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> streamSpend(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") TimeBucket bucket,
+            @RequestParam(required = false) List<Dimension> groupBy) {
+        logger.info("Solicitando el volcado NDJSON del gasto entre {} y {}...", from, to);
+        try {
+            // Validar antes de empezar a escribir, para poder responder con 400
+            spendAnalyticsService.validate(from, to, groupBy);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Parámetros de analítica no válidos: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                spendAnalyticsService.streamSpend(from, to, bucket, groupBy, aggregate -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(aggregate));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                outputStream.flush();
+            } catch (UncheckedIOException e) {
+                // El cliente ha cerrado la conexión antes de terminar el volcado
+                logger.warn("Volcado de gasto interrumpido: {}", e.getMessage());
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .cacheControl(CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate())
+                .body(body);
+    }
+}
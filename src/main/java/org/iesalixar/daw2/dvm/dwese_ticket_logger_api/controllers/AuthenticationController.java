@@ -1,23 +1,39 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.controllers;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.AuthRequestDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.AuthResponseDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.RefreshRequestDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.CustomUserDetailsService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.LoginRateLimiter;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.PasswordHashingService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.RefreshTokenService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.TokenRevocationService;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controlador responsable de gestionar las solicitudes relacionadas con la autenticación.
@@ -33,22 +49,68 @@ public class AuthenticationController {
     @Autowired
     private JwtUtil jwtUtil; // Utilidad personalizada para manejar tokens JWT
 
+    @Autowired
+    private RefreshTokenService refreshTokenService; // Emisión y rotación de tokens de refresco
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService; // Revocación de tokens de acceso
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService; // Carga los roles actuales al refrescar
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter; // Límite de intentos de login por usuario e IP
+
+    @Autowired
+    private PasswordHashingService passwordHashingService; // Pool acotado para BCrypt
+
+    // Segundos indicados en Retry-After cuando el pool de BCrypt está saturado
+    @Value("${auth.hashing.retry-after-seconds:1}")
+    private long overloadedRetryAfter;
+
     /**
      * Endpoint para autenticar usuarios.
      * Este método valida las credenciales proporcionadas y, si son correctas,
      * genera un token JWT que incluye información del usuario y sus roles.
      *
+     * Antes de verificar la contraseña se aplica el límite de intentos por usuario e IP; la
+     * verificación (BCrypt) se ejecuta en el pool dedicado, liberando el hilo de Tomcat. Si se
+     * supera el límite o el pool está saturado se responde 429 con la cabecera Retry-After.
+     *
      * @param authRequest Un objeto {@link AuthRequestDTO} que contiene el nombre de usuario y la contraseña.
+     * @param request La petición HTTP, de la que se obtiene la IP del cliente.
      * @return Una respuesta HTTP con un token JWT en caso de éxito o un error en caso de fallo.
      */
     @PostMapping("/authenticate")
-    public ResponseEntity<AuthResponseDTO> authenticate(@Valid @RequestBody AuthRequestDTO authRequest) {
+    public CompletableFuture<ResponseEntity<AuthResponseDTO>> authenticate(@Valid @RequestBody AuthRequestDTO authRequest,
+                                                                           HttpServletRequest request) {
+        // Validar datos de entrada (opcional si no usas validación adicional en DTO)
+        if (authRequest.getUsername() == null || authRequest.getPassword() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new AuthResponseDTO(null, "El nombre de usuario y la contraseña son obligatorios.")));
+        }
+        // Limitar los intentos por IP y por usuario antes de gastar tiempo en BCrypt
+        long retryAfter = loginRateLimiter.tryAcquire(authRequest.getUsername(), request.getRemoteAddr());
+        if (retryAfter > 0) {
+            return CompletableFuture.completedFuture(
+                    tooManyRequests(retryAfter, "Demasiados intentos de inicio de sesión. Inténtalo más tarde."));
+        }
+        try {
+            return passwordHashingService.submit(() -> doAuthenticate(authRequest));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(
+                    tooManyRequests(overloadedRetryAfter, "El servidor está ocupado. Inténtalo más tarde."));
+        }
+    }
+
+    /**
+     * Autentica las credenciales y genera los tokens. Se ejecuta en el pool de hash de contraseñas.
+     *
+     * @param authRequest Un objeto {@link AuthRequestDTO} que contiene el nombre de usuario y la contraseña.
+     * @return Una respuesta HTTP con un token JWT en caso de éxito o un error en caso de fallo.
+     */
+    private ResponseEntity<AuthResponseDTO> doAuthenticate(AuthRequestDTO authRequest) {
         try {
-            // Validar datos de entrada (opcional si no usas validación adicional en DTO)
-            if (authRequest.getUsername() == null || authRequest.getPassword() == null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(new AuthResponseDTO(null, "El nombre de usuario y la contraseña son obligatorios."));
-            }
             // Intenta autenticar al usuario con las credenciales proporcionadas
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword())
@@ -61,8 +123,10 @@ public class AuthenticationController {
                     .toList();
             // Genera un token JWT para el usuario autenticado, incluyendo sus roles
             String token = jwtUtil.generateToken(username, roles);
-            // Retorna una respuesta con el token JWT y un mensaje de éxito
-            return ResponseEntity.ok(new AuthResponseDTO(token, "Authentication successful"));
+            // Abre una nueva sesión de refresco para no repetir el login al expirar el token
+            String refreshToken = refreshTokenService.issue(username);
+            // Retorna una respuesta con el token JWT, el token de refresco y un mensaje de éxito
+            return ResponseEntity.ok(new AuthResponseDTO(token, "Authentication successful", refreshToken));
         } catch (BadCredentialsException e) {
             // Manejo de credenciales inválidas
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -74,6 +138,79 @@ public class AuthenticationController {
         }
     }
 
+
+    /**
+     * Construye una respuesta 429 con la cabecera Retry-After.
+     *
+     * @param retryAfterSeconds Segundos que debe esperar el cliente.
+     * @param message Mensaje de error.
+     * @return La respuesta HTTP.
+     */
+    private ResponseEntity<AuthResponseDTO> tooManyRequests(long retryAfterSeconds, String message) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(new AuthResponseDTO(null, message));
+    }
+
+    /**
+     * Endpoint para renovar el token de acceso sin volver a enviar las credenciales.
+     * El token de refresco presentado se invalida y se entrega uno nuevo (rotación); si se
+     * presenta un token ya usado, se revoca toda la sesión.
+     *
+     * @param refreshRequest Un objeto {@link RefreshRequestDTO} con el token de refresco.
+     * @return Una respuesta HTTP con el nuevo token JWT y el nuevo token de refresco, o un error.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponseDTO> refresh(@RequestBody RefreshRequestDTO refreshRequest) {
+        if (refreshRequest == null || refreshRequest.getRefreshToken() == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new AuthResponseDTO(null, "El token de refresco es obligatorio."));
+        }
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshRequest.getRefreshToken());
+            // Los roles se leen de nuevo para reflejar cambios desde el último login
+            UserDetails user = userDetailsService.loadUserByUsername(rotation.getUsername());
+            if (!user.isEnabled()) {
+                refreshTokenService.revoke(rotation.getRefreshToken());
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new AuthResponseDTO(null, "El usuario está deshabilitado."));
+            }
+            List<String> roles = user.getAuthorities().stream()
+                    .map(authority -> authority.getAuthority())
+                    .toList();
+            String token = jwtUtil.generateToken(user.getUsername(), roles);
+            return ResponseEntity.ok(new AuthResponseDTO(token, "Token refreshed", rotation.getRefreshToken()));
+        } catch (IllegalArgumentException | UsernameNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new AuthResponseDTO(null, e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint para cerrar la sesión: revoca el token de acceso enviado en la cabecera
+     * Authorization hasta su expiración y, si se incluye, la sesión del token de refresco.
+     *
+     * @param authHeader Cabecera Authorization con el token de acceso (opcional).
+     * @param refreshRequest Un objeto {@link RefreshRequestDTO} con el token de refresco (opcional).
+     * @return Una respuesta HTTP 204 sin contenido.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                       @RequestBody(required = false) RefreshRequestDTO refreshRequest) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            try {
+                Claims claims = jwtUtil.extractAllClaims(authHeader.substring(7));
+                tokenRevocationService.revoke(claims.getId(), claims.getExpiration());
+            } catch (JwtException | IllegalArgumentException e) {
+                // El token ya no es válido: no hace falta revocarlo
+            }
+        }
+        if (refreshRequest != null && refreshRequest.getRefreshToken() != null) {
+            refreshTokenService.revoke(refreshRequest.getRefreshToken());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Maneja excepciones no controladas que puedan ocurrir en el controlador.
      *
@@ -0,0 +1,49 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.controllers;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.SuggestionDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.AutocompleteService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/autocomplete")
+public class AutocompleteController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteController.class);
+
+    @Autowired
+    private AutocompleteService autocompleteService;
+
+    /**
+     * Obtiene las sugerencias más usadas que empiezan por el texto escrito.
+     *
+     * Se llama en cada pulsación, por lo que sólo registra los errores.
+     *
+     * @param type Tipo de elemento: `products`, `locations` o `supermarkets`.
+     * @param q Texto escrito por el usuario.
+     * @param limit Número máximo de sugerencias (opcional).
+     * @return ResponseEntity con las sugerencias o un mensaje de error.
+     */
+    @GetMapping("/{type}")
+    public ResponseEntity<?> suggest(
+            @PathVariable String type,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            List<SuggestionDTO> suggestions = autocompleteService.suggest(AutocompleteService.Type.fromPath(type), q, limit);
+            return ResponseEntity.ok(suggestions);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error en el autocompletado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al obtener las sugerencias de {}: {}", type, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al obtener las sugerencias.");
+        }
+    }
+}
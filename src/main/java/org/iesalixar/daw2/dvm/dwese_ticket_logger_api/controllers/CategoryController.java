@@ -3,7 +3,11 @@ package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.controllers;
 import jakarta.validation.Valid;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.CategoryCreateDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.CategoryDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.CategoryTreeNodeDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ParentCategoryDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.CategoryService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.CategoryTreeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +28,9 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private CategoryTreeService categoryTreeService;
+
     /**
      * Lista todas las categorías.
      *
@@ -42,6 +49,24 @@ public class CategoryController {
         }
     }
 
+    /**
+     * Obtiene el árbol completo de categorías en una única respuesta.
+     *
+     * @return ResponseEntity con las categorías raíz y sus subcategorías anidadas.
+     */
+    @GetMapping("/tree")
+    public ResponseEntity<List<CategoryTreeNodeDTO>> getCategoryTree() {
+        logger.info("Solicitando el árbol de categorías...");
+        try {
+            List<CategoryTreeNodeDTO> tree = categoryTreeService.getTree();
+            logger.info("Se han encontrado {} categorías raíz.", tree.size());
+            return ResponseEntity.ok(tree);
+        } catch (Exception e) {
+            logger.error("Error al obtener el árbol de categorías: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     /**
      * Obtiene una categoría específica por su ID.
      *
@@ -67,6 +92,49 @@ public class CategoryController {
         }
     }
 
+    /**
+     * Obtiene la ruta desde la categoría raíz hasta una categoría, ella incluida.
+     *
+     * @param id ID de la categoría.
+     * @return ResponseEntity con las categorías de la ruta o un mensaje de error si no existe.
+     */
+    @GetMapping("/{id}/path")
+    public ResponseEntity<?> getCategoryPath(@PathVariable Long id) {
+        logger.info("Buscando la ruta de la categoría con ID {}", id);
+        try {
+            List<ParentCategoryDTO> path = categoryTreeService.getPath(id);
+            return ResponseEntity.ok(path);
+        } catch (IllegalArgumentException e) {
+            logger.warn("No se encontró ninguna categoría con ID {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al buscar la ruta de la categoría con ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al buscar la categoría.");
+        }
+    }
+
+    /**
+     * Lista los productos de una categoría y de todas sus subcategorías.
+     *
+     * @param id ID de la categoría raíz del subárbol.
+     * @return ResponseEntity con los productos o un mensaje de error si la categoría no existe.
+     */
+    @GetMapping("/{id}/products")
+    public ResponseEntity<?> getProductsInSubtree(@PathVariable Long id) {
+        logger.info("Buscando los productos del subárbol de la categoría con ID {}", id);
+        try {
+            List<ProductDTO> products = categoryTreeService.getProductsInSubtree(id);
+            logger.info("Se han encontrado {} productos.", products.size());
+            return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            logger.warn("No se encontró ninguna categoría con ID {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al buscar los productos de la categoría con ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al buscar los productos.");
+        }
+    }
+
     /**
      * Crea una nueva categoría.
      *
@@ -1,13 +1,25 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.controllers;
 
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationBulkResultDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationCreateDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationPageDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationReadRequestDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/ws/notifications")
 public class NotificationController {
@@ -16,12 +28,106 @@ public class NotificationController {
     private NotificationService notificationService;
 
     @GetMapping
-    public Flux<NotificationDTO> getAllNotifications() {
-        return notificationService.getAllNotifications();
+    public Flux<NotificationDTO> getAllNotifications(Authentication authentication) {
+        return notificationService.getAllNotifications(authentication);
+    }
+
+    /**
+     * Feed de notificaciones paginado por cursor y filtrable. Sólo incluye las notificaciones que
+     * puede recibir el usuario autenticado: las generales, las suyas, las de sus roles y las de
+     * los segmentos que pida.
+     *
+     * @param cursor Cursor opaco de la página anterior (opcional).
+     * @param size Tamaño de página (opcional, limitado al máximo configurado).
+     * @param read Sólo leídas (true) o no leídas (false) (opcional).
+     * @param recipientType Tipo de destinatario (opcional).
+     * @param recipient Destinatario (opcional).
+     * @param authentication el usuario autenticado.
+     * @return la página de notificaciones.
+     */
+    @GetMapping("/feed")
+    public Mono<NotificationPageDTO> getFeed(@RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer size,
+                                             @RequestParam(required = false) Boolean read,
+                                             @RequestParam(required = false) NotificationRecipientType recipientType,
+                                             @RequestParam(required = false) String recipient,
+                                             Authentication authentication) {
+        return notificationService.getFeed(authentication, cursor, size, read, recipientType, recipient);
+    }
+
+    /**
+     * Modo "tail" del feed: envía por Server-Sent Events las notificaciones nuevas que cumplen
+     * los filtros, con el mismo alcance que el feed. Se combina con {@link #getFeed} para leer
+     * primero el historial.
+     *
+     * @param read Sólo leídas (true) o no leídas (false) (opcional).
+     * @param recipientType Tipo de destinatario (opcional).
+     * @param recipient Destinatario (opcional).
+     * @param authentication el usuario autenticado.
+     * @return flujo de eventos con las notificaciones nuevas.
+     */
+    @GetMapping(value = "/feed/tail", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<NotificationDTO>> tailFeed(@RequestParam(required = false) Boolean read,
+                                                          @RequestParam(required = false) NotificationRecipientType recipientType,
+                                                          @RequestParam(required = false) String recipient,
+                                                          Authentication authentication) {
+        return notificationService.tail(authentication, read, recipientType, recipient)
+                .map(notification -> ServerSentEvent.builder(notification)
+                        .id(notification.getId())
+                        .event("notification")
+                        .build());
     }
 
     @PostMapping
     public Mono<NotificationDTO> createNotifications(@RequestBody NotificationCreateDTO notificationCreateDTO) {
         return notificationService.saveNotification(notificationCreateDTO);
     }
+
+    /**
+     * Crea muchas notificaciones en una sola petición, con escrituras en bloque.
+     *
+     * @param notificationCreateDTOs las notificaciones.
+     * @return el resumen de la operación.
+     */
+    @PostMapping("/batch")
+    public Mono<NotificationBulkResultDTO> createNotificationsInBatch(@RequestBody List<NotificationCreateDTO> notificationCreateDTOs) {
+        return notificationService.saveNotifications(notificationCreateDTOs);
+    }
+
+    /**
+     * Marca como leídas varias notificaciones (por IDs) o todas las del usuario autenticado.
+     * Sólo se modifican las notificaciones dirigidas al propio usuario.
+     *
+     * @param request los IDs o el destinatario.
+     * @param authentication el usuario autenticado.
+     * @return el resumen de la operación.
+     */
+    @PatchMapping("/read")
+    public Mono<NotificationBulkResultDTO> markAsRead(@RequestBody NotificationReadRequestDTO request,
+                                                     Authentication authentication) {
+        return notificationService.markRead(request, authentication);
+    }
+
+    /**
+     * Devuelve los destinos STOMP a los que debe suscribirse el usuario autenticado.
+     *
+     * @param segments segmentos que interesan al cliente (opcional).
+     * @param authentication el usuario autenticado, o null si la petición es anónima.
+     * @return la lista de destinos.
+     */
+    @GetMapping("/topics")
+    public List<String> getSubscriptionTopics(@RequestParam(defaultValue = "") List<String> segments,
+                                              Authentication authentication) {
+        return notificationService.getSubscriptionDestinations(authentication, segments);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<String> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+    }
 }
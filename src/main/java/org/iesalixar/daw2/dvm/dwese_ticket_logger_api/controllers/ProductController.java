@@ -0,0 +1,149 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.controllers;
+
+import jakarta.validation.Valid;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductCreateDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductSearchPageDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.ProductSearchService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/products")
+public class ProductController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    /**
+     * Busca productos por nombre, con coincidencia por prefijo y aproximada, ordenados por relevancia.
+     *
+     * @param q Texto a buscar.
+     * @param categoryId Categoría por la que filtrar, incluidas sus subcategorías (opcional).
+     * @param page Número de página, empezando en 0 (opcional).
+     * @param size Tamaño de página (opcional, acotado al máximo configurado).
+     * @return ResponseEntity con la página de resultados o un mensaje de error.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchProducts(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        logger.info("Buscando productos con el texto '{}'...", q);
+        try {
+            ProductSearchPageDTO result = productSearchService.search(q, categoryId, page, size);
+            logger.info("Se han encontrado {} productos.", result.getTotalHits());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Parámetros de búsqueda no válidos: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al buscar productos: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al buscar productos.");
+        }
+    }
+
+    /**
+     * Obtiene un producto específico por su ID.
+     *
+     * @param id ID del producto solicitado.
+     * @return ResponseEntity con el producto encontrado o un mensaje de error si no existe.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getProductById(@PathVariable Long id) {
+        logger.info("Buscando producto con ID {}", id);
+        try {
+            Optional<ProductDTO> productDTO = productService.getProductById(id);
+
+            if (productDTO.isPresent()) {
+                logger.info("Producto con ID {} encontrado.", id);
+                return ResponseEntity.ok(productDTO.get());
+            } else {
+                logger.warn("No se encontró ningún producto con ID {}", id);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("El producto no existe.");
+            }
+        } catch (Exception e) {
+            logger.error("Error al buscar el producto con ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al buscar el producto.");
+        }
+    }
+
+    /**
+     * Crea un nuevo producto.
+     *
+     * @param createDTO DTO con los datos para crear el producto.
+     * @return ResponseEntity con el producto creado o un mensaje de error.
+     */
+    @PostMapping
+    public ResponseEntity<?> createProduct(@Valid @RequestBody ProductCreateDTO createDTO) {
+        logger.info("Creando un nuevo producto con nombre {}", createDTO.getName());
+        try {
+            ProductDTO createdProduct = productService.createProduct(createDTO);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error al crear el producto: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error inesperado al crear el producto: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al crear el producto.");
+        }
+    }
+
+    /**
+     * Actualiza un producto existente.
+     *
+     * @param id ID del producto a actualizar.
+     * @param updateDTO DTO con los datos para actualizar el producto.
+     * @return ResponseEntity con el producto actualizado o un mensaje de error.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updateProduct(
+            @PathVariable Long id,
+            @Valid @RequestBody ProductCreateDTO updateDTO) {
+        logger.info("Actualizando producto con ID {}", id);
+        try {
+            ProductDTO updatedProduct = productService.updateProduct(id, updateDTO);
+            return ResponseEntity.ok(updatedProduct);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error al actualizar el producto con ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error inesperado al actualizar el producto con ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al actualizar el producto.");
+        }
+    }
+
+    /**
+     * Elimina un producto por su ID.
+     *
+     * @param id ID del producto a eliminar.
+     * @return ResponseEntity con el resultado de la operación.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteProduct(@PathVariable Long id) {
+        logger.info("Eliminando producto con ID {}", id);
+        try {
+            productService.deleteProduct(id);
+            return ResponseEntity.ok("Producto eliminado con éxito.");
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error al eliminar el producto con ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error inesperado al eliminar el producto con ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al eliminar el producto.");
+        }
+    }
+}
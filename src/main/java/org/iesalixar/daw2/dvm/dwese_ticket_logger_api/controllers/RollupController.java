@@ -0,0 +1,78 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.controllers;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.RollupCheckDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.RollupRebuildDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.TicketRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/admin/rollups")
+public class RollupController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RollupController.class);
+
+    @Autowired
+    private TicketRollupService ticketRollupService;
+
+    /**
+     * Reconstruye los agregados diarios desde las tablas base. Sin fechas se reconstruye todo
+     * el rango con tickets; con fechas, sólo los días indicados.
+     *
+     * @param from Primer día a reconstruir (opcional, formato ISO).
+     * @param to Último día a reconstruir (opcional, formato ISO).
+     * @return ResponseEntity con el resumen de la reconstrucción o un mensaje de error.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        logger.info("Solicitando la reconstrucción de los agregados diarios...");
+        try {
+            RollupRebuildDTO result = (from == null && to == null)
+                    ? ticketRollupService.rebuildAll()
+                    : ticketRollupService.rebuild(from, to);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rango de reconstrucción no válido: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.warn("No se pudo reconstruir los agregados: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al reconstruir los agregados: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al reconstruir los agregados.");
+        }
+    }
+
+    /**
+     * Compara los agregados diarios de un rango de días con las tablas base.
+     *
+     * @param from Primer día a comprobar (formato ISO).
+     * @param to Último día a comprobar (formato ISO).
+     * @return ResponseEntity con el resultado de la comprobación o un mensaje de error.
+     */
+    @GetMapping("/check")
+    public ResponseEntity<?> check(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        logger.info("Comprobando los agregados diarios entre {} y {}...", from, to);
+        try {
+            RollupCheckDTO result = ticketRollupService.check(from, to);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rango de comprobación no válido: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al comprobar los agregados: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al comprobar los agregados.");
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.controllers;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.TicketBulkResponseDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.TicketCreateDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.TicketDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.TicketPageDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.TicketIngestionService;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.TicketService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Locale;
 
 @RestController
@@ -23,24 +33,80 @@ public class TicketController {
     @Autowired
     private TicketService ticketService;
 
+    @Autowired
+    private TicketIngestionService ticketIngestionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
-     * Lista todos los tickets almacenados en la base de datos.
+     * Lista los tickets mediante paginación por cursor.
+     *
+     * La primera página se solicita sin cursor; las siguientes enviando el `nextCursor`
+     * devuelto en la respuesta anterior.
      *
-     * @return ResponseEntity con la lista de tickets o un mensaje de error.
+     * @param cursor Cursor opaco de la página anterior (opcional).
+     * @param size Tamaño de página solicitado (opcional, acotado al máximo configurado).
+     * @param includeProducts Si es `false`, se devuelven los tickets con su total pero sin productos.
+     * @param categoryId Si se indica, sólo se devuelven los tickets con algún producto de esa
+     *                   categoría o de sus subcategorías (opcional).
+     * @return ResponseEntity con la página de tickets o un mensaje de error.
      */
     @GetMapping
-    public ResponseEntity<List<TicketDTO>> getAllTickets() {
-        logger.info("Solicitando la lista de todos los tickets...");
+    public ResponseEntity<?> getAllTickets(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "true") boolean includeProducts,
+            @RequestParam(required = false) Long categoryId) {
+        logger.info("Solicitando una página de tickets...");
         try {
-            List<TicketDTO> tickets = ticketService.getAllTickets();
-            logger.info("Se han encontrado {} tickets.", tickets.size());
-            return ResponseEntity.ok(tickets);
+            TicketPageDTO page = ticketService.getTicketPage(cursor, size, includeProducts, categoryId);
+            logger.info("Se han encontrado {} tickets.", page.getContent().size());
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Parámetros de paginación no válidos: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (Exception e) {
             logger.error("Error al listar los tickets: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al listar los tickets.");
         }
     }
 
+    /**
+     * Vuelca todos los tickets en formato NDJSON (un ticket JSON por línea).
+     *
+     * Los tickets se escriben en la respuesta a medida que se leen de la base de datos,
+     * por bloques, de forma que la memoria usada se mantiene constante con independencia
+     * del número de tickets almacenados.
+     *
+     * @return ResponseEntity con el cuerpo de la respuesta en streaming.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTickets() {
+        logger.info("Solicitando el volcado NDJSON de los tickets...");
+        StreamingResponseBody body = outputStream -> {
+            try {
+                ticketService.streamTickets(chunk -> {
+                    try {
+                        for (TicketDTO ticket : chunk) {
+                            outputStream.write(objectMapper.writeValueAsBytes(ticket));
+                            outputStream.write('\n');
+                        }
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // El cliente ha cerrado la conexión antes de terminar el volcado
+                logger.warn("Volcado de tickets interrumpido: {}", e.getMessage());
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * Obtiene un ticket específico por su ID.
      *
@@ -88,6 +154,38 @@ public class TicketController {
         }
     }
 
+    /**
+     * Crea tickets de forma masiva.
+     *
+     * Acepta tanto un array JSON de tickets como un flujo NDJSON (un ticket por línea). La
+     * entrada se lee de forma incremental y se procesa por bloques. Cada ticket se acepta o se
+     * rechaza de forma individual; si la carga supera el máximo de tickets por petición se
+     * rechaza entera sin crear ninguno (413). Si un bloque falla al guardarse, el resto de la
+     * carga continúa y la respuesta indica qué tickets no se han creado.
+     *
+     * @param request Petición HTTP cuyo cuerpo contiene los tickets.
+     * @param locale Idioma para los mensajes de error.
+     * @return ResponseEntity con el resultado de cada ticket o un mensaje de error.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> createTicketsInBulk(HttpServletRequest request, Locale locale) {
+        logger.info("Recibiendo una carga masiva de tickets...");
+        try (MappingIterator<TicketCreateDTO> tickets = objectMapper.readerFor(TicketCreateDTO.class)
+                .readValues(request.getInputStream())) {
+            TicketBulkResponseDTO response = ticketIngestionService.ingest(tickets, locale);
+            logger.info("Carga masiva procesada: {} creados, {} rechazados.", response.getCreated(), response.getRejected());
+            return ResponseEntity.ok(response);
+        } catch (TicketIngestionService.TooManyTicketsException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(e.getMessage());
+        } catch (RuntimeJsonMappingException | IOException e) {
+            logger.warn("Error al leer la carga masiva de tickets: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("El formato de los tickets no es válido.");
+        } catch (Exception e) {
+            logger.error("Error inesperado en la carga masiva de tickets: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error en la carga masiva de tickets.");
+        }
+    }
+
     /**
      * Actualiza un ticket existente.
      *
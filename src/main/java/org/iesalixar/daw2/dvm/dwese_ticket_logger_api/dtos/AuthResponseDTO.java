@@ -1,5 +1,6 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -9,5 +10,12 @@ public class AuthResponseDTO {
 
     private String token;
     private String message;
-}
 
+    // Token de refresco; sólo se incluye al iniciar sesión o al refrescar
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String refreshToken;
+
+    public AuthResponseDTO(String token, String message) {
+        this(token, message, null);
+    }
+}
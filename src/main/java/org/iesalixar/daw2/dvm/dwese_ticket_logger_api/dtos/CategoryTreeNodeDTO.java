@@ -0,0 +1,46 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clase DTO (Data Transfer Object) que representa una categoría dentro del árbol de categorías.
+ *
+ * Cada nodo incluye sus subcategorías, de modo que la jerarquía completa se obtiene en una
+ * única respuesta sin consultar las categorías nivel a nivel.
+ */
+@Getter
+@Setter
+public class CategoryTreeNodeDTO {
+
+    /**
+     * Identificador único de la categoría.
+     * Es el mismo ID que se encuentra en la entidad `Category` de la base de datos.
+     */
+    private Long id;
+
+    /**
+     * Nombre de la categoría.
+     * Ejemplo: "Lácteos", "Bebidas".
+     */
+    private String name;
+
+    /**
+     * Enlace a la imagen asociada con la categoría.
+     * Es una URL o ruta a la imagen.
+     */
+    private String image;
+
+    /**
+     * Profundidad de la categoría en el árbol (0 para las categorías raíz).
+     */
+    private int depth;
+
+    /**
+     * Subcategorías directas, ordenadas por nombre.
+     */
+    private List<CategoryTreeNodeDTO> children = new ArrayList<>();
+}
@@ -0,0 +1,28 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO (Data Transfer Object) con el resumen de una operación masiva sobre notificaciones
+ * (creación o marcado como leídas).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationBulkResultDTO {
+
+    /**
+     * Número de elementos recibidos en la petición (notificaciones o IDs).
+     */
+    private int received;
+
+    /**
+     * Número de notificaciones creadas o modificadas.
+     * <p>
+     * Al marcar como leídas no cuenta las que ya lo estaban.
+     * </p>
+     */
+    private long affected;
+}
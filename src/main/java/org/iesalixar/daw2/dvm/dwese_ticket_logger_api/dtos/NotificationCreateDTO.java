@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
 
 @Getter
 @Setter
@@ -13,4 +14,6 @@ public class NotificationCreateDTO {
     private String subject;
     private String message;
     private boolean read;
+    private NotificationRecipientType recipientType;
+    private String recipient;
 }
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
 
 import java.time.Instant;
 
@@ -16,5 +17,7 @@ public class NotificationDTO {
     private String subject;
     private String message;
     private boolean read;
+    private NotificationRecipientType recipientType;
+    private String recipient;
     private Instant createdAt;
 }
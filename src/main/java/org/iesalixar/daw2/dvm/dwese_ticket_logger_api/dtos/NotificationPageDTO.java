@@ -0,0 +1,43 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO (Data Transfer Object) que representa una página del feed de notificaciones obtenida
+ * mediante paginación por cursor.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationPageDTO {
+
+    /**
+     * Notificaciones de la página actual.
+     * <p>
+     * Ordenadas de más reciente a más antigua (por fecha de creación y, en caso de empate, por ID).
+     * </p>
+     */
+    private List<NotificationDTO> content;
+
+    /**
+     * Cursor opaco para solicitar la página siguiente.
+     * <p>
+     * Es `null` cuando no quedan más notificaciones por listar.
+     * </p>
+     */
+    private String nextCursor;
+
+    /**
+     * Indica si existen más notificaciones después de esta página.
+     */
+    private boolean hasNext;
+
+    /**
+     * Tamaño de página aplicado a la consulta.
+     */
+    private int size;
+}
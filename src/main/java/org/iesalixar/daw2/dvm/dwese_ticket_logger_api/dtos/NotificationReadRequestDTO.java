@@ -0,0 +1,33 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
+
+import java.util.List;
+
+/**
+ * DTO (Data Transfer Object) para marcar notificaciones como leídas, por IDs o todas las de
+ * un destinatario.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationReadRequestDTO {
+
+    /**
+     * IDs de las notificaciones a marcar. Si se indica, se ignoran los campos de destinatario.
+     */
+    private List<String> ids;
+
+    /**
+     * Tipo de destinatario cuyas notificaciones se marcan todas como leídas.
+     */
+    private NotificationRecipientType recipientType;
+
+    /**
+     * Destinatario cuyas notificaciones se marcan todas como leídas.
+     */
+    private String recipient;
+}
@@ -0,0 +1,49 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO (Data Transfer Object) utilizado para la creación y actualización de productos.
+ *
+ * Este DTO asegura que los datos necesarios para crear un producto
+ * sean válidos y cumplan con las mismas restricciones que la entidad `Product`.
+ */
+@Getter
+@Setter
+public class ProductCreateDTO {
+
+    /**
+     * Nombre del producto.
+     *
+     * - No puede estar vacío (`@NotEmpty`).
+     * - Entre 2 y 100 caracteres (`@Size(min = 2, max = 100)`).
+     *
+     * Ejemplo: "Leche entera", "Pan de molde".
+     */
+    @NotEmpty(message = "{msg.product.name.notEmpty}")
+    @Size(min = 2, max = 100, message = "{msg.product.name.size}")
+    private String name;
+
+    /**
+     * Precio del producto.
+     *
+     * - No puede ser nulo (`@NotNull`) ni negativo (`@PositiveOrZero`).
+     *
+     * Ejemplo: 1.50, 2.75.
+     */
+    @NotNull(message = "{msg.product.price.notNull}")
+    @PositiveOrZero(message = "{msg.product.price.positive}")
+    private BigDecimal price;
+
+    /**
+     * ID de la categoría del producto (opcional).
+     */
+    private Long categoryId;
+}
@@ -0,0 +1,48 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO (Data Transfer Object) que representa una página de resultados de la búsqueda de productos.
+ *
+ * Los productos se devuelven ordenados por relevancia: primero las coincidencias exactas de
+ * palabra, después las de prefijo y por último las aproximadas.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchPageDTO {
+
+    /**
+     * Productos de la página actual, de mayor a menor relevancia.
+     */
+    private List<ProductDTO> content;
+
+    /**
+     * Número de página (empezando en 0).
+     */
+    private int page;
+
+    /**
+     * Tamaño de página aplicado.
+     */
+    private int size;
+
+    /**
+     * Número de productos que coinciden con la búsqueda.
+     * <p>
+     * Si `totalHitsExact` es `false`, es un límite inferior: el recuento se detiene al superar
+     * un umbral para no recorrer todas las coincidencias de búsquedas muy generales.
+     * </p>
+     */
+    private long totalHits;
+
+    /**
+     * Indica si `totalHits` es el número exacto de coincidencias.
+     */
+    private boolean totalHitsExact;
+}
@@ -0,0 +1,10 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.Getter;
+
+@Getter
+public class RefreshRequestDTO {
+
+    private String refreshToken;
+
+}
@@ -0,0 +1,38 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO (Data Transfer Object) con el resultado de comparar los agregados diarios con las
+ * tablas base en un rango de días.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RollupCheckDTO {
+
+    /**
+     * Primer día comprobado.
+     */
+    private LocalDate from;
+
+    /**
+     * Último día comprobado.
+     */
+    private LocalDate to;
+
+    /**
+     * Indica si no se ha encontrado ninguna diferencia.
+     */
+    private boolean consistent;
+
+    /**
+     * Filas con diferencias, limitadas al máximo configurado por tipo de agregado.
+     */
+    private List<RollupMismatchDTO> mismatches;
+}
@@ -0,0 +1,63 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO (Data Transfer Object) que describe una fila de agregados diarios que no coincide con
+ * los valores calculados a partir de las tablas base.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RollupMismatchDTO {
+
+    /**
+     * Tipo de agregado: "LOCATION" o "CATEGORY".
+     */
+    private String rollup;
+
+    /**
+     * Día del agregado.
+     */
+    private LocalDate day;
+
+    /**
+     * ID de la ubicación o de la categoría (0 si el ticket o el producto no la tienen).
+     */
+    private Long key;
+
+    /**
+     * Número de tickets calculado a partir de las tablas base.
+     */
+    private long expectedCount;
+
+    /**
+     * Número de tickets almacenado en el agregado.
+     */
+    private long actualCount;
+
+    /**
+     * Importe bruto calculado a partir de las tablas base.
+     */
+    private BigDecimal expectedGross;
+
+    /**
+     * Importe bruto almacenado en el agregado.
+     */
+    private BigDecimal actualGross;
+
+    /**
+     * Importe con descuento calculado a partir de las tablas base.
+     */
+    private BigDecimal expectedDiscounted;
+
+    /**
+     * Importe con descuento almacenado en el agregado.
+     */
+    private BigDecimal actualDiscounted;
+}
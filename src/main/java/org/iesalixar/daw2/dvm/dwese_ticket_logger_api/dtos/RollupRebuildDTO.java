@@ -0,0 +1,36 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO (Data Transfer Object) con el resumen de una reconstrucción de los agregados diarios.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RollupRebuildDTO {
+
+    /**
+     * Primer día reconstruido, o `null` si no hay tickets.
+     */
+    private LocalDate from;
+
+    /**
+     * Último día reconstruido, o `null` si no hay tickets.
+     */
+    private LocalDate to;
+
+    /**
+     * Número de bloques de días procesados.
+     */
+    private int chunks;
+
+    /**
+     * Duración de la reconstrucción en milisegundos.
+     */
+    private long elapsedMillis;
+}
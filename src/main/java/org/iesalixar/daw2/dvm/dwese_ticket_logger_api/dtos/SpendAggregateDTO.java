@@ -0,0 +1,83 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO (Data Transfer Object) que representa el gasto agregado de un periodo de tiempo
+ * y, opcionalmente, de un supermercado, provincia, región y/o categoría.
+ *
+ * Sólo se incluyen en la respuesta las dimensiones por las que se ha agrupado.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SpendAggregateDTO {
+
+    /**
+     * Primer día del periodo agregado (día, lunes de la semana o día 1 del mes).
+     * <p>
+     * Ejemplo: "2024-03-01".
+     * </p>
+     */
+    private LocalDate bucket;
+
+    /**
+     * Identificador del supermercado.
+     */
+    private Long supermarketId;
+
+    /**
+     * Nombre del supermercado.
+     */
+    private String supermarketName;
+
+    /**
+     * Identificador de la provincia.
+     */
+    private Long provinceId;
+
+    /**
+     * Nombre de la provincia.
+     */
+    private String provinceName;
+
+    /**
+     * Identificador de la región.
+     */
+    private Long regionId;
+
+    /**
+     * Nombre de la región.
+     */
+    private String regionName;
+
+    /**
+     * Identificador de la categoría del producto.
+     */
+    private Long categoryId;
+
+    /**
+     * Nombre de la categoría del producto.
+     */
+    private String categoryName;
+
+    /**
+     * Número de tickets distintos que contribuyen al gasto.
+     */
+    private Long tickets;
+
+    /**
+     * Gasto total con los descuentos aplicados.
+     * <p>
+     * Ejemplo: 1520.35.
+     * </p>
+     */
+    private BigDecimal spend;
+}
@@ -0,0 +1,32 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO (Data Transfer Object) que representa una sugerencia del autocompletado.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SuggestionDTO {
+
+    /**
+     * Identificador del elemento sugerido (producto, ubicación o supermercado).
+     */
+    private Long id;
+
+    /**
+     * Texto a mostrar.
+     * <p>
+     * Ejemplo: "Leche entera", "Calle Mayor 1, Sevilla".
+     * </p>
+     */
+    private String label;
+
+    /**
+     * Número de veces que se ha usado el elemento en los tickets; determina el orden de las sugerencias.
+     */
+    private long uses;
+}
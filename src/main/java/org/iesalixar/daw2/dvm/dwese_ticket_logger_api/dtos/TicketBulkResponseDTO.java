@@ -0,0 +1,44 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO (Data Transfer Object) con el resumen de una carga masiva de tickets.
+ *
+ * Incluye los contadores globales y el resultado individual de cada ticket recibido.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TicketBulkResponseDTO {
+
+    /**
+     * Número de tickets leídos de la petición.
+     */
+    private int received;
+
+    /**
+     * Número de tickets creados.
+     */
+    private int created;
+
+    /**
+     * Número de tickets rechazados, incluidos los de los bloques que no se han podido guardar.
+     */
+    private int rejected;
+
+    /**
+     * Número de bloques que no se han podido guardar. Sus tickets aparecen en `results` como no
+     * creados; los de los demás bloques sí se han guardado.
+     */
+    private int failedChunks;
+
+    /**
+     * Resultado de cada ticket, en el orden en que se recibieron.
+     */
+    private List<TicketBulkResultDTO> results;
+}
@@ -0,0 +1,43 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO (Data Transfer Object) con el resultado de un ticket dentro de una carga masiva.
+ *
+ * Cada ticket enviado en la carga produce un resultado, en el mismo orden en que se recibió,
+ * indicando si se ha creado o si se ha rechazado y por qué.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TicketBulkResultDTO {
+
+    /**
+     * Posición del ticket dentro de la carga (empezando en 0).
+     */
+    private int index;
+
+    /**
+     * Identificador asignado al ticket creado.
+     * <p>
+     * Es `null` si el ticket ha sido rechazado.
+     * </p>
+     */
+    private Long id;
+
+    /**
+     * Indica si el ticket se ha creado correctamente.
+     */
+    private boolean created;
+
+    /**
+     * Motivo del rechazo, o `null` si el ticket se ha creado.
+     * <p>
+     * Ejemplo: "La ubicación seleccionada no existe."
+     * </p>
+     */
+    private String error;
+}
@@ -0,0 +1,50 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO (Data Transfer Object) que representa una página de tickets obtenida mediante
+ * paginación por cursor.
+ *
+ * En lugar de números de página, cada respuesta incluye un cursor opaco que el cliente
+ * debe enviar en la siguiente petición para obtener la página siguiente.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TicketPageDTO {
+
+    /**
+     * Tickets de la página actual.
+     * <p>
+     * Ordenados de más reciente a más antiguo (por fecha y, en caso de empate, por ID).
+     * </p>
+     */
+    private List<TicketDTO> content;
+
+    /**
+     * Cursor opaco para solicitar la página siguiente.
+     * <p>
+     * Es `null` cuando no quedan más tickets por listar.
+     * </p>
+     * Ejemplo: `MTczNjkzNzAwMDAwMDo0Mg`.
+     */
+    private String nextCursor;
+
+    /**
+     * Indica si existen más tickets después de esta página.
+     */
+    private boolean hasNext;
+
+    /**
+     * Tamaño de página aplicado a la consulta.
+     * <p>
+     * Puede ser menor que el solicitado si éste supera el máximo permitido.
+     * </p>
+     */
+    private int size;
+}
@@ -0,0 +1,30 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO (Data Transfer Object) con el estado de un usuario necesario para aceptar sus tokens
+ * sin cargar la entidad completa ni sus roles.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserStatusDTO {
+
+    /**
+     * Indica si el usuario está habilitado.
+     */
+    private boolean enabled;
+
+    /**
+     * Fecha del último cambio de contraseña.
+     * <p>
+     * Los tokens emitidos antes de esta fecha dejan de aceptarse.
+     * </p>
+     */
+    private LocalDateTime passwordChangedAt;
+}
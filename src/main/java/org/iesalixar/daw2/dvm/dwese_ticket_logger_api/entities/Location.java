@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * La clase `Location` representa una entidad que modela una ubicación.
@@ -14,6 +16,8 @@ import lombok.*;
  */
 @Entity // Marca esta clase como una entidad JPA.
 @Table(name = "locations") // Especifica el nombre de la tabla asociada a esta entidad.
+@Cacheable // Dato de referencia: se guarda en la caché de segundo nivel de Hibernate.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -5,6 +5,8 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -19,6 +21,8 @@ import java.util.List;
  */
 @Entity // Marca esta clase como una entidad JPA.
 @Table(name = "provinces") // Define el nombre de la tabla asociada a esta entidad.
+@Cacheable // Dato de referencia: se guarda en la caché de segundo nivel de Hibernate.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -46,6 +50,7 @@ public class Province {
     private String name;
 
     // Relación uno a muchos con la entidad `Location`. Una provincia puede tener muchas ubicaciones.
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "province", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Location> locations;
 
@@ -0,0 +1,58 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * La clase `RefreshToken` representa un token de refresco emitido a un usuario.
+ * Sólo se almacena el hash SHA-256 del token, nunca el valor en claro.
+ *
+ * Los tokens de una misma sesión comparten `familyId`: cada refresco marca el token usado
+ * como `used` y emite otro de la misma familia. Si un token ya usado se presenta de nuevo,
+ * se considera robado y se revoca toda la familia.
+ */
+@Entity
+@Table(name = "refresh_tokens")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "tokenHash")
+@EqualsAndHashCode
+public class RefreshToken {
+
+    // Identificador único del token. Es autogenerado y clave primaria.
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Hash SHA-256 (hexadecimal) del token entregado al cliente.
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    // Nombre del usuario al que pertenece el token.
+    @Column(name = "username", nullable = false, length = 50)
+    private String username;
+
+    // Identificador de la familia de tokens (una por inicio de sesión).
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    // Fecha de expiración del token.
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Indica si el token ya se ha usado para obtener otro.
+    @Column(name = "used", nullable = false)
+    private boolean used;
+
+    // Indica si el token ha sido revocado (cierre de sesión o reutilización detectada).
+    @Column(name = "revoked", nullable = false)
+    private boolean revoked;
+
+    // Fecha de emisión del token.
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -2,6 +2,8 @@ package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -15,6 +17,8 @@ import java.util.List;
  */
 @Entity // Marca esta clase como una entidad gestionada por JPA.
 @Table(name = "regions") // Especifica el nombre de la tabla asociada a esta entidad.
+@Cacheable // Dato de referencia: se guarda en la caché de segundo nivel de Hibernate.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,30 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * La clase `RevokedToken` representa un token de acceso JWT revocado antes de su expiración.
+ * Se identifica por su claim "jti" y se conserva sólo hasta que el token habría expirado.
+ */
+@Entity
+@Table(name = "revoked_tokens")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class RevokedToken {
+
+    // Identificador del token (claim "jti").
+    @Id
+    @Column(name = "jti", nullable = false, length = 36)
+    private String jti;
+
+    // Fecha en la que el token habría expirado; a partir de ella el registro puede eliminarse.
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
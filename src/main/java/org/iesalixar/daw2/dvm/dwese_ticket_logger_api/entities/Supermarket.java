@@ -3,6 +3,8 @@ package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -13,6 +15,8 @@ import java.util.List;
  */
 @Entity // Marca esta clase como una entidad JPA.
 @Table(name = "supermarkets") // Especifica el nombre de la tabla asociada a esta entidad.
+@Cacheable // Dato de referencia: se guarda en la caché de segundo nivel de Hibernate.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -12,9 +12,10 @@ import java.util.List;
 
 /**
  * La clase `Ticket` representa una entidad que modela un ticket.
- * Contiene campos como `id`, `date`, `discount` y `location`,
+ * Contiene campos como `id`, `date`, `discount`, `subtotal` y `location`,
  * donde `id` es el identificador único del ticket,
  * `date` es la fecha del ticket, `discount` es el descuento aplicado,
+ * `subtotal` es la suma de los precios de sus productos
  * y `location` representa la ubicación asociada al ticket.
  */
 @Entity
@@ -44,6 +45,12 @@ public class Ticket {
     @Column(name = "discount", nullable = false, precision = 5, scale = 2)
     private BigDecimal discount;
 
+    // Suma de los precios de los productos del ticket, sin descuento.
+    // Se mantiene en la base de datos al crear, actualizar o modificar los productos del ticket,
+    // de forma que el total se obtiene sin cargar la colección de productos.
+    @Column(name = "subtotal", nullable = false, precision = 12, scale = 2)
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
     // Ubicación asociada al ticket.
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "location_id", nullable = false)
@@ -59,20 +66,18 @@ public class Ticket {
     private List<Product> products;
 
     /**
-     * Calcula el total del ticket sumando los precios de todos los productos.
+     * Calcula el total del ticket a partir del subtotal almacenado y el descuento.
+     * No necesita cargar la lista de productos.
      *
-     * @return el total calculado de los productos menos el descuento.
+     * @return el total de los productos menos el descuento.
      */
     @Transient
     public BigDecimal getTotal() {
-        if (products == null || products.isEmpty()) {
+        if (subtotal == null || subtotal.signum() == 0) {
             return BigDecimal.ZERO;
         }
 
-        BigDecimal total = BigDecimal.ZERO;
-        for (Product product : products) {
-            total = total.add(product.getPrice());
-        }
+        BigDecimal total = subtotal;
 
         // Aplicar descuento si existe
         if (discount != null && discount.compareTo(BigDecimal.ZERO) > 0) {
@@ -82,4 +87,4 @@ public class Ticket {
 
         return total.setScale(2, RoundingMode.HALF_UP);
     }
-}
\ No newline at end of file
+}
@@ -30,7 +30,7 @@ import java.util.Set;
 @AllArgsConstructor
 @ToString(exclude = "roles") // Excluye roles para evitar problemas de recursión en el toString.
 @EqualsAndHashCode(exclude = "roles") // Excluye roles para evitar recursión en equals y hashCode.
-@EntityListeners(AuditingEntityListener.class) // Habilita las anotaciones de auditoría.
+@EntityListeners({AuditingEntityListener.class, UserEntityListener.class}) // Auditoría y aviso de los cambios del usuario.
 public class User {
 
     // Campo que almacena el identificador único del usuario. Es autogenerado y clave primaria.
@@ -0,0 +1,36 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA de la entidad User que publica un {@link UserChanged} cuando se actualiza o se
+ * elimina un usuario (por ejemplo, al deshabilitarlo o cambiar su contraseña).
+ *
+ * Sólo publica el evento: quien necesite reaccionar al cambio (como la caché del estado de los
+ * usuarios) lo escucha en los servicios, normalmente una vez confirmada la transacción.
+ * Hibernate obtiene el listener del contexto de Spring, por lo que admite inyección de dependencias.
+ */
+@Component
+public class UserEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Evento publicado cuando se modifica o elimina un usuario.
+     *
+     * @param username el nombre del usuario afectado.
+     */
+    public record UserChanged(String username) {
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        eventPublisher.publishEvent(new UserChanged(user.getUsername()));
+    }
+}
@@ -3,6 +3,7 @@ package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.mappers;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationCreateDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.Notification;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
 
 import java.time.Instant;
 
@@ -16,6 +17,8 @@ public class NotificationMapper {
                 notification.getSubject(),
                 notification.getMessage(),
                 notification.isRead(),
+                notification.getRecipientType(),
+                notification.getRecipient(),
                 notification.getCreatedAt()
         );
     }
@@ -29,6 +32,10 @@ public class NotificationMapper {
                 notificationCreateDTO.getSubject(),
                 notificationCreateDTO.getMessage(),
                 notificationCreateDTO.isRead(),
+                notificationCreateDTO.getRecipientType() != null
+                        ? notificationCreateDTO.getRecipientType()
+                        : NotificationRecipientType.ALL,
+                notificationCreateDTO.getRecipient(),
                 Instant.now()
         );
     }
@@ -0,0 +1,45 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.mappers;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductCreateDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Category;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Product;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProductMapper {
+
+    /**
+     * Convierte una entidad Product en un ProductDTO.
+     *
+     * @param product La entidad Product a convertir.
+     * @return Un ProductDTO con los datos de la entidad.
+     */
+    public ProductDTO toDTO(Product product) {
+        if (product == null) {
+            return null;
+        }
+
+        return new ProductDTO(product.getId(), product.getName(), product.getPrice());
+    }
+
+    /**
+     * Convierte un ProductCreateDTO en una entidad Product.
+     *
+     * @param createDTO El DTO con los datos para crear el producto.
+     * @param category La categoría asociada, si existe.
+     * @return Una entidad Product con los datos del DTO.
+     */
+    public Product toEntity(ProductCreateDTO createDTO, Category category) {
+        if (createDTO == null) {
+            return null;
+        }
+
+        Product product = new Product();
+        product.setName(createDTO.getName());
+        product.setPrice(createDTO.getPrice());
+        product.setCategory(category);
+
+        return product;
+    }
+}
@@ -35,7 +35,74 @@ public class TicketMapper {
         dto.setTotal(ticket.getTotal());
 
         // Mapear la ubicación asociada
-        dto.setLocation(new LocationDTO(
+        dto.setLocation(toLocationDTO(ticket));
+
+        // Mapear la lista de productos asociados
+        dto.setProducts(ticket.getProducts().stream()
+                .map(product -> new ProductDTO(
+                        product.getId(),
+                        product.getName(),
+                        product.getPrice()
+                ))
+                .collect(Collectors.toList()));
+
+        return dto;
+    }
+
+    /**
+     * Convierte una entidad `Ticket` en un `TicketDTO` usando un `LocationDTO` ya construido
+     * (por ejemplo, de la caché de ubicaciones), sin acceder a la ubicación de la entidad.
+     *
+     * @param ticket La entidad `Ticket` que se desea mapear.
+     * @param location El DTO de la ubicación del ticket.
+     * @return Un objeto `TicketDTO` con los datos mapeados.
+     */
+    public TicketDTO toDTO(Ticket ticket, LocationDTO location) {
+        TicketDTO dto = new TicketDTO();
+
+        dto.setId(ticket.getId());
+        dto.setDate(ticket.getDate());
+        dto.setDiscount(ticket.getDiscount());
+        dto.setTotal(ticket.getTotal());
+        dto.setLocation(location);
+        dto.setProducts(ticket.getProducts().stream()
+                .map(product -> new ProductDTO(
+                        product.getId(),
+                        product.getName(),
+                        product.getPrice()
+                ))
+                .collect(Collectors.toList()));
+
+        return dto;
+    }
+
+    /**
+     * Convierte una entidad `Ticket` en un `TicketDTO` sin incluir sus productos.
+     * El total se obtiene del subtotal almacenado, por lo que no se carga la colección de productos.
+     *
+     * @param ticket La entidad `Ticket` que se desea mapear.
+     * @return Un objeto `TicketDTO` con los datos mapeados y la lista de productos a `null`.
+     */
+    public TicketDTO toSummaryDTO(Ticket ticket) {
+        TicketDTO dto = new TicketDTO();
+
+        dto.setId(ticket.getId());
+        dto.setDate(ticket.getDate());
+        dto.setDiscount(ticket.getDiscount());
+        dto.setTotal(ticket.getTotal());
+        dto.setLocation(toLocationDTO(ticket));
+
+        return dto;
+    }
+
+    /**
+     * Construye el `LocationDTO` de la ubicación asociada a un ticket.
+     *
+     * @param ticket La entidad `Ticket` cuya ubicación se desea mapear.
+     * @return Un objeto `LocationDTO` con la ubicación, su supermercado, provincia y región.
+     */
+    private LocationDTO toLocationDTO(Ticket ticket) {
+        return new LocationDTO(
                 ticket.getLocation().getId(),
                 ticket.getLocation().getAddress(),
                 ticket.getLocation().getCity(),
@@ -53,18 +120,7 @@ public class TicketMapper {
                                 ticket.getLocation().getProvince().getRegion().getName()
                         )
                 )
-        ));
-
-        // Mapear la lista de productos asociados
-        dto.setProducts(ticket.getProducts().stream()
-                .map(product -> new ProductDTO(
-                        product.getId(),
-                        product.getName(),
-                        product.getPrice()
-                ))
-                .collect(Collectors.toList()));
-
-        return dto;
+        );
     }
 
     /**
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -14,6 +16,13 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "notifications")
+@CompoundIndexes({
+        // Feed de un destinatario (usuario, rol o segmento), en el orden de la paginación por clave.
+        // El feed consulta siempre por destinatarios ($or de uno por rama), así que no hay índices
+        // del feed completo
+        @CompoundIndex(name = "idx_notifications_recipient_feed",
+                def = "{'recipientType': 1, 'recipient': 1, 'read': 1, 'createdAt': -1, '_id': -1}")
+})
 public class Notification {
 
     @Id
@@ -25,5 +34,9 @@ public class Notification {
 
     private boolean read;
 
+    private NotificationRecipientType recipientType = NotificationRecipientType.ALL;
+
+    private String recipient;
+
     private Instant createdAt = Instant.now();
 }
@@ -0,0 +1,15 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications;
+
+/**
+ * Tipo de destinatario de una notificación.
+ */
+public enum NotificationRecipientType {
+    /** Todos los clientes conectados (difusión en /topic/notifications). */
+    ALL,
+    /** Un usuario concreto, en su cola privada /user/queue/notifications. */
+    USER,
+    /** Los usuarios con un rol, en los topics particionados del rol. */
+    ROLE,
+    /** Los usuarios suscritos a un segmento (supermercado, provincia...), en sus topics particionados. */
+    SEGMENT
+}
@@ -0,0 +1,116 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Destinos STOMP de las notificaciones.
+ *
+ * Las notificaciones de un rol o segmento se publican en N topics particionados
+ * ({@code /topic/notifications.role.ROLE_X.3}) y cada usuario se suscribe sólo a la partición
+ * que le corresponde según su nombre, de modo que recibe una única copia y los suscriptores se
+ * reparten entre particiones.
+ */
+@Component
+public class NotificationTopics {
+
+    // Difusión a todos los clientes
+    public static final String BROADCAST = "/topic/notifications";
+
+    // Cola privada de cada usuario (los clientes se suscriben a /user/queue/notifications)
+    public static final String USER_QUEUE = "/queue/notifications";
+
+    private static final Pattern SHARDED_TOPIC =
+            Pattern.compile("^/topic/notifications\\.(role|segment)\\.([A-Za-z0-9_-]+)\\.(\\d+)$");
+
+    private static final Pattern NAME = Pattern.compile("^[A-Za-z0-9_-]+$");
+
+    // Número de particiones de cada topic de rol o segmento
+    @Value("${notifications.topic-shards:16}")
+    private int shards;
+
+    /**
+     * Devuelve los topics en los que publicar una notificación de rol o segmento (todas las particiones).
+     *
+     * @param type ROLE o SEGMENT.
+     * @param recipient el rol o el segmento.
+     * @return los destinos.
+     */
+    public List<String> publishDestinations(NotificationRecipientType type, String recipient) {
+        validateName(recipient);
+        List<String> destinations = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            destinations.add(topic(type, recipient, shard));
+        }
+        return destinations;
+    }
+
+    /**
+     * Devuelve el topic al que debe suscribirse un usuario para un rol o segmento.
+     *
+     * @param type ROLE o SEGMENT.
+     * @param recipient el rol o el segmento.
+     * @param username el usuario.
+     * @return el destino de la suscripción.
+     */
+    public String subscriptionTopic(NotificationRecipientType type, String recipient, String username) {
+        validateName(recipient);
+        return topic(type, recipient, shardOf(username));
+    }
+
+    /**
+     * Indica si un usuario puede suscribirse a un destino de notificaciones: a la difusión
+     * general cualquiera; a un topic particionado, sólo a su partición y, si es de rol, sólo
+     * si tiene ese rol.
+     *
+     * @param destination el destino del frame SUBSCRIBE.
+     * @param authentication el usuario de la sesión, o null si es anónima.
+     * @return true si la suscripción está permitida.
+     */
+    public boolean canSubscribe(String destination, Authentication authentication) {
+        if (BROADCAST.equals(destination)) {
+            return true;
+        }
+        Matcher matcher = SHARDED_TOPIC.matcher(destination);
+        if (!matcher.matches() || authentication == null) {
+            return false;
+        }
+        if (Integer.parseInt(matcher.group(3)) != shardOf(authentication.getName())) {
+            return false;
+        }
+        if ("role".equals(matcher.group(1))) {
+            String role = matcher.group(2);
+            return authentication.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .anyMatch(role::equals);
+        }
+        return true;
+    }
+
+    private String topic(NotificationRecipientType type, String recipient, int shard) {
+        return BROADCAST + "." + type.name().toLowerCase() + "." + recipient + "." + shard;
+    }
+
+    private int shardOf(String username) {
+        return Math.floorMod(username.hashCode(), shards);
+    }
+
+    /**
+     * Comprueba que el nombre de un rol o segmento pueda formar parte de un topic.
+     *
+     * @param recipient el rol o el segmento.
+     * @throws IllegalArgumentException si el nombre no es válido.
+     */
+    public void validateName(String recipient) {
+        if (recipient == null || !NAME.matcher(recipient).matches()) {
+            throw new IllegalArgumentException("Destinatario de notificación no válido: " + recipient);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications;
+
+import lombok.Getter;
+
+/**
+ * Tipo de evento de dominio guardado en la tabla `outbox_events`, con el agregado al que
+ * pertenece y el asunto de la notificación que genera.
+ */
+@Getter
+public enum OutboxEventType {
+    /** Se ha creado un ticket. */
+    TICKET_CREATED("TICKET", "Ticket nuevo"),
+    /** Se ha modificado un ticket o sus productos. */
+    TICKET_UPDATED("TICKET", "Ticket actualizado"),
+    /** Se ha eliminado un ticket. */
+    TICKET_DELETED("TICKET", "Ticket eliminado"),
+    /** Se ha creado un bloque de tickets en una carga masiva (un único evento por bloque). */
+    TICKETS_IMPORTED("TICKET", "Carga masiva de tickets"),
+    /** Se ha creado una categoría. */
+    CATEGORY_CREATED("CATEGORY", "Categoría nueva"),
+    /** Se ha modificado una categoría. */
+    CATEGORY_UPDATED("CATEGORY", "Categoría actualizada"),
+    /** Se ha eliminado una categoría. */
+    CATEGORY_DELETED("CATEGORY", "Categoría eliminada"),
+    /** Se ha creado un producto. */
+    PRODUCT_CREATED("PRODUCT", "Producto nuevo añadido"),
+    /** Se ha modificado un producto. */
+    PRODUCT_UPDATED("PRODUCT", "Producto actualizado"),
+    /** Se ha eliminado un producto. */
+    PRODUCT_DELETED("PRODUCT", "Producto eliminado");
+
+    private final String aggregateType;
+    private final String subject;
+
+    OutboxEventType(String aggregateType, String subject) {
+        this.aggregateType = aggregateType;
+        this.subject = subject;
+    }
+}
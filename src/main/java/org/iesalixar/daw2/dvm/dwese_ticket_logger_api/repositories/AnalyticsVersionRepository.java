@@ -0,0 +1,35 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio JDBC de la versión de los datos de la analítica de gasto: una única fila con un
+ * contador que se incrementa con cada cambio que puede alterar los resultados.
+ */
+@Repository
+public class AnalyticsVersionRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Obtiene la versión actual de los datos de la analítica.
+     *
+     * @return la versión actual.
+     */
+    public long findVersion() {
+        Long version = jdbcTemplate.queryForObject("SELECT version FROM analytics_version WHERE id = 1", Long.class);
+        return version != null ? version : 0;
+    }
+
+    /**
+     * Incrementa la versión en su propia sentencia autoconfirmada. Se llama tras confirmar el
+     * cambio, fuera de su transacción, para que el cerrojo de la fila dure sólo esta sentencia y
+     * no serialice las escrituras que la provocan.
+     */
+    public void increment() {
+        jdbcTemplate.update("UPDATE analytics_version SET version = version + 1 WHERE id = 1");
+    }
+}
@@ -0,0 +1,72 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Repositorio JDBC de las consultas del autocompletado: los textos de ubicaciones y
+ * supermercados y la frecuencia de uso de cada elemento, calculada en la base de datos.
+ */
+@Repository
+public class AutocompleteRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Recorre todas las ubicaciones. Cada fila contiene, por este orden, el ID, la dirección y la ciudad.
+     *
+     * @param handler receptor de las filas.
+     */
+    public void forEachLocation(RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT id, address, city FROM locations", handler);
+    }
+
+    /**
+     * Recorre todos los supermercados. Cada fila contiene, por este orden, el ID y el nombre.
+     *
+     * @param handler receptor de las filas.
+     */
+    public void forEachSupermarket(RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT id, name FROM supermarkets", handler);
+    }
+
+    /**
+     * Cuenta en cuántas líneas de ticket aparece cada producto.
+     *
+     * @return mapa producto → número de líneas (sólo los productos usados).
+     */
+    public Map<Long, Long> countProductUsage() {
+        return countBy("SELECT product_id, COUNT(*) FROM product_ticket GROUP BY product_id");
+    }
+
+    /**
+     * Cuenta cuántos tickets tiene cada ubicación.
+     *
+     * @return mapa ubicación → número de tickets (sólo las ubicaciones usadas).
+     */
+    public Map<Long, Long> countLocationUsage() {
+        return countBy("SELECT location_id, COUNT(*) FROM tickets WHERE location_id IS NOT NULL GROUP BY location_id");
+    }
+
+    /**
+     * Cuenta cuántos tickets tiene cada supermercado a través de sus ubicaciones.
+     *
+     * @return mapa supermercado → número de tickets (sólo los supermercados usados).
+     */
+    public Map<Long, Long> countSupermarketUsage() {
+        return countBy("SELECT l.supermarket_id, COUNT(*) FROM tickets t JOIN locations l ON l.id = t.location_id " +
+                "GROUP BY l.supermarket_id");
+    }
+
+    private Map<Long, Long> countBy(String sql) {
+        Map<Long, Long> counts = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> counts.put(rs.getLong(1), rs.getLong(2)));
+        return counts;
+    }
+}
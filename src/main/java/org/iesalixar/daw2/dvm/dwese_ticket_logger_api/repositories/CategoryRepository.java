@@ -1,8 +1,11 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
@@ -50,6 +53,7 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @param name el nombre de la categoría.
      * @return true si existe una categoría con el nombre especificado, false en caso contrario.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByName(String name);
 
     /**
@@ -59,7 +63,17 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @param id el ID de la categoría a excluir.
      * @return true si existe una categoría con el nombre especificado (excluyendo la categoría con el ID dado), false en caso contrario.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT COUNT(c) > 0 FROM Category c WHERE c.name = :name AND c.id != :id")
     boolean existsCategoryByNameAndNotId(@Param("name") String name, @Param("id") Long id);
 
+    /**
+     * Obtiene el ID, el padre, el nombre y la imagen de todas las categorías sin cargar las
+     * entidades ni sus colecciones. Se usa para construir el índice de la jerarquía.
+     *
+     * @return una lista de `{id, parentId, name, image}` (parentId es `null` en las raíces).
+     */
+    @Query("SELECT c.id, p.id, c.name, c.image FROM Category c LEFT JOIN c.parentCategory p")
+    List<Object[]> findHierarchy();
+
 }
@@ -1,10 +1,18 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Location;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Repositorio para la entidad Location que extiende JpaRepository.
  * Proporciona operaciones CRUD y consultas personalizadas para la entidad Location.
@@ -19,6 +27,7 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
      * @param address la dirección de la ubicación.
      * @return true si existe una ubicación con la dirección especificada, false en caso contrario.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByAddress(String address);
 
     /**
@@ -28,7 +37,28 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
      * @param id el ID de la ubicación a excluir.
      * @return true si existe una ubicación con la dirección especificada (excluyendo la ubicación con el ID dado), false en caso contrario.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT COUNT(l) > 0 FROM Location l WHERE l.address = :address AND l.id != :id")
     boolean existsLocationByAddressAndNotId(@Param("address") String address, @Param("id") Long id);
 
+    /**
+     * Obtiene una ubicación por su ID junto con su supermercado, su provincia y la región
+     * de la provincia en una única consulta.
+     *
+     * @param id el ID de la ubicación.
+     * @return un Optional que contiene la ubicación si se encuentra, o vacío si no se encuentra.
+     */
+    @EntityGraph(attributePaths = {"supermarket", "province.region"})
+    @Query("SELECT l FROM Location l WHERE l.id = :id")
+    Optional<Location> findWithDetailsById(@Param("id") Long id);
+
+    /**
+     * Obtiene, de entre los IDs indicados, los que corresponden a ubicaciones existentes.
+     * Permite validar en una sola consulta las ubicaciones de una carga masiva de tickets.
+     *
+     * @param ids los IDs de ubicación a comprobar.
+     * @return los IDs que existen en la base de datos.
+     */
+    @Query("SELECT l.id FROM Location l WHERE l.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
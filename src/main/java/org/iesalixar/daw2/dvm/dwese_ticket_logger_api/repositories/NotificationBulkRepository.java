@@ -0,0 +1,68 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.Notification;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Escrituras masivas de notificaciones: cada llamada es una sola operación en MongoDB
+ * (insertMany o updateMany) en lugar de un documento por petición.
+ */
+@Repository
+public class NotificationBulkRepository {
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    /**
+     * Inserta un bloque de notificaciones con un único insertMany.
+     *
+     * @param notifications el bloque.
+     * @return las notificaciones guardadas, con su ID.
+     */
+    public Flux<Notification> insertAll(List<Notification> notifications) {
+        return mongoTemplate.insert(notifications, Notification.class);
+    }
+
+    /**
+     * Marca como leídas las notificaciones no leídas de un bloque de IDs dirigidas a un usuario
+     * (updateMany). Los IDs de notificaciones de otros destinatarios no se modifican.
+     *
+     * @param ids los IDs.
+     * @param username el usuario destinatario.
+     * @return número de notificaciones modificadas.
+     */
+    public Mono<Long> markRead(List<String> ids, String username) {
+        Query query = new Query(where("_id").in(ids)
+                .and("recipientType").is(NotificationRecipientType.USER)
+                .and("recipient").is(username)
+                .and("read").is(false));
+        return mongoTemplate.updateMulti(query, Update.update("read", true), Notification.class)
+                .map(result -> result.getModifiedCount());
+    }
+
+    /**
+     * Marca como leídas todas las notificaciones no leídas de un destinatario (updateMany).
+     *
+     * @param recipientType el tipo de destinatario.
+     * @param recipient el destinatario, o null para las notificaciones generales.
+     * @return número de notificaciones modificadas.
+     */
+    public Mono<Long> markAllRead(NotificationRecipientType recipientType, String recipient) {
+        Query query = new Query(where("recipientType").is(recipientType)
+                .and("recipient").is(recipient)
+                .and("read").is(false));
+        return mongoTemplate.updateMulti(query, Update.update("read", true), Notification.class)
+                .map(result -> result.getModifiedCount());
+    }
+}
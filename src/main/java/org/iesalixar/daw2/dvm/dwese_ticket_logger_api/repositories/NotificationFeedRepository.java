@@ -0,0 +1,112 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.Notification;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.NotificationCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Consultas del feed de notificaciones que no se pueden expresar como métodos derivados de
+ * {@link NotificationRepository}: paginación por clave con filtros opcionales y seguimiento
+ * de las notificaciones nuevas con un change stream.
+ *
+ * Las consultas usan los índices compuestos declarados en {@link Notification}.
+ */
+@Repository
+public class NotificationFeedRepository {
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    /**
+     * Destinatario cuyas notificaciones se pueden leer: un tipo y, salvo para ALL, su nombre.
+     *
+     * @param type el tipo de destinatario.
+     * @param recipient el usuario, rol o segmento, o null para las notificaciones generales.
+     */
+    public record Recipient(NotificationRecipientType type, String recipient) {
+
+        /**
+         * Indica si una notificación va dirigida a este destinatario.
+         */
+        public boolean matches(NotificationRecipientType type, String recipient) {
+            return this.type == type && Objects.equals(this.recipient, recipient);
+        }
+    }
+
+    /**
+     * Lee una página del feed, de más reciente a más antigua.
+     *
+     * @param cursor posición tras la última notificación de la página anterior, o null.
+     * @param limit número máximo de notificaciones.
+     * @param read filtro por leídas/no leídas, o null.
+     * @param recipients destinatarios cuyas notificaciones se leen (al menos uno).
+     * @return las notificaciones.
+     */
+    public Flux<Notification> findPage(NotificationCursor cursor, int limit, Boolean read, List<Recipient> recipients) {
+        List<Criteria> filters = new ArrayList<>();
+        filters.add(recipientFilter("", read, recipients));
+        if (cursor != null) {
+            filters.add(new Criteria().orOperator(
+                    where("createdAt").lt(cursor.getCreatedAt()),
+                    where("createdAt").is(cursor.getCreatedAt()).and("_id").lt(cursor.getId())));
+        }
+        Query query = new Query(new Criteria().andOperator(filters))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, Notification.class);
+    }
+
+    /**
+     * Sigue las notificaciones insertadas a partir de ahora que cumplen los filtros. Requiere
+     * que MongoDB se ejecute como replica set (los change streams no existen en un nodo aislado).
+     *
+     * @param read filtro por leídas/no leídas, o null.
+     * @param recipients destinatarios cuyas notificaciones se siguen (al menos uno).
+     * @return flujo infinito de notificaciones nuevas.
+     */
+    public Flux<Notification> watchInserts(Boolean read, List<Recipient> recipients) {
+        Criteria filter = new Criteria().andOperator(
+                recipientFilter("fullDocument.", read, recipients),
+                where("operationType").is("insert"));
+        return mongoTemplate.changeStream(Notification.class)
+                .watchCollection(Notification.class)
+                .filter(filter)
+                .listen()
+                .mapNotNull(ChangeStreamEvent::getBody);
+    }
+
+    /**
+     * Filtro por destinatarios: una rama del $or por destinatario, cada una resuelta con el
+     * índice del destinatario; MongoDB mezcla las ramas ya ordenadas sin ordenar en memoria.
+     */
+    private Criteria recipientFilter(String prefix, Boolean read, List<Recipient> recipients) {
+        List<Criteria> branches = new ArrayList<>(recipients.size());
+        for (Recipient recipient : recipients) {
+            Criteria branch = where(prefix + "recipientType").is(recipient.type())
+                    .and(prefix + "recipient").is(recipient.recipient());
+            if (read != null) {
+                branch.and(prefix + "read").is(read);
+            } else if (prefix.isEmpty()) {
+                // Con ambos valores explícitos MongoDB recorre el índice del destinatario en las dos
+                // ramas de "read" y las mezcla ya ordenadas, sin ordenar en memoria
+                branch.and("read").in(true, false);
+            }
+            branches.add(branch);
+        }
+        return branches.size() == 1 ? branches.get(0) : new Criteria().orOperator(branches);
+    }
+}
@@ -0,0 +1,127 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Repositorio JDBC de la tabla `outbox_events`.
+ *
+ * Los eventos se añaden dentro de la transacción que modifica el agregado, de modo que sólo
+ * existen si el cambio se confirma. El relay los reclama por lotes con `FOR UPDATE SKIP LOCKED`
+ * (MariaDB 10.6+): varios nodos pueden vaciar la tabla a la vez sin bloquearse entre sí ni
+ * procesar dos veces el mismo evento.
+ */
+@Repository
+public class OutboxRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Evento pendiente de la tabla `outbox_events`.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class OutboxEvent {
+        private final long id;
+        private final String eventType;
+        private final String aggregateType;
+        private final Long aggregateId;
+        private final String payload;
+        private final int attempts;
+    }
+
+    /**
+     * Añade un evento a la tabla. Debe llamarse dentro de la transacción del cambio que lo origina.
+     *
+     * @param eventType tipo de evento.
+     * @param aggregateType tipo de agregado (TICKET, CATEGORY...).
+     * @param aggregateId identificador del agregado, o `null` si el evento afecta a varios.
+     * @param payload datos del evento en JSON.
+     */
+    public void append(String eventType, String aggregateType, Long aggregateId, String payload) {
+        jdbcTemplate.update("INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, payload, created_at) " +
+                "VALUES (?, ?, ?, ?, ?)", eventType, aggregateType, aggregateId, payload, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Reclama los eventos pendientes más antiguos, bloqueando sus filas hasta el final de la
+     * transacción y saltando las ya bloqueadas por otro nodo.
+     *
+     * @param limit número máximo de eventos.
+     * @param maxAttempts se omiten los eventos que ya han fallado este número de veces.
+     * @return los eventos reclamados, en orden de creación.
+     */
+    public List<OutboxEvent> claimBatch(int limit, int maxAttempts) {
+        return jdbcTemplate.query("SELECT id, event_type, aggregate_type, aggregate_id, payload, attempts " +
+                        "FROM outbox_events WHERE processed_at IS NULL AND attempts < ? " +
+                        "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED",
+                (rs, rowNum) -> new OutboxEvent(
+                        rs.getLong("id"),
+                        rs.getString("event_type"),
+                        rs.getString("aggregate_type"),
+                        rs.getObject("aggregate_id", Long.class),
+                        rs.getString("payload"),
+                        rs.getInt("attempts")),
+                maxAttempts, limit);
+    }
+
+    /**
+     * Marca eventos como procesados.
+     *
+     * @param ids identificadores de los eventos.
+     * @return número de filas actualizadas.
+     */
+    public int markProcessed(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update("UPDATE outbox_events SET processed_at = ? WHERE id IN (" + placeholders(ids.size()) + ")",
+                prepend(Timestamp.valueOf(LocalDateTime.now()), ids));
+    }
+
+    /**
+     * Suma un intento fallido a varios eventos.
+     *
+     * @param ids identificadores de los eventos.
+     * @return número de filas actualizadas.
+     */
+    public int incrementAttempts(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update("UPDATE outbox_events SET attempts = attempts + 1 WHERE id IN (" + placeholders(ids.size()) + ")",
+                ids.toArray());
+    }
+
+    /**
+     * Elimina los eventos procesados antes de una fecha.
+     *
+     * @param before fecha límite.
+     * @return número de eventos eliminados.
+     */
+    public int deleteProcessedBefore(LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM outbox_events WHERE processed_at < ?", Timestamp.valueOf(before));
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Object[] prepend(Object first, List<Long> rest) {
+        Object[] args = new Object[rest.size() + 1];
+        args[0] = first;
+        for (int i = 0; i < rest.size(); i++) {
+            args[i + 1] = rest.get(i);
+        }
+        return args;
+    }
+}
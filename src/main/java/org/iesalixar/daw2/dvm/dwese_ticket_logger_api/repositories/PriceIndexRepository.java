@@ -0,0 +1,73 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Repositorio JDBC de las consultas del índice de precios por producto y supermercado.
+ *
+ * La reconstrucción agrupa las líneas de ticket en la base de datos (una fila por producto,
+ * supermercado y precio) y se lee por rangos de producto, de modo que cada rango puede
+ * recorrerse en paralelo sin transferir las líneas una a una.
+ */
+@Repository
+public class PriceIndexRepository {
+
+    // Última fecha en la que se vio cada producto, por supermercado, para un rango de productos
+    private static final String PRICES_BY_RANGE =
+            "SELECT pt.product_id, l.supermarket_id, pt.price, MAX(t.date) AS last_seen " +
+            "FROM product_ticket pt JOIN tickets t ON t.id = pt.ticket_id " +
+            "JOIN locations l ON l.id = t.location_id " +
+            "WHERE pt.product_id BETWEEN ? AND ? AND l.supermarket_id IS NOT NULL AND pt.price IS NOT NULL " +
+            "GROUP BY pt.product_id, l.supermarket_id, pt.price";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Obtiene el menor y el mayor ID de producto con líneas de ticket.
+     *
+     * @return un array `{mínimo, máximo}`, o `null` si no hay líneas de ticket.
+     */
+    public long[] findProductIdBounds() {
+        return jdbcTemplate.queryForObject("SELECT MIN(product_id), MAX(product_id) FROM product_ticket",
+                (rs, rowNum) -> rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    /**
+     * Recorre los precios observados de un rango de productos. Cada fila contiene, por este
+     * orden, el producto, el supermercado, el precio y la fecha del último ticket.
+     *
+     * @param fromProductId primer producto incluido.
+     * @param toProductId último producto incluido.
+     * @param handler receptor de las filas.
+     */
+    public void forEachPrice(long fromProductId, long toProductId, RowCallbackHandler handler) {
+        jdbcTemplate.query(PRICES_BY_RANGE, handler, fromProductId, toProductId);
+    }
+
+    /**
+     * Obtiene el supermercado de varias ubicaciones.
+     *
+     * @param locationIds las ubicaciones.
+     * @return mapa ubicación → supermercado (sólo las ubicaciones con supermercado).
+     */
+    public Map<Long, Long> findSupermarketIds(Collection<Long> locationIds) {
+        if (locationIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Long> result = new HashMap<>();
+        jdbcTemplate.query("SELECT id, supermarket_id FROM locations WHERE supermarket_id IS NOT NULL AND id IN (" +
+                        String.join(", ", Collections.nCopies(locationIds.size(), "?")) + ")",
+                (RowCallbackHandler) rs -> result.put(rs.getLong(1), rs.getLong(2)),
+                locationIds.toArray());
+        return result;
+    }
+}
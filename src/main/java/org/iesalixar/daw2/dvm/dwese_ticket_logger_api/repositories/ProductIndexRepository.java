@@ -0,0 +1,34 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio JDBC de la lectura de productos para el índice de búsqueda.
+ *
+ * Los productos se leen por bloques ordenados por ID (paginación por clave), de modo que
+ * indexar todo el catálogo no carga entidades ni retiene en memoria más de un bloque.
+ */
+@Repository
+public class ProductIndexRepository {
+
+    private static final String BATCH_AFTER =
+            "SELECT id, name, price, category_id FROM products WHERE id > ? ORDER BY id LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Recorre el bloque de productos situado después de un ID. Cada fila contiene, por este
+     * orden, el ID, el nombre, el precio y la categoría (que puede ser nula).
+     *
+     * @param afterId último ID del bloque anterior (0 para el primero).
+     * @param limit número máximo de productos del bloque.
+     * @param handler receptor de las filas.
+     */
+    public void forEachProductAfter(long afterId, int limit, RowCallbackHandler handler) {
+        jdbcTemplate.query(BATCH_AFTER, handler, afterId, limit);
+    }
+}
@@ -2,8 +2,10 @@ package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
 
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -21,6 +23,14 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     List<Product> findByCategoryId(@Param("categoryId") Long categoryId);
 
+    /**
+     * Obtiene los productos de varias categorías, ordenados por nombre.
+     *
+     * @param categoryIds los IDs de las categorías.
+     * @return una lista de productos que pertenecen a alguna de las categorías.
+     */
+    List<Product> findByCategoryIdInOrderByNameAsc(Collection<Long> categoryIds);
+
     /**
      * Busca una lista de productos cuyo nombre contenga la cadena proporcionada, sin distinguir entre mayúsculas y minúsculas.
      *
@@ -28,4 +38,23 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @return una lista de productos que contienen la cadena especificada, ignorando mayúsculas y minúsculas.
      */
     List<Product> findByNameContainingIgnoreCase(String name);
+
+    /**
+     * Comprueba si un producto aparece en algún ticket.
+     *
+     * @param id el ID del producto.
+     * @return true si el producto está en al menos un ticket, false en caso contrario.
+     */
+    @Query("SELECT COUNT(t) > 0 FROM Ticket t JOIN t.products p WHERE p.id = :id")
+    boolean isUsedInTickets(@Param("id") Long id);
+
+    /**
+     * Obtiene el ID, el precio y la categoría de los productos indicados sin cargar las entidades
+     * completas. Permite validar en una sola consulta los productos de una carga masiva de tickets.
+     *
+     * @param ids los IDs de producto a consultar.
+     * @return una lista de `{id, price, categoryId}` de los productos existentes (categoryId puede ser `null`).
+     */
+    @Query("SELECT p.id, p.price, c.id FROM Product p LEFT JOIN p.category c WHERE p.id IN :ids")
+    List<Object[]> findPricesByIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,8 +1,11 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Province;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 /**
@@ -17,6 +20,7 @@ public interface ProvinceRepository extends JpaRepository<Province, Long> {
      * @param code el código de la provincia.
      * @return true si existe una provincia con el código especificado, false en caso contrario.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByCode(String code);
 
     /**
@@ -26,6 +30,7 @@ public interface ProvinceRepository extends JpaRepository<Province, Long> {
      * @param id el ID de la provincia a excluir.
      * @return true si existe una provincia con el código especificado (excluyendo la provincia con el ID dado), false en caso contrario.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT COUNT(p) > 0 FROM Province p WHERE p.code = :code AND p.id != :id")
     boolean existsProvinceByCodeAndNotId(@Param("code") String code, @Param("id") Long id);
 }
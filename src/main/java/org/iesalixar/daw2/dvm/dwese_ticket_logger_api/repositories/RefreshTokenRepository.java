@@ -0,0 +1,52 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import jakarta.persistence.LockModeType;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repositorio para la entidad RefreshToken que extiende JpaRepository.
+ */
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Busca un token de refresco por su hash, bloqueando la fila para que dos refrescos
+     * simultáneos con el mismo token no puedan usarlo ambos.
+     *
+     * @param tokenHash el hash SHA-256 del token.
+     * @return un Optional con el token si existe.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RefreshToken r WHERE r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashForUpdate(@Param("tokenHash") String tokenHash);
+
+    /**
+     * Revoca todos los tokens de una familia.
+     *
+     * @param familyId el identificador de la familia.
+     * @return el número de tokens revocados.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.familyId = :familyId")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    /**
+     * Elimina los tokens de refresco expirados.
+     *
+     * @param now la fecha actual.
+     * @return el número de tokens eliminados.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
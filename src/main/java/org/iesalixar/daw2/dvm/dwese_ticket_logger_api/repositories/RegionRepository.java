@@ -1,8 +1,11 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Region;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
@@ -50,6 +53,7 @@ public interface RegionRepository extends JpaRepository<Region, Long> {
      * @param code el código de la región.
      * @return true si existe una región con el código especificado, false en caso contrario.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByCode(String code);
 
     /**
@@ -59,6 +63,7 @@ public interface RegionRepository extends JpaRepository<Region, Long> {
      * @param id el ID de la región a excluir.
      * @return true si existe una región con el código especificado (excluyendo la región con el ID dado), false en caso contrario.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT COUNT(r) > 0 FROM Region r WHERE r.code = :code AND r.id != :id")
     boolean existsRegionByCodeAndNotId(@Param("code") String code, @Param("id") Long id);
 }
@@ -0,0 +1,37 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad RevokedToken que extiende JpaRepository.
+ */
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Obtiene los tokens revocados que todavía no han expirado.
+     *
+     * @param now la fecha actual.
+     * @return los tokens revocados vigentes.
+     */
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    /**
+     * Elimina los tokens revocados que ya han expirado: a partir de entonces el filtro JWT los
+     * rechaza por su fecha de expiración.
+     *
+     * @param now la fecha actual.
+     * @return el número de registros eliminados.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,344 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.SpendAggregateDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Repositorio JDBC para las consultas de gasto agregado sobre los tickets.
+ *
+ * La agregación se resuelve íntegramente en SQL. Siempre que las dimensiones lo permiten se
+ * consultan los agregados diarios (`ticket_daily_*_rollup`), cuyo tamaño depende del número de
+ * días y no del de tickets; en otro caso se agregan las tablas base uniendo sólo las necesarias
+ * y filtrando por la columna indexada `tickets.date`.
+ */
+@Repository
+public class SpendAnalyticsRepository {
+
+    /**
+     * Periodo de tiempo por el que se agrupa el gasto.
+     */
+    public enum TimeBucket {
+        DAY("DATE(%s)"),
+        WEEK("DATE(%1$s) - INTERVAL WEEKDAY(%1$s) DAY"),
+        MONTH("DATE(%1$s) - INTERVAL (DAYOFMONTH(%1$s) - 1) DAY");
+
+        private final String expression;
+
+        TimeBucket(String expression) {
+            this.expression = expression;
+        }
+
+        /**
+         * Obtiene la expresión SQL que calcula el primer día del periodo de una columna.
+         *
+         * @param column columna de tipo fecha.
+         * @return la expresión SQL.
+         */
+        private String of(String column) {
+            return String.format(expression, column);
+        }
+    }
+
+    /**
+     * Dimensión adicional por la que se puede agrupar el gasto.
+     */
+    public enum Dimension {
+        SUPERMARKET("l.supermarket_id", "s.name"),
+        PROVINCE("l.province_id", "pv.name"),
+        REGION("pv.region_id", "r.name"),
+        CATEGORY("pr.category_id", "c.name");
+
+        private final String idColumn;
+        private final String nameColumn;
+
+        Dimension(String idColumn, String nameColumn) {
+            this.idColumn = idColumn;
+            this.nameColumn = nameColumn;
+        }
+    }
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Si es true, las consultas que lo permiten se resuelven sobre los agregados diarios
+    @Value("${analytics.use-rollups:true}")
+    private boolean useRollups;
+
+    // Filas que el driver lee de cada vez al volcar resultados en streaming
+    @Value("${analytics.stream.fetch-size:1000}")
+    private int streamFetchSize;
+
+    private NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(streamFetchSize);
+        streamingJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Obtiene el gasto agregado entre dos fechas.
+     *
+     * @param from primer día incluido.
+     * @param to último día incluido.
+     * @param bucket periodo de agrupación.
+     * @param dimensions dimensiones adicionales de agrupación (puede estar vacío).
+     * @return los grupos ordenados por periodo y dimensiones.
+     */
+    public List<SpendAggregateDTO> findSpend(LocalDate from, LocalDate to, TimeBucket bucket, Set<Dimension> dimensions) {
+        return namedParameterJdbcTemplate.query(selectSql(bucket, dimensions), parameters(from, to),
+                rowMapper(dimensions));
+    }
+
+    /**
+     * Recorre el gasto agregado entre dos fechas fila a fila, sin cargar todo el resultado en memoria.
+     *
+     * @param from primer día incluido.
+     * @param to último día incluido.
+     * @param bucket periodo de agrupación.
+     * @param dimensions dimensiones adicionales de agrupación (puede estar vacío).
+     * @param consumer receptor de cada grupo, en orden.
+     */
+    public void streamSpend(LocalDate from, LocalDate to, TimeBucket bucket, Set<Dimension> dimensions,
+                            Consumer<SpendAggregateDTO> consumer) {
+        RowMapper<SpendAggregateDTO> mapper = rowMapper(dimensions);
+        streamingJdbcTemplate.query(selectSql(bucket, dimensions), parameters(from, to),
+                (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Elige la consulta que resuelve la petición: sobre los agregados diarios por ubicación si no
+     * se agrupa por categoría, sobre los agregados por categoría si sólo se agrupa por categoría,
+     * y sobre las tablas base en el resto de casos (o si los agregados están desactivados).
+     *
+     * @param bucket periodo de agrupación.
+     * @param dimensions dimensiones adicionales de agrupación.
+     * @return la sentencia SQL.
+     */
+    private String selectSql(TimeBucket bucket, Set<Dimension> dimensions) {
+        if (useRollups && !dimensions.contains(Dimension.CATEGORY)) {
+            return buildLocationRollupSql(bucket, dimensions);
+        }
+        if (useRollups && dimensions.equals(Set.of(Dimension.CATEGORY))) {
+            return buildCategoryRollupSql(bucket);
+        }
+        return buildSql(bucket, dimensions);
+    }
+
+    /**
+     * Construye la consulta sobre los agregados diarios por ubicación.
+     *
+     * @param bucket periodo de agrupación.
+     * @param dimensions dimensiones de ubicación (supermercado, provincia y/o región).
+     * @return la sentencia SQL.
+     */
+    private String buildLocationRollupSql(TimeBucket bucket, Set<Dimension> dimensions) {
+        List<String> groupColumns = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(selectColumns(bucket.of("ru.day"), dimensions, groupColumns))
+                .append(", SUM(ru.ticket_count) AS tickets, ROUND(SUM(ru.discounted), 2) AS spend")
+                .append(" FROM ticket_daily_location_rollup ru");
+        if (!dimensions.isEmpty()) {
+            sql.append(" LEFT JOIN locations l ON l.id = ru.location_id");
+        }
+        appendLocationJoins(sql, dimensions);
+        sql.append(" WHERE ru.day >= :fromDay AND ru.day <= :toDay AND ru.ticket_count > 0");
+        return appendGrouping(sql, groupColumns);
+    }
+
+    /**
+     * Construye la consulta sobre los agregados diarios por categoría.
+     *
+     * @param bucket periodo de agrupación.
+     * @return la sentencia SQL.
+     */
+    private String buildCategoryRollupSql(TimeBucket bucket) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(bucket.of("ru.day")).append(" AS bucket")
+                .append(", NULLIF(ru.category_id, 0) AS category_id, c.name AS category_name")
+                .append(", SUM(ru.ticket_count) AS tickets, ROUND(SUM(ru.discounted), 2) AS spend")
+                .append(" FROM ticket_daily_category_rollup ru")
+                .append(" LEFT JOIN categories c ON c.id = ru.category_id")
+                .append(" WHERE ru.day >= :fromDay AND ru.day <= :toDay AND ru.ticket_count > 0");
+        return appendGrouping(sql, List.of("bucket", "category_id", "category_name"));
+    }
+
+    /**
+     * Construye la consulta de agregación sobre las tablas base uniendo sólo las necesarias.
+     *
+     * Al agrupar por categoría el gasto se reparte por línea (precio de la línea con el descuento
+     * del ticket); en el resto de casos se usa el subtotal almacenado en `tickets` y no se lee
+     * `product_ticket`.
+     *
+     * @param bucket periodo de agrupación.
+     * @param dimensions dimensiones adicionales de agrupación.
+     * @return la sentencia SQL.
+     */
+    private String buildSql(TimeBucket bucket, Set<Dimension> dimensions) {
+        boolean byCategory = dimensions.contains(Dimension.CATEGORY);
+        boolean needsLocation = dimensions.contains(Dimension.SUPERMARKET)
+                || dimensions.contains(Dimension.PROVINCE)
+                || dimensions.contains(Dimension.REGION);
+
+        List<String> groupColumns = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(selectColumns(bucket.of("t.date"), dimensions, groupColumns));
+        if (byCategory) {
+            sql.append(", COUNT(DISTINCT t.id) AS tickets")
+                    .append(", ROUND(SUM(pt.price * (1 - t.discount / 100)), 2) AS spend");
+        } else {
+            sql.append(", COUNT(*) AS tickets")
+                    .append(", ROUND(SUM(t.subtotal * (1 - t.discount / 100)), 2) AS spend");
+        }
+
+        sql.append(" FROM tickets t");
+        if (needsLocation) {
+            sql.append(" LEFT JOIN locations l ON l.id = t.location_id");
+        }
+        appendLocationJoins(sql, dimensions);
+        if (byCategory) {
+            sql.append(" JOIN product_ticket pt ON pt.ticket_id = t.id")
+                    .append(" JOIN products pr ON pr.id = pt.product_id")
+                    .append(" LEFT JOIN categories c ON c.id = pr.category_id");
+        }
+        sql.append(" WHERE t.date >= :from AND t.date < :to");
+        return appendGrouping(sql, groupColumns);
+    }
+
+    /**
+     * Genera el SELECT con el periodo y las columnas de cada dimensión, y anota las columnas
+     * por las que hay que agrupar.
+     *
+     * @param bucketExpression expresión SQL del periodo.
+     * @param dimensions dimensiones de agrupación.
+     * @param groupColumns lista en la que se añaden los alias de agrupación.
+     * @return el inicio de la sentencia SQL.
+     */
+    private String selectColumns(String bucketExpression, Set<Dimension> dimensions, List<String> groupColumns) {
+        groupColumns.add("bucket");
+        StringBuilder select = new StringBuilder("SELECT ").append(bucketExpression).append(" AS bucket");
+        for (Dimension dimension : Dimension.values()) {
+            if (dimensions.contains(dimension)) {
+                String alias = dimension.name().toLowerCase();
+                select.append(", ").append(dimension.idColumn).append(" AS ").append(alias).append("_id")
+                        .append(", ").append(dimension.nameColumn).append(" AS ").append(alias).append("_name");
+                groupColumns.add(alias + "_id");
+                groupColumns.add(alias + "_name");
+            }
+        }
+        return select.toString();
+    }
+
+    /**
+     * Añade las uniones con supermercados, provincias y regiones que exigen las dimensiones.
+     * Requiere que la ubicación esté disponible con el alias `l`.
+     *
+     * @param sql sentencia en construcción.
+     * @param dimensions dimensiones de agrupación.
+     */
+    private void appendLocationJoins(StringBuilder sql, Set<Dimension> dimensions) {
+        if (dimensions.contains(Dimension.SUPERMARKET)) {
+            sql.append(" LEFT JOIN supermarkets s ON s.id = l.supermarket_id");
+        }
+        if (dimensions.contains(Dimension.PROVINCE) || dimensions.contains(Dimension.REGION)) {
+            sql.append(" LEFT JOIN provinces pv ON pv.id = l.province_id");
+        }
+        if (dimensions.contains(Dimension.REGION)) {
+            sql.append(" LEFT JOIN regions r ON r.id = pv.region_id");
+        }
+    }
+
+    /**
+     * Añade las cláusulas GROUP BY y ORDER BY sobre las columnas indicadas.
+     *
+     * @param sql sentencia en construcción.
+     * @param groupColumns alias de las columnas de agrupación.
+     * @return la sentencia SQL completa.
+     */
+    private String appendGrouping(StringBuilder sql, List<String> groupColumns) {
+        String columns = String.join(", ", groupColumns);
+        return sql.append(" GROUP BY ").append(columns).append(" ORDER BY ").append(columns).toString();
+    }
+
+    /**
+     * Convierte el rango de días en los parámetros de la consulta: un intervalo semiabierto sobre
+     * `tickets.date` y los días extremos para los agregados diarios.
+     *
+     * @param from primer día incluido.
+     * @param to último día incluido.
+     * @return los parámetros `from`, `to`, `fromDay` y `toDay` de la consulta.
+     */
+    private MapSqlParameterSource parameters(LocalDate from, LocalDate to) {
+        return new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from.atStartOfDay()))
+                .addValue("to", Timestamp.valueOf(to.plusDays(1).atStartOfDay()))
+                .addValue("fromDay", Date.valueOf(from))
+                .addValue("toDay", Date.valueOf(to));
+    }
+
+    /**
+     * Crea el RowMapper que rellena sólo las dimensiones consultadas.
+     *
+     * @param dimensions dimensiones incluidas en la consulta.
+     * @return el RowMapper de la consulta.
+     */
+    private RowMapper<SpendAggregateDTO> rowMapper(Set<Dimension> dimensions) {
+        return (rs, rowNum) -> {
+            SpendAggregateDTO dto = new SpendAggregateDTO();
+            Date bucket = rs.getDate("bucket");
+            dto.setBucket(bucket != null ? bucket.toLocalDate() : null);
+            if (dimensions.contains(Dimension.SUPERMARKET)) {
+                dto.setSupermarketId(getLong(rs, "supermarket_id"));
+                dto.setSupermarketName(rs.getString("supermarket_name"));
+            }
+            if (dimensions.contains(Dimension.PROVINCE)) {
+                dto.setProvinceId(getLong(rs, "province_id"));
+                dto.setProvinceName(rs.getString("province_name"));
+            }
+            if (dimensions.contains(Dimension.REGION)) {
+                dto.setRegionId(getLong(rs, "region_id"));
+                dto.setRegionName(rs.getString("region_name"));
+            }
+            if (dimensions.contains(Dimension.CATEGORY)) {
+                dto.setCategoryId(getLong(rs, "category_id"));
+                dto.setCategoryName(rs.getString("category_name"));
+            }
+            dto.setTickets(rs.getLong("tickets"));
+            dto.setSpend(rs.getBigDecimal("spend"));
+            return dto;
+        };
+    }
+
+    /**
+     * Lee una columna numérica que puede ser NULL.
+     *
+     * @param rs el ResultSet posicionado en la fila.
+     * @param column nombre de la columna.
+     * @return el valor de la columna o `null`.
+     * @throws SQLException si falla la lectura.
+     */
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -1,8 +1,11 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Supermarket;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 /**
@@ -17,6 +20,7 @@ public interface SupermarketRepository extends JpaRepository<Supermarket, Long>
      * @param name el nombre del supermercado.
      * @return true si existe un supermercado con el nombre especificado, false en caso contrario.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByName(String name);
 
     /**
@@ -26,6 +30,7 @@ public interface SupermarketRepository extends JpaRepository<Supermarket, Long>
      * @param id el ID del supermercado a excluir.
      * @return true si existe un supermercado con el nombre especificado (excluyendo el supermercado con el ID dado), false en caso contrario.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT COUNT(s) > 0 FROM Supermarket s WHERE s.name = :name AND s.id != :id")
     boolean existsSupermarketByNameAndNotId(@Param("name") String name, @Param("id") Long id);
 
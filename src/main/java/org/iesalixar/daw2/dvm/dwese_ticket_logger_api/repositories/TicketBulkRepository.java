@@ -0,0 +1,172 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Repositorio JDBC para la inserción masiva de tickets y de sus filas en `product_ticket`.
+ *
+ * Hibernate no puede agrupar inserciones de entidades con identificador IDENTITY, por lo que
+ * las cargas masivas se escriben directamente con sentencias INSERT de varias filas.
+ * Participa en la transacción activa de Spring (la conexión se obtiene del mismo DataSource).
+ */
+@Repository
+public class TicketBulkRepository {
+
+    // Número máximo de filas por sentencia INSERT de varias filas
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Valor de auto_increment_increment del servidor, leído una sola vez
+    private volatile Long autoIncrementIncrement;
+
+    /**
+     * Datos de un ticket listo para insertarse en la tabla `tickets`.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class TicketRow {
+        private final Date date;
+        private final BigDecimal discount;
+        private final BigDecimal subtotal;
+        private final Long locationId;
+    }
+
+    /**
+     * Línea de ticket lista para insertarse en la tabla `product_ticket`, con el precio del
+     * producto en el momento de la compra.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class LineRow {
+        private final long productId;
+        private final long ticketId;
+        private final BigDecimal price;
+    }
+
+    /**
+     * Inserta los tickets con sentencias INSERT de varias filas y devuelve sus IDs generados,
+     * en el mismo orden que las filas recibidas.
+     *
+     * Los IDs se obtienen a partir del primer valor AUTO_INCREMENT generado por cada sentencia.
+     * InnoDB asigna valores consecutivos a un INSERT de varias filas siempre que
+     * `innodb_autoinc_lock_mode` sea 0 o 1 (el valor por defecto en MariaDB).
+     *
+     * @param rows los tickets a insertar.
+     * @return los IDs asignados a cada ticket.
+     */
+    public List<Long> insertTickets(List<TicketRow> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<TicketRow> slice = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            ids.addAll(insertTicketSlice(slice));
+        }
+        return ids;
+    }
+
+    /**
+     * Inserta las líneas de los tickets con sentencias INSERT de varias filas.
+     *
+     * @param rows las líneas a insertar.
+     */
+    public void insertProductTicketRows(List<LineRow> rows) {
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<LineRow> slice = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            String sql = "INSERT INTO product_ticket (product_id, ticket_id, price) VALUES "
+                    + String.join(", ", Collections.nCopies(slice.size(), "(?, ?, ?)"));
+            Object[] args = new Object[slice.size() * 3];
+            int i = 0;
+            for (LineRow row : slice) {
+                args[i++] = row.getProductId();
+                args[i++] = row.getTicketId();
+                args[i++] = row.getPrice();
+            }
+            jdbcTemplate.update(sql, args);
+        }
+    }
+
+    /**
+     * Inserta un bloque de tickets en una única sentencia y calcula sus IDs.
+     *
+     * @param slice los tickets del bloque.
+     * @return los IDs asignados, en orden.
+     */
+    private List<Long> insertTicketSlice(List<TicketRow> slice) {
+        String sql = "INSERT INTO tickets (date, discount, subtotal, location_id) VALUES "
+                + String.join(", ", Collections.nCopies(slice.size(), "(?, ?, ?, ?)"));
+
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                int i = 1;
+                for (TicketRow row : slice) {
+                    ps.setTimestamp(i++, new Timestamp(row.getDate().getTime()));
+                    ps.setBigDecimal(i++, row.getDiscount());
+                    ps.setBigDecimal(i++, row.getSubtotal());
+                    ps.setLong(i++, row.getLocationId());
+                }
+                ps.executeUpdate();
+
+                List<Long> keys = new ArrayList<>(slice.size());
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    while (rs.next()) {
+                        keys.add(rs.getLong(1));
+                    }
+                }
+                if (keys.size() == slice.size()) {
+                    return keys;
+                }
+                if (keys.isEmpty()) {
+                    throw new DataRetrievalFailureException("No se han devuelto los IDs de los tickets insertados.");
+                }
+
+                // El driver sólo ha devuelto el primer ID: el resto son consecutivos según el incremento
+                long first = keys.get(0);
+                long step = getAutoIncrementIncrement(connection);
+                List<Long> ids = new ArrayList<>(slice.size());
+                for (int n = 0; n < slice.size(); n++) {
+                    ids.add(first + n * step);
+                }
+                return ids;
+            }
+        });
+    }
+
+    /**
+     * Obtiene el incremento AUTO_INCREMENT configurado en el servidor.
+     *
+     * @param connection conexión de la transacción actual.
+     * @return el valor de `auto_increment_increment`.
+     * @throws SQLException si falla la consulta.
+     */
+    private long getAutoIncrementIncrement(Connection connection) throws SQLException {
+        Long increment = autoIncrementIncrement;
+        if (increment == null) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT @@auto_increment_increment")) {
+                rs.next();
+                increment = rs.getLong(1);
+            }
+            autoIncrementIncrement = increment;
+        }
+        return increment;
+    }
+}
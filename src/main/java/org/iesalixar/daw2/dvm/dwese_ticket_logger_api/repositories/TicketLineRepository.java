@@ -0,0 +1,58 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repositorio JDBC del precio de cada línea de ticket (columna `price` de `product_ticket`).
+ *
+ * La relación Ticket-Product es una colección @ManyToMany sin entidad intermedia, así que
+ * Hibernate inserta las filas de `product_ticket` sin precio (y las vuelve a crear al modificar
+ * la colección). El precio se escribe con este repositorio después de sincronizar la colección,
+ * dentro de la misma transacción.
+ */
+@Repository
+public class TicketLineRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Obtiene el precio de cada línea de un ticket.
+     *
+     * @param ticketId ID del ticket.
+     * @return precio de cada línea por ID de producto (sin las líneas sin precio).
+     */
+    public Map<Long, BigDecimal> findPrices(Long ticketId) {
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, price FROM product_ticket WHERE ticket_id = ? AND price IS NOT NULL",
+                (RowCallbackHandler) rs -> prices.put(rs.getLong(1), rs.getBigDecimal(2)), ticketId);
+        return prices;
+    }
+
+    /**
+     * Escribe el precio de las líneas de un ticket. Las filas deben existir ya en la base de
+     * datos, por lo que hay que sincronizar antes la colección de productos.
+     *
+     * @param ticketId ID del ticket.
+     * @param prices precio de cada línea por ID de producto.
+     */
+    public void updatePrices(Long ticketId, Map<Long, BigDecimal> prices) {
+        if (prices.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(prices.size());
+        for (Map.Entry<Long, BigDecimal> entry : prices.entrySet()) {
+            args.add(new Object[]{entry.getValue(), ticketId, entry.getKey()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE product_ticket SET price = ? WHERE ticket_id = ? AND product_id = ?", args);
+    }
+}
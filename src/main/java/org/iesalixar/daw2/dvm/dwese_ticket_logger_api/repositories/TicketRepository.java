@@ -1,9 +1,16 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
 
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Ticket;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para la entidad Ticket que extiende JpaRepository.
@@ -19,4 +26,86 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
      * @return una lista de tickets con un descuento mayor que el valor especificado.
      */
     List<Ticket> findByDiscountGreaterThan(Float discount);
+
+    /**
+     * Obtiene la primera página de tickets ordenada de más reciente a más antiguo.
+     * El tamaño de la página se limita mediante el `Pageable` recibido (no se ejecuta consulta de conteo).
+     * La ubicación, su supermercado, su provincia y la región se cargan en la misma consulta, de
+     * modo que el número de sentencias no depende del estado de la caché de segundo nivel.
+     *
+     * @param pageable límite de resultados a devolver.
+     * @return una lista con, como máximo, `pageable.getPageSize()` tickets.
+     */
+    @EntityGraph(attributePaths = {"location.supermarket", "location.province.region"})
+    @Query("SELECT t FROM Ticket t ORDER BY t.date DESC, t.id DESC")
+    List<Ticket> findFirstPage(Pageable pageable);
+
+    /**
+     * Obtiene la página de tickets situada justo después del cursor (fecha, id) indicado,
+     * manteniendo el orden `date DESC, id DESC`. Al filtrar por clave en lugar de usar OFFSET,
+     * el coste de cada página es constante independientemente de su posición.
+     *
+     * @param date fecha del último ticket de la página anterior.
+     * @param id ID del último ticket de la página anterior.
+     * @param pageable límite de resultados a devolver.
+     * @return una lista con, como máximo, `pageable.getPageSize()` tickets.
+     */
+    @EntityGraph(attributePaths = {"location.supermarket", "location.province.region"})
+    @Query("SELECT t FROM Ticket t WHERE t.date < :date OR (t.date = :date AND t.id < :id) " +
+            "ORDER BY t.date DESC, t.id DESC")
+    List<Ticket> findPageAfter(@Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Obtiene la primera página de los tickets con algún producto de las categorías indicadas,
+     * con el mismo orden y carga que {@link #findFirstPage(Pageable)}.
+     *
+     * @param categoryIds IDs de las categorías (normalmente, un subárbol completo).
+     * @param pageable límite de resultados a devolver.
+     * @return una lista con, como máximo, `pageable.getPageSize()` tickets.
+     */
+    @EntityGraph(attributePaths = {"location.supermarket", "location.province.region"})
+    @Query("SELECT t FROM Ticket t WHERE EXISTS (SELECT 1 FROM Ticket t2 JOIN t2.products p " +
+            "WHERE t2 = t AND p.category.id IN :categoryIds) ORDER BY t.date DESC, t.id DESC")
+    List<Ticket> findFirstPageByCategoryIds(@Param("categoryIds") Collection<Long> categoryIds, Pageable pageable);
+
+    /**
+     * Obtiene la página de tickets con algún producto de las categorías indicadas situada justo
+     * después del cursor (fecha, id), con el mismo orden que {@link #findPageAfter}.
+     *
+     * @param categoryIds IDs de las categorías (normalmente, un subárbol completo).
+     * @param date fecha del último ticket de la página anterior.
+     * @param id ID del último ticket de la página anterior.
+     * @param pageable límite de resultados a devolver.
+     * @return una lista con, como máximo, `pageable.getPageSize()` tickets.
+     */
+    @EntityGraph(attributePaths = {"location.supermarket", "location.province.region"})
+    @Query("SELECT t FROM Ticket t WHERE (t.date < :date OR (t.date = :date AND t.id < :id)) " +
+            "AND EXISTS (SELECT 1 FROM Ticket t2 JOIN t2.products p " +
+            "WHERE t2 = t AND p.category.id IN :categoryIds) ORDER BY t.date DESC, t.id DESC")
+    List<Ticket> findPageAfterByCategoryIds(@Param("categoryIds") Collection<Long> categoryIds,
+                                            @Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Carga en una sola consulta los productos de un conjunto de tickets ya gestionados por el
+     * contexto de persistencia, inicializando su colección `products`.
+     *
+     * Se usa como segunda consulta tras obtener una página: paginar con JOIN FETCH sobre una
+     * colección obligaría a Hibernate a paginar en memoria, por eso los productos se cargan aparte.
+     *
+     * @param ids los IDs de los tickets de la página.
+     * @return los tickets con sus productos inicializados.
+     */
+    @Query("SELECT DISTINCT t FROM Ticket t LEFT JOIN FETCH t.products WHERE t.id IN :ids")
+    List<Ticket> fetchProductsByTicketIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Obtiene un ticket por su ID junto con su ubicación (supermercado, provincia y región)
+     * y sus productos en una única consulta.
+     *
+     * @param id el ID del ticket.
+     * @return un Optional que contiene el ticket si se encuentra, o vacío si no se encuentra.
+     */
+    @EntityGraph(attributePaths = {"location.supermarket", "location.province.region", "products"})
+    @Query("SELECT t FROM Ticket t WHERE t.id = :id")
+    Optional<Ticket> findWithDetailsById(@Param("id") Long id);
 }
@@ -0,0 +1,268 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.RollupMismatchDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Repositorio JDBC de los agregados diarios de tickets por ubicación y por categoría.
+ *
+ * Las actualizaciones incrementales se aplican como deltas con `INSERT ... ON DUPLICATE KEY
+ * UPDATE`, dentro de la transacción que modifica el ticket. La reconstrucción y la comprobación
+ * derivan los mismos valores directamente de `tickets`, `product_ticket` y `products`: los importes
+ * salen del subtotal del ticket y del precio guardado en cada línea, nunca del precio actual del
+ * producto.
+ */
+@Repository
+public class TicketRollupRepository {
+
+    private static final String LOCATION_TABLE = "ticket_daily_location_rollup";
+    private static final String CATEGORY_TABLE = "ticket_daily_category_rollup";
+
+    // Agregados por ubicación calculados desde las tablas base para un rango de fechas
+    private static final String LOCATION_SOURCE =
+            "SELECT DATE(t.date) AS day, COALESCE(t.location_id, 0) AS k, COUNT(*) AS ticket_count, " +
+            "SUM(t.subtotal) AS gross, SUM(t.subtotal * (1 - t.discount / 100)) AS discounted " +
+            "FROM tickets t WHERE t.date >= ? AND t.date < ? " +
+            "GROUP BY DATE(t.date), COALESCE(t.location_id, 0)";
+
+    // Agregados por categoría calculados desde las tablas base para un rango de fechas, con el
+    // precio de cada línea (el mismo que suma el subtotal del ticket)
+    private static final String CATEGORY_SOURCE =
+            "SELECT DATE(t.date) AS day, COALESCE(p.category_id, 0) AS k, COUNT(DISTINCT t.id) AS ticket_count, " +
+            "SUM(pt.price) AS gross, SUM(pt.price * (1 - t.discount / 100)) AS discounted " +
+            "FROM tickets t JOIN product_ticket pt ON pt.ticket_id = t.id JOIN products p ON p.id = pt.product_id " +
+            "WHERE t.date >= ? AND t.date < ? " +
+            "GROUP BY DATE(t.date), COALESCE(p.category_id, 0)";
+
+    // Número máximo de días por sentencia al recalcular los agregados de unas categorías
+    private static final int DAYS_PER_STATEMENT = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Variación de un agregado diario: se suma a la fila (día, clave) existente o la crea.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Delta {
+        private final LocalDate day;
+        private final long key;
+        private final int ticketCount;
+        private final BigDecimal gross;
+        private final BigDecimal discounted;
+    }
+
+    /**
+     * Aplica variaciones a los agregados por ubicación.
+     *
+     * @param deltas variaciones a aplicar, con la ubicación como clave.
+     */
+    public void applyLocationDeltas(Collection<Delta> deltas) {
+        applyDeltas(LOCATION_TABLE, "location_id", deltas);
+    }
+
+    /**
+     * Aplica variaciones a los agregados por categoría.
+     *
+     * @param deltas variaciones a aplicar, con la categoría como clave.
+     */
+    public void applyCategoryDeltas(Collection<Delta> deltas) {
+        applyDeltas(CATEGORY_TABLE, "category_id", deltas);
+    }
+
+    /**
+     * Sustituye los agregados de un rango de días por los calculados desde las tablas base.
+     *
+     * @param from primer día incluido.
+     * @param toExclusive primer día no incluido.
+     */
+    public void rebuildRange(LocalDate from, LocalDate toExclusive) {
+        Object[] days = {Date.valueOf(from), Date.valueOf(toExclusive)};
+        Object[] dates = {Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(toExclusive.atStartOfDay())};
+
+        jdbcTemplate.update("DELETE FROM " + LOCATION_TABLE + " WHERE day >= ? AND day < ?", days);
+        jdbcTemplate.update("INSERT INTO " + LOCATION_TABLE + " (day, location_id, ticket_count, gross, discounted) " +
+                "SELECT day, k, ticket_count, gross, discounted FROM (" + LOCATION_SOURCE + ") src", dates);
+
+        jdbcTemplate.update("DELETE FROM " + CATEGORY_TABLE + " WHERE day >= ? AND day < ?", days);
+        jdbcTemplate.update("INSERT INTO " + CATEGORY_TABLE + " (day, category_id, ticket_count, gross, discounted) " +
+                "SELECT day, k, ticket_count, gross, discounted FROM (" + CATEGORY_SOURCE + ") src", dates);
+    }
+
+    /**
+     * Obtiene los días en los que hay tickets con un producto.
+     *
+     * @param productId ID del producto.
+     * @return los días, en orden ascendente.
+     */
+    public List<LocalDate> findProductDays(long productId) {
+        return jdbcTemplate.query("SELECT DISTINCT DATE(t.date) FROM product_ticket pt " +
+                        "JOIN tickets t ON t.id = pt.ticket_id WHERE pt.product_id = ? ORDER BY 1",
+                (rs, rowNum) -> rs.getDate(1).toLocalDate(), productId);
+    }
+
+    /**
+     * Sustituye los agregados de unas categorías en unos días por los calculados desde las
+     * tablas base, sin tocar el resto de categorías de esos días.
+     *
+     * @param categoryIds categorías a recalcular (0 para los productos sin categoría).
+     * @param days días a recalcular, en orden ascendente.
+     */
+    public void rebuildCategoryDays(Collection<Long> categoryIds, List<LocalDate> days) {
+        String categories = String.join(", ", Collections.nCopies(categoryIds.size(), "?"));
+        for (int from = 0; from < days.size(); from += DAYS_PER_STATEMENT) {
+            List<LocalDate> slice = days.subList(from, Math.min(from + DAYS_PER_STATEMENT, days.size()));
+            String dayList = String.join(", ", Collections.nCopies(slice.size(), "?"));
+
+            List<Object> args = new ArrayList<>(categoryIds);
+            slice.forEach(day -> args.add(Date.valueOf(day)));
+            jdbcTemplate.update("DELETE FROM " + CATEGORY_TABLE + " WHERE category_id IN (" + categories + ") " +
+                    "AND day IN (" + dayList + ")", args.toArray());
+
+            // El rango de fechas permite usar el índice de tickets.date; la lista de días descarta los intermedios
+            args.clear();
+            args.add(Timestamp.valueOf(slice.get(0).atStartOfDay()));
+            args.add(Timestamp.valueOf(slice.get(slice.size() - 1).plusDays(1).atStartOfDay()));
+            slice.forEach(day -> args.add(Date.valueOf(day)));
+            args.addAll(categoryIds);
+            jdbcTemplate.update("INSERT INTO " + CATEGORY_TABLE + " (day, category_id, ticket_count, gross, discounted) " +
+                    "SELECT DATE(t.date), COALESCE(p.category_id, 0), COUNT(DISTINCT t.id), " +
+                    "SUM(pt.price), SUM(pt.price * (1 - t.discount / 100)) " +
+                    "FROM tickets t JOIN product_ticket pt ON pt.ticket_id = t.id JOIN products p ON p.id = pt.product_id " +
+                    "WHERE t.date >= ? AND t.date < ? AND DATE(t.date) IN (" + dayList + ") " +
+                    "AND COALESCE(p.category_id, 0) IN (" + categories + ") " +
+                    "GROUP BY DATE(t.date), COALESCE(p.category_id, 0)", args.toArray());
+        }
+    }
+
+    /**
+     * Obtiene el primer y el último día con tickets.
+     *
+     * @return un array `{primerDía, últimoDía}`, con ambos valores `null` si no hay tickets.
+     */
+    public LocalDate[] findTicketDayBounds() {
+        return jdbcTemplate.queryForObject("SELECT MIN(DATE(date)), MAX(DATE(date)) FROM tickets", (rs, rowNum) -> {
+            Date min = rs.getDate(1);
+            Date max = rs.getDate(2);
+            return new LocalDate[]{min != null ? min.toLocalDate() : null, max != null ? max.toLocalDate() : null};
+        });
+    }
+
+    /**
+     * Indica si existe algún agregado por ubicación almacenado.
+     *
+     * @return `true` si la tabla de agregados por ubicación tiene filas.
+     */
+    public boolean hasLocationRollups() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + LOCATION_TABLE + ")", Boolean.class));
+    }
+
+    /**
+     * Compara los agregados por ubicación de un rango de días con las tablas base.
+     *
+     * @param from primer día incluido.
+     * @param toExclusive primer día no incluido.
+     * @param limit número máximo de diferencias a devolver.
+     * @return las filas que difieren.
+     */
+    public List<RollupMismatchDTO> findLocationMismatches(LocalDate from, LocalDate toExclusive, int limit) {
+        return findMismatches("LOCATION", LOCATION_TABLE, "location_id", LOCATION_SOURCE, from, toExclusive, limit);
+    }
+
+    /**
+     * Compara los agregados por categoría de un rango de días con las tablas base.
+     *
+     * @param from primer día incluido.
+     * @param toExclusive primer día no incluido.
+     * @param limit número máximo de diferencias a devolver.
+     * @return las filas que difieren.
+     */
+    public List<RollupMismatchDTO> findCategoryMismatches(LocalDate from, LocalDate toExclusive, int limit) {
+        return findMismatches("CATEGORY", CATEGORY_TABLE, "category_id", CATEGORY_SOURCE, from, toExclusive, limit);
+    }
+
+    /**
+     * Aplica variaciones a una tabla de agregados en una única sentencia por lote.
+     *
+     * @param table tabla de agregados.
+     * @param keyColumn columna clave además del día.
+     * @param deltas variaciones a aplicar.
+     */
+    private void applyDeltas(String table, String keyColumn, Collection<Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO " + table + " (day, " + keyColumn + ", ticket_count, gross, discounted) " +
+                "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                "ticket_count = ticket_count + VALUES(ticket_count), " +
+                "gross = gross + VALUES(gross), " +
+                "discounted = discounted + VALUES(discounted)";
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Delta delta : deltas) {
+            args.add(new Object[]{Date.valueOf(delta.getDay()), delta.getKey(), delta.getTicketCount(),
+                    delta.getGross(), delta.getDiscounted()});
+        }
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    /**
+     * Busca las diferencias entre una tabla de agregados y su consulta de origen: filas cuyo
+     * valor no coincide, filas que faltan y filas sobrantes distintas de cero.
+     *
+     * @param rollup nombre del tipo de agregado para el resultado.
+     * @param table tabla de agregados.
+     * @param keyColumn columna clave además del día.
+     * @param source consulta que calcula los agregados desde las tablas base.
+     * @param from primer día incluido.
+     * @param toExclusive primer día no incluido.
+     * @param limit número máximo de diferencias a devolver.
+     * @return las filas que difieren.
+     */
+    private List<RollupMismatchDTO> findMismatches(String rollup, String table, String keyColumn, String source,
+                                                   LocalDate from, LocalDate toExclusive, int limit) {
+        String sql = "SELECT src.day, src.k, src.ticket_count, src.gross, src.discounted, " +
+                "r.ticket_count AS r_count, r.gross AS r_gross, r.discounted AS r_discounted " +
+                "FROM (" + source + ") src " +
+                "LEFT JOIN " + table + " r ON r.day = src.day AND r." + keyColumn + " = src.k " +
+                "WHERE r.day IS NULL OR r.ticket_count <> src.ticket_count OR r.gross <> src.gross " +
+                "OR r.discounted <> src.discounted " +
+                "UNION ALL " +
+                "SELECT r.day, r." + keyColumn + ", 0, 0, 0, r.ticket_count, r.gross, r.discounted " +
+                "FROM " + table + " r " +
+                "LEFT JOIN (" + source + ") src ON src.day = r.day AND src.k = r." + keyColumn + " " +
+                "WHERE r.day >= ? AND r.day < ? AND src.day IS NULL " +
+                "AND (r.ticket_count <> 0 OR r.gross <> 0 OR r.discounted <> 0) " +
+                "ORDER BY 1, 2 LIMIT ?";
+
+        Timestamp fromDate = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp toDate = Timestamp.valueOf(toExclusive.atStartOfDay());
+        RowMapper<RollupMismatchDTO> mapper = (rs, rowNum) -> new RollupMismatchDTO(
+                rollup,
+                rs.getDate(1).toLocalDate(),
+                rs.getLong(2),
+                rs.getLong(3),
+                rs.getLong("r_count"),
+                rs.getBigDecimal(4),
+                rs.getBigDecimal("r_gross"),
+                rs.getBigDecimal(5),
+                rs.getBigDecimal("r_discounted"));
+        return jdbcTemplate.query(sql, mapper, fromDate, toDate, fromDate, toDate,
+                Date.valueOf(from), Date.valueOf(toExclusive), limit);
+    }
+}
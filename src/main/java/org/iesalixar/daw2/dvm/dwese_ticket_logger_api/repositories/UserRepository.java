@@ -1,7 +1,10 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories;
 
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.UserStatusDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -20,4 +23,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
     boolean existsByUsername(String username);
+
+    /**
+     * Obtiene sólo el estado de un usuario (habilitado y fecha del último cambio de contraseña),
+     * sin cargar sus roles.
+     *
+     * @param username el nombre de usuario a buscar.
+     * @return un Optional con el estado del usuario, o vacío si no existe.
+     */
+    @Query("SELECT new org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.UserStatusDTO(" +
+            "u.enabled, u.lastPasswordChangeDate) FROM User u WHERE u.username = :username")
+    Optional<UserStatusDTO> findStatusByUsername(@Param("username") String username);
 }
\ No newline at end of file
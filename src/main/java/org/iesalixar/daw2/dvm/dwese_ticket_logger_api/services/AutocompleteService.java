@@ -0,0 +1,289 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.SuggestionDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.AutocompleteRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.ProductIndexRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.ProductSearchService.ProductDeleted;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.ProductSearchService.ProductSaved;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.SuggestionTrie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Autocompletado de productos, ubicaciones y supermercados sobre tries en memoria
+ * ({@link SuggestionTrie}), uno por tipo, sin consultar la base de datos en cada pulsación.
+ *
+ * Las sugerencias se ordenan por frecuencia de uso: líneas de ticket (`product_ticket`) para los
+ * productos y número de tickets para ubicaciones y supermercados. Los tries se construyen al
+ * arrancar y se reconstruyen periódicamente para actualizar esas frecuencias; entre medias, las
+ * altas, modificaciones y bajas se aplican al momento a partir de los eventos de los servicios
+ * (conservando la frecuencia ya calculada). Los cambios que llegan durante una reconstrucción se
+ * aplican también a los tries nuevos antes de sustituir a los anteriores.
+ */
+@Service
+public class AutocompleteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteService.class);
+
+    @Autowired
+    private AutocompleteRepository autocompleteRepository;
+
+    @Autowired
+    private ProductIndexRepository productIndexRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Sugerencias precalculadas por prefijo (máximo devuelto por consulta) y caracteres indexados
+    @Value("${autocomplete.top-k:10}")
+    private int topK;
+
+    @Value("${autocomplete.max-depth:20}")
+    private int maxDepth;
+
+    // Productos leídos por consulta durante la reconstrucción
+    @Value("${autocomplete.rebuild-batch-size:5000}")
+    private int rebuildBatchSize;
+
+    private volatile Map<Type, SuggestionTrie> tries;
+
+    // Cambios aplicados durante una reconstrucción en curso (null si no hay ninguna)
+    private List<Consumer<Map<Type, SuggestionTrie>>> pending;
+
+    private final Object mutationLock = new Object();
+
+    private final Map<Type, Timer> timers = new EnumMap<>(Type.class);
+
+    /**
+     * Tipos de elemento con autocompletado.
+     */
+    public enum Type {
+        PRODUCTS, LOCATIONS, SUPERMARKETS;
+
+        /**
+         * Obtiene el tipo a partir de su nombre en la URL (`products`, `locations`, `supermarkets`).
+         *
+         * @throws IllegalArgumentException Si el tipo no existe.
+         */
+        public static Type fromPath(String path) {
+            try {
+                return valueOf(path.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Tipo de autocompletado no válido: " + path);
+            }
+        }
+    }
+
+    /**
+     * Evento publicado al crear o modificar una ubicación o un supermercado.
+     *
+     * @param type el tipo de elemento.
+     * @param id el ID del elemento.
+     * @param label el texto a mostrar.
+     * @param texts los textos por los que se debe encontrar.
+     */
+    public record SuggestionSaved(Type type, long id, String label, List<String> texts) {
+    }
+
+    /**
+     * Evento publicado al eliminar una ubicación o un supermercado.
+     *
+     * @param type el tipo de elemento.
+     * @param id el ID del elemento.
+     */
+    public record SuggestionRemoved(Type type, long id) {
+    }
+
+    @PostConstruct
+    public void init() {
+        tries = emptyTries();
+        for (Type type : Type.values()) {
+            timers.put(type, Timer.builder("autocomplete.suggest")
+                    .description("Tiempo de respuesta del autocompletado")
+                    .tag("type", type.name().toLowerCase(Locale.ROOT))
+                    .publishPercentiles(0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Construye los tries en segundo plano al arrancar la aplicación.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        CompletableFuture.runAsync(this::rebuild)
+                .exceptionally(error -> {
+                    logger.error("Error al construir el autocompletado: {}", error.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Reconstruye periódicamente los tries para actualizar las frecuencias de uso.
+     */
+    @Scheduled(fixedDelayString = "${autocomplete.rebuild-interval-ms:600000}",
+            initialDelayString = "${autocomplete.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error al reconstruir el autocompletado: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Construye tries nuevos desde la base de datos y sustituye a los que están en uso.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (mutationLock) {
+            pending = new ArrayList<>();
+        }
+        try {
+            Map<Type, SuggestionTrie> built = emptyTries();
+            loadProducts(built.get(Type.PRODUCTS));
+            loadLocations(built.get(Type.LOCATIONS));
+            loadSupermarkets(built.get(Type.SUPERMARKETS));
+            synchronized (mutationLock) {
+                pending.forEach(mutation -> mutation.accept(built));
+                tries = built;
+            }
+            logger.info("Autocompletado construido en {} ms: {} productos, {} ubicaciones y {} supermercados.",
+                    System.currentTimeMillis() - start, built.get(Type.PRODUCTS).size(),
+                    built.get(Type.LOCATIONS).size(), built.get(Type.SUPERMARKETS).size());
+        } finally {
+            synchronized (mutationLock) {
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * Obtiene las sugerencias más usadas para el texto escrito.
+     *
+     * @param type Tipo de elemento.
+     * @param text Texto escrito por el usuario.
+     * @param limit Número máximo de sugerencias (opcional, acotado al configurado).
+     * @return las sugerencias, de más a menos usada.
+     */
+    public List<SuggestionDTO> suggest(Type type, String text, Integer limit) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return tries.get(type).suggest(text, limit == null ? topK : limit).stream()
+                    .map(suggestion -> new SuggestionDTO(suggestion.id(), suggestion.label(), suggestion.weight()))
+                    .collect(Collectors.toList());
+        } finally {
+            sample.stop(timers.get(type));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductSaved(ProductSaved event) {
+        apply(Type.PRODUCTS, trie -> upsert(trie, event.id(), event.name(), List.of(event.name())));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductDeleted(ProductDeleted event) {
+        apply(Type.PRODUCTS, trie -> trie.remove(event.id()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSuggestionSaved(SuggestionSaved event) {
+        apply(event.type(), trie -> upsert(trie, event.id(), event.label(), event.texts()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSuggestionRemoved(SuggestionRemoved event) {
+        apply(event.type(), trie -> trie.remove(event.id()));
+    }
+
+    /**
+     * Aplica un cambio al trie en uso y, si hay una reconstrucción en curso, lo guarda para
+     * aplicarlo también al trie nuevo.
+     */
+    private void apply(Type type, Consumer<SuggestionTrie> mutation) {
+        synchronized (mutationLock) {
+            mutation.accept(tries.get(type));
+            if (pending != null) {
+                pending.add(built -> mutation.accept(built.get(type)));
+            }
+        }
+    }
+
+    /**
+     * Añade o sustituye un elemento conservando su frecuencia de uso.
+     */
+    private static void upsert(SuggestionTrie trie, long id, String label, List<String> texts) {
+        trie.put(id, label, texts, Math.max(0, trie.weight(id)));
+    }
+
+    private void loadProducts(SuggestionTrie trie) {
+        Map<Long, Long> uses = autocompleteRepository.countProductUsage();
+        long[] lastId = {0};
+        int[] read = new int[1];
+        do {
+            read[0] = 0;
+            productIndexRepository.forEachProductAfter(lastId[0], rebuildBatchSize, rs -> {
+                long id = rs.getLong(1);
+                String name = rs.getString(2);
+                trie.put(id, name, List.of(name), uses.getOrDefault(id, 0L));
+                lastId[0] = id;
+                read[0]++;
+            });
+        } while (read[0] == rebuildBatchSize);
+    }
+
+    private void loadLocations(SuggestionTrie trie) {
+        Map<Long, Long> uses = autocompleteRepository.countLocationUsage();
+        autocompleteRepository.forEachLocation(rs -> {
+            long id = rs.getLong(1);
+            String address = rs.getString(2);
+            String city = rs.getString(3);
+            trie.put(id, locationLabel(address, city), List.of(address, city), uses.getOrDefault(id, 0L));
+        });
+    }
+
+    private void loadSupermarkets(SuggestionTrie trie) {
+        Map<Long, Long> uses = autocompleteRepository.countSupermarketUsage();
+        autocompleteRepository.forEachSupermarket(rs -> {
+            long id = rs.getLong(1);
+            String name = rs.getString(2);
+            trie.put(id, name, List.of(name), uses.getOrDefault(id, 0L));
+        });
+    }
+
+    /**
+     * Texto a mostrar de una ubicación: dirección y ciudad.
+     */
+    public static String locationLabel(String address, String city) {
+        return address + ", " + city;
+    }
+
+    private Map<Type, SuggestionTrie> emptyTries() {
+        Map<Type, SuggestionTrie> empty = new EnumMap<>(Type.class);
+        for (Type type : Type.values()) {
+            empty.put(type, new SuggestionTrie(topK, maxDepth));
+        }
+        return empty;
+    }
+}
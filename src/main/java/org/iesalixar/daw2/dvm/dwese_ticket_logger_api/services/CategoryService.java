@@ -1,16 +1,25 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
 
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.CacheConfig;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.CategoryCreateDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.CategoryDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Category;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.mappers.CategoryMapper;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.OutboxEventType;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.CategoryRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.CategoryTreeService.CategoriesChanged;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.SpendAnalyticsService.AnalyticsDataChanged;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -28,11 +37,18 @@ public class CategoryService {
     @Autowired
     private CategoryMapper categoryMapper;
 
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Obtiene todas las categorías y las convierte en una lista de CategoryDTO.
      *
      * @return Lista de CategoryDTO.
      */
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "'all'")
     public List<CategoryDTO> getAllCategories() {
         List<Category> categories = categoryRepository.findAll();
         return categories.stream()
@@ -46,6 +62,7 @@ public class CategoryService {
      * @param id Identificador único de la categoría.
      * @return Optional con el CategoryDTO correspondiente.
      */
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#id")
     public Optional<CategoryDTO> getCategoryById(Long id) {
         Optional<Category> category = categoryRepository.findById(id);
         return category.map(categoryMapper::toDTO);
@@ -59,6 +76,8 @@ public class CategoryService {
      * @throws IllegalArgumentException Si ya existe una categoría con el mismo nombre.
      * @throws RuntimeException Si ocurre un error al guardar la imagen.
      */
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
+    @Transactional
     public CategoryDTO createCategory(CategoryCreateDTO createDTO) {
         logger.info("Creando una nueva categoría con nombre {}", createDTO.getName());
         // Verificar si ya existe una categoría con el mismo nombre
@@ -84,6 +103,9 @@ public class CategoryService {
         category.setImage(fileName);
         // Guardar la nueva categoría
         Category savedCategory = categoryRepository.save(category);
+        outboxService.record(OutboxEventType.CATEGORY_CREATED, savedCategory.getId(),
+                Map.of("name", savedCategory.getName()));
+        eventPublisher.publishEvent(new CategoriesChanged(savedCategory.getId()));
         logger.info("Categoría creada exitosamente con ID {}", savedCategory.getId());
         // Convertir la entidad guardada a DTO y devolverla
         return categoryMapper.toDTO(savedCategory);
@@ -97,6 +119,8 @@ public class CategoryService {
      * @throws IllegalArgumentException Si la categoría no existe o si el nombre ya está en uso.
      * @throws RuntimeException Si ocurre un error al guardar la imagen.
      */
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
+    @Transactional
     public CategoryDTO updateCategory(Long id, CategoryCreateDTO updateDTO) {
         logger.info("Actualizando categoría con ID {}", id);
         // Buscar la categoría existente
@@ -126,6 +150,10 @@ public class CategoryService {
         existingCategory.setImage(fileName);
         // Guardar los cambios
         Category updatedCategory = categoryRepository.save(existingCategory);
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
+        outboxService.record(OutboxEventType.CATEGORY_UPDATED, updatedCategory.getId(),
+                Map.of("name", updatedCategory.getName()));
+        eventPublisher.publishEvent(new CategoriesChanged(updatedCategory.getId()));
         logger.info("Categoría con ID {} actualizada exitosamente.", updatedCategory.getId());
         // Convertir la entidad actualizada a DTO y devolverla
         return categoryMapper.toDTO(updatedCategory);
@@ -138,6 +166,8 @@ public class CategoryService {
      * @param id ID de la categoría a eliminar.
      * @throws IllegalArgumentException Si la categoría no existe.
      */
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
+    @Transactional
     public void deleteCategory(Long id) {
         logger.info("Buscando categoría con ID {}", id);
 
@@ -153,6 +183,9 @@ public class CategoryService {
 
         // Eliminar la categoría
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
+        outboxService.record(OutboxEventType.CATEGORY_DELETED, id, Map.of("name", category.getName()));
+        eventPublisher.publishEvent(new CategoriesChanged(id));
         logger.info("Categoría con ID {} eliminada exitosamente.", id);
     }
 }
@@ -0,0 +1,211 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.CategoryTreeNodeDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ParentCategoryDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.CategoryRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.CategoryTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene en memoria la jerarquía de categorías para resolver sin consultas recursivas la
+ * pertenencia a un subárbol, la ruta desde la raíz y la profundidad de cada categoría.
+ *
+ * El índice ({@link CategoryTree}) se construye al arrancar y se reconstruye completo cuando
+ * {@link CategoryService} publica un {@link CategoriesChanged}, una vez confirmada la
+ * transacción. Cada reconstrucción crea una instantánea nueva que sustituye a la anterior, así
+ * que las lecturas concurrentes nunca ven un índice a medio actualizar.
+ */
+@Service
+public class CategoryTreeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeService.class);
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(CategoryTree.empty(), List.of());
+
+    /**
+     * Evento publicado cuando se crea, modifica o elimina una categoría.
+     *
+     * @param categoryId la categoría afectada.
+     */
+    public record CategoriesChanged(Long categoryId) {
+    }
+
+    /**
+     * Índice y árbol ya convertido a DTO de una misma versión de las categorías.
+     */
+    private record Snapshot(CategoryTree tree, List<CategoryTreeNodeDTO> roots) {
+    }
+
+    /**
+     * Construye el índice al arrancar la aplicación.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error al construir el índice de categorías: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstruye el índice tras confirmarse un cambio en las categorías.
+     *
+     * @param event el cambio.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoriesChanged(CategoriesChanged event) {
+        logger.info("Categoría con ID {} modificada; reconstruyendo el índice de categorías...", event.categoryId());
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error al reconstruir el índice de categorías: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Lee todas las categorías y sustituye el índice en uso. Se serializa para que una
+     * reconstrucción anterior no pueda sustituir a otra que ya ha leído datos más recientes.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        List<CategoryTree.Node> nodes = categoryRepository.findHierarchy().stream()
+                .map(row -> new CategoryTree.Node((Long) row[0], (Long) row[1], (String) row[2], (String) row[3]))
+                .collect(Collectors.toList());
+        CategoryTree tree = new CategoryTree(nodes);
+        snapshot = new Snapshot(tree, toTreeDTO(tree));
+        logger.info("Índice de categorías construido en {} ms: {} categorías.",
+                System.currentTimeMillis() - start, tree.size());
+    }
+
+    /**
+     * Obtiene el árbol completo de categorías.
+     *
+     * @return las categorías raíz, cada una con sus subcategorías anidadas.
+     */
+    public List<CategoryTreeNodeDTO> getTree() {
+        return snapshot.roots();
+    }
+
+    /**
+     * Obtiene la ruta desde la categoría raíz hasta una categoría, ella incluida.
+     *
+     * @param id ID de la categoría.
+     * @return las categorías de la ruta, de la raíz a la indicada.
+     * @throws IllegalArgumentException Si la categoría no existe.
+     */
+    public List<ParentCategoryDTO> getPath(Long id) {
+        List<CategoryTree.Node> path = snapshot.tree().path(id);
+        if (path.isEmpty()) {
+            throw new IllegalArgumentException("La categoría no existe.");
+        }
+        return path.stream().map(this::toParentDTO).collect(Collectors.toList());
+    }
+
+    /**
+     * Obtiene la profundidad de una categoría (0 para las categorías raíz).
+     *
+     * @param id ID de la categoría.
+     * @return la profundidad, o -1 si la categoría no existe.
+     */
+    public int getDepth(Long id) {
+        return snapshot.tree().depth(id);
+    }
+
+    /**
+     * Indica si una categoría es la indicada o una de sus subcategorías, a cualquier nivel.
+     *
+     * @param rootId ID de la categoría raíz del subárbol.
+     * @param id ID de la categoría a comprobar.
+     * @return true si pertenece al subárbol.
+     */
+    public boolean isInSubtree(Long rootId, Long id) {
+        return rootId != null && id != null && snapshot.tree().isInSubtree(rootId, id);
+    }
+
+    /**
+     * Obtiene los IDs de una categoría y de todas sus subcategorías.
+     *
+     * @param id ID de la categoría raíz del subárbol.
+     * @return los IDs del subárbol.
+     * @throws IllegalArgumentException Si la categoría no existe.
+     */
+    public List<Long> getSubtreeIds(Long id) {
+        long[] ids = snapshot.tree().subtreeIds(id);
+        if (ids.length == 0) {
+            throw new IllegalArgumentException("La categoría no existe.");
+        }
+        return Arrays.stream(ids).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Obtiene los productos de una categoría y de todas sus subcategorías en una sola consulta.
+     *
+     * @param id ID de la categoría raíz del subárbol.
+     * @return los productos, ordenados por nombre.
+     * @throws IllegalArgumentException Si la categoría no existe.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductDTO> getProductsInSubtree(Long id) {
+        List<Long> categoryIds = getSubtreeIds(id);
+        logger.info("Buscando productos de {} categorías del subárbol de la categoría {}", categoryIds.size(), id);
+        return productRepository.findByCategoryIdInOrderByNameAsc(categoryIds).stream()
+                .map(product -> new ProductDTO(product.getId(), product.getName(), product.getPrice()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Convierte el índice en un árbol de DTO. Al recorrer el preorden cada categoría aparece
+     * después de su padre y tras sus hermanos anteriores, así que basta con añadirla a su padre.
+     */
+    private List<CategoryTreeNodeDTO> toTreeDTO(CategoryTree tree) {
+        CategoryTreeNodeDTO[] dtos = new CategoryTreeNodeDTO[tree.size()];
+        List<CategoryTreeNodeDTO> roots = new ArrayList<>();
+        for (int position = 0; position < tree.size(); position++) {
+            CategoryTree.Node node = tree.nodeAt(position);
+            CategoryTreeNodeDTO dto = new CategoryTreeNodeDTO();
+            dto.setId(node.id());
+            dto.setName(node.name());
+            dto.setImage(node.image());
+            dto.setDepth(tree.depthAt(position));
+            dtos[position] = dto;
+            int parent = tree.parentAt(position);
+            if (parent < 0) {
+                roots.add(dto);
+            } else {
+                dtos[parent].getChildren().add(dto);
+            }
+        }
+        return Collections.unmodifiableList(roots);
+    }
+
+    private ParentCategoryDTO toParentDTO(CategoryTree.Node node) {
+        ParentCategoryDTO dto = new ParentCategoryDTO();
+        dto.setId(node.id());
+        dto.setName(node.name());
+        dto.setImage(node.image());
+        return dto;
+    }
+}
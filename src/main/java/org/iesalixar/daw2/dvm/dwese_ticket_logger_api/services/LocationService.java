@@ -1,5 +1,6 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
 
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.CacheConfig;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.LocationCreateDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.LocationDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Location;
@@ -9,9 +10,15 @@ import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.mappers.LocationMapper;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.LocationRepository;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.ProvinceRepository;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.SupermarketRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.AutocompleteService.SuggestionRemoved;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.AutocompleteService.SuggestionSaved;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.SpendAnalyticsService.AnalyticsDataChanged;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Service;
 
@@ -39,11 +46,15 @@ public class LocationService {
     @Autowired
     private MessageSource messageSource;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Obtiene todas las ubicaciones y las convierte en una lista de LocationDTO.
      *
      * @return Lista de LocationDTO.
      */
+    @Cacheable(cacheNames = CacheConfig.LOCATIONS, key = "'all'")
     public List<LocationDTO> getAllLocations() {
         logger.info("Solicitando todas las ubicaciones...");
         try {
@@ -63,6 +74,7 @@ public class LocationService {
      * @return LocationDTO de la ubicación encontrada.
      * @throws IllegalArgumentException Si la ubicación no existe.
      */
+    @Cacheable(cacheNames = CacheConfig.LOCATIONS, key = "#id")
     public LocationDTO getLocationById(Long id) {
         logger.info("Buscando ubicación con ID {}", id);
         Location location = locationRepository.findById(id)
@@ -82,6 +94,7 @@ public class LocationService {
      * @return DTO de la ubicación creada.
      * @throws IllegalArgumentException Si el supermercado o la provincia no existen.
      */
+    @CacheEvict(cacheNames = CacheConfig.LOCATIONS, allEntries = true)
     public LocationDTO createLocation(LocationCreateDTO locationCreateDTO, Locale locale) {
         logger.info("Creando una nueva ubicación con dirección {}", locationCreateDTO.getAddress());
 
@@ -101,6 +114,7 @@ public class LocationService {
 
         Location location = locationMapper.toEntity(locationCreateDTO, supermarket, province);
         Location savedLocation = locationRepository.save(location);
+        publishSaved(savedLocation);
         logger.info("Ubicación creada exitosamente con ID {}", savedLocation.getId());
         return locationMapper.toDTO(savedLocation);
     }
@@ -114,6 +128,7 @@ public class LocationService {
      * @return DTO de la ubicación actualizada.
      * @throws IllegalArgumentException Si la ubicación no existe, el supermercado no existe o la provincia no existe.
      */
+    @CacheEvict(cacheNames = CacheConfig.LOCATIONS, allEntries = true)
     public LocationDTO updateLocation(Long id, LocationCreateDTO locationCreateDTO, Locale locale) {
         logger.info("Actualizando ubicación con ID {}", id);
 
@@ -143,6 +158,8 @@ public class LocationService {
         existingLocation.setProvince(province);
 
         Location updatedLocation = locationRepository.save(existingLocation);
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
+        publishSaved(updatedLocation);
         logger.info("Ubicación con ID {} actualizada exitosamente.", id);
         return locationMapper.toDTO(updatedLocation);
     }
@@ -153,6 +170,7 @@ public class LocationService {
      * @param id Identificador único de la ubicación.
      * @throws IllegalArgumentException Si la ubicación no existe.
      */
+    @CacheEvict(cacheNames = CacheConfig.LOCATIONS, allEntries = true)
     public void deleteLocation(Long id) {
         logger.info("Buscando ubicación con ID {}", id);
 
@@ -163,6 +181,17 @@ public class LocationService {
                 });
 
         locationRepository.deleteById(id);
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
+        eventPublisher.publishEvent(new SuggestionRemoved(AutocompleteService.Type.LOCATIONS, id));
         logger.info("Ubicación con ID {} eliminada exitosamente.", id);
     }
+
+    /**
+     * Publica los textos de una ubicación para el autocompletado.
+     */
+    private void publishSaved(Location location) {
+        eventPublisher.publishEvent(new SuggestionSaved(AutocompleteService.Type.LOCATIONS, location.getId(),
+                AutocompleteService.locationLabel(location.getAddress(), location.getCity()),
+                List.of(location.getAddress(), location.getCity())));
+    }
 }
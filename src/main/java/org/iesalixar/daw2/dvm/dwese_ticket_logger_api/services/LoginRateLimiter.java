@@ -0,0 +1,108 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita la frecuencia de los intentos de login mediante cubos de fichas en memoria: uno por
+ * IP de origen y otro por cada par (IP, nombre de usuario).
+ *
+ * El cubo del usuario incluye la IP para que nadie pueda bloquear el login de otro usuario
+ * agotando sus intentos desde otra dirección; el límite por IP acota, además, cuántas
+ * contraseñas puede probar un mismo cliente aunque vaya cambiando de usuario.
+ *
+ * La comprobación es barata y se hace antes de verificar la contraseña, de modo que los
+ * intentos rechazados no consumen tiempo de BCrypt. Los cubos inactivos se descartan solos.
+ */
+@Service
+public class LoginRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginRateLimiter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Intentos seguidos permitidos y recuperados por minuto para un mismo usuario desde una misma IP
+    @Value("${auth.rate-limit.user.capacity:5}")
+    private long userCapacity;
+
+    @Value("${auth.rate-limit.user.refill-per-minute:5}")
+    private double userRefillPerMinute;
+
+    // Intentos seguidos permitidos y recuperados por minuto para una misma IP
+    @Value("${auth.rate-limit.ip.capacity:20}")
+    private long ipCapacity;
+
+    @Value("${auth.rate-limit.ip.refill-per-minute:20}")
+    private double ipRefillPerMinute;
+
+    // Número máximo de cubos en memoria
+    @Value("${auth.rate-limit.max-keys:100000}")
+    private long maxKeys;
+
+    private Cache<String, TokenBucket> buckets;
+
+    private Counter userRejections;
+
+    private Counter ipRejections;
+
+    @PostConstruct
+    public void init() {
+        // Un cubo sin uso durante el tiempo de recarga completa está lleno: se puede descartar
+        long idleMinutes = (long) Math.ceil(Math.max(userCapacity / userRefillPerMinute, ipCapacity / ipRefillPerMinute));
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Math.max(1, idleMinutes), TimeUnit.MINUTES)
+                .build();
+        userRejections = Counter.builder("auth.login.rejected")
+                .description("Intentos de login rechazados antes de verificar la contraseña")
+                .tag("reason", "user")
+                .register(meterRegistry);
+        ipRejections = Counter.builder("auth.login.rejected")
+                .description("Intentos de login rechazados antes de verificar la contraseña")
+                .tag("reason", "ip")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra un intento de login y comprueba si está permitido. Primero se consume del cubo
+     * de la IP y, sólo si quedan fichas, del cubo del usuario en esa IP.
+     *
+     * @param username Nombre de usuario del intento.
+     * @param clientIp Dirección IP del cliente.
+     * @return 0 si el intento está permitido; si no, los segundos que debe esperar el cliente.
+     */
+    public long tryAcquire(String username, String clientIp) {
+        long waitNanos = buckets.get("ip:" + clientIp,
+                key -> new TokenBucket(ipCapacity, ipRefillPerMinute / 60)).tryConsume();
+        if (waitNanos > 0) {
+            ipRejections.increment();
+            logger.warn("Límite de intentos de login superado para la IP {}", clientIp);
+            return toSeconds(waitNanos);
+        }
+        waitNanos = buckets.get("user:" + clientIp + "/" + username.toLowerCase(Locale.ROOT),
+                key -> new TokenBucket(userCapacity, userRefillPerMinute / 60)).tryConsume();
+        if (waitNanos > 0) {
+            userRejections.increment();
+            logger.warn("Límite de intentos de login superado para el usuario {} desde la IP {}", username, clientIp);
+            return toSeconds(waitNanos);
+        }
+        return 0;
+    }
+
+    private long toSeconds(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + 999_999_999L));
+    }
+}
@@ -0,0 +1,208 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationTopics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Etapa de entrega de notificaciones por STOMP, separada de su persistencia.
+ *
+ * Las notificaciones guardadas se encolan en una cola acotada y un único consumidor las
+ * agrupa (hasta {@code max-batch} o {@code max-wait-ms}) y las envía en orden, con un frame
+ * por destinatario y lote. Un envío fallido se reintenta con espera exponencial y jitter; si
+ * se agotan los reintentos el lote se descarta y se cuenta.
+ *
+ * Con la cola llena se aplica la estrategia configurada: {@code drop} descarta la
+ * notificación nueva al instante; {@code block} espera hasta {@code block-timeout-ms} a que
+ * haya sitio y, si no lo hay, la descarta. En ambos casos la notificación ya está guardada y
+ * sigue disponible en el feed.
+ */
+@Service
+public class NotificationDeliveryPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDeliveryPipeline.class);
+
+    // Cabecera STOMP de los frames que agrupan varias notificaciones (su valor es el número)
+    public static final String BATCH_HEADER = "notification-batch";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private NotificationTopics notificationTopics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Notificaciones que pueden esperar a ser entregadas
+    @Value("${notifications.delivery.queue-capacity:100000}")
+    private int queueCapacity;
+
+    // Estrategia con la cola llena: drop o block
+    @Value("${notifications.delivery.overflow:drop}")
+    private String overflowStrategy;
+
+    @Value("${notifications.delivery.block-timeout-ms:100}")
+    private long blockTimeoutMs;
+
+    // Tamaño máximo de un lote y espera máxima para completarlo
+    @Value("${notifications.delivery.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${notifications.delivery.max-wait-ms:50}")
+    private long maxWaitMs;
+
+    // Reintentos de un lote fallido y espera inicial entre ellos
+    @Value("${notifications.delivery.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${notifications.delivery.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    private ArrayBlockingQueue<NotificationDTO> queue;
+
+    private Sinks.Many<NotificationDTO> sink;
+
+    private Scheduler scheduler;
+
+    private Disposable subscription;
+
+    private Counter dropped;
+
+    private Counter failed;
+
+    private Counter delivered;
+
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void init() {
+        if (!"drop".equals(overflowStrategy) && !"block".equals(overflowStrategy)) {
+            throw new IllegalArgumentException("Estrategia de desbordamiento no válida: " + overflowStrategy);
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        sink = Sinks.many().unicast().onBackpressureBuffer(queue);
+        scheduler = Schedulers.newSingle("notification-delivery");
+
+        Gauge.builder("notifications.delivery.queue", queue, ArrayBlockingQueue::size)
+                .description("Notificaciones pendientes de entregar por STOMP")
+                .register(meterRegistry);
+        dropped = Counter.builder("notifications.delivery.dropped")
+                .description("Notificaciones no entregadas por tener la cola llena")
+                .register(meterRegistry);
+        failed = Counter.builder("notifications.delivery.failed")
+                .description("Notificaciones no entregadas tras agotar los reintentos")
+                .register(meterRegistry);
+        delivered = Counter.builder("notifications.delivery.delivered")
+                .description("Notificaciones entregadas al broker STOMP")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("notifications.delivery.batch")
+                .description("Duración del envío de cada lote de notificaciones")
+                .register(meterRegistry);
+
+        // fairBackpressure: los lotes se piden de uno en uno, así la cola acotada es el único búfer
+        subscription = sink.asFlux()
+                .bufferTimeout(maxBatch, Duration.ofMillis(maxWaitMs), true)
+                .concatMap(batch -> Mono.fromRunnable(() -> batchTimer.record(() -> send(batch)))
+                        .subscribeOn(scheduler)
+                        .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(retryBackoffMs)).jitter(0.5))
+                        .doOnSuccess(ignored -> delivered.increment(batch.size()))
+                        .onErrorResume(error -> {
+                            failed.increment(batch.size());
+                            logger.error("No se ha podido entregar un lote de {} notificaciones: {}",
+                                    batch.size(), error.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            sink.tryEmitComplete();
+        }
+        subscription.dispose();
+        scheduler.dispose();
+    }
+
+    /**
+     * Encola una notificación guardada para entregarla. No bloquea salvo con la estrategia
+     * {@code block}, y como mucho {@code block-timeout-ms}.
+     *
+     * @param notification la notificación.
+     * @return true si se ha encolado; false si se ha descartado.
+     */
+    public boolean submit(NotificationDTO notification) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        while (true) {
+            Sinks.EmitResult result;
+            // El sink sólo admite un emisor a la vez
+            synchronized (this) {
+                result = sink.tryEmitNext(notification);
+            }
+            if (result.isSuccess()) {
+                return true;
+            }
+            if (result != Sinks.EmitResult.FAIL_OVERFLOW
+                    || !"block".equals(overflowStrategy) || System.nanoTime() >= deadline) {
+                dropped.increment();
+                logger.warn("Notificación {} descartada de la entrega ({}).", notification.getId(), result);
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Envía un lote con un frame por destinatario: una notificación sola se envía como objeto;
+     * varias, como array con la cabecera {@link #BATCH_HEADER}.
+     *
+     * @param batch las notificaciones del lote, en orden de llegada.
+     */
+    private void send(List<NotificationDTO> batch) {
+        Map<List<Object>, List<NotificationDTO>> byRecipient = batch.stream()
+                .collect(Collectors.groupingBy(
+                        notification -> Arrays.asList(notification.getRecipientType(), notification.getRecipient()),
+                        LinkedHashMap::new, Collectors.toList()));
+        byRecipient.values().forEach(group -> {
+            NotificationDTO first = group.get(0);
+            Object payload = group.size() == 1 ? first : group;
+            Map<String, Object> headers = group.size() == 1 ? null : Map.of(BATCH_HEADER, String.valueOf(group.size()));
+            switch (first.getRecipientType()) {
+                case USER -> messagingTemplate.convertAndSendToUser(
+                        first.getRecipient(), NotificationTopics.USER_QUEUE, payload, headers);
+                case ROLE, SEGMENT -> notificationTopics
+                        .publishDestinations(first.getRecipientType(), first.getRecipient())
+                        .forEach(destination -> messagingTemplate.convertAndSend(destination, payload, headers));
+                case ALL -> messagingTemplate.convertAndSend(NotificationTopics.BROADCAST, payload, headers);
+            }
+        });
+    }
+}
@@ -1,19 +1,34 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
 
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationBulkResultDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationCreateDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationPageDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationReadRequestDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.mappers.NotificationMapper;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.Notification;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationTopics;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.NotificationBulkRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.NotificationFeedRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.NotificationFeedRepository.Recipient;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.NotificationRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.NotificationCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class NotificationService {
@@ -22,26 +37,310 @@ public class NotificationService {
     private NotificationRepository notificationRepository;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private NotificationDeliveryPipeline deliveryPipeline;
+
+    @Autowired
+    private NotificationTopics notificationTopics;
+
+    @Autowired
+    private NotificationFeedRepository notificationFeedRepository;
+
+    @Autowired
+    private NotificationBulkRepository notificationBulkRepository;
+
+    // Documentos por operación insertMany/updateMany y operaciones en paralelo por petición
+    @Value("${notifications.batch.size:1000}")
+    private int batchSize;
+
+    @Value("${notifications.batch.concurrency:4}")
+    private int batchConcurrency;
+
+    // Máximo de notificaciones o IDs aceptados en una petición masiva
+    @Value("${notifications.batch.max-items:10000}")
+    private int batchMaxItems;
+
+    // Tamaño de página por defecto del feed de notificaciones
+    @Value("${notifications.feed.default-size:20}")
+    private int defaultPageSize;
+
+    // Tamaño de página máximo que puede solicitar un cliente
+    @Value("${notifications.feed.max-size:100}")
+    private int maxPageSize;
+
+    // Origen del modo "tail": local (sólo lo guardado en este nodo) o change-stream (MongoDB en replica set)
+    @Value("${notifications.feed.tail-mode:local}")
+    private String tailMode;
+
+    // Notificaciones guardadas en este nodo, para el modo "tail" local
+    private final Sinks.Many<NotificationDTO> savedNotifications = Sinks.many().multicast().directBestEffort();
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
 
 
     public Mono<NotificationDTO> saveNotification (NotificationCreateDTO notificationCreateDTO) {
         Notification notification = NotificationMapper.toEntity(notificationCreateDTO);
+        validateRecipient(notification);
         return notificationRepository.save(notification)
-                .doOnSuccess(savedNotification ->
-                        Mono.fromRunnable(() -> messagingTemplate.convertAndSend(
-                                        "/topic/notifications",
-                                        NotificationMapper.toDTO (savedNotification)
-                                ))
-                                .subscribeOn(Schedulers.boundedElastic())
-                                .subscribe()
-                )
+                .doOnSuccess(savedNotification -> {
+                    NotificationDTO dto = NotificationMapper.toDTO(savedNotification);
+                    // La entrega va por su propia etapa: no retrasa la respuesta ni el guardado
+                    deliveryPipeline.submit(dto);
+                    savedNotifications.emitNext(dto, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+                })
+                .map(NotificationMapper::toDTO);
+    }
+
+    /**
+     * Guarda muchas notificaciones en bloques (un insertMany por bloque, con un número acotado
+     * de bloques en paralelo) y las pasa a la etapa de entrega, que las agrupa en frames STOMP
+     * (ver {@link NotificationDeliveryPipeline}).
+     *
+     * @param notificationCreateDTOs las notificaciones a crear.
+     * @return el resumen de la operación.
+     * @throws IllegalArgumentException si la lista está vacía, supera el máximo o alguna
+     *                                  notificación no indica un destinatario válido.
+     */
+    public Mono<NotificationBulkResultDTO> saveNotifications(List<NotificationCreateDTO> notificationCreateDTOs) {
+        validateBatchSize(notificationCreateDTOs);
+        List<Notification> notifications = new ArrayList<>(notificationCreateDTOs.size());
+        for (NotificationCreateDTO notificationCreateDTO : notificationCreateDTOs) {
+            if (notificationCreateDTO == null) {
+                throw new IllegalArgumentException("La lista contiene notificaciones vacías.");
+            }
+            Notification notification = NotificationMapper.toEntity(notificationCreateDTO);
+            validateRecipient(notification);
+            notifications.add(notification);
+        }
+        return Flux.fromIterable(notifications)
+                .buffer(batchSize)
+                .flatMap(chunk -> notificationBulkRepository.insertAll(chunk).collectList(), batchConcurrency)
+                .doOnNext(saved -> {
+                    saved.stream().map(NotificationMapper::toDTO).forEach(dto -> {
+                        deliveryPipeline.submit(dto);
+                        savedNotifications.emitNext(dto, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+                    });
+                })
+                .map(List::size)
+                .reduce(0, Integer::sum)
+                .doOnNext(created -> logger.info("Se han guardado {} notificaciones en bloque.", created))
+                .map(created -> new NotificationBulkResultDTO(notificationCreateDTOs.size(), created));
+    }
+
+    /**
+     * Marca como leídas notificaciones del usuario autenticado: las de una lista de IDs (en
+     * bloques de updateMany) o, si no se indican IDs, todas las suyas (un único updateMany).
+     *
+     * El estado de lectura es un campo de la propia notificación, así que las dirigidas a todos,
+     * a un rol o a un segmento no se pueden marcar en nombre de un único usuario: sólo se
+     * modifican las notificaciones de tipo USER del propio usuario y el resto de IDs se ignoran.
+     *
+     * @param request los IDs o el destinatario.
+     * @param authentication el usuario autenticado.
+     * @return el resumen de la operación, con el número de notificaciones modificadas.
+     * @throws IllegalArgumentException si no se indican IDs ni destinatario o hay demasiados IDs.
+     * @throws AccessDeniedException si el destinatario indicado no es el propio usuario.
+     */
+    public Mono<NotificationBulkResultDTO> markRead(NotificationReadRequestDTO request, Authentication authentication) {
+        String username = authentication.getName();
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            validateBatchSize(request.getIds());
+            return Flux.fromIterable(request.getIds())
+                    .buffer(batchSize)
+                    .flatMap(ids -> notificationBulkRepository.markRead(ids, username), batchConcurrency)
+                    .reduce(0L, Long::sum)
+                    .map(modified -> new NotificationBulkResultDTO(request.getIds().size(), modified));
+        }
+        if (request.getRecipientType() == null) {
+            throw new IllegalArgumentException("Se deben indicar los IDs o el destinatario de las notificaciones.");
+        }
+        if (request.getRecipientType() != NotificationRecipientType.USER
+                || (request.getRecipient() != null && !request.getRecipient().equals(username))) {
+            throw new AccessDeniedException("Sólo se pueden marcar como leídas las notificaciones propias.");
+        }
+        return notificationBulkRepository.markAllRead(NotificationRecipientType.USER, username)
+                .map(modified -> new NotificationBulkResultDTO(0, modified));
+    }
+
+    private void validateBatchSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("La lista no puede estar vacía.");
+        }
+        if (items.size() > batchMaxItems) {
+            throw new IllegalArgumentException("Se admiten como máximo " + batchMaxItems + " elementos por petición.");
+        }
+    }
+
+    /**
+     * Comprueba que las notificaciones dirigidas a un usuario, rol o segmento indiquen cuál.
+     *
+     * @param notification la notificación.
+     * @throws IllegalArgumentException si falta el destinatario o no es válido.
+     */
+    private void validateRecipient(Notification notification) {
+        if (notification.getRecipientType() == NotificationRecipientType.ALL) {
+            notification.setRecipient(null);
+            return;
+        }
+        if (notification.getRecipient() == null || notification.getRecipient().isBlank()) {
+            throw new IllegalArgumentException("La notificación debe indicar su destinatario.");
+        }
+        if (notification.getRecipientType() != NotificationRecipientType.USER) {
+            notificationTopics.validateName(notification.getRecipient());
+        }
+    }
+
+    /**
+     * Devuelve los destinos STOMP a los que debe suscribirse un usuario para recibir sus
+     * notificaciones: su cola privada, la difusión general y su partición de cada rol y segmento.
+     *
+     * @param authentication el usuario autenticado.
+     * @param segments segmentos que interesan al usuario.
+     * @return los destinos de suscripción.
+     */
+    public List<String> getSubscriptionDestinations(Authentication authentication, List<String> segments) {
+        List<String> destinations = new ArrayList<>();
+        destinations.add(NotificationTopics.BROADCAST);
+        if (authentication == null) {
+            return destinations;
+        }
+        destinations.add("/user" + NotificationTopics.USER_QUEUE);
+        authentication.getAuthorities().forEach(authority -> destinations.add(notificationTopics
+                .subscriptionTopic(NotificationRecipientType.ROLE, authority.getAuthority(), authentication.getName())));
+        segments.forEach(segment -> destinations.add(notificationTopics
+                .subscriptionTopic(NotificationRecipientType.SEGMENT, segment, authentication.getName())));
+        return destinations;
+    }
+
+    /**
+     * Devuelve las notificaciones más recientes que puede leer el usuario, como mucho una página
+     * de tamaño máximo. Para recorrer el resto se usa el feed paginado.
+     *
+     * @param authentication el usuario autenticado.
+     * @return las notificaciones, de más reciente a más antigua.
+     */
+    public Flux<NotificationDTO> getAllNotifications(Authentication authentication) {
+        return notificationFeedRepository.findPage(null, maxPageSize, null, recipientsOf(authentication, null, null))
+                .map(NotificationMapper::toDTO);
+    }
+
+    /**
+     * Obtiene una página del feed del usuario mediante paginación por cursor (keyset sobre
+     * `createdAt` e `_id`).
+     *
+     * Se solicita un elemento más del tamaño de página para saber si existe una página siguiente
+     * sin contar los documentos de la colección.
+     *
+     * @param authentication el usuario autenticado.
+     * @param cursor Cursor opaco de la página anterior, o null para la primera página.
+     * @param size Tamaño de página solicitado (se limita al máximo configurado).
+     * @param read Filtro por leídas/no leídas (opcional).
+     * @param recipientType Filtro por tipo de destinatario (opcional).
+     * @param recipient Filtro por destinatario (opcional).
+     * @return la página de notificaciones.
+     * @throws IllegalArgumentException si el cursor o los filtros no son válidos.
+     * @throws AccessDeniedException si el destinatario indicado no corresponde al usuario.
+     */
+    public Mono<NotificationPageDTO> getFeed(Authentication authentication, String cursor, Integer size, Boolean read,
+                                             NotificationRecipientType recipientType, String recipient) {
+        int pageSize = (size == null || size <= 0) ? defaultPageSize : Math.min(size, maxPageSize);
+        NotificationCursor after = (cursor == null || cursor.isBlank()) ? null : NotificationCursor.decode(cursor);
+        List<Recipient> recipients = recipientsOf(authentication, recipientType, recipient);
+        return notificationFeedRepository.findPage(after, pageSize + 1, read, recipients)
+                .collectList()
+                .map(notifications -> {
+                    boolean hasNext = notifications.size() > pageSize;
+                    List<Notification> page = hasNext ? notifications.subList(0, pageSize) : notifications;
+                    String nextCursor = null;
+                    if (hasNext) {
+                        Notification last = page.get(page.size() - 1);
+                        nextCursor = new NotificationCursor(last.getCreatedAt(), last.getId()).encode();
+                    }
+                    return new NotificationPageDTO(page.stream().map(NotificationMapper::toDTO).toList(),
+                            nextCursor, hasNext, pageSize);
+                });
+    }
+
+    /**
+     * Sigue las notificaciones nuevas del usuario que cumplen los filtros, para enviarlas por SSE
+     * sin que el cliente tenga que consultar periódicamente.
+     *
+     * @param authentication el usuario autenticado.
+     * @param read Filtro por leídas/no leídas (opcional).
+     * @param recipientType Filtro por tipo de destinatario (opcional).
+     * @param recipient Filtro por destinatario (opcional).
+     * @return flujo infinito de notificaciones nuevas.
+     * @throws IllegalArgumentException si los filtros no son válidos.
+     * @throws AccessDeniedException si el destinatario indicado no corresponde al usuario.
+     */
+    public Flux<NotificationDTO> tail(Authentication authentication, Boolean read,
+                                      NotificationRecipientType recipientType, String recipient) {
+        List<Recipient> recipients = recipientsOf(authentication, recipientType, recipient);
+        if ("local".equals(tailMode)) {
+            return savedNotifications.asFlux()
+                    .filter(notification -> read == null || notification.isRead() == read)
+                    .filter(notification -> recipients.stream().anyMatch(candidate ->
+                            candidate.matches(notification.getRecipientType(), notification.getRecipient())));
+        }
+        return notificationFeedRepository.watchInserts(read, recipients)
                 .map(NotificationMapper::toDTO);
     }
 
-    public Flux<NotificationDTO> getAllNotifications() {
-        return notificationRepository.findAll().map(NotificationMapper::toDTO);
+    /**
+     * Calcula los destinatarios cuyas notificaciones puede leer el usuario con los mismos
+     * criterios que las suscripciones STOMP (ver {@link NotificationTopics#canSubscribe}): las
+     * generales, las suyas, las de sus roles y las de los segmentos que indique.
+     *
+     * Sin filtros se devuelven las generales, las del usuario y las de sus roles; los segmentos
+     * se eligen por el cliente, por lo que sólo se incluyen si se piden expresamente.
+     *
+     * @param authentication el usuario autenticado.
+     * @param recipientType Filtro por tipo de destinatario (opcional).
+     * @param recipient Filtro por destinatario (opcional).
+     * @return los destinatarios, al menos uno.
+     * @throws IllegalArgumentException si se indica un destinatario sin su tipo o un segmento sin nombre.
+     * @throws AccessDeniedException si se pide otro usuario o un rol que el usuario no tiene.
+     */
+    private List<Recipient> recipientsOf(Authentication authentication, NotificationRecipientType recipientType,
+                                         String recipient) {
+        String username = authentication.getName();
+        List<String> roles = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+        if (recipientType == null) {
+            if (recipient != null) {
+                throw new IllegalArgumentException("Para filtrar por destinatario se debe indicar su tipo.");
+            }
+            List<Recipient> recipients = new ArrayList<>();
+            recipients.add(new Recipient(NotificationRecipientType.ALL, null));
+            recipients.add(new Recipient(NotificationRecipientType.USER, username));
+            roles.forEach(role -> recipients.add(new Recipient(NotificationRecipientType.ROLE, role)));
+            return recipients;
+        }
+        return switch (recipientType) {
+            case ALL -> List.of(new Recipient(NotificationRecipientType.ALL, null));
+            case USER -> {
+                if (recipient != null && !recipient.equals(username)) {
+                    throw new AccessDeniedException("No se pueden consultar las notificaciones de otro usuario.");
+                }
+                yield List.of(new Recipient(NotificationRecipientType.USER, username));
+            }
+            case ROLE -> {
+                if (recipient == null) {
+                    if (roles.isEmpty()) {
+                        throw new AccessDeniedException("El usuario no tiene ningún rol.");
+                    }
+                    yield roles.stream().map(role -> new Recipient(NotificationRecipientType.ROLE, role)).toList();
+                }
+                if (!roles.contains(recipient)) {
+                    throw new AccessDeniedException("No se pueden consultar las notificaciones de un rol ajeno.");
+                }
+                yield List.of(new Recipient(NotificationRecipientType.ROLE, recipient));
+            }
+            case SEGMENT -> {
+                if (recipient == null) {
+                    throw new IllegalArgumentException("Se debe indicar el segmento.");
+                }
+                notificationTopics.validateName(recipient);
+                yield List.of(new Recipient(NotificationRecipientType.SEGMENT, recipient));
+            }
+        };
     }
 }
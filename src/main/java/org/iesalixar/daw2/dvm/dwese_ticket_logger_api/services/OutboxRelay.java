@@ -0,0 +1,216 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationCreateDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.OutboxEventType;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.OutboxRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.OutboxRepository.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Relay del outbox: vacía periódicamente la tabla `outbox_events` por lotes y convierte cada
+ * evento en una notificación, que se guarda en MongoDB y se entrega por STOMP a través de
+ * {@link NotificationService#saveNotifications}.
+ *
+ * Cada lote se reclama con `FOR UPDATE SKIP LOCKED` y se marca como procesado en la misma
+ * transacción, después de guardar sus notificaciones. Si el guardado falla la transacción se
+ * deshace, se suma un intento a los eventos y el lote se reintenta en la siguiente pasada; los
+ * eventos que alcanzan {@code max-attempts} dejan de reclamarse. La entrega es por tanto "al
+ * menos una vez": un fallo después de guardar en MongoDB puede duplicar notificaciones.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Eventos por lote y lotes máximos por pasada (una pasada termina antes si se vacía la tabla)
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.relay.max-batches:20}")
+    private int maxBatches;
+
+    // Espera máxima al guardado de un lote en MongoDB
+    @Value("${outbox.relay.timeout-ms:10000}")
+    private long timeoutMs;
+
+    // Intentos fallidos tras los que un evento deja de reclamarse
+    @Value("${outbox.relay.max-attempts:5}")
+    private int maxAttempts;
+
+    // Días que se conservan los eventos procesados
+    @Value("${outbox.relay.retention-days:7}")
+    private long retentionDays;
+
+    // Rol que recibe las notificaciones de tickets
+    @Value("${outbox.ticket-role:ROLE_MANAGER}")
+    private String ticketRole;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Counter relayed;
+
+    private Counter failed;
+
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        relayed = Counter.builder("outbox.events")
+                .tag("result", "relayed")
+                .description("Eventos del outbox convertidos en notificaciones")
+                .register(meterRegistry);
+        failed = Counter.builder("outbox.events")
+                .tag("result", "failed")
+                .description("Eventos del outbox cuyo lote no se pudo procesar")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("outbox.relay.batch")
+                .description("Duración del procesado de cada lote del outbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Procesa los eventos pendientes, lote a lote, hasta vaciar la tabla o alcanzar
+     * {@code max-batches}.
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:1000}")
+    public void relay() {
+        for (int i = 0; i < maxBatches; i++) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            int processed = relayBatch();
+            sample.stop(batchTimer);
+            if (processed < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Elimina periódicamente los eventos ya procesados.
+     */
+    @Scheduled(cron = "${outbox.relay.cleanup-cron:0 30 3 * * *}")
+    public void deleteProcessed() {
+        int deleted = outboxRepository.deleteProcessedBefore(LocalDateTime.now().minusDays(retentionDays));
+        logger.info("Se han eliminado {} eventos procesados del outbox.", deleted);
+    }
+
+    /**
+     * Reclama, convierte y marca como procesado un lote de eventos.
+     *
+     * @return número de eventos reclamados, o -1 si el lote ha fallado.
+     */
+    private int relayBatch() {
+        List<Long> claimed = new ArrayList<>();
+        try {
+            Integer count = transactionTemplate.execute(status -> {
+                List<OutboxEvent> events = outboxRepository.claimBatch(batchSize, maxAttempts);
+                if (events.isEmpty()) {
+                    return 0;
+                }
+                List<NotificationCreateDTO> notifications = new ArrayList<>(events.size());
+                for (OutboxEvent event : events) {
+                    claimed.add(event.getId());
+                    NotificationCreateDTO notification = toNotification(event);
+                    if (notification != null) {
+                        notifications.add(notification);
+                    }
+                }
+                if (!notifications.isEmpty()) {
+                    notificationService.saveNotifications(notifications).block(Duration.ofMillis(timeoutMs));
+                }
+                outboxRepository.markProcessed(claimed);
+                return events.size();
+            });
+            if (count != null && count > 0) {
+                relayed.increment(count);
+                logger.debug("Se han procesado {} eventos del outbox.", count);
+            }
+            return count != null ? count : 0;
+        } catch (Exception e) {
+            failed.increment(claimed.size());
+            logger.error("Error al procesar un lote de {} eventos del outbox: {}", claimed.size(), e.getMessage());
+            if (!claimed.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> outboxRepository.incrementAttempts(claimed));
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Convierte un evento en la notificación que genera.
+     *
+     * @param event el evento.
+     * @return la notificación, o `null` si el tipo de evento es desconocido (se marca como procesado).
+     */
+    private NotificationCreateDTO toNotification(OutboxEvent event) {
+        OutboxEventType type;
+        Map<String, Object> payload;
+        try {
+            type = OutboxEventType.valueOf(event.getEventType());
+            payload = objectMapper.readValue(event.getPayload(), PAYLOAD_TYPE);
+        } catch (Exception e) {
+            logger.warn("Evento {} del outbox descartado: {}", event.getId(), e.getMessage());
+            return null;
+        }
+
+        String message = switch (type) {
+            case TICKET_CREATED -> "Se ha registrado el ticket " + event.getAggregateId()
+                    + " con un subtotal de " + payload.get("subtotal") + " €.";
+            case TICKET_UPDATED -> "Se ha actualizado el ticket " + event.getAggregateId()
+                    + "; su subtotal es ahora de " + payload.get("subtotal") + " €.";
+            case TICKET_DELETED -> "Se ha eliminado el ticket " + event.getAggregateId() + ".";
+            case TICKETS_IMPORTED -> "Se han registrado " + payload.get("count") + " tickets en una carga masiva.";
+            case CATEGORY_CREATED -> "Se ha añadido la categoría " + payload.get("name") + ".";
+            case CATEGORY_UPDATED -> "Se ha actualizado la categoría " + payload.get("name") + ".";
+            case CATEGORY_DELETED -> "Se ha eliminado la categoría " + payload.get("name") + ".";
+            case PRODUCT_CREATED -> "Se ha añadido el producto " + payload.get("name")
+                    + " a " + payload.get("price") + " €.";
+            case PRODUCT_UPDATED -> "Se ha actualizado el producto " + payload.get("name")
+                    + "; su precio es ahora de " + payload.get("price") + " €.";
+            case PRODUCT_DELETED -> "Se ha eliminado el producto " + payload.get("name") + ".";
+        };
+
+        // Los cambios de tickets interesan a los gestores; los de categorías y productos, a todos los usuarios
+        boolean ticketEvent = "TICKET".equals(type.getAggregateType());
+        return new NotificationCreateDTO(type.getSubject(), message, false,
+                ticketEvent ? NotificationRecipientType.ROLE : NotificationRecipientType.ALL,
+                ticketEvent ? ticketRole : null);
+    }
+}
@@ -0,0 +1,52 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.OutboxEventType;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.OutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Servicio que registra eventos de dominio en la tabla `outbox_events`.
+ *
+ * Sólo escribe una fila en la transacción del llamante; la conversión en notificaciones y su
+ * entrega las hace {@link OutboxRelay} en segundo plano, por lo que el coste de la petición no
+ * depende del número de consumidores.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Registra un evento. Exige una transacción activa para que el evento se confirme o se
+     * deshaga junto con el cambio que lo origina.
+     *
+     * @param type tipo de evento.
+     * @param aggregateId identificador del agregado, o `null` si el evento afecta a varios.
+     * @param payload datos del evento.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEventType type, Long aggregateId, Map<String, Object> payload) {
+        try {
+            outboxRepository.append(type.name(), type.getAggregateType(), aggregateId,
+                    objectMapper.writeValueAsString(payload));
+            logger.debug("Evento {} registrado en el outbox para el agregado {}", type, aggregateId);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento " + type + ".", e);
+        }
+    }
+}
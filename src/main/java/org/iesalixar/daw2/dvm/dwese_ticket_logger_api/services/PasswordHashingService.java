@@ -0,0 +1,102 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta el trabajo de hash y verificación de contraseñas (BCrypt) en un pool de hilos
+ * propio y acotado, fuera de los hilos de Tomcat.
+ *
+ * El pool tiene un número fijo de hilos y una cola de tamaño limitado; cuando la cola está
+ * llena la tarea se rechaza al instante con {@link RejectedExecutionException}, para que el
+ * llamante responda 429 en lugar de acumular peticiones. Así una avalancha de logins sólo
+ * ocupa estos hilos y el resto de la API mantiene su latencia.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Hilos dedicados a BCrypt; 0 usa la mitad de los procesadores disponibles
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+
+    // Tareas que pueden esperar en cola antes de empezar a rechazar
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer hashingTimer;
+
+    private Counter rejections;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        hashingTimer = Timer.builder("auth.password.hashing")
+                .description("Duración de las tareas de hash y verificación de contraseñas")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        rejections = Counter.builder("auth.login.rejected")
+                .description("Intentos de login rechazados antes de verificar la contraseña")
+                .tag("reason", "overloaded")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hashing.queue", executor, pool -> pool.getQueue().size())
+                .description("Tareas de hash de contraseñas en espera")
+                .register(meterRegistry);
+        logger.info("Pool de hash de contraseñas iniciado con {} hilos y cola de {}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Ejecuta en el pool una tarea que verifica o calcula el hash de una contraseña.
+     *
+     * @param task la tarea.
+     * @return un futuro con el resultado de la tarea.
+     * @throws RejectedExecutionException si el pool está saturado.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> hashingTimer.record(task), executor);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            logger.warn("Pool de hash de contraseñas saturado: se rechaza la tarea.");
+            throw e;
+        }
+    }
+}
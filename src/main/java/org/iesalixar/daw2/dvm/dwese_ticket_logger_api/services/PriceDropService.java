@@ -0,0 +1,310 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationCreateDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Product;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Supermarket;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Ticket;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.PriceIndexRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.SupermarketRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.PriceIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Motor de detección de bajadas de precio por producto y supermercado.
+ *
+ * Mantiene un {@link PriceIndex} con el último y el menor precio observado de cada par. Los
+ * servicios de tickets publican un {@link PricesObserved} con las líneas de cada cambio y el
+ * índice se actualiza al confirmarse la transacción, sin volver a leer la base de datos. Cuando
+ * una línea rebaja el menor precio conocido de su par se emite una notificación "Precio más
+ * bajo" al segmento del supermercado (`supermarket-<id>`) a través de {@link NotificationService}.
+ *
+ * Al arrancar el índice se reconstruye en paralelo por rangos de producto. Mientras dura la
+ * reconstrucción se registran las observaciones pero no se notifican bajadas, ya que el índice
+ * aún está incompleto. Si la reconstrucción falla se repite pasados
+ * `price-index.rebuild-retry-seconds` segundos, y hasta que termine bien no se notifica nada.
+ */
+@Service
+public class PriceDropService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceDropService.class);
+
+    // Asunto de las notificaciones de bajada de precio (el mismo que el de los datos de ejemplo)
+    private static final String SUBJECT = "Precio más bajo";
+
+    @Autowired
+    private PriceIndexRepository priceIndexRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupermarketRepository supermarketRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Pares (producto, supermercado) esperados, para dimensionar el índice
+    @Value("${price-index.expected-pairs:100000}")
+    private int expectedPairs;
+
+    // Hilos y rangos de producto de la reconstrucción al arrancar
+    @Value("${price-index.rebuild-threads:4}")
+    private int rebuildThreads;
+
+    @Value("${price-index.rebuild-partitions:32}")
+    private int rebuildPartitions;
+
+    // Segundos de espera antes de repetir una reconstrucción fallida
+    @Value("${price-index.rebuild-retry-seconds:30}")
+    private long rebuildRetrySeconds;
+
+    // Ubicaciones cuyo supermercado se mantiene en memoria y tiempo que se conserva
+    @Value("${price-index.location-cache-size:10000}")
+    private long locationCacheSize;
+
+    @Value("${price-index.location-cache-minutes:10}")
+    private long locationCacheMinutes;
+
+    private PriceIndex index;
+
+    private Cache<Long, Long> supermarketByLocation;
+
+    private volatile boolean ready;
+
+    private Counter drops;
+
+    /**
+     * Precio de un producto visto en un ticket.
+     *
+     * @param productId el producto.
+     * @param locationId la ubicación del ticket.
+     * @param price el precio del producto.
+     * @param observedAt la fecha del ticket, en milisegundos.
+     */
+    public record Observation(long productId, Long locationId, BigDecimal price, long observedAt) {
+    }
+
+    /**
+     * Evento con las líneas de ticket escritas en una transacción.
+     *
+     * @param observations las líneas.
+     */
+    public record PricesObserved(List<Observation> observations) {
+
+        /**
+         * Crea el evento de algunas líneas de un ticket.
+         *
+         * @param ticket el ticket, con su ubicación.
+         * @param linePrices precio de cada línea a registrar, por ID de producto.
+         * @return el evento.
+         */
+        public static PricesObserved of(Ticket ticket, Map<Long, BigDecimal> linePrices) {
+            Long locationId = ticket.getLocation() != null ? ticket.getLocation().getId() : null;
+            long observedAt = ticket.getDate() != null ? ticket.getDate().getTime() : System.currentTimeMillis();
+            return new PricesObserved(linePrices.entrySet().stream()
+                    .map(line -> new Observation(line.getKey(), locationId, line.getValue(), observedAt))
+                    .toList());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        index = new PriceIndex(expectedPairs);
+        supermarketByLocation = Caffeine.newBuilder()
+                .maximumSize(locationCacheSize)
+                .expireAfterWrite(locationCacheMinutes, TimeUnit.MINUTES)
+                .build();
+        drops = Counter.builder("price.index.drops")
+                .description("Bajadas de precio detectadas")
+                .register(meterRegistry);
+        Gauge.builder("price.index.pairs", index, PriceIndex::size)
+                .description("Pares (producto, supermercado) del índice de precios")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reconstruye el índice desde la base de datos en segundo plano, repartiendo los rangos de
+     * producto entre varios hilos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long[] bounds = priceIndexRepository.findProductIdBounds();
+        if (bounds == null) {
+            ready = true;
+            logger.info("Índice de precios vacío: no hay líneas de ticket.");
+            return;
+        }
+        long span = bounds[1] - bounds[0] + 1;
+        long step = Math.max(1, (span + rebuildPartitions - 1) / rebuildPartitions);
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        List<CompletableFuture<Void>> partitions = new ArrayList<>();
+        for (long from = bounds[0]; from <= bounds[1]; from += step) {
+            long start = from;
+            long end = Math.min(bounds[1], from + step - 1);
+            partitions.add(CompletableFuture.runAsync(() -> priceIndexRepository.forEachPrice(start, end, rs ->
+                    index.observe(rs.getLong(1), rs.getLong(2), toCents(rs.getBigDecimal(3)),
+                            rs.getTimestamp(4).getTime())), executor));
+        }
+        long startedAt = System.currentTimeMillis();
+        CompletableFuture.allOf(partitions.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, error) -> {
+                    executor.shutdown();
+                    if (error != null) {
+                        logger.error("Error al reconstruir el índice de precios: {}", error.getMessage());
+                        scheduleRebuild();
+                    } else {
+                        ready = true;
+                        logger.info("Índice de precios reconstruido en {} ms: {} pares.",
+                                System.currentTimeMillis() - startedAt, index.size());
+                    }
+                });
+    }
+
+    /**
+     * Programa un nuevo intento de reconstrucción. Las observaciones se combinan de forma
+     * conmutativa, así que las filas ya cargadas por el intento fallido pueden volver a aplicarse.
+     */
+    private void scheduleRebuild() {
+        logger.info("Se reintentará la reconstrucción del índice de precios en {} s.", rebuildRetrySeconds);
+        CompletableFuture.delayedExecutor(rebuildRetrySeconds, TimeUnit.SECONDS).execute(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                logger.error("Error al reconstruir el índice de precios: {}", e.getMessage());
+                scheduleRebuild();
+            }
+        });
+    }
+
+    /**
+     * Registra las líneas de ticket de una transacción confirmada y notifica las bajadas de precio.
+     *
+     * @param event las líneas.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPricesObserved(PricesObserved event) {
+        Map<Long, Long> supermarkets = resolveSupermarkets(event.observations());
+        List<long[]> detected = new ArrayList<>();
+        for (Observation observation : event.observations()) {
+            Long supermarketId = supermarkets.get(observation.locationId());
+            if (supermarketId == null || observation.price() == null) {
+                continue;
+            }
+            long price = toCents(observation.price());
+            long previous = index.observe(observation.productId(), supermarketId, price, observation.observedAt());
+            if (previous != PriceIndex.NO_DROP && ready) {
+                detected.add(new long[]{observation.productId(), supermarketId, price, previous});
+            }
+        }
+        if (!detected.isEmpty()) {
+            drops.increment(detected.size());
+            notifyDrops(detected);
+        }
+    }
+
+    /**
+     * Obtiene el último precio observado de un producto en un supermercado.
+     *
+     * @return el precio, o null si no se ha visto.
+     */
+    public BigDecimal getLatestPrice(long productId, long supermarketId) {
+        return fromCents(index.latest(productId, supermarketId));
+    }
+
+    /**
+     * Obtiene el menor precio observado de un producto en un supermercado.
+     *
+     * @return el precio, o null si no se ha visto.
+     */
+    public BigDecimal getLowestPrice(long productId, long supermarketId) {
+        return fromCents(index.lowest(productId, supermarketId));
+    }
+
+    /**
+     * Obtiene el supermercado de las ubicaciones de las observaciones, consultando en bloque
+     * sólo las que no están en memoria.
+     */
+    private Map<Long, Long> resolveSupermarkets(List<Observation> observations) {
+        Set<Long> locationIds = observations.stream()
+                .map(Observation::locationId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Long> known = supermarketByLocation.getAllPresent(locationIds);
+        if (known.size() == locationIds.size()) {
+            return known;
+        }
+        Set<Long> missing = new HashSet<>(locationIds);
+        missing.removeAll(known.keySet());
+        Map<Long, Long> loaded = priceIndexRepository.findSupermarketIds(missing);
+        supermarketByLocation.putAll(loaded);
+        Map<Long, Long> result = new HashMap<>(known);
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * Crea y guarda las notificaciones de las bajadas detectadas sin esperar al resultado.
+     *
+     * @param detected bajadas como `{producto, supermercado, precio, precioAnterior}`.
+     */
+    private void notifyDrops(List<long[]> detected) {
+        Map<Long, String> productNames = productRepository.findAllById(
+                        detected.stream().map(drop -> drop[0]).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Product::getId, Product::getName));
+        Map<Long, String> supermarketNames = supermarketRepository.findAllById(
+                        detected.stream().map(drop -> drop[1]).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Supermarket::getId, Supermarket::getName));
+
+        List<NotificationCreateDTO> notifications = detected.stream()
+                .map(drop -> new NotificationCreateDTO(SUBJECT,
+                        "Precio más bajo para el producto " + productNames.getOrDefault(drop[0], String.valueOf(drop[0]))
+                                + " en el supermercado " + supermarketNames.getOrDefault(drop[1], String.valueOf(drop[1]))
+                                + ": " + fromCents(drop[2]) + " € (antes " + fromCents(drop[3]) + " €)",
+                        false, NotificationRecipientType.SEGMENT, "supermarket-" + drop[1]))
+                .toList();
+        notificationService.saveNotifications(notifications).subscribe(
+                result -> logger.info("Se han notificado {} bajadas de precio.", result.getAffected()),
+                error -> logger.error("Error al notificar las bajadas de precio: {}", error.getMessage()));
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.movePointRight(2).longValue();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return cents < 0 ? null : BigDecimal.valueOf(cents, 2);
+    }
+}
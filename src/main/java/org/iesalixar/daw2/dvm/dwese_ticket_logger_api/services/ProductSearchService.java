@@ -0,0 +1,436 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductSearchPageDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.ProductIndexRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Búsqueda de texto completo en el catálogo de productos sobre un índice invertido de Lucene
+ * embebido en la aplicación.
+ *
+ * El nombre se indexa dos veces: por palabras (en minúsculas y sin tildes) y por prefijos de
+ * cada palabra (n-gramas de borde). Así, una búsqueda por prefijo es una consulta de términos
+ * exactos, en lugar del `LIKE '%texto%'` que obliga a recorrer toda la tabla. Cada palabra de la
+ * búsqueda debe coincidir con el producto de forma exacta, por prefijo o, en palabras de cuatro
+ * o más letras que no están en el índice, de forma aproximada; los resultados se ordenan por relevancia dando más peso a
+ * las coincidencias exactas. El filtro por categoría incluye sus subcategorías, resueltas con
+ * {@link CategoryTreeService}.
+ *
+ * El índice se reconstruye desde la base de datos al arrancar y se mantiene al día con los
+ * eventos {@link ProductSaved} y {@link ProductDeleted} que publica {@link ProductService},
+ * aplicados al confirmarse la transacción. Mientras dura la reconstrucción inicial las búsquedas
+ * sólo devuelven los productos ya indexados.
+ */
+@Service
+public class ProductSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String NAME_PREFIX = "name_prefix";
+    private static final String PRICE = "price";
+    private static final String CATEGORY_ID = "categoryId";
+
+    // Longitud mínima y máxima de los prefijos indexados
+    private static final int MIN_PREFIX = 2;
+    private static final int MAX_PREFIX = 15;
+
+    // Palabras de la búsqueda que se tienen en cuenta como máximo
+    private static final int MAX_TERMS = 8;
+
+    @Autowired
+    private ProductIndexRepository productIndexRepository;
+
+    @Autowired
+    private CategoryTreeService categoryTreeService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Directorio del índice; si está vacío, el índice se mantiene en memoria
+    @Value("${product-search.index-dir:}")
+    private String indexDir;
+
+    // Productos leídos por consulta durante la reconstrucción
+    @Value("${product-search.rebuild-batch-size:5000}")
+    private int rebuildBatchSize;
+
+    // Tamaño de página por defecto y máximo
+    @Value("${product-search.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${product-search.page.max-size:100}")
+    private int maxPageSize;
+
+    // Posición máxima de resultado que se puede solicitar paginando
+    @Value("${product-search.max-results:1000}")
+    private int maxResults;
+
+    private Directory directory;
+
+    private Analyzer analyzer;
+
+    private IndexWriter writer;
+
+    private SearcherManager searcherManager;
+
+    private Timer searchTimer;
+
+    // IDs modificados por eventos mientras se reconstruye el índice, que la reconstrucción no debe sobrescribir
+    private final Set<Long> updatedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    private final Object rebuildLock = new Object();
+
+    private volatile boolean rebuilding;
+
+    /**
+     * Evento publicado al crear o modificar un producto.
+     *
+     * @param id el ID del producto.
+     * @param name el nombre.
+     * @param price el precio.
+     * @param categoryId la categoría, o null.
+     */
+    public record ProductSaved(long id, String name, BigDecimal price, Long categoryId) {
+    }
+
+    /**
+     * Evento publicado al eliminar un producto.
+     *
+     * @param id el ID del producto.
+     */
+    public record ProductDeleted(long id) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = indexDir == null || indexDir.isBlank()
+                ? new ByteBuffersDirectory()
+                : FSDirectory.open(Path.of(indexDir));
+        Analyzer words = nameAnalyzer(false);
+        analyzer = new PerFieldAnalyzerWrapper(words, Map.of(NAME_PREFIX, nameAnalyzer(true)));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setRAMBufferSizeMB(64));
+        searcherManager = new SearcherManager(writer, null);
+        searchTimer = Timer.builder("product.search")
+                .description("Tiempo de respuesta de la búsqueda de productos")
+                .register(meterRegistry);
+        Gauge.builder("product.search.documents", writer, w -> w.getDocStats().numDocs)
+                .description("Productos del índice de búsqueda")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * Reconstruye el índice desde la base de datos en segundo plano al arrancar la aplicación.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        CompletableFuture.runAsync(this::rebuild)
+                .exceptionally(error -> {
+                    logger.error("Error al reconstruir el índice de productos: {}", error.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Vacía el índice y vuelve a indexar todos los productos, leídos por bloques ordenados por ID.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        rebuilding = true;
+        updatedDuringRebuild.clear();
+        try {
+            writer.deleteAll();
+            long[] lastId = {0};
+            int[] read = new int[1];
+            do {
+                read[0] = 0;
+                productIndexRepository.forEachProductAfter(lastId[0], rebuildBatchSize, rs -> {
+                    long id = rs.getLong(1);
+                    long categoryId = rs.getLong(4);
+                    Long category = rs.wasNull() ? null : categoryId;
+                    synchronized (rebuildLock) {
+                        if (!updatedDuringRebuild.contains(id)) {
+                            try {
+                                index(new ProductSaved(id, rs.getString(2), rs.getBigDecimal(3), category));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                    }
+                    lastId[0] = id;
+                    read[0]++;
+                });
+            } while (read[0] == rebuildBatchSize);
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            rebuilding = false;
+            updatedDuringRebuild.clear();
+        }
+        logger.info("Índice de productos reconstruido en {} ms: {} productos.",
+                System.currentTimeMillis() - start, writer.getDocStats().numDocs);
+    }
+
+    /**
+     * Indexa un producto creado o modificado tras confirmarse la transacción.
+     *
+     * @param event el producto.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductSaved(ProductSaved event) {
+        try {
+            synchronized (rebuildLock) {
+                if (rebuilding) {
+                    updatedDuringRebuild.add(event.id());
+                }
+                index(event);
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            logger.error("Error al indexar el producto con ID {}: {}", event.id(), e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina un producto del índice tras confirmarse la transacción.
+     *
+     * @param event el producto.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductDeleted(ProductDeleted event) {
+        try {
+            synchronized (rebuildLock) {
+                if (rebuilding) {
+                    updatedDuringRebuild.add(event.id());
+                }
+                writer.deleteDocuments(new Term(ID, String.valueOf(event.id())));
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            logger.error("Error al eliminar del índice el producto con ID {}: {}", event.id(), e.getMessage());
+        }
+    }
+
+    /**
+     * Hace visibles en las búsquedas los cambios cuyo refresco se omitió por estar otro en curso.
+     */
+    @Scheduled(fixedDelayString = "${product-search.refresh-interval-ms:1000}")
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            logger.error("Error al refrescar el índice de productos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Busca productos por nombre, ordenados por relevancia.
+     *
+     * @param text Texto a buscar.
+     * @param categoryId Categoría por la que filtrar, incluidas sus subcategorías (opcional).
+     * @param page Número de página, empezando en 0 (opcional).
+     * @param size Tamaño de página; se acota entre 1 y el máximo configurado (opcional).
+     * @return ProductSearchPageDTO con los productos de la página.
+     * @throws IllegalArgumentException Si el texto está vacío, la categoría no existe o la
+     *                                  página supera el máximo de resultados.
+     */
+    public ProductSearchPageDTO search(String text, Long categoryId, Integer page, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        int pageNumber = page == null || page < 0 ? 0 : page;
+        if ((long) (pageNumber + 1) * pageSize > maxResults) {
+            throw new IllegalArgumentException("La página solicitada supera el máximo de " + maxResults + " resultados.");
+        }
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("El texto de búsqueda no puede estar vacío.");
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                Query query = buildQuery(terms, categoryId, searcher.getIndexReader());
+                TopDocs top = searcher.search(query, (pageNumber + 1) * pageSize);
+                StoredFields storedFields = searcher.storedFields();
+                List<ProductDTO> content = new ArrayList<>();
+                for (int i = pageNumber * pageSize; i < top.scoreDocs.length; i++) {
+                    ScoreDoc hit = top.scoreDocs[i];
+                    Document document = storedFields.document(hit.doc);
+                    content.add(new ProductDTO(Long.parseLong(document.get(ID)), document.get(NAME),
+                            new BigDecimal(document.get(PRICE))));
+                }
+                return new ProductSearchPageDTO(content, pageNumber, pageSize, top.totalHits.value,
+                        top.totalHits.relation == TotalHits.Relation.EQUAL_TO);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            sample.stop(searchTimer);
+        }
+    }
+
+    /**
+     * Construye la consulta: cada palabra es obligatoria y puede coincidir de forma exacta,
+     * por prefijo o aproximada, con pesos decrecientes.
+     *
+     * La coincidencia aproximada sólo se añade a las palabras que no aparecen tal cual en el
+     * índice: una palabra existente está a distancia 0 de sí misma, de modo que la consulta
+     * aproximada volvería a recorrer sus mismos documentos y multiplicaría el tiempo de las
+     * palabras frecuentes sin cambiar los primeros resultados.
+     */
+    private Query buildQuery(List<String> terms, Long categoryId, IndexReader reader) throws IOException {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            BooleanQuery.Builder clause = new BooleanQuery.Builder();
+            clause.add(new BoostQuery(new TermQuery(new Term(NAME, term)), 4f), BooleanClause.Occur.SHOULD);
+            if (term.length() >= MIN_PREFIX) {
+                String prefix = term.length() > MAX_PREFIX ? term.substring(0, MAX_PREFIX) : term;
+                clause.add(new BoostQuery(new TermQuery(new Term(NAME_PREFIX, prefix)), 2f), BooleanClause.Occur.SHOULD);
+            }
+            if (term.length() >= 4 && reader.docFreq(new Term(NAME, term)) == 0) {
+                clause.add(new FuzzyQuery(new Term(NAME, term), term.length() >= 8 ? 2 : 1, 1, 50, true),
+                        BooleanClause.Occur.SHOULD);
+            }
+            query.add(clause.build(), BooleanClause.Occur.MUST);
+        }
+        if (categoryId != null) {
+            long[] categoryIds = categoryTreeService.getSubtreeIds(categoryId).stream()
+                    .mapToLong(Long::longValue)
+                    .toArray();
+            query.add(LongPoint.newSetQuery(CATEGORY_ID, categoryIds), BooleanClause.Occur.FILTER);
+        }
+        return query.build();
+    }
+
+    /**
+     * Separa el texto de búsqueda en palabras con el mismo análisis que el nombre indexado.
+     */
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        try (TokenStream stream = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken() && terms.size() < MAX_TERMS) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    /**
+     * Añade o sustituye el documento de un producto.
+     */
+    private void index(ProductSaved product) throws IOException {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(product.id()), Field.Store.YES));
+        document.add(new TextField(NAME, product.name(), Field.Store.YES));
+        document.add(new TextField(NAME_PREFIX, product.name(), Field.Store.NO));
+        document.add(new StoredField(PRICE, product.price().toPlainString()));
+        if (product.categoryId() != null) {
+            document.add(new LongPoint(CATEGORY_ID, product.categoryId()));
+        }
+        writer.updateDocument(new Term(ID, String.valueOf(product.id())), document);
+    }
+
+    /**
+     * Analizador del nombre: palabras en minúsculas y sin tildes y, opcionalmente, los prefijos
+     * de cada palabra (conservando también la palabra completa).
+     */
+    private static Analyzer nameAnalyzer(boolean prefixes) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer tokenizer = new StandardTokenizer();
+                TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+                if (prefixes) {
+                    stream = new EdgeNGramTokenFilter(stream, MIN_PREFIX, MAX_PREFIX, true);
+                }
+                return new TokenStreamComponents(tokenizer, stream);
+            }
+
+            @Override
+            protected TokenStream normalize(String fieldName, TokenStream in) {
+                return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+            }
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductCreateDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Category;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Product;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.mappers.ProductMapper;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.OutboxEventType;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.CategoryRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.ProductSearchService.ProductDeleted;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.ProductSearchService.ProductSaved;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.SpendAnalyticsService.AnalyticsDataChanged;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+public class ProductService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private TicketRollupService ticketRollupService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Obtiene un producto por su ID y lo convierte en un ProductDTO.
+     *
+     * @param id Identificador único del producto.
+     * @return Optional con el ProductDTO correspondiente.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProductDTO> getProductById(Long id) {
+        return productRepository.findById(id).map(productMapper::toDTO);
+    }
+
+    /**
+     * Crea un nuevo producto y lo añade al índice de búsqueda al confirmarse la transacción.
+     *
+     * @param createDTO DTO que contiene los datos del producto a crear.
+     * @return DTO del producto creado.
+     * @throws IllegalArgumentException Si la categoría indicada no existe.
+     */
+    @Transactional
+    public ProductDTO createProduct(ProductCreateDTO createDTO) {
+        logger.info("Creando un nuevo producto con nombre {}", createDTO.getName());
+        Category category = findCategory(createDTO.getCategoryId());
+        Product savedProduct = productRepository.save(productMapper.toEntity(createDTO, category));
+        outboxService.record(OutboxEventType.PRODUCT_CREATED, savedProduct.getId(),
+                Map.of("name", savedProduct.getName(), "price", savedProduct.getPrice()));
+        publishSaved(savedProduct, createDTO.getCategoryId());
+        logger.info("Producto creado exitosamente con ID {}", savedProduct.getId());
+        return productMapper.toDTO(savedProduct);
+    }
+
+    /**
+     * Actualiza un producto existente y su documento en el índice de búsqueda.
+     *
+     * Los tickets guardan el precio de cada línea, así que un cambio de precio no altera los
+     * agregados diarios; un cambio de categoría recalcula en la misma transacción los agregados
+     * de ambas categorías en los días en los que aparece el producto.
+     *
+     * @param id ID del producto a actualizar.
+     * @param updateDTO DTO que contiene los nuevos datos del producto.
+     * @return DTO del producto actualizado.
+     * @throws IllegalArgumentException Si el producto o la categoría indicada no existen.
+     */
+    @Transactional
+    public ProductDTO updateProduct(Long id, ProductCreateDTO updateDTO) {
+        logger.info("Actualizando producto con ID {}", id);
+        Product existingProduct = productRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("El producto no existe."));
+        Long previousCategoryId = existingProduct.getCategory() != null ? existingProduct.getCategory().getId() : null;
+        existingProduct.setName(updateDTO.getName());
+        existingProduct.setPrice(updateDTO.getPrice());
+        existingProduct.setCategory(findCategory(updateDTO.getCategoryId()));
+        // Se sincroniza antes de recalcular los agregados, que leen la categoría con SQL
+        Product updatedProduct = productRepository.saveAndFlush(existingProduct);
+        ticketRollupService.recordCategoryChange(id, previousCategoryId, updateDTO.getCategoryId());
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
+        outboxService.record(OutboxEventType.PRODUCT_UPDATED, updatedProduct.getId(),
+                Map.of("name", updatedProduct.getName(), "price", updatedProduct.getPrice()));
+        publishSaved(updatedProduct, updateDTO.getCategoryId());
+        logger.info("Producto con ID {} actualizado exitosamente.", updatedProduct.getId());
+        return productMapper.toDTO(updatedProduct);
+    }
+
+    /**
+     * Elimina un producto y su documento del índice de búsqueda.
+     *
+     * @param id ID del producto a eliminar.
+     * @throws IllegalArgumentException Si el producto no existe o aparece en algún ticket.
+     */
+    @Transactional
+    public void deleteProduct(Long id) {
+        logger.info("Buscando producto con ID {}", id);
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("El producto no existe."));
+        if (productRepository.isUsedInTickets(id)) {
+            throw new IllegalArgumentException("El producto aparece en algún ticket y no se puede eliminar.");
+        }
+        productRepository.deleteById(id);
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
+        outboxService.record(OutboxEventType.PRODUCT_DELETED, id, Map.of("name", product.getName()));
+        eventPublisher.publishEvent(new ProductDeleted(id));
+        logger.info("Producto con ID {} eliminado exitosamente.", id);
+    }
+
+    /**
+     * Obtiene la categoría indicada, o null si no se indica ninguna.
+     *
+     * @throws IllegalArgumentException Si la categoría no existe.
+     */
+    private Category findCategory(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        return categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new IllegalArgumentException("La categoría no existe."));
+    }
+
+    private void publishSaved(Product product, Long categoryId) {
+        eventPublisher.publishEvent(new ProductSaved(product.getId(), product.getName(), product.getPrice(), categoryId));
+    }
+}
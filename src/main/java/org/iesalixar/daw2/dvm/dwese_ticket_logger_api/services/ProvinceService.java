@@ -1,5 +1,6 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
 
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.CacheConfig;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProvinceCreateDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProvinceDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Province;
@@ -7,9 +8,13 @@ import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Region;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.mappers.ProvinceMapper;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.ProvinceRepository;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.RegionRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.SpendAnalyticsService.AnalyticsDataChanged;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Service;
 
@@ -34,11 +39,15 @@ public class ProvinceService {
     @Autowired
     private MessageSource messageSource;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Obtiene todas las provincias y las convierte en una lista de ProvinceDTO.
      *
      * @return Lista de ProvinceDTO.
      */
+    @Cacheable(cacheNames = CacheConfig.PROVINCES, key = "'all'")
     public List<ProvinceDTO> getAllProvinces() {
         logger.info("Solicitando todas las provincias...");
         try {
@@ -60,6 +69,7 @@ public class ProvinceService {
      * @return ProvinceDTO de la provincia encontrada.
      * @throws IllegalArgumentException Si la provincia no existe.
      */
+    @Cacheable(cacheNames = CacheConfig.PROVINCES, key = "#id")
     public ProvinceDTO getProvinceById(Long id) {
         logger.info("Buscando provincia con ID {}", id);
         Province province = provinceRepository.findById(id)
@@ -79,6 +89,7 @@ public class ProvinceService {
      * @return DTO de la provincia creada.
      * @throws IllegalArgumentException Si ya existe una provincia con el mismo código o si la región no existe.
      */
+    @CacheEvict(cacheNames = {CacheConfig.PROVINCES, CacheConfig.LOCATIONS}, allEntries = true)
     public ProvinceDTO createProvince(ProvinceCreateDTO provinceCreateDTO, Locale locale) {
         logger.info("Creando una nueva provincia con código {}", provinceCreateDTO.getCode());
 
@@ -110,6 +121,7 @@ public class ProvinceService {
      * @return DTO de la provincia actualizada.
      * @throws IllegalArgumentException Si la provincia no existe, el código ya está en uso o si la región no existe.
      */
+    @CacheEvict(cacheNames = {CacheConfig.PROVINCES, CacheConfig.LOCATIONS}, allEntries = true)
     public ProvinceDTO updateProvince(Long id, ProvinceCreateDTO provinceCreateDTO, Locale locale) {
         logger.info("Actualizando provincia con ID {}", id);
 
@@ -136,6 +148,7 @@ public class ProvinceService {
         existingProvince.setName(provinceCreateDTO.getName());
         existingProvince.setRegion(region);
         Province updatedProvince = provinceRepository.save(existingProvince);
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
         logger.info("Provincia con ID {} actualizada exitosamente.", id);
         return provinceMapper.toDTO(updatedProvince);
     }
@@ -146,6 +159,7 @@ public class ProvinceService {
      * @param id Identificador único de la provincia.
      * @throws IllegalArgumentException Si la provincia no existe.
      */
+    @CacheEvict(cacheNames = {CacheConfig.PROVINCES, CacheConfig.LOCATIONS}, allEntries = true)
     public void deleteProvince(Long id) {
         logger.info("Buscando provincia con ID {}", id);
 
@@ -156,6 +170,7 @@ public class ProvinceService {
                 });
 
         provinceRepository.deleteById(id);
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
         logger.info("Provincia con ID {} eliminada exitosamente.", id);
     }
 }
@@ -0,0 +1,175 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.RefreshToken;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.UserStatusDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.RefreshTokenRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Servicio que emite, rota y revoca los tokens de refresco.
+ *
+ * Cada refresco invalida el token presentado y entrega uno nuevo de la misma familia
+ * (rotación). Presentar un token ya usado indica que se ha filtrado, por lo que se revoca
+ * toda la familia y el usuario debe volver a iniciar sesión. Lo mismo ocurre con los tokens
+ * emitidos antes del último cambio de contraseña, para que un token robado deje de servir
+ * cuando el usuario cambia su contraseña.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Días de validez de un token de refresco
+    @Value("${jwt.refresh.expiration-days:14}")
+    private long expirationDays;
+
+    /**
+     * Resultado de una rotación: el usuario del token y el nuevo token de refresco en claro.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Rotation {
+        private final String username;
+        private final String refreshToken;
+    }
+
+    /**
+     * Emite el primer token de refresco de una nueva sesión.
+     *
+     * @param username Nombre del usuario autenticado.
+     * @return El token de refresco en claro, que sólo se entrega al cliente.
+     */
+    @Transactional
+    public String issue(String username) {
+        return create(username, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Usa un token de refresco y emite el siguiente de su familia.
+     *
+     * Se ejecuta en una transacción nueva para que la revocación de la familia por reutilización
+     * se confirme aunque el llamante trate el error.
+     *
+     * @param rawToken Token de refresco presentado por el cliente.
+     * @return El usuario del token y el nuevo token de refresco.
+     * @throws IllegalArgumentException Si el token no existe, ha expirado, está revocado, ya se usó
+     *                                  o se emitió antes del último cambio de contraseña.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, noRollbackFor = IllegalArgumentException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken token = refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken))
+                .orElseThrow(() -> new IllegalArgumentException("El token de refresco no es válido."));
+
+        if (token.isRevoked()) {
+            throw new IllegalArgumentException("El token de refresco ha sido revocado.");
+        }
+        if (token.isUsed()) {
+            // Reutilización de un token ya rotado: se revoca toda la sesión
+            int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId());
+            logger.warn("Reutilización del token de refresco del usuario {}: {} tokens revocados.",
+                    token.getUsername(), revoked);
+            throw new IllegalArgumentException("El token de refresco ya se ha utilizado.");
+        }
+        if (token.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("El token de refresco ha expirado.");
+        }
+        LocalDateTime passwordChangedAt = userRepository.findStatusByUsername(token.getUsername())
+                .map(UserStatusDTO::getPasswordChangedAt)
+                .orElse(null);
+        if (passwordChangedAt != null && token.getCreatedAt().isBefore(passwordChangedAt)) {
+            // Sesión iniciada con la contraseña anterior: se revoca toda la familia
+            refreshTokenRepository.revokeFamily(token.getFamilyId());
+            logger.warn("Token de refresco del usuario {} anterior al cambio de contraseña: sesión revocada.",
+                    token.getUsername());
+            throw new IllegalArgumentException("La contraseña ha cambiado. Inicia sesión de nuevo.");
+        }
+
+        token.setUsed(true);
+        refreshTokenRepository.save(token);
+        String next = create(token.getUsername(), token.getFamilyId());
+        logger.info("Token de refresco rotado para el usuario {}", token.getUsername());
+        return new Rotation(token.getUsername(), next);
+    }
+
+    /**
+     * Revoca la sesión a la que pertenece un token de refresco. Si el token no existe no hace nada.
+     *
+     * @param rawToken Token de refresco presentado por el cliente.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken)).ifPresent(token -> {
+            refreshTokenRepository.revokeFamily(token.getFamilyId());
+            logger.info("Sesión de refresco revocada para el usuario {}", token.getUsername());
+        });
+    }
+
+    /**
+     * Elimina periódicamente los tokens de refresco expirados.
+     */
+    @Scheduled(cron = "${jwt.refresh.cleanup-cron:0 0 3 * * *}")
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        logger.info("Se han eliminado {} tokens de refresco expirados.", deleted);
+    }
+
+    /**
+     * Genera y guarda un token de refresco de una familia.
+     *
+     * @param username Nombre del usuario.
+     * @param familyId Identificador de la familia.
+     * @return El token en claro.
+     */
+    private String create(String username, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(new RefreshToken(null, hash(rawToken), username, familyId,
+                now.plusDays(expirationDays), false, false, now));
+        return rawToken;
+    }
+
+    /**
+     * Calcula el hash SHA-256 (hexadecimal) de un token de refresco.
+     *
+     * @param rawToken El token en claro.
+     * @return El hash del token.
+     */
+    private String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible.", e);
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
 
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.CacheConfig;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.RegionCreateDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.RegionDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Region;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.mappers.RegionMapper;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.RegionRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.SpendAnalyticsService.AnalyticsDataChanged;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -31,11 +36,15 @@ public class RegionService {
     @Autowired
     private MessageSource messageSource;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Obtiene todas las regiones y las convierte en una lista de RegionDTO.
      *
      * @return Lista de RegionDTO.
      */
+    @Cacheable(cacheNames = CacheConfig.REGIONS, key = "#pageable")
     public Page<RegionDTO> getAllRegions(Pageable pageable) {
         logger.info("Solicitando todas las regiones...", pageable.getPageNumber(), pageable.getPageSize());
         try {
@@ -55,6 +64,7 @@ public class RegionService {
      * @return RegionDTO de la región encontrada.
      * @throws IllegalArgumentException Si la región no existe.
      */
+    @Cacheable(cacheNames = CacheConfig.REGIONS, key = "#id")
     public RegionDTO getRegionById(Long id) {
         logger.info("Buscando región con ID {}", id);
         Region region = regionRepository.findById(id)
@@ -74,6 +84,7 @@ public class RegionService {
      * @return DTO de la región creada.
      * @throws IllegalArgumentException Si ya existe una región con el mismo código.
      */
+    @CacheEvict(cacheNames = {CacheConfig.REGIONS, CacheConfig.PROVINCES, CacheConfig.LOCATIONS}, allEntries = true)
     public RegionDTO createRegion(RegionCreateDTO regionCreateDTO, Locale locale) {
         logger.info("Creando una nueva región con código {}", regionCreateDTO.getCode());
         if (regionRepository.existsByCode(regionCreateDTO.getCode())) {
@@ -97,6 +108,7 @@ public class RegionService {
      * @return DTO de la región actualizada.
      * @throws IllegalArgumentException Si la región no existe o si el código ya está en uso.
      */
+    @CacheEvict(cacheNames = {CacheConfig.REGIONS, CacheConfig.PROVINCES, CacheConfig.LOCATIONS}, allEntries = true)
     public RegionDTO updateRegion(Long id, RegionCreateDTO regionCreateDTO, Locale locale) {
         logger.info("Actualizando región con ID {}", id);
         Region existingRegion = regionRepository.findById(id)
@@ -114,6 +126,7 @@ public class RegionService {
         existingRegion.setCode(regionCreateDTO.getCode());
         existingRegion.setName(regionCreateDTO.getName());
         Region updatedRegion = regionRepository.save(existingRegion);
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
         logger.info("Región con ID {} actualizada exitosamente.", id);
         return regionMapper.toDTO(updatedRegion);
     }
@@ -124,6 +137,7 @@ public class RegionService {
      * @param id Identificador único de la región.
      * @throws IllegalArgumentException Si la región no existe.
      */
+    @CacheEvict(cacheNames = {CacheConfig.REGIONS, CacheConfig.PROVINCES, CacheConfig.LOCATIONS}, allEntries = true)
     public void deleteRegion(Long id) {
         logger.info("Buscando región con ID {}", id);
         Region region = regionRepository.findById(id)
@@ -133,6 +147,7 @@ public class RegionService {
                 });
 
         regionRepository.deleteById(id);
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
         logger.info("Región con ID {} eliminada exitosamente.", id);
     }
 }
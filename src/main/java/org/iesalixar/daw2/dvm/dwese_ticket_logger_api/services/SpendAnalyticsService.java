@@ -0,0 +1,142 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.SpendAggregateDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.AnalyticsVersionRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.SpendAnalyticsRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.SpendAnalyticsRepository.Dimension;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.SpendAnalyticsRepository.TimeBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Servicio que calcula el gasto agregado de los tickets por periodo de tiempo y por
+ * supermercado, provincia, región y/o categoría.
+ */
+@Service
+public class SpendAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpendAnalyticsService.class);
+
+    @Autowired
+    private SpendAnalyticsRepository spendAnalyticsRepository;
+
+    @Autowired
+    private AnalyticsVersionRepository analyticsVersionRepository;
+
+    // Número máximo de días que puede abarcar una consulta de gasto
+    @Value("${analytics.max-range-days:1096}")
+    private int maxRangeDays;
+
+    /**
+     * Evento publicado por los servicios que modifican datos que alteran el resultado de la
+     * analítica (tickets, agregados y datos de referencia).
+     */
+    public record AnalyticsDataChanged() {
+    }
+
+    /**
+     * Incrementa la versión de los datos de la analítica una vez confirmado el cambio. Una
+     * consulta que lea la versión anterior con los datos nuevos sólo provoca una respuesta 200
+     * de más en la siguiente revalidación, nunca un 304 con datos antiguos. Se ejecuta en una
+     * transacción nueva: la del cambio ya está confirmada y no volvería a confirmarse.
+     *
+     * @param event el aviso de cambio.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAnalyticsDataChanged(AnalyticsDataChanged event) {
+        analyticsVersionRepository.increment();
+    }
+
+    /**
+     * Obtiene el gasto agregado entre dos fechas.
+     *
+     * @param from Primer día incluido.
+     * @param to Último día incluido.
+     * @param bucket Periodo de agrupación.
+     * @param groupBy Dimensiones adicionales de agrupación (opcional).
+     * @return Lista de grupos ordenados por periodo y dimensiones.
+     * @throws IllegalArgumentException Si el rango de fechas no es válido.
+     */
+    public List<SpendAggregateDTO> getSpend(LocalDate from, LocalDate to, TimeBucket bucket,
+                                            Collection<Dimension> groupBy) {
+        Set<Dimension> dimensions = validate(from, to, groupBy);
+        logger.info("Calculando el gasto entre {} y {} por {} y {}", from, to, bucket, dimensions);
+        List<SpendAggregateDTO> result = spendAnalyticsRepository.findSpend(from, to, bucket, dimensions);
+        logger.info("Se han calculado {} grupos de gasto.", result.size());
+        return result;
+    }
+
+    /**
+     * Calcula el ETag de una consulta de gasto sin ejecutarla: combina la versión actual de los
+     * datos de la analítica, que cambia con cualquier modificación que pueda alterar el
+     * resultado, con los parámetros normalizados de la consulta.
+     *
+     * @param from Primer día incluido.
+     * @param to Último día incluido.
+     * @param bucket Periodo de agrupación.
+     * @param groupBy Dimensiones adicionales de agrupación (opcional).
+     * @return ETag entre comillas, listo para la cabecera.
+     * @throws IllegalArgumentException Si el rango de fechas no es válido.
+     */
+    public String getSpendETag(LocalDate from, LocalDate to, TimeBucket bucket, Collection<Dimension> groupBy) {
+        Set<Dimension> dimensions = validate(from, to, groupBy);
+        long version = analyticsVersionRepository.findVersion();
+        return "\"" + version + "-" + Integer.toHexString(Objects.hash(from, to, bucket, dimensions)) + "\"";
+    }
+
+    /**
+     * Recorre el gasto agregado entre dos fechas, entregando cada grupo según se lee.
+     *
+     * @param from Primer día incluido.
+     * @param to Último día incluido.
+     * @param bucket Periodo de agrupación.
+     * @param groupBy Dimensiones adicionales de agrupación (opcional).
+     * @param consumer Receptor de cada grupo, en orden.
+     * @throws IllegalArgumentException Si el rango de fechas no es válido.
+     */
+    public void streamSpend(LocalDate from, LocalDate to, TimeBucket bucket, Collection<Dimension> groupBy,
+                            Consumer<SpendAggregateDTO> consumer) {
+        Set<Dimension> dimensions = validate(from, to, groupBy);
+        logger.info("Volcando el gasto entre {} y {} por {} y {}", from, to, bucket, dimensions);
+        spendAnalyticsRepository.streamSpend(from, to, bucket, dimensions, consumer);
+    }
+
+    /**
+     * Comprueba el rango de fechas y normaliza las dimensiones solicitadas.
+     *
+     * @param from Primer día incluido.
+     * @param to Último día incluido.
+     * @param groupBy Dimensiones solicitadas (puede ser `null`).
+     * @return Conjunto de dimensiones sin duplicados.
+     * @throws IllegalArgumentException Si el rango de fechas no es válido.
+     */
+    public Set<Dimension> validate(LocalDate from, LocalDate to, Collection<Dimension> groupBy) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Las fechas de inicio y fin son obligatorias.");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la fecha de inicio.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new IllegalArgumentException("El rango de fechas no puede superar los " + maxRangeDays + " días.");
+        }
+        return groupBy == null || groupBy.isEmpty() ? EnumSet.noneOf(Dimension.class) : EnumSet.copyOf(groupBy);
+    }
+}
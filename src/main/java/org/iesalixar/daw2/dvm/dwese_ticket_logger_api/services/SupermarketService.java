@@ -1,13 +1,20 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
 
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.CacheConfig;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.SupermarketCreateDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.SupermarketDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Supermarket;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.mappers.SupermarketMapper;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.SupermarketRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.AutocompleteService.SuggestionRemoved;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.AutocompleteService.SuggestionSaved;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.SpendAnalyticsService.AnalyticsDataChanged;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -27,11 +34,15 @@ public class SupermarketService {
     @Autowired
     private SupermarketMapper supermarketMapper;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Obtiene todos los supermercados.
      *
      * @return Lista de DTOs de supermercados.
      */
+    @Cacheable(cacheNames = CacheConfig.SUPERMARKETS, key = "'all'")
     public List<SupermarketDTO> getAllSupermarkets() {
         logger.info("Obteniendo todos los supermercados...");
         List<Supermarket> supermarkets = supermarketRepository.findAll();
@@ -46,6 +57,7 @@ public class SupermarketService {
      * @param id Identificador del supermercado.
      * @return DTO del supermercado encontrado.
      */
+    @Cacheable(cacheNames = CacheConfig.SUPERMARKETS, key = "#id")
     public SupermarketDTO getSupermarketById(Long id) {
         logger.info("Buscando supermercado con ID {}", id);
         Supermarket supermarket = supermarketRepository.findById(id)
@@ -59,6 +71,7 @@ public class SupermarketService {
      * @param createDTO DTO con los datos del supermercado a crear.
      * @return DTO del supermercado creado.
      */
+    @CacheEvict(cacheNames = {CacheConfig.SUPERMARKETS, CacheConfig.LOCATIONS}, allEntries = true)
     public SupermarketDTO createSupermarket(SupermarketCreateDTO createDTO) {
         logger.info("Creando un nuevo supermercado con nombre {}", createDTO.getName());
         if (supermarketRepository.existsByName(createDTO.getName())) {
@@ -66,6 +79,7 @@ public class SupermarketService {
         }
         Supermarket supermarket = supermarketMapper.toEntity(createDTO);
         Supermarket savedSupermarket = supermarketRepository.save(supermarket);
+        publishSaved(savedSupermarket);
         return supermarketMapper.toDTO(savedSupermarket);
     }
 
@@ -76,6 +90,7 @@ public class SupermarketService {
      * @param createDTO DTO con los nuevos datos del supermercado.
      * @return DTO del supermercado actualizado.
      */
+    @CacheEvict(cacheNames = {CacheConfig.SUPERMARKETS, CacheConfig.LOCATIONS}, allEntries = true)
     public SupermarketDTO updateSupermarket(Long id, SupermarketCreateDTO createDTO) {
         logger.info("Actualizando supermercado con ID {}", id);
         Supermarket existingSupermarket = supermarketRepository.findById(id)
@@ -85,6 +100,8 @@ public class SupermarketService {
         }
         existingSupermarket.setName(createDTO.getName());
         Supermarket updatedSupermarket = supermarketRepository.save(existingSupermarket);
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
+        publishSaved(updatedSupermarket);
         return supermarketMapper.toDTO(updatedSupermarket);
     }
 
@@ -93,11 +110,22 @@ public class SupermarketService {
      *
      * @param id ID del supermercado a eliminar.
      */
+    @CacheEvict(cacheNames = {CacheConfig.SUPERMARKETS, CacheConfig.LOCATIONS}, allEntries = true)
     public void deleteSupermarket(Long id) {
         logger.info("Eliminando supermercado con ID {}", id);
         if (!supermarketRepository.existsById(id)) {
             throw new IllegalArgumentException("El supermercado no existe.");
         }
         supermarketRepository.deleteById(id);
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
+        eventPublisher.publishEvent(new SuggestionRemoved(AutocompleteService.Type.SUPERMARKETS, id));
+    }
+
+    /**
+     * Publica el nombre de un supermercado para el autocompletado.
+     */
+    private void publishSaved(Supermarket supermarket) {
+        eventPublisher.publishEvent(new SuggestionSaved(AutocompleteService.Type.SUPERMARKETS, supermarket.getId(),
+                supermarket.getName(), List.of(supermarket.getName())));
     }
 }
@@ -0,0 +1,292 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.TicketBulkResponseDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.TicketBulkResultDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.TicketCreateDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.OutboxEventType;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.LocationRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.TicketBulkRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.TicketBulkRepository.LineRow;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.TicketBulkRepository.TicketRow;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.PriceDropService.Observation;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.PriceDropService.PricesObserved;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.TicketRollupService.Contribution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio que gestiona la carga masiva de tickets.
+ *
+ * Los tickets se procesan por bloques: para cada bloque se validan todas las ubicaciones y
+ * productos con una consulta por tabla y los tickets válidos se insertan con sentencias JDBC
+ * de varias filas, en una transacción por bloque. Los tickets no válidos se rechazan de forma
+ * individual sin afectar al resto.
+ *
+ * Los bloques se confirman por separado: si uno falla al guardarse (por ejemplo, por un
+ * interbloqueo o una caída de la conexión), su transacción se deshace, sus tickets se informan
+ * como no creados con el motivo del fallo y la carga continúa con los bloques siguientes. La
+ * respuesta indica así exactamente qué tickets se han creado y cuáles hay que reenviar.
+ */
+@Service
+public class TicketIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketIngestionService.class);
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TicketBulkRepository ticketBulkRepository;
+
+    @Autowired
+    private TicketRollupService ticketRollupService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MessageSource messageSource;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Número de tickets que se validan e insertan en cada transacción
+    @Value("${tickets.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    // Número máximo de tickets que se aceptan en una sola petición
+    @Value("${tickets.bulk.max-items:50000}")
+    private int maxItems;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Excepción lanzada cuando una carga supera el número máximo de tickets por petición.
+     */
+    public static class TooManyTicketsException extends IllegalArgumentException {
+        public TooManyTicketsException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Procesa una secuencia de tickets por bloques.
+     *
+     * La secuencia se lee completa antes de insertar nada, deteniéndose en cuanto supera el
+     * máximo por petición: así una carga demasiado grande se rechaza entera en lugar de quedar
+     * insertada a medias, y la memoria usada queda acotada por ese máximo.
+     *
+     * @param source Secuencia de tickets a crear (por ejemplo, un array JSON o un flujo NDJSON).
+     * @param locale Idioma para los mensajes de error.
+     * @return Resumen de la carga con el resultado de cada ticket.
+     * @throws TooManyTicketsException Si la secuencia supera el máximo de tickets por petición.
+     */
+    public TicketBulkResponseDTO ingest(Iterator<TicketCreateDTO> source, Locale locale) {
+        logger.info("Iniciando la carga masiva de tickets...");
+        List<TicketCreateDTO> tickets = new ArrayList<>();
+        while (source.hasNext()) {
+            if (tickets.size() >= maxItems) {
+                logger.warn("Carga masiva rechazada: se ha superado el máximo de {} tickets.", maxItems);
+                throw new TooManyTicketsException(messageSource.getMessage(
+                        "msg.ticket-service.bulk.tooMany", new Object[]{maxItems}, locale));
+            }
+            tickets.add(source.next());
+        }
+
+        List<TicketBulkResultDTO> results = new ArrayList<>(tickets.size());
+        int failedChunks = 0;
+        for (int start = 0; start < tickets.size(); start += chunkSize) {
+            List<TicketCreateDTO> chunk = tickets.subList(start, Math.min(start + chunkSize, tickets.size()));
+            try {
+                results.addAll(ingestChunk(chunk, start, locale));
+            } catch (RuntimeException e) {
+                // La transacción del bloque ya se ha deshecho: ninguno de sus tickets se ha creado
+                logger.error("Error al guardar el bloque de tickets {}-{} de la carga masiva: {}",
+                        start, start + chunk.size() - 1, e.getMessage());
+                failedChunks++;
+                String error = messageSource.getMessage("msg.ticket-service.bulk.chunkFailed",
+                        new Object[]{start, start + chunk.size() - 1}, locale);
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(new TicketBulkResultDTO(start + i, null, false, error));
+                }
+            }
+        }
+
+        int received = tickets.size();
+        int created = (int) results.stream().filter(TicketBulkResultDTO::isCreated).count();
+        logger.info("Carga masiva finalizada: {} tickets recibidos, {} creados, {} rechazados, {} bloques fallidos.",
+                received, created, received - created, failedChunks);
+        return new TicketBulkResponseDTO(received, created, received - created, failedChunks, results);
+    }
+
+    /**
+     * Valida e inserta un bloque de tickets en una única transacción.
+     *
+     * @param chunk Tickets del bloque.
+     * @param firstIndex Posición del primer ticket del bloque dentro de la carga.
+     * @param locale Idioma para los mensajes de error.
+     * @return Resultado de cada ticket del bloque, en orden.
+     */
+    private List<TicketBulkResultDTO> ingestChunk(List<TicketCreateDTO> chunk, int firstIndex, Locale locale) {
+        return transactionTemplate.execute(status -> {
+            // 1. Consultar en bloque las ubicaciones y productos referenciados
+            Set<Long> locationIds = chunk.stream()
+                    .filter(Objects::nonNull)
+                    .map(TicketCreateDTO::getLocationId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Set<Long> productIds = chunk.stream()
+                    .filter(dto -> dto != null && dto.getProductIds() != null)
+                    .flatMap(dto -> dto.getProductIds().stream())
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+
+            Set<Long> existingLocations = locationIds.isEmpty()
+                    ? Set.of()
+                    : new HashSet<>(locationRepository.findExistingIds(locationIds));
+            Map<Long, BigDecimal> prices = new HashMap<>();
+            Map<Long, Long> categories = new HashMap<>();
+            if (!productIds.isEmpty()) {
+                for (Object[] row : productRepository.findPricesByIds(productIds)) {
+                    prices.put((Long) row[0], (BigDecimal) row[1]);
+                    categories.put((Long) row[0], row[2] != null ? (Long) row[2] : 0L);
+                }
+            }
+
+            // 2. Validar cada ticket y preparar las filas a insertar
+            TicketBulkResultDTO[] results = new TicketBulkResultDTO[chunk.size()];
+            List<TicketRow> rows = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            List<List<Long>> rowProducts = new ArrayList<>();
+
+            for (int i = 0; i < chunk.size(); i++) {
+                TicketCreateDTO dto = chunk.get(i);
+                String error = validate(dto, existingLocations, locale);
+                List<Long> validProducts = List.of();
+                if (error == null) {
+                    validProducts = dto.getProductIds().stream()
+                            .filter(prices::containsKey)
+                            .distinct()
+                            .toList();
+                    if (validProducts.isEmpty()) {
+                        error = messageSource.getMessage("msg.ticket-service.create.productsNotFound", null, locale);
+                    }
+                }
+                if (error != null) {
+                    results[i] = new TicketBulkResultDTO(firstIndex + i, null, false, error);
+                    continue;
+                }
+
+                BigDecimal subtotal = validProducts.stream()
+                        .map(prices::get)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                rows.add(new TicketRow(dto.getDate(), dto.getDiscount(), subtotal, dto.getLocationId()));
+                positions.add(i);
+                rowProducts.add(validProducts);
+            }
+
+            // 3. Insertar los tickets válidos y sus productos
+            List<Long> ids = ticketBulkRepository.insertTickets(rows);
+            List<LineRow> links = new ArrayList<>();
+            List<Contribution> contributions = new ArrayList<>(ids.size());
+            List<Observation> observations = new ArrayList<>();
+            for (int j = 0; j < ids.size(); j++) {
+                int position = positions.get(j);
+                Long ticketId = ids.get(j);
+                results[position] = new TicketBulkResultDTO(firstIndex + position, ticketId, true, null);
+                TicketRow row = rows.get(j);
+                Map<Long, BigDecimal> grossByCategory = new HashMap<>();
+                for (Long productId : rowProducts.get(j)) {
+                    links.add(new LineRow(productId, ticketId, prices.get(productId)));
+                    grossByCategory.merge(categories.get(productId), prices.get(productId), BigDecimal::add);
+                    observations.add(new Observation(productId, row.getLocationId(), prices.get(productId),
+                            row.getDate().getTime()));
+                }
+                contributions.add(new Contribution(row.getDate(), row.getLocationId(), row.getDiscount(),
+                        row.getSubtotal(), grossByCategory));
+            }
+            ticketBulkRepository.insertProductTicketRows(links);
+
+            // 4. Actualizar los agregados diarios con una escritura por día y clave
+            ticketRollupService.recordCreated(contributions);
+
+            // 5. Registrar un único evento por bloque en el outbox
+            if (!ids.isEmpty()) {
+                outboxService.record(OutboxEventType.TICKETS_IMPORTED, null, Map.of("count", ids.size()));
+            }
+
+            // 6. Publicar las líneas para el índice de precios (se aplican al confirmar el bloque)
+            eventPublisher.publishEvent(new PricesObserved(observations));
+
+            logger.info("Bloque de carga masiva procesado: {} tickets creados de {}.", ids.size(), chunk.size());
+            return Arrays.asList(results);
+        });
+    }
+
+    /**
+     * Comprueba las restricciones de un ticket y la existencia de su ubicación.
+     *
+     * @param dto Ticket a validar.
+     * @param existingLocations IDs de ubicación existentes.
+     * @param locale Idioma para los mensajes de error.
+     * @return El motivo del rechazo, o `null` si el ticket es válido.
+     */
+    private String validate(TicketCreateDTO dto, Set<Long> existingLocations, Locale locale) {
+        if (dto == null) {
+            return messageSource.getMessage("msg.ticket-service.bulk.invalid", new Object[]{"null"}, locale);
+        }
+        Set<ConstraintViolation<TicketCreateDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            String detail = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(" "));
+            return messageSource.getMessage("msg.ticket-service.bulk.invalid", new Object[]{detail}, locale);
+        }
+        if (!existingLocations.contains(dto.getLocationId())) {
+            return messageSource.getMessage("msg.ticket-service.create.locationNotFound", null, locale);
+        }
+        if (dto.getProductIds() == null || dto.getProductIds().isEmpty()) {
+            return messageSource.getMessage("msg.ticket-service.create.productsNotFound", null, locale);
+        }
+        return null;
+    }
+}
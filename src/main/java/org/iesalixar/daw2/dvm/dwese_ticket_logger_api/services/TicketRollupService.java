@@ -0,0 +1,374 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.RollupCheckDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.RollupMismatchDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.RollupRebuildDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Product;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Ticket;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.TicketRollupRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.TicketRollupRepository.Delta;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.SpendAnalyticsService.AnalyticsDataChanged;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Servicio que mantiene los agregados diarios de tickets por ubicación y por categoría.
+ *
+ * Cada escritura de tickets registra la contribución del ticket antes y después del cambio;
+ * la diferencia se aplica a los agregados en la misma transacción. La reconstrucción vuelve a
+ * calcular los agregados desde las tablas base por bloques de días en paralelo, y la
+ * comprobación compara ambos sin modificar nada.
+ */
+@Service
+public class TicketRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketRollupService.class);
+
+    @Autowired
+    private TicketRollupRepository ticketRollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Número de días que se reconstruyen en cada transacción
+    @Value("${rollups.rebuild.chunk-days:31}")
+    private int rebuildChunkDays;
+
+    // Número de bloques de días que se reconstruyen a la vez
+    @Value("${rollups.rebuild.parallelism:4}")
+    private int rebuildParallelism;
+
+    // Número máximo de diferencias devueltas por tipo de agregado al comprobar
+    @Value("${rollups.check.max-mismatches:100}")
+    private int maxMismatches;
+
+    // Si es true, los agregados se reconstruyen al arrancar cuando están vacíos y hay tickets
+    @Value("${rollups.rebuild-on-startup-if-empty:true}")
+    private boolean rebuildOnStartupIfEmpty;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Contribución de un ticket a los agregados diarios: día, ubicación, importes y reparto del
+     * importe bruto por categoría de producto.
+     */
+    @Getter
+    public static class Contribution {
+        private final LocalDate day;
+        private final long locationId;
+        private final BigDecimal discount;
+        private final BigDecimal subtotal;
+        private final Map<Long, BigDecimal> grossByCategory;
+
+        public Contribution(Date date, Long locationId, BigDecimal discount, BigDecimal subtotal,
+                            Map<Long, BigDecimal> grossByCategory) {
+            // Misma zona con la que el driver escribe la columna DATETIME (app.time-zone), de modo
+            // que el día coincide con DATE(t.date) al reconstruir o comprobar los agregados
+            this.day = Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+            this.locationId = locationId != null ? locationId : 0L;
+            this.discount = discount != null ? discount : BigDecimal.ZERO;
+            this.subtotal = subtotal != null ? subtotal : BigDecimal.ZERO;
+            this.grossByCategory = grossByCategory;
+        }
+
+        /**
+         * Captura la contribución actual de un ticket. Debe llamarse antes de modificarlo,
+         * ya que copia los valores y no mantiene referencias a la entidad.
+         *
+         * @param ticket el ticket, con sus productos accesibles.
+         * @param linePrices precio de cada línea del ticket por ID de producto, el mismo que
+         *                   suman `subtotal` y los agregados por categoría.
+         * @return la contribución del ticket.
+         */
+        public static Contribution of(Ticket ticket, Map<Long, BigDecimal> linePrices) {
+            Map<Long, BigDecimal> grossByCategory = new HashMap<>();
+            if (ticket.getProducts() != null) {
+                for (Product product : ticket.getProducts()) {
+                    Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+                    BigDecimal price = linePrices.getOrDefault(product.getId(), product.getPrice());
+                    grossByCategory.merge(categoryId != null ? categoryId : 0L, price, BigDecimal::add);
+                }
+            }
+            Long locationId = ticket.getLocation() != null ? ticket.getLocation().getId() : null;
+            return new Contribution(ticket.getDate(), locationId, ticket.getDiscount(), ticket.getSubtotal(),
+                    grossByCategory);
+        }
+
+        /**
+         * Aplica el descuento del ticket a un importe bruto, sin redondear.
+         *
+         * @param gross importe bruto.
+         * @return importe con descuento.
+         */
+        private BigDecimal discounted(BigDecimal gross) {
+            return gross.multiply(BigDecimal.ONE.subtract(discount.movePointLeft(2)));
+        }
+    }
+
+    /**
+     * Registra el cambio de un ticket en los agregados. Debe ejecutarse dentro de la transacción
+     * que modifica el ticket.
+     *
+     * @param before contribución anterior al cambio, o `null` si el ticket se ha creado.
+     * @param after contribución posterior al cambio, o `null` si el ticket se ha eliminado.
+     */
+    public void recordChange(Contribution before, Contribution after) {
+        applyChanges(before != null ? List.of(before) : List.of(), after != null ? List.of(after) : List.of());
+    }
+
+    /**
+     * Registra un conjunto de tickets nuevos en los agregados, agrupando las variaciones por día
+     * y clave para escribir cada fila una sola vez.
+     *
+     * @param created contribuciones de los tickets creados.
+     */
+    public void recordCreated(Collection<Contribution> created) {
+        applyChanges(List.of(), created);
+    }
+
+    /**
+     * Recalcula los agregados por categoría de los días en los que aparece un producto que ha
+     * cambiado de categoría: sus líneas pasan de una categoría a otra y el número de tickets de
+     * cada una depende del resto de líneas del ticket, así que no basta con aplicar un delta.
+     * Debe ejecutarse en la transacción que modifica el producto, después de sincronizarlo.
+     *
+     * @param productId ID del producto.
+     * @param previousCategoryId categoría anterior, o `null` si no tenía.
+     * @param categoryId categoría nueva, o `null` si no tiene.
+     */
+    public void recordCategoryChange(long productId, Long previousCategoryId, Long categoryId) {
+        long previousKey = previousCategoryId != null ? previousCategoryId : 0L;
+        long key = categoryId != null ? categoryId : 0L;
+        if (previousKey == key) {
+            return;
+        }
+        List<LocalDate> days = ticketRollupRepository.findProductDays(productId);
+        if (days.isEmpty()) {
+            return;
+        }
+        ticketRollupRepository.rebuildCategoryDays(List.of(previousKey, key), days);
+        logger.info("Agregados de las categorías {} y {} recalculados en {} días por el cambio de categoría del producto {}.",
+                previousKey, key, days.size(), productId);
+    }
+
+    /**
+     * Reconstruye todos los agregados desde las tablas base.
+     *
+     * @return resumen de la reconstrucción.
+     * @throws IllegalStateException Si ya hay una reconstrucción en curso.
+     */
+    public RollupRebuildDTO rebuildAll() {
+        LocalDate[] bounds = ticketRollupRepository.findTicketDayBounds();
+        if (bounds[0] == null) {
+            logger.info("No hay tickets: no se reconstruyen los agregados.");
+            return new RollupRebuildDTO(null, null, 0, 0);
+        }
+        return rebuild(bounds[0], bounds[1]);
+    }
+
+    /**
+     * Reconstruye los agregados de un rango de días desde las tablas base, por bloques de
+     * `rollups.rebuild.chunk-days` días procesados en paralelo, cada uno en su transacción.
+     *
+     * @param from Primer día incluido.
+     * @param to Último día incluido.
+     * @return resumen de la reconstrucción.
+     * @throws IllegalArgumentException Si el rango no es válido.
+     * @throws IllegalStateException Si ya hay una reconstrucción en curso.
+     */
+    public RollupRebuildDTO rebuild(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una reconstrucción de agregados en curso.");
+        }
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildParallelism);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (LocalDate chunkStart = from; !chunkStart.isAfter(to); chunkStart = chunkStart.plusDays(rebuildChunkDays)) {
+                LocalDate chunkFrom = chunkStart;
+                LocalDate chunkTo = chunkStart.plusDays(rebuildChunkDays).isAfter(to.plusDays(1))
+                        ? to.plusDays(1)
+                        : chunkStart.plusDays(rebuildChunkDays);
+                futures.add(executor.submit(() -> transactionTemplate.executeWithoutResult(
+                        status -> ticketRollupRepository.rebuildRange(chunkFrom, chunkTo))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            // Un solo aviso al final de la reconstrucción, no uno por bloque
+            eventPublisher.publishEvent(new AnalyticsDataChanged());
+            long elapsed = System.currentTimeMillis() - start;
+            logger.info("Agregados reconstruidos entre {} y {} en {} bloques ({} ms).", from, to, futures.size(), elapsed);
+            return new RollupRebuildDTO(from, to, futures.size(), elapsed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("La reconstrucción de agregados se ha interrumpido.", e);
+        } catch (ExecutionException e) {
+            logger.error("Error al reconstruir los agregados: {}", e.getCause().getMessage());
+            throw new IllegalStateException("Error al reconstruir los agregados.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Compara los agregados de un rango de días con los valores calculados desde las tablas base.
+     *
+     * @param from Primer día incluido.
+     * @param to Último día incluido.
+     * @return resultado de la comprobación con las diferencias encontradas.
+     * @throws IllegalArgumentException Si el rango no es válido.
+     */
+    public RollupCheckDTO check(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        logger.info("Comprobando los agregados entre {} y {}...", from, to);
+        List<RollupMismatchDTO> mismatches = new ArrayList<>();
+        mismatches.addAll(ticketRollupRepository.findLocationMismatches(from, to.plusDays(1), maxMismatches));
+        mismatches.addAll(ticketRollupRepository.findCategoryMismatches(from, to.plusDays(1), maxMismatches));
+        if (mismatches.isEmpty()) {
+            logger.info("Los agregados entre {} y {} son consistentes.", from, to);
+        } else {
+            logger.warn("Se han encontrado {} diferencias en los agregados entre {} y {}.", mismatches.size(), from, to);
+        }
+        return new RollupCheckDTO(from, to, mismatches.isEmpty(), mismatches);
+    }
+
+    /**
+     * Reconstruye los agregados al arrancar si las tablas están vacías y hay tickets, por
+     * ejemplo tras crear el esquema o cargar los datos iniciales.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (!rebuildOnStartupIfEmpty || ticketRollupRepository.hasLocationRollups()) {
+            return;
+        }
+        logger.info("Los agregados diarios están vacíos: reconstruyendo desde las tablas base...");
+        rebuildAll();
+    }
+
+    /**
+     * Resta las contribuciones anteriores, suma las nuevas, escribe las variaciones no nulas y
+     * avisa de que han cambiado los datos de la analítica.
+     *
+     * @param before contribuciones a restar.
+     * @param after contribuciones a sumar.
+     */
+    private void applyChanges(Collection<Contribution> before, Collection<Contribution> after) {
+        Map<List<Object>, Delta> locationDeltas = new HashMap<>();
+        Map<List<Object>, Delta> categoryDeltas = new HashMap<>();
+        for (Contribution contribution : before) {
+            accumulate(contribution, -1, locationDeltas, categoryDeltas);
+        }
+        for (Contribution contribution : after) {
+            accumulate(contribution, 1, locationDeltas, categoryDeltas);
+        }
+        ticketRollupRepository.applyLocationDeltas(nonZero(locationDeltas.values()));
+        ticketRollupRepository.applyCategoryDeltas(nonZero(categoryDeltas.values()));
+        eventPublisher.publishEvent(new AnalyticsDataChanged());
+    }
+
+    /**
+     * Suma (o resta, según el signo) la contribución de un ticket a las variaciones acumuladas.
+     *
+     * @param contribution contribución del ticket.
+     * @param sign 1 para sumar, -1 para restar.
+     * @param locationDeltas variaciones acumuladas por día y ubicación.
+     * @param categoryDeltas variaciones acumuladas por día y categoría.
+     */
+    private void accumulate(Contribution contribution, int sign, Map<List<Object>, Delta> locationDeltas,
+                            Map<List<Object>, Delta> categoryDeltas) {
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        merge(locationDeltas, new Delta(contribution.getDay(), contribution.getLocationId(), sign,
+                contribution.getSubtotal().multiply(factor),
+                contribution.discounted(contribution.getSubtotal()).multiply(factor)));
+        for (Map.Entry<Long, BigDecimal> entry : contribution.getGrossByCategory().entrySet()) {
+            merge(categoryDeltas, new Delta(contribution.getDay(), entry.getKey(), sign,
+                    entry.getValue().multiply(factor),
+                    contribution.discounted(entry.getValue()).multiply(factor)));
+        }
+    }
+
+    /**
+     * Combina una variación con la acumulada para el mismo día y clave.
+     *
+     * @param deltas variaciones acumuladas.
+     * @param delta variación a combinar.
+     */
+    private void merge(Map<List<Object>, Delta> deltas, Delta delta) {
+        deltas.merge(List.of(delta.getDay(), delta.getKey()), delta, (a, b) -> new Delta(a.getDay(), a.getKey(),
+                a.getTicketCount() + b.getTicketCount(),
+                a.getGross().add(b.getGross()),
+                a.getDiscounted().add(b.getDiscounted())));
+    }
+
+    /**
+     * Descarta las variaciones que no cambian nada (por ejemplo, al actualizar un ticket sin
+     * cambiar su día, ubicación ni importes).
+     *
+     * @param deltas variaciones acumuladas.
+     * @return las variaciones que modifican algún valor.
+     */
+    private List<Delta> nonZero(Collection<Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return deltas.stream()
+                .filter(d -> d.getTicketCount() != 0 || d.getGross().signum() != 0 || d.getDiscounted().signum() != 0)
+                .toList();
+    }
+
+    /**
+     * Comprueba que un rango de días es válido.
+     *
+     * @param from Primer día incluido.
+     * @param to Último día incluido.
+     * @throws IllegalArgumentException Si falta alguna fecha o el fin es anterior al inicio.
+     */
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Las fechas de inicio y fin son obligatorias.");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la fecha de inicio.");
+        }
+    }
+}
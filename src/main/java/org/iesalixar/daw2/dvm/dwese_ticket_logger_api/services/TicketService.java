@@ -1,22 +1,42 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
 
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.LocationDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.TicketCreateDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.TicketDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.TicketPageDTO;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Ticket;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Location;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Product;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.mappers.TicketMapper;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.OutboxEventType;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.TicketRepository;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.LocationRepository;
 import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.TicketLineRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.PriceDropService.PricesObserved;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.TicketRollupService.Contribution;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.TicketCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,27 +53,232 @@ public class TicketService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private LocationService locationService;
+
+    @Autowired
+    private TicketLineRepository ticketLineRepository;
+
     @Autowired
     private TicketMapper ticketMapper;
 
+    @Autowired
+    private TicketRollupService ticketRollupService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CategoryTreeService categoryTreeService;
+
     @Autowired
     private MessageSource messageSource;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Tamaño de página por defecto del listado paginado por cursor
+    @Value("${tickets.page.default-size:20}")
+    private int defaultPageSize;
+
+    // Tamaño de página máximo que puede solicitar un cliente
+    @Value("${tickets.page.max-size:100}")
+    private int maxPageSize;
+
+    // Número de tickets que se leen por bloque en el volcado NDJSON
+    @Value("${tickets.stream.chunk-size:500}")
+    private int streamChunkSize;
+
+    // Transacción de solo lectura usada para leer cada bloque del volcado
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Obtiene una página de tickets mediante paginación por cursor (keyset sobre `date` e `id`).
+     *
+     * Se solicita un elemento más del tamaño de página para saber si existe una página siguiente
+     * sin necesidad de ejecutar una consulta de conteo sobre toda la tabla.
+     *
+     * @param cursor Cursor opaco devuelto en la página anterior, o `null` para la primera página.
+     * @param size Tamaño de página solicitado; se acota entre 1 y el máximo configurado.
+     * @param includeProducts Si es `false`, los tickets se devuelven sin productos y no se
+     *                        consulta la tabla `product_ticket` (el total se calcula del subtotal almacenado).
+     * @return TicketPageDTO con los tickets de la página y el cursor de la siguiente.
+     * @throws IllegalArgumentException Si el cursor no es válido.
+     */
+    @Transactional(readOnly = true)
+    public TicketPageDTO getTicketPage(String cursor, Integer size, boolean includeProducts) {
+        return getTicketPage(cursor, size, includeProducts, null);
+    }
+
+    /**
+     * Obtiene una página de tickets mediante paginación por cursor, limitada opcionalmente a los
+     * tickets que contienen algún producto de una categoría o de cualquiera de sus subcategorías.
+     *
+     * Las subcategorías se obtienen del índice en memoria de {@link CategoryTreeService}, así que
+     * el filtro se resuelve con una única condición `IN` sobre la categoría del producto.
+     *
+     * @param cursor Cursor opaco devuelto en la página anterior, o `null` para la primera página.
+     * @param size Tamaño de página solicitado; se acota entre 1 y el máximo configurado.
+     * @param includeProducts Si es `false`, los tickets se devuelven sin productos.
+     * @param categoryId Categoría raíz del subárbol por el que filtrar, o `null` para no filtrar.
+     * @return TicketPageDTO con los tickets de la página y el cursor de la siguiente.
+     * @throws IllegalArgumentException Si el cursor no es válido o la categoría no existe.
+     */
+    @Transactional(readOnly = true)
+    public TicketPageDTO getTicketPage(String cursor, Integer size, boolean includeProducts, Long categoryId) {
+        int pageSize = resolvePageSize(size);
+        logger.info("Solicitando página de tickets con tamaño {}...", pageSize);
+
+        List<Long> categoryIds = categoryId != null ? categoryTreeService.getSubtreeIds(categoryId) : null;
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<Ticket> tickets;
+        if (cursor == null || cursor.isBlank()) {
+            tickets = categoryIds == null
+                    ? ticketRepository.findFirstPage(limit)
+                    : ticketRepository.findFirstPageByCategoryIds(categoryIds, limit);
+        } else {
+            TicketCursor after = TicketCursor.decode(cursor);
+            tickets = categoryIds == null
+                    ? ticketRepository.findPageAfter(after.getDate(), after.getId(), limit)
+                    : ticketRepository.findPageAfterByCategoryIds(categoryIds, after.getDate(), after.getId(), limit);
+        }
+
+        boolean hasNext = tickets.size() > pageSize;
+        if (hasNext) {
+            tickets = tickets.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Ticket last = tickets.get(tickets.size() - 1);
+            nextCursor = new TicketCursor(last.getDate(), last.getId()).encode();
+        }
+
+        logger.info("Se han encontrado {} tickets en la página.", tickets.size());
+        List<TicketDTO> content;
+        if (includeProducts) {
+            loadProducts(tickets);
+            content = tickets.stream().map(ticketMapper::toDTO).collect(Collectors.toList());
+        } else {
+            content = tickets.stream().map(ticketMapper::toSummaryDTO).collect(Collectors.toList());
+        }
+        return new TicketPageDTO(content, nextCursor, hasNext, pageSize);
+    }
+
+    /**
+     * Recorre todos los tickets por bloques y los entrega al consumidor a medida que se leen.
+     *
+     * Cada bloque se lee y se mapea a DTO en su propia transacción de solo lectura, de modo que
+     * la conexión a la base de datos no queda retenida mientras el cliente consume la respuesta
+     * y la memoria usada no depende del tamaño de la tabla, sino del tamaño de bloque.
+     *
+     * @param chunkConsumer Consumidor que recibe cada bloque de tickets ya mapeados.
+     */
+    public void streamTickets(Consumer<List<TicketDTO>> chunkConsumer) {
+        logger.info("Iniciando el volcado de tickets en bloques de {}...", streamChunkSize);
+        TicketCursor after = null;
+        long total = 0;
+        while (true) {
+            final TicketCursor current = after;
+            List<Ticket> chunk = new ArrayList<>();
+            List<TicketDTO> dtos = readOnlyTransaction.execute(status -> {
+                Pageable limit = PageRequest.of(0, streamChunkSize);
+                List<Ticket> tickets = current == null
+                        ? ticketRepository.findFirstPage(limit)
+                        : ticketRepository.findPageAfter(current.getDate(), current.getId(), limit);
+                chunk.addAll(tickets);
+                loadProducts(tickets);
+                return tickets.stream().map(ticketMapper::toDTO).collect(Collectors.toList());
+            });
+            if (dtos == null || dtos.isEmpty()) {
+                break;
+            }
+            chunkConsumer.accept(dtos);
+            total += dtos.size();
+            if (dtos.size() < streamChunkSize) {
+                break;
+            }
+            Ticket last = chunk.get(chunk.size() - 1);
+            after = new TicketCursor(last.getDate(), last.getId());
+        }
+        logger.info("Volcado de tickets finalizado: {} tickets enviados.", total);
+    }
+
+    /**
+     * Inicializa en una única consulta la colección de productos de los tickets recibidos,
+     * evitando una consulta adicional por ticket al mapearlos a DTO.
+     *
+     * @param tickets Tickets gestionados por el contexto de persistencia actual.
+     */
+    private void loadProducts(List<Ticket> tickets) {
+        if (tickets.isEmpty()) {
+            return;
+        }
+        List<Long> ids = tickets.stream().map(Ticket::getId).collect(Collectors.toList());
+        ticketRepository.fetchProductsByTicketIds(ids);
+    }
+
+    /**
+     * Calcula el precio de cada línea de un ticket: las líneas que el ticket ya tenía conservan
+     * el precio con el que se registraron y las nuevas toman el precio actual del producto.
+     *
+     * @param products Productos del ticket.
+     * @param previousPrices Precio de las líneas anteriores por ID de producto.
+     * @return Precio de cada línea por ID de producto.
+     */
+    private Map<Long, BigDecimal> linePrices(List<Product> products, Map<Long, BigDecimal> previousPrices) {
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        for (Product product : products) {
+            prices.put(product.getId(), previousPrices.getOrDefault(product.getId(), product.getPrice()));
+        }
+        return prices;
+    }
+
+    /**
+     * Suma los precios de las líneas de un ticket para obtener su subtotal.
+     *
+     * @param linePrices Precio de cada línea del ticket.
+     * @return Suma de los precios, sin descuento.
+     */
+    private BigDecimal sumPrices(Map<Long, BigDecimal> linePrices) {
+        return linePrices.values().stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
     /**
-     * Obtiene todos los tickets y los convierte en una lista de TicketDTO.
+     * Sincroniza el ticket con la base de datos y escribe el precio de sus líneas. Hibernate
+     * crea (o vuelve a crear) las filas de `product_ticket` sin precio al sincronizar.
      *
-     * @return Lista de TicketDTO.
+     * @param ticket Ticket a guardar.
+     * @param linePrices Precio de cada línea del ticket.
+     * @return El ticket guardado.
      */
-    public List<TicketDTO> getAllTickets() {
-        logger.info("Solicitando todos los tickets...");
-        try {
-            List<Ticket> tickets = ticketRepository.findAll();
-            logger.info("Se han encontrado {} tickets.", tickets.size());
-            return tickets.stream().map(ticketMapper::toDTO).collect(Collectors.toList());
-        } catch (Exception e) {
-            logger.error("Error al obtener la lista de tickets: {}", e.getMessage());
-            throw e;
+    private Ticket saveWithLinePrices(Ticket ticket, Map<Long, BigDecimal> linePrices) {
+        Ticket savedTicket = ticketRepository.saveAndFlush(ticket);
+        ticketLineRepository.updatePrices(savedTicket.getId(), linePrices);
+        return savedTicket;
+    }
+
+    /**
+     * Acota el tamaño de página solicitado al rango permitido.
+     *
+     * @param size Tamaño solicitado por el cliente (puede ser nulo).
+     * @return Tamaño de página efectivo.
+     */
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
         }
+        return Math.min(size, maxPageSize);
     }
 
     /**
@@ -63,9 +288,10 @@ public class TicketService {
      * @return TicketDTO del ticket encontrado.
      * @throws IllegalArgumentException Si el ticket no existe.
      */
+    @Transactional(readOnly = true)
     public TicketDTO getTicketById(Long id) {
         logger.info("Buscando ticket con ID {}", id);
-        Ticket ticket = ticketRepository.findById(id)
+        Ticket ticket = ticketRepository.findWithDetailsById(id)
                 .orElseThrow(() -> {
                     logger.warn("No se encontró el ticket con ID {}", id);
                     return new IllegalArgumentException("El ticket no existe.");
@@ -82,15 +308,12 @@ public class TicketService {
      * @return DTO del ticket creado.
      * @throws IllegalArgumentException Si la ubicación o los productos no existen.
      */
+    @Transactional
     public TicketDTO createTicket(TicketCreateDTO ticketCreateDTO, Locale locale) {
         logger.info("Creando un nuevo ticket...");
 
-        Location location = locationRepository.findById(ticketCreateDTO.getLocationId())
-                .orElseThrow(() -> {
-                    String errorMessage = messageSource.getMessage("msg.ticket-service.create.locationNotFound", null, locale);
-                    logger.warn("Error al crear ticket: {}", errorMessage);
-                    return new IllegalArgumentException(errorMessage);
-                });
+        LocationDTO locationDTO = findCachedLocation(ticketCreateDTO.getLocationId(), "msg.ticket-service.create.locationNotFound", locale);
+        Location location = locationRepository.getReferenceById(locationDTO.getId());
 
         List<Product> products = productRepository.findAllById(ticketCreateDTO.getProductIds());
         if (products.isEmpty()) {
@@ -99,10 +322,16 @@ public class TicketService {
             throw new IllegalArgumentException(errorMessage);
         }
 
+        Map<Long, BigDecimal> linePrices = linePrices(products, Map.of());
         Ticket ticket = ticketMapper.toEntity(ticketCreateDTO, location, products);
-        Ticket savedTicket = ticketRepository.save(ticket);
+        ticket.setSubtotal(sumPrices(linePrices));
+        Ticket savedTicket = saveWithLinePrices(ticket, linePrices);
+        ticketRollupService.recordChange(null, Contribution.of(savedTicket, linePrices));
+        outboxService.record(OutboxEventType.TICKET_CREATED, savedTicket.getId(),
+                Map.of("subtotal", savedTicket.getSubtotal()));
+        eventPublisher.publishEvent(PricesObserved.of(savedTicket, linePrices));
         logger.info("Ticket creado exitosamente con ID {}", savedTicket.getId());
-        return ticketMapper.toDTO(savedTicket);
+        return ticketMapper.toDTO(savedTicket, locationDTO);
     }
 
     /**
@@ -114,21 +343,20 @@ public class TicketService {
      * @return DTO del ticket actualizado.
      * @throws IllegalArgumentException Si el ticket, la ubicación o los productos no existen.
      */
+    @Transactional
     public TicketDTO updateTicket(Long id, TicketCreateDTO ticketCreateDTO, Locale locale) {
         logger.info("Actualizando ticket con ID {}", id);
 
-        Ticket existingTicket = ticketRepository.findById(id)
+        Ticket existingTicket = ticketRepository.findWithDetailsById(id)
                 .orElseThrow(() -> {
                     logger.warn("No se encontró el ticket con ID {}", id);
                     return new IllegalArgumentException("El ticket no existe.");
                 });
+        Map<Long, BigDecimal> previousPrices = ticketLineRepository.findPrices(id);
+        Contribution before = Contribution.of(existingTicket, previousPrices);
 
-        Location location = locationRepository.findById(ticketCreateDTO.getLocationId())
-                .orElseThrow(() -> {
-                    String errorMessage = messageSource.getMessage("msg.ticket-service.update.locationNotFound", null, locale);
-                    logger.warn("Error al actualizar ticket: {}", errorMessage);
-                    return new IllegalArgumentException(errorMessage);
-                });
+        LocationDTO locationDTO = findCachedLocation(ticketCreateDTO.getLocationId(), "msg.ticket-service.update.locationNotFound", locale);
+        Location location = locationRepository.getReferenceById(locationDTO.getId());
 
         List<Product> products = productRepository.findAllById(ticketCreateDTO.getProductIds());
         if (products.isEmpty()) {
@@ -140,11 +368,17 @@ public class TicketService {
         existingTicket.setDate(ticketCreateDTO.getDate());
         existingTicket.setDiscount(ticketCreateDTO.getDiscount());
         existingTicket.setLocation(location);
+        Map<Long, BigDecimal> linePrices = linePrices(products, previousPrices);
         existingTicket.setProducts(products);
+        existingTicket.setSubtotal(sumPrices(linePrices));
 
-        Ticket updatedTicket = ticketRepository.save(existingTicket);
+        Ticket updatedTicket = saveWithLinePrices(existingTicket, linePrices);
+        ticketRollupService.recordChange(before, Contribution.of(updatedTicket, linePrices));
+        outboxService.record(OutboxEventType.TICKET_UPDATED, updatedTicket.getId(),
+                Map.of("subtotal", updatedTicket.getSubtotal()));
+        eventPublisher.publishEvent(PricesObserved.of(updatedTicket, linePrices));
         logger.info("Ticket con ID {} actualizado exitosamente.", id);
-        return ticketMapper.toDTO(updatedTicket);
+        return ticketMapper.toDTO(updatedTicket, locationDTO);
     }
 
     /**
@@ -153,16 +387,19 @@ public class TicketService {
      * @param id Identificador único del ticket.
      * @throws IllegalArgumentException Si el ticket no existe.
      */
+    @Transactional
     public void deleteTicket(Long id) {
         logger.info("Buscando ticket con ID {}", id);
 
-        Ticket ticket = ticketRepository.findById(id)
+        Ticket ticket = ticketRepository.findWithDetailsById(id)
                 .orElseThrow(() -> {
                     logger.warn("No se encontró el ticket con ID {}", id);
                     return new IllegalArgumentException("El ticket no existe.");
                 });
 
+        ticketRollupService.recordChange(Contribution.of(ticket, ticketLineRepository.findPrices(id)), null);
         ticketRepository.deleteById(id);
+        outboxService.record(OutboxEventType.TICKET_DELETED, id, Map.of());
         logger.info("Ticket con ID {} eliminado exitosamente.", id);
     }
 
@@ -174,21 +411,32 @@ public class TicketService {
      * @return TicketDTO actualizado con el nuevo producto añadido.
      * @throws IllegalArgumentException Si el ticket o el producto no existen.
      */
+    @Transactional
     public TicketDTO addProductToTicket(Long ticketId, Long productId) {
-        Ticket ticket = ticketRepository.findById(ticketId)
+        Ticket ticket = ticketRepository.findWithDetailsById(ticketId)
                 .orElseThrow(() -> new IllegalArgumentException("El ticket no existe."));
 
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("El producto no existe."));
 
+        Map<Long, BigDecimal> previousPrices = ticketLineRepository.findPrices(ticketId);
+        Contribution before = Contribution.of(ticket, previousPrices);
+
         // Añadir el producto al ticket si no está ya presente
         if (!ticket.getProducts().contains(product)) {
             ticket.getProducts().add(product);
+            ticket.setSubtotal(ticket.getSubtotal().add(product.getPrice()));
         } else {
             throw new IllegalArgumentException("El producto ya está asociado al ticket.");
         }
 
-        Ticket updatedTicket = ticketRepository.save(ticket);
+        // Hibernate puede volver a crear todas las filas de la colección: se reescriben todos los precios
+        Map<Long, BigDecimal> linePrices = linePrices(ticket.getProducts(), previousPrices);
+        Ticket updatedTicket = saveWithLinePrices(ticket, linePrices);
+        ticketRollupService.recordChange(before, Contribution.of(updatedTicket, linePrices));
+        outboxService.record(OutboxEventType.TICKET_UPDATED, updatedTicket.getId(),
+                Map.of("subtotal", updatedTicket.getSubtotal()));
+        eventPublisher.publishEvent(PricesObserved.of(updatedTicket, Map.of(product.getId(), product.getPrice())));
         return ticketMapper.toDTO(updatedTicket);
     }
 
@@ -200,21 +448,54 @@ public class TicketService {
      * @return TicketDTO actualizado sin el producto eliminado.
      * @throws IllegalArgumentException Si el ticket o el producto no existen, o si el producto no está asociado al ticket.
      */
+    @Transactional
     public TicketDTO removeProductFromTicket(Long ticketId, Long productId) {
-        Ticket ticket = ticketRepository.findById(ticketId)
+        Ticket ticket = ticketRepository.findWithDetailsById(ticketId)
                 .orElseThrow(() -> new IllegalArgumentException("El ticket no existe."));
 
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("El producto no existe."));
 
-        // Eliminar el producto del ticket si está presente
+        Map<Long, BigDecimal> previousPrices = ticketLineRepository.findPrices(ticketId);
+        Contribution before = Contribution.of(ticket, previousPrices);
+
+        // Eliminar el producto del ticket si está presente, restando el precio con el que se registró
         if (ticket.getProducts().contains(product)) {
             ticket.getProducts().remove(product);
+            ticket.setSubtotal(ticket.getSubtotal().subtract(
+                    previousPrices.getOrDefault(productId, product.getPrice())));
         } else {
             throw new IllegalArgumentException("El producto no está asociado al ticket.");
         }
 
-        Ticket updatedTicket = ticketRepository.save(ticket);
+        Map<Long, BigDecimal> linePrices = linePrices(ticket.getProducts(), previousPrices);
+        Ticket updatedTicket = saveWithLinePrices(ticket, linePrices);
+        ticketRollupService.recordChange(before, Contribution.of(updatedTicket, linePrices));
+        outboxService.record(OutboxEventType.TICKET_UPDATED, updatedTicket.getId(),
+                Map.of("subtotal", updatedTicket.getSubtotal()));
         return ticketMapper.toDTO(updatedTicket);
     }
+
+    /**
+     * Obtiene una ubicación de la caché de datos de referencia, sin consultar la base de datos
+     * si ya está en memoria.
+     *
+     * @param locationId ID de la ubicación.
+     * @param errorKey Clave del mensaje de error si la ubicación no existe.
+     * @param locale Idioma para los mensajes de error.
+     * @return DTO de la ubicación.
+     * @throws IllegalArgumentException Si la ubicación no existe.
+     */
+    private LocationDTO findCachedLocation(Long locationId, String errorKey, Locale locale) {
+        if (locationId != null) {
+            try {
+                return locationService.getLocationById(locationId);
+            } catch (IllegalArgumentException e) {
+                logger.debug("Ubicación {} no encontrada: {}", locationId, e.getMessage());
+            }
+        }
+        String errorMessage = messageSource.getMessage(errorKey, null, locale);
+        logger.warn("Error al guardar ticket: {}", errorMessage);
+        throw new IllegalArgumentException(errorMessage);
+    }
 }
@@ -0,0 +1,140 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.RevokedToken;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.RevokedTokenRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio de revocación de tokens de acceso JWT.
+ *
+ * Los tokens revocados se guardan en la tabla `revoked_tokens` y, en memoria, en un filtro de
+ * Bloom más un mapa exacto (jti → expiración). La comprobación del filtro JWT consulta primero
+ * el filtro de Bloom, que descarta sin más coste casi todos los tokens no revocados, y sólo en
+ * caso de posible coincidencia el mapa exacto. Nunca se consulta la base de datos por petición.
+ *
+ * Las estructuras en memoria se reconstruyen al arrancar y periódicamente desde la base de
+ * datos, lo que elimina los tokens ya expirados y recoge las revocaciones hechas en otros nodos.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    // Número de revocaciones vigentes para el que se dimensiona el filtro de Bloom
+    @Value("${jwt.revocation.expected-tokens:100000}")
+    private long expectedTokens;
+
+    // Probabilidad de falso positivo del filtro de Bloom (sólo provoca una consulta al mapa exacto)
+    @Value("${jwt.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    // Estructuras en memoria; se sustituyen completas en cada reconstrucción
+    private volatile Denylist denylist = new Denylist(1, 0.01);
+
+    /**
+     * Filtro de Bloom y mapa exacto de los tokens revocados vigentes.
+     */
+    private static class Denylist {
+        private final BloomFilter bloomFilter;
+        private final Map<String, Long> expirations = new ConcurrentHashMap<>();
+
+        private Denylist(long expectedItems, double falsePositiveRate) {
+            this.bloomFilter = new BloomFilter(expectedItems, falsePositiveRate);
+        }
+
+        private void add(String jti, long expiresAtMillis) {
+            expirations.put(jti, expiresAtMillis);
+            bloomFilter.add(jti);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    /**
+     * Indica si un token de acceso ha sido revocado.
+     *
+     * @param jti el identificador del token (claim "jti"); los tokens sin jti no se pueden revocar.
+     * @return true si el token está revocado.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        Denylist current = denylist;
+        if (!current.bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        Long expiresAt = current.expirations.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Revoca un token de acceso hasta su expiración.
+     *
+     * @param jti el identificador del token (claim "jti").
+     * @param expiresAt la fecha de expiración del token (claim "exp").
+     */
+    @Transactional
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null || expiresAt.before(new Date())) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(jti,
+                LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault())));
+        synchronized (this) {
+            denylist.add(jti, expiresAt.getTime());
+        }
+        logger.info("Token con jti {} revocado.", jti);
+    }
+
+    /**
+     * Elimina de la base de datos las revocaciones expiradas y reconstruye las estructuras en
+     * memoria con las vigentes.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval-ms:60000}",
+            initialDelayString = "${jwt.revocation.refresh-interval-ms:60000}")
+    @Transactional
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = revokedTokenRepository.deleteExpired(now);
+        List<RevokedToken> active = revokedTokenRepository.findByExpiresAtAfter(now);
+
+        Denylist rebuilt = new Denylist(Math.max(expectedTokens, active.size()), falsePositiveRate);
+        for (RevokedToken token : active) {
+            rebuilt.add(token.getJti(), token.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        synchronized (this) {
+            // Conservar las revocaciones locales hechas mientras se leía la base de datos
+            long nowMillis = System.currentTimeMillis();
+            denylist.expirations.forEach((jti, expiresAt) -> {
+                if (expiresAt > nowMillis && !rebuilt.expirations.containsKey(jti)) {
+                    rebuilt.add(jti, expiresAt);
+                }
+            });
+            denylist = rebuilt;
+        }
+        logger.debug("Lista de tokens revocados reconstruida: {} vigentes, {} expirados eliminados.",
+                rebuilt.expirations.size(), purged);
+    }
+}
@@ -0,0 +1,113 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.UserStatusDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.UserEntityListener;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.UserEntityListener.UserChanged;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché en memoria del estado de los usuarios (habilitado y fecha del último cambio de
+ * contraseña), usada por la autenticación basada sólo en los claims del JWT.
+ *
+ * Cada usuario se consulta en la base de datos como mucho una vez por periodo de validez de
+ * la entrada. Las entradas se invalidan al modificar o eliminar un usuario mediante JPA, con el
+ * {@link UserChanged} que publica {@link UserEntityListener}, una vez confirmada la transacción
+ * para que una petición concurrente no vuelva a cargar el estado anterior. Los cambios hechos
+ * fuera de la aplicación se aplican, como tarde, al caducar la entrada.
+ */
+@Service
+public class UserStatusCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStatusCache.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Segundos que se reutiliza el estado de un usuario antes de volver a consultarlo
+    @Value("${jwt.trusted-claims.status-ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Número máximo de usuarios cuyo estado se mantiene en memoria
+    @Value("${jwt.trusted-claims.status-cache-size:10000}")
+    private long maxSize;
+
+    private Cache<String, Optional<UserStatusDTO>> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Indica si se puede aceptar un token emitido para un usuario: el usuario debe existir,
+     * estar habilitado y el token debe haberse emitido después del último cambio de contraseña.
+     *
+     * @param username Nombre de usuario (claim "sub").
+     * @param issuedAt Fecha de emisión del token (claim "iat").
+     * @return true si el token puede aceptarse.
+     */
+    public boolean isTokenAllowed(String username, Date issuedAt) {
+        Optional<UserStatusDTO> status = cache.get(username, this::load);
+        if (status.isEmpty() || !status.get().isEnabled()) {
+            return false;
+        }
+        LocalDateTime changedAt = status.get().getPasswordChangedAt();
+        if (changedAt == null || issuedAt == null) {
+            return changedAt == null;
+        }
+        // "iat" tiene precisión de segundos: se compara con el cambio de contraseña truncado
+        LocalDateTime issued = LocalDateTime.ofInstant(issuedAt.toInstant(), ZoneId.systemDefault());
+        return !issued.isBefore(changedAt.truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Descarta el estado guardado de un usuario, para que la siguiente petición lo vuelva a leer.
+     *
+     * @param username Nombre de usuario.
+     */
+    public void invalidate(String username) {
+        logger.info("Invalidando el estado en caché del usuario {}", username);
+        cache.invalidate(username);
+    }
+
+    /**
+     * Descarta el estado de un usuario tras confirmarse su modificación o eliminación.
+     *
+     * @param event el cambio.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChanged event) {
+        invalidate(event.username());
+    }
+
+    /**
+     * Lee el estado de un usuario de la base de datos.
+     *
+     * @param username Nombre de usuario.
+     * @return El estado del usuario, o vacío si no existe.
+     */
+    private Optional<UserStatusDTO> load(String username) {
+        logger.debug("Cargando el estado del usuario {} desde la base de datos", username);
+        return userRepository.findStatusByUsername(username);
+    }
+}
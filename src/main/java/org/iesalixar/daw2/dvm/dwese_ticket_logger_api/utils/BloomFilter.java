@@ -0,0 +1,99 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de cadenas, seguro entre hilos y sin bloqueos.
+ *
+ * Responde "puede contenerlo" o "seguro que no lo contiene": nunca da falsos negativos y la
+ * probabilidad de falsos positivos se fija al crearlo según el número de elementos esperado.
+ * No admite borrados; para descartar elementos se construye un filtro nuevo.
+ */
+public final class BloomFilter {
+
+    // Bits del filtro, agrupados en palabras de 64 bits
+    private final AtomicLongArray words;
+
+    // Número total de bits
+    private final long bitCount;
+
+    // Número de funciones hash (posiciones por elemento)
+    private final int hashCount;
+
+    /**
+     * Crea un filtro dimensionado para un número de elementos y una tasa de falsos positivos.
+     *
+     * @param expectedItems número de elementos que se espera insertar (mínimo 1).
+     * @param falsePositiveRate probabilidad de falso positivo deseada, entre 0 y 1.
+     */
+    public BloomFilter(long expectedItems, double falsePositiveRate) {
+        long n = Math.max(1, expectedItems);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, bits);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+    }
+
+    /**
+     * Añade un elemento al filtro.
+     *
+     * @param value el elemento.
+     */
+    public void add(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(index);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(index, current, current | mask));
+        }
+    }
+
+    /**
+     * Indica si el elemento puede estar en el filtro.
+     *
+     * @param value el elemento.
+     * @return false si seguro que no se ha añadido; true si puede haberse añadido.
+     */
+    public boolean mightContain(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calcula un hash de 64 bits (FNV-1a seguido de la mezcla final de MurmurHash3).
+     *
+     * @param value la cadena.
+     * @return el hash.
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
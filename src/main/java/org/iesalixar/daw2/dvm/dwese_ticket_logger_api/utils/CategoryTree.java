@@ -0,0 +1,229 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice inmutable de la jerarquía de categorías basado en intervalos de recorrido (Euler tour).
+ *
+ * Las categorías se numeran en preorden: cada subárbol ocupa el intervalo contiguo
+ * `[posición, fin)` del recorrido, de modo que saber si una categoría desciende de otra es una
+ * comparación de dos enteros y los IDs de un subárbol son un tramo del array. Además se guarda
+ * la profundidad y el padre de cada posición para obtener la ruta desde la raíz.
+ *
+ * Los hermanos se recorren por nombre, así que el preorden es también el orden de presentación
+ * del árbol. Una categoría cuyo padre no existe se trata como raíz; si los datos contienen un
+ * ciclo, la categoría de menor ID del ciclo se trata también como raíz.
+ */
+public final class CategoryTree {
+
+    /**
+     * Categoría tal como se lee de la base de datos.
+     *
+     * @param id el ID de la categoría.
+     * @param parentId el ID de la categoría padre, o null si es raíz.
+     * @param name el nombre.
+     * @param image la imagen, o null.
+     */
+    public record Node(long id, Long parentId, String name, String image) {
+    }
+
+    private static final CategoryTree EMPTY = new CategoryTree(List.of());
+
+    private final Map<Long, Integer> positions;
+    private final Node[] nodes;
+    private final long[] ids;
+    private final int[] ends;
+    private final int[] depths;
+    private final int[] parents;
+
+    /**
+     * Construye el índice a partir de todas las categorías.
+     *
+     * @param categories las categorías, en cualquier orden.
+     */
+    public CategoryTree(Collection<Node> categories) {
+        int size = categories.size();
+        positions = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+        nodes = new Node[size];
+        ids = new long[size];
+        ends = new int[size];
+        depths = new int[size];
+        parents = new int[size];
+
+        Map<Long, Node> byId = new HashMap<>();
+        categories.forEach(node -> byId.put(node.id(), node));
+        Map<Long, List<Node>> children = new HashMap<>();
+        List<Node> roots = new ArrayList<>();
+        for (Node node : byId.values()) {
+            if (node.parentId() == null || !byId.containsKey(node.parentId()) || node.parentId() == node.id()) {
+                roots.add(node);
+            } else {
+                children.computeIfAbsent(node.parentId(), key -> new ArrayList<>()).add(node);
+            }
+        }
+        Comparator<Node> order = Comparator.comparing(Node::name, Comparator.nullsLast(String::compareTo))
+                .thenComparingLong(Node::id);
+        roots.sort(order);
+        children.values().forEach(list -> list.sort(order));
+
+        int next = 0;
+        for (Node root : roots) {
+            next = visit(root, children, next);
+        }
+        if (next < byId.size()) {
+            // Categorías en un ciclo: no se alcanzan desde ninguna raíz
+            List<Node> unreachable = byId.values().stream()
+                    .filter(node -> !positions.containsKey(node.id()))
+                    .sorted(Comparator.comparingLong(Node::id))
+                    .toList();
+            for (Node node : unreachable) {
+                if (!positions.containsKey(node.id())) {
+                    next = visit(node, children, next);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return un índice sin categorías.
+     */
+    public static CategoryTree empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Recorre en preorden el subárbol de una categoría a partir de la posición indicada, sin
+     * recursión para no depender de la profundidad del árbol.
+     *
+     * @return la siguiente posición libre.
+     */
+    private int visit(Node root, Map<Long, List<Node>> children, int next) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Integer> parentPositions = new ArrayDeque<>();
+        stack.push(root);
+        parentPositions.push(-1);
+        int first = next;
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            int parent = parentPositions.pop();
+            if (positions.containsKey(node.id())) {
+                continue;
+            }
+            int position = next++;
+            positions.put(node.id(), position);
+            nodes[position] = node;
+            ids[position] = node.id();
+            parents[position] = parent;
+            depths[position] = parent < 0 ? 0 : depths[parent] + 1;
+            List<Node> nodeChildren = children.getOrDefault(node.id(), List.of());
+            for (int i = nodeChildren.size() - 1; i >= 0; i--) {
+                stack.push(nodeChildren.get(i));
+                parentPositions.push(position);
+            }
+        }
+        // El padre precede siempre a sus hijos, así que el tamaño de cada subárbol se acumula
+        // recorriendo las posiciones en orden inverso
+        int[] sizes = new int[next - first];
+        for (int position = next - 1; position >= first; position--) {
+            sizes[position - first] += 1;
+            ends[position] = position + sizes[position - first];
+            if (parents[position] >= 0) {
+                sizes[parents[position] - first] += sizes[position - first];
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @return el número de categorías del índice.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return true si la categoría está en el índice.
+     */
+    public boolean contains(long id) {
+        return positions.containsKey(id);
+    }
+
+    /**
+     * Indica si una categoría pertenece al subárbol de otra (la propia raíz incluida).
+     *
+     * @param rootId la raíz del subárbol.
+     * @param id la categoría a comprobar.
+     * @return true si `id` es `rootId` o uno de sus descendientes.
+     */
+    public boolean isInSubtree(long rootId, long id) {
+        Integer root = positions.get(rootId);
+        Integer position = positions.get(id);
+        return root != null && position != null && root <= position && position < ends[root];
+    }
+
+    /**
+     * Obtiene la profundidad de una categoría (0 para las raíces).
+     *
+     * @return la profundidad, o -1 si la categoría no existe.
+     */
+    public int depth(long id) {
+        Integer position = positions.get(id);
+        return position == null ? -1 : depths[position];
+    }
+
+    /**
+     * Obtiene los IDs del subárbol de una categoría, ella incluida, en preorden.
+     *
+     * @return los IDs, o un array vacío si la categoría no existe.
+     */
+    public long[] subtreeIds(long rootId) {
+        Integer root = positions.get(rootId);
+        return root == null ? new long[0] : Arrays.copyOfRange(ids, root, ends[root]);
+    }
+
+    /**
+     * Obtiene la ruta desde la raíz hasta una categoría, ella incluida.
+     *
+     * @return las categorías de la ruta, o una lista vacía si la categoría no existe.
+     */
+    public List<Node> path(long id) {
+        Integer position = positions.get(id);
+        if (position == null) {
+            return List.of();
+        }
+        Node[] path = new Node[depths[position] + 1];
+        for (int i = position; i >= 0; i = parents[i]) {
+            path[depths[i]] = nodes[i];
+        }
+        return List.of(path);
+    }
+
+    /**
+     * @return la categoría en una posición del preorden.
+     */
+    public Node nodeAt(int position) {
+        return nodes[position];
+    }
+
+    /**
+     * @return la profundidad de la categoría en una posición del preorden.
+     */
+    public int depthAt(int position) {
+        return depths[position];
+    }
+
+    /**
+     * @return la posición del padre de la categoría en una posición del preorden, o -1 si es raíz.
+     */
+    public int parentAt(int position) {
+        return parents[position];
+    }
+}
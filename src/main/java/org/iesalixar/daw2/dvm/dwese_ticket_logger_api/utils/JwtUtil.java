@@ -1,13 +1,26 @@
 package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
@@ -18,6 +31,52 @@ public class JwtUtil {
 
     private static final long JWT_EXPIRATION = 3600000; // 1 hora
 
+    // Número máximo de tokens verificados que se mantienen en caché
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private long claimsCacheMaxSize;
+
+    // Parser configurado con la clave pública; es inmutable y seguro entre hilos
+    private JwtParser jwtParser;
+
+    // Claims ya verificados, indexados por el hash SHA-256 del token y caducados con el propio token
+    private Cache<String, Claims> claimsCache;
+
+    /**
+     * Construye el parser de JWT y la caché de claims verificados.
+     *
+     * Cada entrada de la caché expira en el instante del claim "exp" del token, por lo que la
+     * firma de un token se verifica como mucho una vez durante su vida en cada nodo.
+     */
+    @PostConstruct
+    public void init() {
+        jwtParser = Jwts.parser()
+                .verifyWith(jwtKeyPair.getPublic()) // Configura la clave para verificar la firma
+                .build();
+        claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        if (claims.getExpiration() == null) {
+                            return 0; // Sin "exp" no se reutiliza la verificación
+                        }
+                        long millisLeft = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(millisLeft, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     /**
      * Extrae el nombre de usuario (claim "sub") del token.
      * El nombre de usuario suele ser el identificador del usuario autenticado.
@@ -44,18 +103,23 @@ public class JwtUtil {
     /**
      * Extrae todos los claims (payload) del token JWT.
      *
-     * Utiliza el parser de JJWT configurado con la clave pública del par de claves.
-     * Este método valida la integridad y autenticidad del token antes de extraer los claims.
+     * La primera vez que se recibe un token se verifica su firma con la clave pública y sus
+     * claims se guardan en caché hasta que expira; las siguientes llamadas con el mismo token
+     * no vuelven a verificar la firma. Los tokens no válidos o expirados nunca se guardan.
      *
      * @param token el token JWT.
      * @return los claims contenidos en el token.
+     * @throws io.jsonwebtoken.JwtException si la firma no es válida o el token ha expirado.
      */
     public Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(jwtKeyPair.getPublic()) // Configura la clave para verificar la firma
-                .build()
+        Claims claims = claimsCache.get(hash(token), key -> jwtParser
                 .parseSignedClaims(token) // Verifica el token y lo parsea
-                .getPayload(); // Devuelve el cuerpo del JWT (claims)
+                .getPayload()); // Devuelve el cuerpo del JWT (claims)
+        if (isTokenExpired(claims)) {
+            // La caché expira las entradas de forma aproximada: se comprueba de nuevo al leer
+            throw new ExpiredJwtException(null, claims, "El token ha expirado.");
+        }
+        return claims;
     }
 
     /**
@@ -70,6 +134,7 @@ public class JwtUtil {
      */
     public String generateToken(String username, List<String> roles) {
         return Jwts.builder()
+                .id(UUID.randomUUID().toString()) // Identificador único del token ("jti"), usado para revocarlo
                 .subject(username) // Configura el claim "sub" (nombre de usuario)
                 .claim("roles", roles) // Incluye los roles como claim adicional
                 .issuedAt(new Date()) // Fecha de emisión del token
@@ -88,11 +153,17 @@ public class JwtUtil {
      * @return true si el token es válido, false en caso contrario.
      */
     public boolean validateToken(String token, String username) {
-        Claims claims = Jwts.parser()
-                .verifyWith(jwtKeyPair.getPublic())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return validateToken(extractAllClaims(token), username);
+    }
+
+    /**
+     * Valida unos claims ya verificados comprobando el nombre de usuario y la expiración.
+     *
+     * @param claims los claims del token, obtenidos con {@link #extractAllClaims(String)}.
+     * @param username el nombre de usuario esperado.
+     * @return true si el token es válido, false en caso contrario.
+     */
+    public boolean validateToken(Claims claims, String username) {
         return username.equals(claims.getSubject()) && !isTokenExpired(claims);
     }
 
@@ -107,4 +178,20 @@ public class JwtUtil {
     private boolean isTokenExpired(Claims claims) {
         return claims.getExpiration().before(new Date());
     }
-}
\ No newline at end of file
+
+    /**
+     * Calcula la clave de caché de un token: su hash SHA-256 codificado en Base64.
+     * Así la caché no retiene los tokens en claro.
+     *
+     * @param token el token JWT.
+     * @return el hash del token.
+     */
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible.", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Cursor opaco utilizado en la paginación por clave (keyset) del feed de notificaciones.
+ *
+ * Guarda la fecha de creación y el ID de la última notificación devuelta, que son los campos
+ * por los que se ordena el feed (`createdAt DESC, _id DESC`). Se serializa como Base64
+ * URL-safe, igual que {@link TicketCursor}.
+ */
+@Getter
+public final class NotificationCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // Fecha de creación de la última notificación devuelta en la página anterior.
+    private final Instant createdAt;
+
+    // ID de la última notificación devuelta en la página anterior.
+    private final String id;
+
+    public NotificationCursor(Instant createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Codifica el cursor como un token opaco.
+     *
+     * @return el token que se entrega al cliente.
+     */
+    public String encode() {
+        String raw = createdAt.toEpochMilli() + ":" + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token opaco recibido del cliente.
+     *
+     * @param token el token devuelto por el cliente.
+     * @return el cursor correspondiente.
+     * @throws IllegalArgumentException si el token no tiene un formato válido.
+     */
+    public static NotificationCursor decode(String token) {
+        try {
+            String raw = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("El cursor no es válido.");
+            }
+            long epochMillis = Long.parseLong(raw.substring(0, separator));
+            return new NotificationCursor(Instant.ofEpochMilli(epochMillis), raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException también es una IllegalArgumentException
+            throw new IllegalArgumentException("El cursor no es válido.");
+        }
+    }
+}
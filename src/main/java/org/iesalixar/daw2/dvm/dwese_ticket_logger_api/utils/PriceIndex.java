@@ -0,0 +1,181 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils;
+
+/**
+ * Índice en memoria del último y el menor precio observado de cada par (producto, supermercado).
+ *
+ * Cada par ocupa cuatro `long` (clave, último precio, fecha del último precio y menor precio) en
+ * tablas hash de direccionamiento abierto, sin objetos por entrada. Las tablas se reparten en
+ * segmentos con su propio cerrojo para que las actualizaciones concurrentes no compitan entre sí.
+ *
+ * Las observaciones se combinan de forma conmutativa (el último precio es el de fecha más
+ * reciente y el menor, el mínimo), así que el resultado no depende del orden en que lleguen:
+ * una reconstrucción desde la base de datos puede aplicarse sobre el índice en uso.
+ */
+public final class PriceIndex {
+
+    /** Resultado de {@link #observe} cuando la observación no es una bajada de precio. */
+    public static final long NO_DROP = -1;
+
+    private static final int SEGMENT_COUNT = 64;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    /**
+     * Crea un índice vacío.
+     *
+     * @param expectedPairs número de pares (producto, supermercado) esperado, para dimensionar las tablas.
+     */
+    public PriceIndex(int expectedPairs) {
+        int perSegment = Math.max(16, expectedPairs / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Registra el precio de un producto visto en un ticket de un supermercado.
+     *
+     * @param productId el producto (positivo).
+     * @param supermarketId el supermercado.
+     * @param priceCents el precio en céntimos.
+     * @param observedAt la fecha del ticket, en milisegundos.
+     * @return el menor precio anterior si la observación es la más reciente del par y lo rebaja;
+     *         {@link #NO_DROP} en otro caso (también si el par no se había visto antes).
+     */
+    public long observe(long productId, long supermarketId, long priceCents, long observedAt) {
+        long key = key(productId, supermarketId);
+        return segmentFor(key).observe(key, priceCents, observedAt);
+    }
+
+    /**
+     * Obtiene el último precio observado de un par.
+     *
+     * @return el precio en céntimos, o -1 si el par no se ha visto.
+     */
+    public long latest(long productId, long supermarketId) {
+        long key = key(productId, supermarketId);
+        return segmentFor(key).get(key, false);
+    }
+
+    /**
+     * Obtiene el menor precio observado de un par.
+     *
+     * @return el precio en céntimos, o -1 si el par no se ha visto.
+     */
+    public long lowest(long productId, long supermarketId) {
+        long key = key(productId, supermarketId);
+        return segmentFor(key).get(key, true);
+    }
+
+    /**
+     * @return el número de pares del índice.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    private static long key(long productId, long supermarketId) {
+        if (productId <= 0 || productId > 0xFFFFFFFFL || supermarketId < 0 || supermarketId > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Identificadores fuera de rango: " + productId + ", " + supermarketId);
+        }
+        return (productId << 32) | supermarketId;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private Segment segmentFor(long key) {
+        return segments[(int) (mix(key) >>> 58)];
+    }
+
+    /**
+     * Tabla hash de direccionamiento abierto (sondeo lineal); la clave 0 marca un hueco libre.
+     */
+    private static final class Segment {
+        private long[] keys;
+        private long[] latestPrices;
+        private long[] latestTimes;
+        private long[] lowestPrices;
+        private int size;
+
+        private Segment(int expected) {
+            allocate(Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            latestPrices = new long[capacity];
+            latestTimes = new long[capacity];
+            lowestPrices = new long[capacity];
+        }
+
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int i = (int) mix(key) & mask;
+            while (keys[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private synchronized long observe(long key, long price, long time) {
+            int i = slot(key);
+            if (keys[i] == 0) {
+                keys[i] = key;
+                latestPrices[i] = price;
+                latestTimes[i] = time;
+                lowestPrices[i] = price;
+                if (++size * 10 > keys.length * 7) {
+                    resize();
+                }
+                return NO_DROP;
+            }
+            long previousLowest = lowestPrices[i];
+            boolean latest = time >= latestTimes[i];
+            if (latest) {
+                latestPrices[i] = price;
+                latestTimes[i] = time;
+            }
+            if (price < previousLowest) {
+                lowestPrices[i] = price;
+                return latest ? previousLowest : NO_DROP;
+            }
+            return NO_DROP;
+        }
+
+        private synchronized long get(long key, boolean lowest) {
+            int i = slot(key);
+            if (keys[i] == 0) {
+                return -1;
+            }
+            return lowest ? lowestPrices[i] : latestPrices[i];
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldLatestPrices = latestPrices;
+            long[] oldLatestTimes = latestTimes;
+            long[] oldLowestPrices = lowestPrices;
+            allocate(oldKeys.length << 1);
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != 0) {
+                    int i = slot(oldKeys[j]);
+                    keys[i] = oldKeys[j];
+                    latestPrices[i] = oldLatestPrices[j];
+                    latestTimes[i] = oldLatestTimes[j];
+                    lowestPrices[i] = oldLowestPrices[j];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Trie de sugerencias (autocompletado) con los `k` mejores resultados precalculados en cada nodo.
+ *
+ * Cada elemento se indexa desde el inicio de cada una de sus palabras ("leche entera" se
+ * encuentra escribiendo "lec" o "ent"), con el texto en minúsculas y sin tildes. Cada nodo guarda
+ * los `k` elementos de mayor peso de su subárbol, de modo que una consulta sólo recorre tantos
+ * nodos como caracteres tiene el prefijo y no depende del número de elementos. Los hijos se
+ * guardan en arrays ordenados por carácter, sin mapas por nodo.
+ *
+ * Las claves se truncan a una profundidad máxima: los elementos cuya clave la alcanza se guardan
+ * en el último nodo y, para prefijos más largos, se filtran en la consulta.
+ *
+ * Es seguro para uso concurrente: las consultas comparten un cerrojo de lectura y las
+ * modificaciones toman el de escritura.
+ */
+public final class SuggestionTrie {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Node[] NO_NODES = new Node[0];
+    private static final char[] NO_CHARS = new char[0];
+
+    private static final Comparator<Entry> RANKING = SuggestionTrie::compare;
+
+    private final int topK;
+    private final int maxDepth;
+    private final Node root = new Node();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Sugerencia devuelta por {@link #suggest}.
+     *
+     * @param id el ID del elemento.
+     * @param label el texto a mostrar.
+     * @param weight el peso (frecuencia de uso).
+     */
+    public record Suggestion(long id, String label, long weight) {
+    }
+
+    /**
+     * Crea un trie vacío.
+     *
+     * @param topK número de sugerencias precalculadas por nodo (máximo por consulta).
+     * @param maxDepth número máximo de caracteres indexados de cada clave.
+     */
+    public SuggestionTrie(int topK, int maxDepth) {
+        this.topK = Math.max(1, topK);
+        this.maxDepth = Math.max(1, maxDepth);
+    }
+
+    /**
+     * Añade un elemento o lo sustituye si ya existe.
+     *
+     * @param id el ID del elemento.
+     * @param label el texto a mostrar.
+     * @param texts los textos por los que se debe encontrar (por ejemplo, dirección y ciudad).
+     * @param weight el peso del elemento.
+     */
+    public void put(long id, String label, Collection<String> texts, long weight) {
+        String[] phrases = phrases(texts);
+        String[] keys = Arrays.stream(phrases)
+                .map(phrase -> phrase.substring(0, Math.min(phrase.length(), maxDepth)).trim())
+                .distinct()
+                .toArray(String[]::new);
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+            if (keys.length == 0) {
+                return;
+            }
+            Entry entry = new Entry(id, label, weight, keys, phrases);
+            entries.put(id, entry);
+            for (String key : keys) {
+                Node node = root;
+                offer(node, entry);
+                for (int i = 0; i < key.length(); i++) {
+                    node = node.childOrCreate(key.charAt(i));
+                    offer(node, entry);
+                }
+                node.entries = append(node.entries, entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina un elemento si existe.
+     *
+     * @param id el ID del elemento.
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene el peso de un elemento.
+     *
+     * @return el peso, o -1 si el elemento no existe.
+     */
+    public long weight(long id) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(id);
+            return entry == null ? -1 : entry.weight;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return el número de elementos del trie.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene los elementos de mayor peso que tienen alguna palabra que empieza por el texto indicado.
+     *
+     * @param prefix el texto escrito por el usuario.
+     * @param limit el número máximo de sugerencias (acotado a `k`).
+     * @return las sugerencias, de mayor a menor peso.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        int max = Math.min(Math.max(1, limit), topK);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            // Las claves se truncan igual que al indexarlas
+            String indexed = key.length() > maxDepth ? key.substring(0, maxDepth).trim() : key;
+            Node node = root;
+            for (int i = 0; i < indexed.length() && node != null; i++) {
+                node = node.child(indexed.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            if (key.length() <= maxDepth) {
+                return Arrays.stream(node.top).limit(max).map(Entry::toSuggestion).toList();
+            }
+            // Prefijo más largo que la profundidad indexada: se filtran los elementos del último nodo
+            return Arrays.stream(node.entries)
+                    .filter(entry -> Arrays.stream(entry.phrases).anyMatch(phrase -> phrase.startsWith(key)))
+                    .distinct()
+                    .sorted(RANKING)
+                    .limit(max)
+                    .map(Entry::toSuggestion)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Normaliza un texto para indexarlo o buscarlo: minúsculas, sin tildes y con un único
+     * espacio entre palabras.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(folded.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    /**
+     * Obtiene los textos normalizados de un elemento desde el inicio de cada palabra, sin repetidos.
+     */
+    private static String[] phrases(Collection<String> texts) {
+        Set<String> phrases = new LinkedHashSet<>();
+        for (String text : texts) {
+            String normalized = normalize(text);
+            int start = 0;
+            while (start < normalized.length()) {
+                phrases.add(normalized.substring(start));
+                int space = normalized.indexOf(' ', start);
+                if (space < 0) {
+                    break;
+                }
+                start = space + 1;
+            }
+        }
+        return phrases.toArray(String[]::new);
+    }
+
+    private void removeEntry(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        // Primero se quita de todos sus nodos finales, para que al recalcular los mejores de un
+        // nodo compartido por varias claves no vuelva a aparecer desde otra de ellas
+        List<Node[]> paths = new ArrayList<>();
+        for (String key : entry.keys) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = root;
+            for (int i = 0; i < key.length() && path[i] != null; i++) {
+                path[i + 1] = path[i].child(key.charAt(i));
+            }
+            Node last = path[key.length()];
+            if (last != null) {
+                last.entries = without(last.entries, entry);
+            }
+            paths.add(path);
+        }
+        for (int k = 0; k < paths.size(); k++) {
+            Node[] path = paths.get(k);
+            String key = entry.keys[k];
+            for (int i = key.length(); i >= 0; i--) {
+                Node node = path[i];
+                if (node == null) {
+                    continue;
+                }
+                if (contains(node.top, entry)) {
+                    recompute(node);
+                }
+                if (i > 0 && node.isEmpty() && path[i - 1] != null) {
+                    path[i - 1].removeChild(key.charAt(i - 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Incorpora un elemento a los mejores de un nodo si su peso lo permite.
+     */
+    private void offer(Node node, Entry entry) {
+        if (contains(node.top, entry)) {
+            return;
+        }
+        Entry[] top = node.top;
+        if (top.length == topK && compare(entry, top[top.length - 1]) >= 0) {
+            return;
+        }
+        int position = 0;
+        while (position < top.length && compare(top[position], entry) < 0) {
+            position++;
+        }
+        int length = Math.min(topK, top.length + 1);
+        Entry[] updated = new Entry[length];
+        System.arraycopy(top, 0, updated, 0, Math.min(position, length));
+        if (position < length) {
+            updated[position] = entry;
+            System.arraycopy(top, position, updated, position + 1, length - position - 1);
+        }
+        node.top = updated;
+    }
+
+    /**
+     * Vuelve a calcular los mejores de un nodo a partir de sus propios elementos y de los mejores
+     * de sus hijos (que ya están actualizados).
+     */
+    private void recompute(Node node) {
+        List<Entry> candidates = new ArrayList<>(Arrays.asList(node.entries));
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        node.top = candidates.stream().distinct().sorted(RANKING).limit(topK).toArray(Entry[]::new);
+    }
+
+    /**
+     * Orden de las sugerencias: mayor peso primero y, a igual peso, por texto e ID.
+     */
+    private static int compare(Entry a, Entry b) {
+        if (a.weight != b.weight) {
+            return a.weight > b.weight ? -1 : 1;
+        }
+        int byLabel = a.label.compareTo(b.label);
+        return byLabel != 0 ? byLabel : Long.compare(a.id, b.id);
+    }
+
+    private static boolean contains(Entry[] array, Entry entry) {
+        for (Entry candidate : array) {
+            if (candidate == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Entry[] append(Entry[] array, Entry entry) {
+        Entry[] updated = Arrays.copyOf(array, array.length + 1);
+        updated[array.length] = entry;
+        return updated;
+    }
+
+    private static Entry[] without(Entry[] array, Entry entry) {
+        Entry[] updated = Arrays.stream(array).filter(candidate -> candidate != entry).toArray(Entry[]::new);
+        return updated.length == 0 ? NO_ENTRIES : updated;
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final String label;
+        private final long weight;
+        private final String[] keys;
+        private final String[] phrases;
+
+        private Entry(long id, String label, long weight, String[] keys, String[] phrases) {
+            this.id = id;
+            this.label = label;
+            this.weight = weight;
+            this.keys = keys;
+            this.phrases = phrases;
+        }
+
+        private Suggestion toSuggestion() {
+            return new Suggestion(id, label, weight);
+        }
+    }
+
+    private static final class Node {
+        private char[] chars = NO_CHARS;
+        private Node[] children = NO_NODES;
+        private Entry[] entries = NO_ENTRIES;
+        private Entry[] top = NO_ENTRIES;
+
+        private Node child(char c) {
+            int i = Arrays.binarySearch(chars, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        private Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(chars, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int position = -i - 1;
+            char[] updatedChars = new char[chars.length + 1];
+            Node[] updatedChildren = new Node[children.length + 1];
+            System.arraycopy(chars, 0, updatedChars, 0, position);
+            System.arraycopy(children, 0, updatedChildren, 0, position);
+            System.arraycopy(chars, position, updatedChars, position + 1, chars.length - position);
+            System.arraycopy(children, position, updatedChildren, position + 1, children.length - position);
+            Node child = new Node();
+            updatedChars[position] = c;
+            updatedChildren[position] = child;
+            chars = updatedChars;
+            children = updatedChildren;
+            return child;
+        }
+
+        private void removeChild(char c) {
+            int i = Arrays.binarySearch(chars, c);
+            if (i < 0) {
+                return;
+            }
+            char[] updatedChars = new char[chars.length - 1];
+            Node[] updatedChildren = new Node[children.length - 1];
+            System.arraycopy(chars, 0, updatedChars, 0, i);
+            System.arraycopy(children, 0, updatedChildren, 0, i);
+            System.arraycopy(chars, i + 1, updatedChars, i, chars.length - i - 1);
+            System.arraycopy(children, i + 1, updatedChildren, i, children.length - i - 1);
+            chars = updatedChars.length == 0 ? NO_CHARS : updatedChars;
+            children = updatedChildren.length == 0 ? NO_NODES : updatedChildren;
+        }
+
+        private boolean isEmpty() {
+            return entries.length == 0 && children.length == 0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Cursor opaco utilizado en la paginación por clave (keyset) de los tickets.
+ *
+ * Guarda la fecha y el ID del último ticket devuelto, que son las columnas por las que
+ * se ordena el listado (`date DESC, id DESC`). Se serializa como Base64 URL-safe para que
+ * el cliente lo trate como un token opaco y lo devuelva tal cual en la siguiente petición.
+ */
+@Getter
+public final class TicketCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // Fecha del último ticket devuelto en la página anterior.
+    private final Date date;
+
+    // ID del último ticket devuelto en la página anterior.
+    private final Long id;
+
+    public TicketCursor(Date date, Long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    /**
+     * Codifica el cursor como un token opaco.
+     *
+     * @return el token que se entrega al cliente.
+     */
+    public String encode() {
+        String raw = date.getTime() + ":" + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token opaco recibido del cliente.
+     *
+     * @param token el token devuelto por el cliente.
+     * @return el cursor correspondiente.
+     * @throws IllegalArgumentException si el token no tiene un formato válido.
+     */
+    public static TicketCursor decode(String token) {
+        try {
+            String raw = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("El cursor no es válido.");
+            }
+            long epochMillis = Long.parseLong(raw.substring(0, separator));
+            long id = Long.parseLong(raw.substring(separator + 1));
+            return new TicketCursor(new Date(epochMillis), id);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException también es una IllegalArgumentException
+            throw new IllegalArgumentException("El cursor no es válido.");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils;
+
+/**
+ * Cubo de fichas ("token bucket") para limitar la frecuencia de una operación.
+ *
+ * El cubo empieza lleno con {@code capacity} fichas y se rellena de forma continua a razón de
+ * {@code refillPerSecond} fichas por segundo, sin superar nunca la capacidad. Cada operación
+ * consume una ficha; si no quedan, se informa del tiempo que falta para la siguiente.
+ */
+public final class TokenBucket {
+
+    // Número máximo de fichas (ráfaga permitida)
+    private final double capacity;
+
+    // Fichas que se recuperan por nanosegundo
+    private final double refillPerNano;
+
+    // Fichas disponibles en el último cálculo
+    private double tokens;
+
+    // Instante (System.nanoTime) del último cálculo
+    private long lastRefill;
+
+    /**
+     * Crea un cubo lleno.
+     *
+     * @param capacity número máximo de fichas (mínimo 1).
+     * @param refillPerSecond fichas que se recuperan por segundo (mayor que 0).
+     */
+    public TokenBucket(long capacity, double refillPerSecond) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("La capacidad y la velocidad de recarga deben ser positivas.");
+        }
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Intenta consumir una ficha.
+     *
+     * @return 0 si se ha consumido; si no, los nanosegundos que faltan para disponer de una ficha.
+     */
+    public synchronized long tryConsume() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / refillPerNano);
+    }
+}
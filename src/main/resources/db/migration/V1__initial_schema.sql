@@ -0,0 +1,170 @@
+-- Crear tabla para las Comunidades Autónomas de España
+CREATE TABLE IF NOT EXISTS regions (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    code VARCHAR(10) NOT NULL UNIQUE,
+    name VARCHAR(100) NOT NULL
+);
+
+
+-- Crear tabla para las provincias españolas
+CREATE TABLE IF NOT EXISTS provinces (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    code VARCHAR(10) NOT NULL UNIQUE,
+    name VARCHAR(100) NOT NULL,
+    region_id INT NOT NULL,
+    FOREIGN KEY (region_id) REFERENCES regions(id)
+);
+
+-- Crear la tabla 'supermarket'
+CREATE TABLE IF NOT EXISTS supermarkets (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL
+);
+
+-- Crear la tabla 'location'
+CREATE TABLE IF NOT EXISTS locations (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    address VARCHAR(255) NOT NULL,
+    city VARCHAR(100) NOT NULL,
+    supermarket_id INT,
+    province_id INT,
+    FOREIGN KEY (supermarket_id) REFERENCES supermarkets(id),
+    FOREIGN KEY (province_id) REFERENCES provinces(id)
+);
+
+-- Crear la tabla 'categories'
+CREATE TABLE IF NOT EXISTS categories (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    image VARCHAR(500) NULL,
+    parent_id INT DEFAULT NULL,
+    CONSTRAINT fk_parent_category
+        FOREIGN KEY (parent_id) REFERENCES categories(id)
+        ON DELETE SET NULL
+        ON UPDATE CASCADE
+);
+
+
+-- Crear la tabla 'tickets'
+CREATE TABLE IF NOT EXISTS tickets (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    date DATETIME NOT NULL,
+    discount DECIMAL(5, 2) NOT NULL,
+    subtotal DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    location_id INT,
+    FOREIGN KEY (location_id) REFERENCES locations(id)
+);
+
+-- Añadir la columna 'subtotal' a bases de datos creadas antes de su introducción
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS subtotal DECIMAL(12, 2) NOT NULL DEFAULT 0 AFTER discount;
+
+-- Crear la tabla 'products'
+CREATE TABLE IF NOT EXISTS products (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    category_id INT,
+    price DECIMAL(10, 2) NOT NULL,
+    FOREIGN KEY (category_id) REFERENCES categories(id)
+);
+
+-- Crear la tabla 'product_ticket'
+CREATE TABLE IF NOT EXISTS product_ticket (
+    product_id INT NOT NULL,
+    ticket_id INT NOT NULL,
+    PRIMARY KEY (product_id, ticket_id),
+    FOREIGN KEY (product_id) REFERENCES products(id),
+    FOREIGN KEY (ticket_id) REFERENCES tickets(id)
+);
+
+-- Índices para la analítica de gasto: el filtro por fecha y las columnas agregadas se
+-- resuelven sólo con el índice, y product_ticket se recorre desde el ticket
+CREATE INDEX IF NOT EXISTS idx_tickets_date_location ON tickets (date, location_id, discount, subtotal);
+CREATE INDEX IF NOT EXISTS idx_product_ticket_ticket ON product_ticket (ticket_id, product_id);
+
+-- Agregados diarios de tickets por ubicación (location_id = 0 para tickets sin ubicación).
+-- 'discounted' guarda el total con descuento sin redondear, para que las actualizaciones
+-- incrementales y la reconstrucción desde las tablas base den exactamente el mismo valor
+CREATE TABLE IF NOT EXISTS ticket_daily_location_rollup (
+    day DATE NOT NULL,
+    location_id INT NOT NULL,
+    ticket_count INT NOT NULL DEFAULT 0,
+    gross DECIMAL(16, 2) NOT NULL DEFAULT 0,
+    discounted DECIMAL(20, 6) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, location_id)
+);
+
+-- Agregados diarios de tickets por categoría de producto (category_id = 0 para productos sin categoría).
+-- 'ticket_count' cuenta los tickets con al menos un producto de la categoría
+CREATE TABLE IF NOT EXISTS ticket_daily_category_rollup (
+    day DATE NOT NULL,
+    category_id INT NOT NULL,
+    ticket_count INT NOT NULL DEFAULT 0,
+    gross DECIMAL(16, 2) NOT NULL DEFAULT 0,
+    discounted DECIMAL(20, 6) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, category_id)
+);
+
+-- Crear la tabla 'users'
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    username VARCHAR(50) UNIQUE NOT NULL,
+    password VARCHAR(100) NOT NULL,
+    enabled BOOLEAN NOT NULL,
+    first_name VARCHAR(50) NOT NULL,
+    last_name VARCHAR(50) NOT NULL,
+    image VARCHAR(255),
+    created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    last_modified_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    last_password_change_date TIMESTAMP
+);
+
+-- Crear la tabla 'roles'
+CREATE TABLE IF NOT EXISTS roles (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(50) UNIQUE NOT NULL
+);
+
+-- Crear la tabla 'user_roles'
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (role_id) REFERENCES roles(id) ON DELETE CASCADE
+);
+
+-- Crear la tabla 'refresh_tokens' (sólo se guarda el hash SHA-256 de cada token)
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    token_hash CHAR(64) NOT NULL UNIQUE,
+    username VARCHAR(50) NOT NULL,
+    family_id CHAR(36) NOT NULL,
+    expires_at DATETIME NOT NULL,
+    used BOOLEAN NOT NULL DEFAULT FALSE,
+    revoked BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at DATETIME NOT NULL,
+    INDEX idx_refresh_tokens_family (family_id),
+    INDEX idx_refresh_tokens_expires (expires_at)
+);
+
+-- Crear la tabla 'revoked_tokens' (tokens de acceso revocados hasta su expiración)
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    jti CHAR(36) PRIMARY KEY,
+    expires_at DATETIME NOT NULL,
+    INDEX idx_revoked_tokens_expires (expires_at)
+);
+
+-- Crear la tabla 'outbox_events' (eventos de dominio escritos en la misma transacción que el
+-- cambio que los origina; el relay los convierte en notificaciones y los marca como procesados).
+-- El índice (processed_at, id) permite leer los pendientes en orden sin recorrer los procesados
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    event_type VARCHAR(50) NOT NULL,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT,
+    payload TEXT NOT NULL,
+    created_at DATETIME NOT NULL,
+    processed_at DATETIME,
+    attempts INT NOT NULL DEFAULT 0,
+    INDEX idx_outbox_events_pending (processed_at, id)
+);
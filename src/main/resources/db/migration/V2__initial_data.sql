@@ -124,6 +124,16 @@ INSERT IGNORE INTO product_ticket (product_id, ticket_id) VALUES
 (4, 1),
 (5, 2);
 
+-- Calcular el subtotal de los tickets que aún no lo tienen (datos de ejemplo o anteriores a la columna)
+UPDATE tickets t
+SET t.subtotal = (
+    SELECT COALESCE(SUM(p.price), 0)
+    FROM product_ticket pt
+    JOIN products p ON p.id = pt.product_id
+    WHERE pt.ticket_id = t.id
+)
+WHERE t.subtotal = 0;
+
 
 -- Insertar datos de ejemplo para 'roles'
 INSERT IGNORE INTO roles (id, name) VALUES
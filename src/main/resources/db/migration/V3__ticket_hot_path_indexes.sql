@@ -0,0 +1,16 @@
+-- Índices para las consultas más frecuentes sobre tickets y productos.
+-- El índice inverso de product_ticket (ticket_id, product_id), que usan la carga de los
+-- productos de un ticket y el filtro por categoría del listado, ya se crea en V1.
+-- Ninguna consulta filtra tickets por ubicación y fecha a la vez: los recuentos por ubicación
+-- y supermercado ya se resuelven con el índice de la clave ajena location_id, por lo que no se
+-- añade un índice (location_id, date) que sólo encarecería las inserciones.
+
+-- Listado de tickets por cursor (ORDER BY date DESC, id DESC) y analítica por rango de fechas:
+-- el orden (date, id) sirve al listado sin ordenar en memoria y las columnas restantes cubren
+-- las agregaciones de SpendAnalyticsRepository y TicketRollupRepository. Sustituye al índice
+-- (date, location_id, discount, subtotal), que no daba el desempate por id del listado
+CREATE INDEX IF NOT EXISTS idx_tickets_date_id ON tickets (date, id, location_id, discount, subtotal);
+DROP INDEX IF EXISTS idx_tickets_date_location ON tickets;
+
+-- Productos de un subárbol de categorías ordenados por nombre
+CREATE INDEX IF NOT EXISTS idx_products_category_name ON products (category_id, name);
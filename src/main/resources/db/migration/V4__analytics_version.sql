@@ -0,0 +1,10 @@
+-- Versión de los datos de la analítica de gasto. Se incrementa después de confirmar cualquier
+-- cambio que altere sus resultados (tickets, agregados y datos de referencia), fuera de su
+-- transacción, y el ETag de /api/analytics/spend se deriva de ella para responder 304 sin
+-- ejecutar la consulta
+CREATE TABLE IF NOT EXISTS analytics_version (
+    id TINYINT NOT NULL PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT IGNORE INTO analytics_version (id, version) VALUES (1, 0);
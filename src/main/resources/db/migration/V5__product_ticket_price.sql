@@ -0,0 +1,11 @@
+-- Precio de cada línea de ticket en el momento de la compra. Los agregados por categoría, la
+-- analítica por categoría y el índice de precios lo usan en lugar del precio actual del
+-- producto, de modo que coinciden con el subtotal del ticket aunque el producto cambie de precio.
+-- Hibernate inserta las filas de product_ticket sin precio; TicketService lo escribe a
+-- continuación en la misma transacción
+ALTER TABLE product_ticket ADD COLUMN IF NOT EXISTS price DECIMAL(10, 2) NULL;
+
+-- Las líneas existentes toman el precio actual del producto, el único disponible
+UPDATE product_ticket pt JOIN products p ON p.id = pt.product_id
+SET pt.price = p.price
+WHERE pt.price IS NULL;
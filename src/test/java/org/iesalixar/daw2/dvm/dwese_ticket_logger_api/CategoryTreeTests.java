@@ -0,0 +1,163 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.CategoryTree;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.CategoryTree.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba el índice de la jerarquía de categorías: numeración en preorden por nombre,
+ * intervalos de los subárboles, rutas desde la raíz, huérfanas y ciclos.
+ */
+class CategoryTreeTests {
+
+	/**
+	 * Alimentación (1) > Frutas (7), Lácteos (2) > Leche (4), Yogures (3); Bebidas (5) > Agua (6).
+	 * Se pasan desordenadas para comprobar que el orden sólo depende de los nombres.
+	 */
+	private static List<Node> shop() {
+		return List.of(
+				node(3, 2L, "Yogures"),
+				node(6, 5L, "Agua"),
+				node(2, 1L, "Lácteos"),
+				node(5, null, "Bebidas"),
+				node(4, 2L, "Leche"),
+				node(1, null, "Alimentación"),
+				node(7, 1L, "Frutas"));
+	}
+
+	@Test
+	void numbersCategoriesInPreorderByName() {
+		CategoryTree tree = new CategoryTree(shop());
+
+		assertEquals(7, tree.size());
+		assertArrayEquals(new long[]{1, 7, 2, 4, 3, 5, 6}, idsInOrder(tree));
+		assertArrayEquals(new int[]{0, 1, 1, 2, 2, 0, 1}, depthsInOrder(tree));
+		assertEquals(-1, tree.parentAt(0));
+		assertEquals(0, tree.parentAt(2));
+		assertEquals(2, tree.parentAt(4));
+		assertEquals(5, tree.nodeAt(tree.parentAt(6)).id());
+	}
+
+	@Test
+	void subtreesAreContiguousIntervals() {
+		CategoryTree tree = new CategoryTree(shop());
+
+		assertArrayEquals(new long[]{1, 7, 2, 4, 3}, tree.subtreeIds(1));
+		assertArrayEquals(new long[]{2, 4, 3}, tree.subtreeIds(2));
+		assertArrayEquals(new long[]{5, 6}, tree.subtreeIds(5));
+		assertArrayEquals(new long[]{4}, tree.subtreeIds(4));
+		assertArrayEquals(new long[0], tree.subtreeIds(99));
+
+		assertTrue(tree.isInSubtree(1, 1));
+		assertTrue(tree.isInSubtree(1, 3));
+		assertTrue(tree.isInSubtree(2, 4));
+		assertFalse(tree.isInSubtree(2, 7));
+		assertFalse(tree.isInSubtree(3, 2));
+		assertFalse(tree.isInSubtree(1, 6));
+		assertFalse(tree.isInSubtree(99, 1));
+		assertFalse(tree.isInSubtree(1, 99));
+	}
+
+	@Test
+	void pathGoesFromRootToCategory() {
+		CategoryTree tree = new CategoryTree(shop());
+
+		assertEquals(List.of(1L, 2L, 3L), tree.path(3).stream().map(Node::id).toList());
+		assertEquals(List.of(5L, 6L), tree.path(6).stream().map(Node::id).toList());
+		assertEquals(List.of(1L), tree.path(1).stream().map(Node::id).toList());
+		assertEquals(List.of(), tree.path(99));
+		assertEquals(2, tree.depth(3));
+		assertEquals(-1, tree.depth(99));
+	}
+
+	@Test
+	void orphansAndSelfParentsBecomeRoots() {
+		List<Node> categories = new ArrayList<>(shop());
+		categories.add(node(8, 99L, "Congelados"));
+		categories.add(node(9, 8L, "Helados"));
+		categories.add(node(10, 10L, "Droguería"));
+		CategoryTree tree = new CategoryTree(categories);
+
+		assertEquals(10, tree.size());
+		assertArrayEquals(new long[]{1, 7, 2, 4, 3, 5, 6, 8, 9, 10}, idsInOrder(tree));
+		assertEquals(0, tree.depth(8));
+		assertEquals(1, tree.depth(9));
+		assertEquals(0, tree.depth(10));
+		assertArrayEquals(new long[]{8, 9}, tree.subtreeIds(8));
+		assertArrayEquals(new long[]{10}, tree.subtreeIds(10));
+		assertEquals(List.of(8L, 9L), tree.path(9).stream().map(Node::id).toList());
+	}
+
+	@Test
+	void cycleIsBrokenAtItsLowestId() {
+		List<Node> categories = new ArrayList<>(shop());
+		// 12 > 11 > 10 > 12, con 13 colgando del ciclo
+		categories.add(node(12, 11L, "C"));
+		categories.add(node(10, 12L, "A"));
+		categories.add(node(11, 10L, "B"));
+		categories.add(node(13, 11L, "D"));
+		CategoryTree tree = new CategoryTree(categories);
+
+		assertEquals(11, tree.size());
+		assertArrayEquals(new long[]{10, 11, 12, 13}, tree.subtreeIds(10));
+		assertEquals(0, tree.depth(10));
+		assertEquals(2, tree.depth(12));
+		assertEquals(2, tree.depth(13));
+		assertEquals(List.of(10L, 11L, 13L), tree.path(13).stream().map(Node::id).toList());
+		assertFalse(tree.isInSubtree(12, 10));
+		assertArrayEquals(new long[]{1, 7, 2, 4, 3}, tree.subtreeIds(1));
+	}
+
+	@Test
+	void deepChainDoesNotRecurse() {
+		int depth = 100_000;
+		List<Node> categories = new ArrayList<>();
+		for (int i = 1; i <= depth; i++) {
+			categories.add(node(i, i == 1 ? null : (long) i - 1, "Categoría " + i));
+		}
+		CategoryTree tree = new CategoryTree(categories);
+
+		assertEquals(depth - 1, tree.depth(depth));
+		assertEquals(depth, tree.path(depth).size());
+		assertEquals(depth, tree.subtreeIds(1).length);
+		assertTrue(tree.isInSubtree(1, depth));
+	}
+
+	@Test
+	void emptyTreeHasNoCategories() {
+		CategoryTree tree = CategoryTree.empty();
+
+		assertEquals(0, tree.size());
+		assertFalse(tree.contains(1));
+		assertArrayEquals(new long[0], tree.subtreeIds(1));
+		assertEquals(List.of(), tree.path(1));
+	}
+
+	private static Node node(long id, Long parentId, String name) {
+		return new Node(id, parentId, name, null);
+	}
+
+	private static long[] idsInOrder(CategoryTree tree) {
+		long[] ids = new long[tree.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = tree.nodeAt(i).id();
+		}
+		return ids;
+	}
+
+	private static int[] depthsInOrder(CategoryTree tree) {
+		int[] depths = new int[tree.size()];
+		for (int i = 0; i < depths.length; i++) {
+			depths[i] = tree.depthAt(i);
+		}
+		return depths;
+	}
+}
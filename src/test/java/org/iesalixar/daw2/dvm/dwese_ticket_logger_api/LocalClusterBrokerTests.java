@@ -0,0 +1,69 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.LocalClusterBrokerHub;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.LocalClusterNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Simula N nodos en la misma JVM con el modo de broker local-cluster y comprueba que cada
+ * mensaje de difusión publicado en un nodo llega una sola vez a cada uno de los demás.
+ */
+class LocalClusterBrokerTests {
+
+	private static final int NODES = 4;
+
+	private final List<String> nodeIds = new ArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		nodeIds.forEach(LocalClusterBrokerHub::unregister);
+	}
+
+	@Test
+	void topicMessagesReachEveryOtherNodeOnce() {
+		List<LocalClusterNode> nodes = new ArrayList<>();
+		List<List<Message<?>>> inboxes = new ArrayList<>();
+		for (int i = 0; i < NODES; i++) {
+			LocalClusterNode node = new LocalClusterNode();
+			ReflectionTestUtils.setField(node, "meterRegistry", new SimpleMeterRegistry());
+			ReflectionTestUtils.setField(node, "nodeId", "node-" + i);
+			node.init();
+			List<Message<?>> inbox = new CopyOnWriteArrayList<>();
+			// El broker de cada nodo vuelve a pasar el mensaje por su interceptor, como el canal real
+			LocalClusterBrokerHub.register("node-" + i, message -> {
+				inbox.add(message);
+				node.postSend(message, null, true);
+			});
+			nodeIds.add("node-" + i);
+			nodes.add(node);
+			inboxes.add(inbox);
+		}
+
+		nodes.get(0).postSend(message("/topic/notifications"), null, true);
+		nodes.get(1).postSend(message("/queue/private-user123"), null, true);
+
+		assertEquals(0, inboxes.get(0).size());
+		for (int i = 1; i < NODES; i++) {
+			assertEquals(1, inboxes.get(i).size());
+		}
+	}
+
+	private Message<?> message(String destination) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setDestination(destination);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+}
@@ -0,0 +1,50 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.LoginRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba los cubos del límite de intentos de login: el de cada usuario va ligado a la IP
+ * del cliente y el de la IP se comparte entre todos los usuarios.
+ */
+class LoginRateLimiterTests {
+
+	private final LoginRateLimiter limiter = new LoginRateLimiter();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(limiter, "userCapacity", 3L);
+		ReflectionTestUtils.setField(limiter, "userRefillPerMinute", 1.0);
+		ReflectionTestUtils.setField(limiter, "ipCapacity", 10L);
+		ReflectionTestUtils.setField(limiter, "ipRefillPerMinute", 1.0);
+		ReflectionTestUtils.setField(limiter, "maxKeys", 1000L);
+		limiter.init();
+	}
+
+	@Test
+	void userIsLimitedPerClientIp() {
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, limiter.tryAcquire("admin", "10.0.0.1"));
+		}
+		assertTrue(limiter.tryAcquire("Admin", "10.0.0.1") > 0);
+
+		// Otra IP tiene su propio cubo para el mismo usuario: no se le puede bloquear el login
+		assertEquals(0, limiter.tryAcquire("admin", "10.0.0.2"));
+	}
+
+	@Test
+	void ipIsLimitedAcrossUsers() {
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, limiter.tryAcquire("user" + i, "10.0.0.1"));
+		}
+		assertTrue(limiter.tryAcquire("other", "10.0.0.1") > 0);
+		assertEquals(0, limiter.tryAcquire("other", "10.0.0.2"));
+	}
+}
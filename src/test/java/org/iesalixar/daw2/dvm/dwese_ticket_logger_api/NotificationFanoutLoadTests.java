@@ -0,0 +1,205 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.NotificationDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationTopics;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.NotificationDeliveryPipeline;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.user.DefaultUserDestinationResolver;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga, en memoria, de los bytes que recibe cada cliente con 10.000 suscriptores
+ * sobre el broker simple: difundiendo todo en /topic/notifications (antes) frente a entregar
+ * cada notificación sólo a su usuario, rol o segmento (ahora).
+ *
+ * La entrega dirigida pasa por el código de producción: {@link NotificationDeliveryPipeline}
+ * envía con {@link SimpMessagingTemplate} y los destinos /user/... los resuelve
+ * {@link UserDestinationMessageHandler} con el registro de sesiones, como en la aplicación.
+ */
+class NotificationFanoutLoadTests {
+
+	private static final int CLIENTS = 10_000;
+
+	private static final int NOTIFICATIONS = 200;
+
+	private static final int SEGMENTS = 50;
+
+	private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+	@Test
+	void targetedDeliveryReducesBytesPerClient() throws Exception {
+		NotificationTopics topics = new NotificationTopics();
+		ReflectionTestUtils.setField(topics, "shards", 16);
+		List<NotificationDTO> notifications = notifications();
+
+		double broadcast = bytesPerClient(topics, notifications, true);
+		double targeted = bytesPerClient(topics, notifications, false);
+
+		assertTrue(targeted > 0, "La entrega dirigida no ha llegado a ningún cliente");
+		assertTrue(targeted * 10 < broadcast, "Bytes por cliente con " + CLIENTS + " suscriptores: difusión="
+				+ Math.round(broadcast) + ", dirigida=" + Math.round(targeted));
+	}
+
+	private double bytesPerClient(NotificationTopics topics, List<NotificationDTO> notifications, boolean broadcast)
+			throws Exception {
+		Map<String, AtomicLong> bytesBySession = new ConcurrentHashMap<>();
+		MessageChannel outbound = (message, timeout) -> {
+			String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+			bytesBySession.computeIfAbsent(sessionId, id -> new AtomicLong())
+					.addAndGet(((byte[]) message.getPayload()).length);
+			return true;
+		};
+		// Canales síncronos: cada mensaje se procesa en el hilo que lo envía
+		ExecutorSubscribableChannel inbound = new ExecutorSubscribableChannel();
+		ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+		SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(inbound, outbound, brokerChannel,
+				List.of("/topic", "/queue"));
+		DefaultSimpUserRegistry userRegistry = new DefaultSimpUserRegistry();
+		UserDestinationMessageHandler userDestinations = new UserDestinationMessageHandler(inbound, brokerChannel,
+				new DefaultUserDestinationResolver(userRegistry));
+		broker.start();
+		userDestinations.start();
+
+		// Cada cliente: usuario propio, ROLE_USER (10% también ROLE_MANAGER) y un segmento
+		for (int i = 0; i < CLIENTS; i++) {
+			String sessionId = "s" + i;
+			String username = "user" + i;
+			Principal user = () -> username;
+			connect(inbound, userRegistry, sessionId, user);
+			subscribe(inbound, sessionId, user, NotificationTopics.BROADCAST);
+			subscribe(inbound, sessionId, user, "/user" + NotificationTopics.USER_QUEUE);
+			subscribe(inbound, sessionId, user, topics.subscriptionTopic(NotificationRecipientType.ROLE, "ROLE_USER", username));
+			if (i % 10 == 0) {
+				subscribe(inbound, sessionId, user, topics.subscriptionTopic(NotificationRecipientType.ROLE, "ROLE_MANAGER", username));
+			}
+			subscribe(inbound, sessionId, user, topics.subscriptionTopic(NotificationRecipientType.SEGMENT, "segment-" + (i % SEGMENTS), username));
+		}
+
+		SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+		MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+		converter.setObjectMapper(objectMapper);
+		messagingTemplate.setMessageConverter(converter);
+
+		if (broadcast) {
+			notifications.forEach(notification -> messagingTemplate.convertAndSend(NotificationTopics.BROADCAST, notification));
+		} else {
+			deliver(messagingTemplate, topics, notifications);
+		}
+		userDestinations.stop();
+		broker.stop();
+		return bytesBySession.values().stream().mapToLong(AtomicLong::get).sum() / (double) CLIENTS;
+	}
+
+	/**
+	 * Entrega las notificaciones con la etapa de entrega de producción y espera a que termine.
+	 */
+	private void deliver(SimpMessagingTemplate messagingTemplate, NotificationTopics topics,
+						 List<NotificationDTO> notifications) throws InterruptedException {
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		NotificationDeliveryPipeline pipeline = new NotificationDeliveryPipeline();
+		ReflectionTestUtils.setField(pipeline, "messagingTemplate", messagingTemplate);
+		ReflectionTestUtils.setField(pipeline, "notificationTopics", topics);
+		ReflectionTestUtils.setField(pipeline, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(pipeline, "queueCapacity", NOTIFICATIONS);
+		ReflectionTestUtils.setField(pipeline, "overflowStrategy", "drop");
+		ReflectionTestUtils.setField(pipeline, "blockTimeoutMs", 100L);
+		ReflectionTestUtils.setField(pipeline, "maxBatch", 500);
+		ReflectionTestUtils.setField(pipeline, "maxWaitMs", 50L);
+		ReflectionTestUtils.setField(pipeline, "maxRetries", 0);
+		ReflectionTestUtils.setField(pipeline, "retryBackoffMs", 1L);
+		pipeline.init();
+		try {
+			notifications.forEach(pipeline::submit);
+			long deadline = System.currentTimeMillis() + 30_000;
+			while (processed(meterRegistry) < notifications.size() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(notifications.size(), meterRegistry.counter("notifications.delivery.delivered").count(),
+					"No se han entregado todas las notificaciones");
+		} finally {
+			pipeline.shutdown();
+		}
+	}
+
+	private double processed(MeterRegistry meterRegistry) {
+		return meterRegistry.counter("notifications.delivery.delivered").count()
+				+ meterRegistry.counter("notifications.delivery.failed").count()
+				+ meterRegistry.counter("notifications.delivery.dropped").count();
+	}
+
+	/**
+	 * 70% a un usuario, 20% a un segmento, 10% a los managers.
+	 */
+	private List<NotificationDTO> notifications() {
+		Random random = new Random(42);
+		List<NotificationDTO> notifications = new ArrayList<>();
+		for (int i = 0; i < NOTIFICATIONS; i++) {
+			int kind = random.nextInt(10);
+			NotificationRecipientType type = kind < 7 ? NotificationRecipientType.USER
+					: kind < 9 ? NotificationRecipientType.SEGMENT : NotificationRecipientType.ROLE;
+			String recipient = switch (type) {
+				case USER -> "user" + random.nextInt(CLIENTS);
+				case SEGMENT -> "segment-" + random.nextInt(SEGMENTS);
+				default -> "ROLE_MANAGER";
+			};
+			notifications.add(new NotificationDTO(String.valueOf(i), "Precio más bajo",
+					"Precio más bajo para el producto en el supermercado", false, type, recipient, Instant.now()));
+		}
+		return notifications;
+	}
+
+	/**
+	 * Abre la sesión en el broker y la registra para el usuario, como hace la aplicación al
+	 * recibir el CONNECT.
+	 */
+	private void connect(MessageChannel inbound, DefaultSimpUserRegistry userRegistry, String sessionId,
+						 Principal user) {
+		SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+		connect.setSessionId(sessionId);
+		connect.setUser(user);
+		inbound.send(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+
+		SimpMessageHeaderAccessor connected = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+		connected.setSessionId(sessionId);
+		connected.setUser(user);
+		userRegistry.onApplicationEvent(new SessionConnectedEvent(this,
+				MessageBuilder.createMessage(new byte[0], connected.getMessageHeaders()), user));
+	}
+
+	private void subscribe(MessageChannel inbound, String sessionId, Principal user, String destination) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setUser(user);
+		accessor.setSubscriptionId(destination);
+		accessor.setDestination(destination);
+		inbound.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+	}
+}
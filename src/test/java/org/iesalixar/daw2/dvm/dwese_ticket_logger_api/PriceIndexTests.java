@@ -0,0 +1,145 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.PriceIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Comprueba el índice de precios: crecimiento de las tablas de direccionamiento abierto,
+ * actualizaciones concurrentes sobre los segmentos y detección de bajadas de precio.
+ */
+class PriceIndexTests {
+
+	@Test
+	void firstObservationIsNotADrop() {
+		PriceIndex index = new PriceIndex(16);
+
+		assertEquals(PriceIndex.NO_DROP, index.observe(1, 1, 500, 1_000));
+		assertEquals(500, index.latest(1, 1));
+		assertEquals(500, index.lowest(1, 1));
+		assertEquals(-1, index.latest(1, 2));
+		assertEquals(-1, index.lowest(2, 1));
+	}
+
+	@Test
+	void newerLowerPriceReturnsPreviousLowest() {
+		PriceIndex index = new PriceIndex(16);
+		index.observe(1, 1, 500, 1_000);
+
+		assertEquals(500, index.observe(1, 1, 450, 2_000));
+		assertEquals(450, index.latest(1, 1));
+		assertEquals(450, index.lowest(1, 1));
+	}
+
+	@Test
+	void equalOrHigherPriceIsNotADrop() {
+		PriceIndex index = new PriceIndex(16);
+		index.observe(1, 1, 500, 1_000);
+
+		assertEquals(PriceIndex.NO_DROP, index.observe(1, 1, 500, 2_000));
+		assertEquals(PriceIndex.NO_DROP, index.observe(1, 1, 600, 3_000));
+		assertEquals(600, index.latest(1, 1));
+		assertEquals(500, index.lowest(1, 1));
+	}
+
+	@Test
+	void olderLowerPriceUpdatesLowestWithoutDrop() {
+		PriceIndex index = new PriceIndex(16);
+		index.observe(1, 1, 500, 2_000);
+
+		// Un ticket antiguo que llega tarde no es una bajada, pero sí el nuevo mínimo
+		assertEquals(PriceIndex.NO_DROP, index.observe(1, 1, 300, 1_000));
+		assertEquals(500, index.latest(1, 1));
+		assertEquals(300, index.lowest(1, 1));
+		assertEquals(PriceIndex.NO_DROP, index.observe(1, 1, 400, 3_000));
+	}
+
+	@Test
+	void pairsAreIndependent() {
+		PriceIndex index = new PriceIndex(16);
+		index.observe(1, 1, 500, 1_000);
+		index.observe(1, 2, 300, 1_000);
+		index.observe(2, 1, 700, 1_000);
+
+		assertEquals(PriceIndex.NO_DROP, index.observe(1, 2, 400, 2_000));
+		assertEquals(500, index.observe(1, 1, 400, 2_000));
+		assertEquals(700, index.lowest(2, 1));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	void tablesGrowBeyondExpectedPairs() {
+		PriceIndex index = new PriceIndex(0);
+		int products = 2_000;
+		int supermarkets = 25;
+		for (int product = 1; product <= products; product++) {
+			for (int supermarket = 0; supermarket < supermarkets; supermarket++) {
+				index.observe(product, supermarket, product * 100L + supermarket, product);
+			}
+		}
+
+		assertEquals(products * supermarkets, index.size());
+		for (int product = 1; product <= products; product++) {
+			for (int supermarket = 0; supermarket < supermarkets; supermarket++) {
+				assertEquals(product * 100L + supermarket, index.latest(product, supermarket));
+				assertEquals(product * 100L + supermarket, index.lowest(product, supermarket));
+			}
+		}
+		// Una segunda pasada tras el crecimiento encuentra los pares existentes
+		assertEquals(100, index.observe(1, 0, 99, 2));
+		assertEquals(products * supermarkets, index.size());
+	}
+
+	@Test
+	void concurrentObservationsKeepLowestAndLatest() throws Exception {
+		PriceIndex index = new PriceIndex(0);
+		int threads = 8;
+		int products = 5_000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				// Todos los hilos escriben los mismos pares, cada uno con sus precios y fechas
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int product = 1; product <= products; product++) {
+						index.observe(product, product % 7, 1_000 + thread * 10L + product % 3, thread);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(products, index.size());
+		for (int product = 1; product <= products; product++) {
+			assertEquals(1_000 + product % 3, index.lowest(product, product % 7));
+			assertEquals(1_000 + (threads - 1) * 10L + product % 3, index.latest(product, product % 7));
+		}
+	}
+
+	@Test
+	void identifiersOutOfRangeAreRejected() {
+		PriceIndex index = new PriceIndex(16);
+
+		assertThrows(IllegalArgumentException.class, () -> index.observe(0, 1, 100, 1));
+		assertThrows(IllegalArgumentException.class, () -> index.observe(1, -1, 100, 1));
+		assertThrows(IllegalArgumentException.class, () -> index.latest(1L << 32, 1));
+	}
+}
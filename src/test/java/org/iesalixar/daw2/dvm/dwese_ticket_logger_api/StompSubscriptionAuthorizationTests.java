@@ -0,0 +1,90 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.StompAuthChannelInterceptor;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.WebSocketSessionRegistry;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationRecipientType;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.notifications.NotificationTopics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Comprueba la autorización de los SUBSCRIBE en {@link StompAuthChannelInterceptor}: los
+ * destinos con comodines se rechazan y cualquier topic pasa por
+ * {@link NotificationTopics#canSubscribe}.
+ */
+class StompSubscriptionAuthorizationTests {
+
+	private static final String SESSION_ID = "session-1";
+
+	private final NotificationTopics topics = new NotificationTopics();
+
+	private final StompAuthChannelInterceptor interceptor = new StompAuthChannelInterceptor();
+
+	private final Authentication user = new UsernamePasswordAuthenticationToken("normal", null,
+			List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(topics, "shards", 16);
+		WebSocketSessionRegistry sessionRegistry = new WebSocketSessionRegistry();
+		sessionRegistry.expireAt(SESSION_ID, System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+		ReflectionTestUtils.setField(interceptor, "sessionRegistry", sessionRegistry);
+		ReflectionTestUtils.setField(interceptor, "notificationTopics", topics);
+	}
+
+	@Test
+	void ownShardsAndBroadcastAreAllowed() {
+		assertDoesNotThrow(() -> subscribe(NotificationTopics.BROADCAST, user));
+		assertDoesNotThrow(() -> subscribe(NotificationTopics.BROADCAST, null));
+		assertDoesNotThrow(() -> subscribe("/user" + NotificationTopics.USER_QUEUE, user));
+		assertDoesNotThrow(() -> subscribe(
+				topics.subscriptionTopic(NotificationRecipientType.ROLE, "ROLE_USER", "normal"), user));
+		assertDoesNotThrow(() -> subscribe(
+				topics.subscriptionTopic(NotificationRecipientType.SEGMENT, "supermarket-1", "normal"), user));
+	}
+
+	@Test
+	void wildcardDestinationsAreRejected() {
+		for (String destination : List.of("/topic/**", "/topic/*", "/topic/notifications.role.*.*",
+				"/topic/notifications.role.ROLE_ADMIN.?", "/topic/{name}", "/queue/**", "/user/queue/*")) {
+			assertThrows(MessageDeliveryException.class, () -> subscribe(destination, user), destination);
+			assertThrows(MessageDeliveryException.class, () -> subscribe(destination, null), destination);
+		}
+	}
+
+	@Test
+	void otherTopicsAreCheckedToo() {
+		String adminShard = topics.subscriptionTopic(NotificationRecipientType.ROLE, "ROLE_ADMIN", "normal");
+
+		assertThrows(MessageDeliveryException.class, () -> subscribe(adminShard, user));
+		assertThrows(MessageDeliveryException.class, () -> subscribe(adminShard, null));
+		assertThrows(MessageDeliveryException.class, () -> subscribe("/topic/other", user));
+		assertThrows(MessageDeliveryException.class, () -> subscribe("/topic/notificationsX", null));
+	}
+
+	private void subscribe(String destination, Authentication authentication) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+		accessor.setSessionId(SESSION_ID);
+		accessor.setSubscriptionId("sub-0");
+		accessor.setDestination(destination);
+		accessor.setUser(authentication);
+		accessor.setLeaveMutable(true);
+		Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+		interceptor.preSend(message, null);
+	}
+}
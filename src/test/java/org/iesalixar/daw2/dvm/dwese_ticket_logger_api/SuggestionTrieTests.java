@@ -0,0 +1,135 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.SuggestionTrie;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.SuggestionTrie.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba el trie de sugerencias: búsqueda por el inicio de cada palabra, orden por peso,
+ * sustitución y eliminación de elementos con los mejores precalculados de cada nodo, y
+ * consultas más largas que la profundidad indexada.
+ */
+class SuggestionTrieTests {
+
+	@Test
+	void findsByAnyWordIgnoringCaseAndAccents() {
+		SuggestionTrie trie = new SuggestionTrie(5, 20);
+		trie.put(1, "Leche entera", List.of("Leche entera"), 5);
+		trie.put(2, "Calle Álamo, Málaga", List.of("Calle Álamo", "Málaga"), 3);
+
+		assertEquals(List.of(1L), ids(trie.suggest("LÉC", 5)));
+		assertEquals(List.of(1L), ids(trie.suggest("ent", 5)));
+		assertEquals(List.of(2L), ids(trie.suggest("alamo", 5)));
+		assertEquals(List.of(2L), ids(trie.suggest("mal", 5)));
+		assertEquals(List.of(), trie.suggest("xyz", 5));
+		assertEquals(List.of(), trie.suggest("  ", 5));
+		assertEquals(List.of(), trie.suggest(null, 5));
+	}
+
+	@Test
+	void ordersByWeightThenLabelAndCapsAtTopK() {
+		SuggestionTrie trie = new SuggestionTrie(3, 20);
+		trie.put(1, "Leche B", List.of("Leche B"), 5);
+		trie.put(2, "Leche A", List.of("Leche A"), 5);
+		trie.put(3, "Lechuga", List.of("Lechuga"), 9);
+		trie.put(4, "Lentejas", List.of("Lentejas"), 1);
+
+		assertEquals(List.of(3L, 2L, 1L), ids(trie.suggest("le", 10)));
+		assertEquals(List.of(3L), ids(trie.suggest("le", 1)));
+		assertEquals(List.of(new Suggestion(3, "Lechuga", 9)), trie.suggest("lechu", 5));
+	}
+
+	@Test
+	void putAgainReplacesWeightAndTexts() {
+		SuggestionTrie trie = new SuggestionTrie(5, 20);
+		trie.put(1, "Leche entera", List.of("Leche entera"), 5);
+		trie.put(2, "Leche desnatada", List.of("Leche desnatada"), 3);
+		assertEquals(List.of(1L, 2L), ids(trie.suggest("le", 5)));
+
+		trie.put(1, "Leche entera", List.of("Leche entera"), 1);
+
+		assertEquals(2, trie.size());
+		assertEquals(1, trie.weight(1));
+		assertEquals(List.of(2L, 1L), ids(trie.suggest("le", 5)));
+		assertEquals(List.of(new Suggestion(1, "Leche entera", 1)), trie.suggest("ent", 5));
+
+		// Con otros textos deja de encontrarse por los anteriores
+		trie.put(1, "Yogur natural", List.of("Yogur natural"), 7);
+
+		assertEquals(List.of(2L), ids(trie.suggest("le", 5)));
+		assertEquals(List.of(), trie.suggest("ent", 5));
+		assertEquals(List.of(1L), ids(trie.suggest("nat", 5)));
+	}
+
+	@Test
+	void removalPromotesNextCandidate() {
+		SuggestionTrie trie = new SuggestionTrie(2, 20);
+		trie.put(1, "Leche entera", List.of("Leche entera"), 10);
+		trie.put(2, "Leche desnatada", List.of("Leche desnatada"), 5);
+		trie.put(3, "Lechuga", List.of("Lechuga"), 1);
+		assertEquals(List.of(1L, 2L), ids(trie.suggest("le", 5)));
+
+		trie.remove(1);
+
+		// El tercero no cabía entre los dos mejores de los nodos comunes y ahora sí
+		assertEquals(List.of(2L, 3L), ids(trie.suggest("le", 5)));
+		assertEquals(List.of(2L, 3L), ids(trie.suggest("lech", 5)));
+		assertEquals(List.of(), trie.suggest("ent", 5));
+		assertEquals(-1, trie.weight(1));
+		assertEquals(2, trie.size());
+
+		trie.remove(1);
+		trie.remove(2);
+		trie.remove(3);
+
+		assertEquals(0, trie.size());
+		assertEquals(List.of(), trie.suggest("l", 5));
+	}
+
+	@Test
+	void removalWithSharedPrefixesKeepsOtherKeys() {
+		SuggestionTrie trie = new SuggestionTrie(5, 20);
+		// Dos textos del mismo elemento comparten el nodo "ma"
+		trie.put(1, "Mercadona Marbella", List.of("Calle Mayor", "Marbella"), 4);
+		trie.put(2, "Mango", List.of("Mango"), 2);
+
+		assertEquals(List.of(1L, 2L), ids(trie.suggest("ma", 5)));
+
+		trie.remove(1);
+
+		assertEquals(List.of(2L), ids(trie.suggest("ma", 5)));
+		assertEquals(List.of(), trie.suggest("mar", 5));
+		assertEquals(List.of(), trie.suggest("calle", 5));
+	}
+
+	@Test
+	void queriesLongerThanMaxDepthAreFiltered() {
+		SuggestionTrie trie = new SuggestionTrie(5, 4);
+		trie.put(1, "Leche entera", List.of("Leche entera"), 5);
+		trie.put(2, "Lechuga", List.of("Lechuga"), 3);
+		trie.put(3, "Pan de molde", List.of("Pan de molde"), 1);
+
+		assertEquals(List.of(1L, 2L), ids(trie.suggest("lech", 5)));
+		assertEquals(List.of(1L), ids(trie.suggest("leche", 5)));
+		assertEquals(List.of(2L), ids(trie.suggest("lechuga", 5)));
+		assertEquals(List.of(1L), ids(trie.suggest("leche ent", 5)));
+		assertEquals(List.of(1L), ids(trie.suggest("entera", 5)));
+		assertEquals(List.of(), trie.suggest("lechona", 5));
+		// La clave "pan " se trunca a "pan" al indexarla y al consultarla
+		assertEquals(List.of(3L), ids(trie.suggest("pan d", 5)));
+		assertEquals(List.of(), trie.suggest("pan x", 5));
+
+		trie.remove(1);
+
+		assertEquals(List.of(2L), ids(trie.suggest("lech", 5)));
+		assertEquals(List.of(), trie.suggest("leche", 5));
+	}
+
+	private static List<Long> ids(List<Suggestion> suggestions) {
+		return suggestions.stream().map(Suggestion::id).toList();
+	}
+}
@@ -0,0 +1,167 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.TicketPageDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Location;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Product;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.entities.Ticket;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.LocationRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.repositories.TicketRepository;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.TicketService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba el número de sentencias SQL que emite cada lectura de tickets, para detectar
+ * regresiones N+1 al mapear la ubicación (supermercado, provincia, región) y los productos.
+ *
+ * Antes de cada prueba se crean varios tickets en ubicaciones distintas con varios productos,
+ * fechados en el futuro para que encabecen la primera página, de modo que las comprobaciones
+ * no dependan de los datos que ya tenga la base de datos.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TicketQueryCountTests {
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private LocationRepository locationRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private final List<Long> seededIds = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		seedTickets(12);
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	void tearDown() {
+		ticketRepository.deleteAllById(seededIds);
+		seededIds.clear();
+	}
+
+	@Test
+	void ticketPageUsesConstantNumberOfStatements() {
+		TicketPageDTO page = ticketService.getTicketPage(null, 50, true);
+
+		assertTrue(page.getContent().size() >= seededIds.size());
+		// Una consulta para la página (con la ubicación) y otra para los productos
+		assertTrue(statistics.getPrepareStatementCount() <= 2,
+				"La página de " + page.getContent().size() + " tickets emitió "
+						+ statistics.getPrepareStatementCount() + " sentencias");
+	}
+
+	@Test
+	void ticketPageWithColdCacheUsesConstantNumberOfStatements() {
+		// Sin la caché de segundo nivel (p. ej. tras expirar sus entradas) el número no debe crecer
+		entityManagerFactory.getCache().evictAll();
+		statistics.clear();
+
+		TicketPageDTO page = ticketService.getTicketPage(null, 50, true);
+
+		assertTrue(page.getContent().size() >= seededIds.size());
+		assertTrue(statistics.getPrepareStatementCount() <= 2,
+				"La página de " + page.getContent().size() + " tickets con la caché vacía emitió "
+						+ statistics.getPrepareStatementCount() + " sentencias");
+	}
+
+	@Test
+	void ticketSummaryPageUsesSingleStatement() {
+		TicketPageDTO page = ticketService.getTicketPage(null, 50, false);
+
+		assertTrue(page.getContent().size() >= seededIds.size());
+		// El total sale del subtotal almacenado: no se consulta product_ticket
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void ticketByIdUsesSingleStatement() {
+		// Ticket propio para que la comprobación no dependa de los datos de la base de datos
+		Ticket ticket = new Ticket();
+		ticket.setDate(new Date());
+		ticket.setDiscount(BigDecimal.ZERO);
+		ticket.setLocation(locationRepository.findAll(PageRequest.of(0, 1)).getContent().get(0));
+		ticket.setProducts(new ArrayList<>());
+		Long id = ticketRepository.save(ticket).getId();
+		try {
+			statistics.clear();
+
+			ticketService.getTicketById(id);
+
+			assertEquals(1, statistics.getPrepareStatementCount());
+		} finally {
+			ticketRepository.deleteById(id);
+		}
+	}
+
+	@Test
+	void ticketStreamUsesTwoStatementsPerChunk() {
+		AtomicInteger chunks = new AtomicInteger();
+		ticketService.streamTickets(chunk -> chunks.incrementAndGet());
+
+		// Dos sentencias por bloque con datos y, como mucho, una más para el bloque vacío final
+		assertTrue(statistics.getPrepareStatementCount() <= 2L * chunks.get() + 1,
+				"El volcado de " + chunks.get() + " bloques emitió "
+						+ statistics.getPrepareStatementCount() + " sentencias");
+	}
+
+	/**
+	 * Crea tickets repartidos entre varias ubicaciones con supermercado, cada uno con varios
+	 * productos, y guarda sus IDs para eliminarlos al terminar.
+	 */
+	private void seedTickets(int count) {
+		List<Location> locations = locationRepository.findAll(PageRequest.of(0, 20)).getContent().stream()
+				.filter(location -> location.getSupermarket() != null)
+				.limit(4)
+				.toList();
+		List<Product> products = productRepository.findAll(PageRequest.of(0, 6)).getContent();
+		assertTrue(locations.size() >= 2 && products.size() >= 3,
+				"La base de datos de pruebas necesita ubicaciones con supermercado y productos");
+
+		Instant future = Instant.parse("2100-01-01T00:00:00Z");
+		for (int i = 0; i < count; i++) {
+			Ticket ticket = new Ticket();
+			ticket.setDate(Date.from(future.plusSeconds(i * 60L)));
+			ticket.setDiscount(BigDecimal.ZERO);
+			ticket.setLocation(locations.get(i % locations.size()));
+			List<Product> lines = new ArrayList<>();
+			for (int j = 0; j < 3; j++) {
+				lines.add(products.get((i + j) % products.size()));
+			}
+			ticket.setProducts(lines);
+			ticket.setSubtotal(lines.stream().map(Product::getPrice).reduce(BigDecimal.ZERO, BigDecimal::add));
+			seededIds.add(ticketRepository.save(ticket).getId());
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.benchmarks;
+
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.SuggestionTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark de una consulta de autocompletado sobre SuggestionTrie, con varios hilos
+ * consultando a la vez, como en la introducción de tickets.
+ *
+ * Con el modo `SampleTime` JMH informa de los percentiles (p99 incluido) del tiempo por
+ * pulsación. Los nombres se generan combinando palabras de productos habituales y un número.
+ *
+ * No forma parte de los tests: se ejecuta desde el IDE con el método `main`, o con
+ * `mvn test-compile` y `java -cp target/test-classes:<classpath de test> ...AutocompleteBenchmark`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class AutocompleteBenchmark {
+
+	private static final String[] WORDS = {"leche", "entera", "desnatada", "pan", "molde", "integral", "arroz",
+			"aceite", "oliva", "virgen", "yogur", "natural", "queso", "curado", "tomate", "frito", "agua",
+			"mineral", "zumo", "naranja", "galletas", "chocolate", "café", "molido", "huevos", "camperos"};
+
+	@Param({"10000", "100000"})
+	private int products;
+
+	private SuggestionTrie trie;
+
+	private String[] prefixes;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		trie = new SuggestionTrie(10, 20);
+		for (int id = 1; id <= products; id++) {
+			String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+					+ " " + id;
+			trie.put(id, name, List.of(name), random.nextInt(1000));
+		}
+		prefixes = new String[1024];
+		for (int i = 0; i < prefixes.length; i++) {
+			String word = WORDS[random.nextInt(WORDS.length)];
+			prefixes[i] = word.substring(0, 1 + random.nextInt(word.length()));
+		}
+	}
+
+	@Benchmark
+	public List<SuggestionTrie.Suggestion> suggest() {
+		return trie.suggest(prefixes[(int) (Thread.currentThread().threadId() + System.nanoTime()) & 1023], 10);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(AutocompleteBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,94 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark del coste de autenticar una petición con JWT en JwtAuthenticationFilter.
+ *
+ * `perRequestBefore` reproduce el flujo anterior (tres parsers nuevos y tres verificaciones
+ * RS256 por petición); `perRequestAfter` usa JwtUtil con el parser precompilado y la caché de
+ * claims verificados, como hace ahora el filtro.
+ *
+ * No forma parte de los tests: se ejecuta desde el IDE con el método `main`, o con
+ * `mvn test-compile` y `java -cp target/test-classes:<classpath de test> ...JwtAuthBenchmark`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+	private KeyPair keyPair;
+
+	private JwtUtil jwtUtil;
+
+	private String token;
+
+	@Setup
+	public void setUp() throws NoSuchAlgorithmException {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		keyPair = generator.generateKeyPair();
+
+		jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "jwtKeyPair", keyPair);
+		ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", 10_000L);
+		jwtUtil.init();
+
+		token = jwtUtil.generateToken("normal", List.of("ROLE_USER"));
+	}
+
+	@Benchmark
+	public Claims perRequestBefore() {
+		// extractUsername, validateToken y extractAllClaims, cada uno con su propio parser
+		String username = Jwts.parser().verifyWith(keyPair.getPublic()).build()
+				.parseSignedClaims(token).getPayload().getSubject();
+		Claims validated = Jwts.parser().verifyWith(keyPair.getPublic()).build()
+				.parseSignedClaims(token).getPayload();
+		if (!username.equals(validated.getSubject()) || validated.getExpiration().before(new Date())) {
+			throw new IllegalStateException("Token no válido");
+		}
+		return Jwts.parser().verifyWith(keyPair.getPublic()).build()
+				.parseSignedClaims(token).getPayload();
+	}
+
+	@Benchmark
+	public Claims perRequestAfter() {
+		Claims claims = jwtUtil.extractAllClaims(token);
+		if (!jwtUtil.validateToken(claims, claims.getSubject())) {
+			throw new IllegalStateException("Token no válido");
+		}
+		return claims;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(JwtAuthBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
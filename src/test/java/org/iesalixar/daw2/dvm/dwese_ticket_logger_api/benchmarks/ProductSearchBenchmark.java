@@ -0,0 +1,102 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.SearcherManager;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.dtos.ProductSearchPageDTO;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.ProductSearchService;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.services.ProductSearchService.ProductSaved;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark de la búsqueda de productos de ProductSearchService sobre un índice en memoria
+ * con un millón de productos, para comprobar el objetivo de unos pocos milisegundos por consulta.
+ *
+ * Cada valor de `query` es un tipo de búsqueda: palabra completa, prefijo, dos palabras y una
+ * palabra con una errata (que añade la consulta aproximada). Con el modo `SampleTime` JMH
+ * informa de los percentiles del tiempo por búsqueda, incluida la lectura de la primera página.
+ * Los nombres se generan combinando palabras de productos habituales y un número.
+ *
+ * No forma parte de los tests: se ejecuta desde el IDE con el método `main`, o con
+ * `mvn test-compile` y `java -cp target/test-classes:<classpath de test> ...ProductSearchBenchmark`.
+ * La indexación inicial del millón de productos tarda del orden de un minuto.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ProductSearchBenchmark {
+
+	private static final String[] WORDS = {"leche", "entera", "desnatada", "pan", "molde", "integral", "arroz",
+			"aceite", "oliva", "virgen", "yogur", "natural", "queso", "curado", "tomate", "frito", "agua",
+			"mineral", "zumo", "naranja", "galletas", "chocolate", "café", "molido", "huevos", "camperos"};
+
+	@Param({"1000000"})
+	private int products;
+
+	@Param({"queso", "cho", "leche entera", "chocolte"})
+	private String query;
+
+	private ProductSearchService service;
+
+	@Setup
+	public void setUp() throws IOException {
+		service = new ProductSearchService();
+		ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(service, "indexDir", "");
+		ReflectionTestUtils.setField(service, "defaultPageSize", 20);
+		ReflectionTestUtils.setField(service, "maxPageSize", 100);
+		ReflectionTestUtils.setField(service, "maxResults", 1000);
+		service.init();
+
+		Random random = new Random(42);
+		for (int id = 1; id <= products; id++) {
+			String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+					+ " " + id;
+			ReflectionTestUtils.invokeMethod(service, "index", new ProductSaved(id, name,
+					BigDecimal.valueOf(50 + random.nextInt(2000), 2), (long) (1 + random.nextInt(100))));
+		}
+		((IndexWriter) ReflectionTestUtils.getField(service, "writer")).commit();
+		((SearcherManager) ReflectionTestUtils.getField(service, "searcherManager")).maybeRefreshBlocking();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		service.close();
+	}
+
+	@Benchmark
+	public ProductSearchPageDTO search() {
+		return service.search(query, null, 0, 20);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ProductSearchBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
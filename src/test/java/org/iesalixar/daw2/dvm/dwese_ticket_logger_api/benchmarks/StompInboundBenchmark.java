@@ -0,0 +1,213 @@
+package org.iesalixar.daw2.dvm.dwese_ticket_logger_api.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.StompAuthChannelInterceptor;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.config.WebSocketSessionRegistry;
+import org.iesalixar.daw2.dvm.dwese_ticket_logger_api.utils.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark de frames STOMP entrantes por segundo en un nodo.
+ *
+ * `perFrameBefore` reproduce el interceptor anterior para un SEND con cabecera Authorization:
+ * dos verificaciones RS256, la carga del usuario de `loadUserByUsername` (las mismas dos
+ * consultas que genera Hibernate para el usuario y sus roles, contra la base de datos de
+ * `DB_URL`, `DB_USER` y `DB_PASSWORD`), la extracción de claims y la construcción de la
+ * autenticación. `perFrameBeforeWithoutLookup` es lo mismo sin la consulta, para separar el
+ * coste de la CPU del de la base de datos. `perFrameAfter` pasa el mismo frame por
+ * {@link StompAuthChannelInterceptor}, que sólo comprueba la expiración de la sesión
+ * autenticada en el CONNECT.
+ *
+ * La base de datos debe tener el esquema y los datos de las migraciones (el usuario `normal`).
+ * Sin `DB_URL` sólo se ejecutan los benchmarks que no la necesitan.
+ *
+ * No forma parte de los tests: se ejecuta desde el IDE con el método `main`, o con
+ * `mvn test-compile` y `java -cp target/test-classes:<classpath de test> ...StompInboundBenchmark`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StompInboundBenchmark {
+
+	private static final String SESSION_ID = "session-1";
+
+	private KeyPair keyPair;
+
+	private StompAuthChannelInterceptor interceptor;
+
+	private Message<byte[]> frame;
+
+	@Setup
+	public void setUp() throws NoSuchAlgorithmException {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		keyPair = generator.generateKeyPair();
+
+		JwtUtil jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "jwtKeyPair", keyPair);
+		ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", 10_000L);
+		jwtUtil.init();
+		String token = jwtUtil.generateToken("normal", List.of("ROLE_USER"));
+
+		WebSocketSessionRegistry sessionRegistry = new WebSocketSessionRegistry();
+		sessionRegistry.expireAt(SESSION_ID, System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+		interceptor = new StompAuthChannelInterceptor();
+		ReflectionTestUtils.setField(interceptor, "jwtUtil", jwtUtil);
+		ReflectionTestUtils.setField(interceptor, "sessionRegistry", sessionRegistry);
+
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+		accessor.setDestination("/app/notifications");
+		accessor.setSessionId(SESSION_ID);
+		accessor.addNativeHeader("Authorization", "Bearer " + token);
+		frame = MessageBuilder.createMessage("{}".getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+	}
+
+	/**
+	 * Conexión a la base de datos para la carga del usuario del flujo anterior.
+	 */
+	@State(Scope.Benchmark)
+	public static class Database {
+
+		private Connection connection;
+
+		@Setup
+		public void setUp() throws SQLException {
+			String url = System.getenv("DB_URL");
+			if (url == null) {
+				throw new IllegalStateException("Falta DB_URL: perFrameBefore necesita la base de datos.");
+			}
+			connection = DriverManager.getConnection(url, System.getenv("DB_USER"), System.getenv("DB_PASSWORD"));
+		}
+
+		@TearDown
+		public void tearDown() throws SQLException {
+			connection.close();
+		}
+	}
+
+	@Benchmark
+	public Object perFrameBefore(Database database) throws SQLException {
+		return authenticateBefore(username -> loadUserByUsername(database.connection, username));
+	}
+
+	@Benchmark
+	public Object perFrameBeforeWithoutLookup() throws SQLException {
+		return authenticateBefore(username -> User.withUsername(username).password("").authorities(List.of()).build());
+	}
+
+	@Benchmark
+	public Object perFrameAfter() {
+		return interceptor.preSend(frame, null);
+	}
+
+	private Object authenticateBefore(UserLoader userLoader) throws SQLException {
+		StompHeaderAccessor accessor = StompHeaderAccessor.wrap(frame);
+		String token = accessor.getFirstNativeHeader("Authorization").substring(7);
+		// extractUsername y validateToken, cada uno con su propio parser y verificación
+		String username = Jwts.parser().verifyWith(keyPair.getPublic()).build()
+				.parseSignedClaims(token).getPayload().getSubject();
+		UserDetails userDetails = userLoader.load(username);
+		Claims validated = Jwts.parser().verifyWith(keyPair.getPublic()).build()
+				.parseSignedClaims(token).getPayload();
+		if (!userDetails.getUsername().equals(validated.getSubject())) {
+			throw new IllegalStateException("Token no válido");
+		}
+		Claims claims = Jwts.parser().verifyWith(keyPair.getPublic()).build()
+				.parseSignedClaims(token).getPayload();
+		List<?> roles = claims.get("roles", List.class);
+		List<SimpleGrantedAuthority> authorities = roles.stream()
+				.map(String::valueOf)
+				.map(SimpleGrantedAuthority::new)
+				.toList();
+		return new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+	}
+
+	/**
+	 * Carga el usuario como CustomUserDetailsService con UserRepository.findByUsername: una
+	 * consulta para el usuario y otra para sus roles (relación EAGER).
+	 */
+	private static UserDetails loadUserByUsername(Connection connection, String username) throws SQLException {
+		long id;
+		String password;
+		boolean enabled;
+		try (PreparedStatement statement = connection.prepareStatement(
+				"SELECT u.id, u.created_date, u.enabled, u.first_name, u.image, u.last_modified_date, " +
+						"u.last_password_change_date, u.last_name, u.password, u.username " +
+						"FROM users u WHERE u.username = ?")) {
+			statement.setString(1, username);
+			try (ResultSet rs = statement.executeQuery()) {
+				if (!rs.next()) {
+					throw new IllegalStateException("Usuario no encontrado: " + username);
+				}
+				id = rs.getLong("id");
+				password = rs.getString("password");
+				enabled = rs.getBoolean("enabled");
+			}
+		}
+		List<String> roles = new ArrayList<>();
+		try (PreparedStatement statement = connection.prepareStatement(
+				"SELECT r.id, r.name FROM user_roles ur JOIN roles r ON r.id = ur.role_id WHERE ur.user_id = ?")) {
+			statement.setLong(1, id);
+			try (ResultSet rs = statement.executeQuery()) {
+				while (rs.next()) {
+					roles.add(rs.getString("name"));
+				}
+			}
+		}
+		return User.withUsername(username)
+				.password(password)
+				.authorities(roles.toArray(new String[0]))
+				.disabled(!enabled)
+				.build();
+	}
+
+	@FunctionalInterface
+	private interface UserLoader {
+		UserDetails load(String username) throws SQLException;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(StompInboundBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,103 @@
+-- Benchmark de las consultas más frecuentes sobre tickets con 10 millones de tickets.
+--
+-- Crea la base de datos `ticket_logger_bench` con el esquema de las migraciones V1 y V5, la llena con
+-- datos sintéticos deterministas y ejecuta las consultas de ticket_hot_paths_queries.sql con
+-- ANALYZE FORMAT=JSON, que muestra el plan de cada consulta junto con las filas leídas y el
+-- tiempo real de cada paso (r_rows, r_total_time_ms). Las consultas se ejecutan dos veces: con
+-- los índices de V1 y tras aplicar la migración V3.
+--
+-- No forma parte de los tests. Se ejecuta desde la raíz del proyecto con el cliente de MariaDB
+-- (necesita el motor Sequence, incluido por defecto):
+--
+--   mariadb -u root -p --table < src/test/resources/benchmarks/ticket_hot_paths.sql > bench_output.txt
+--
+-- Para otro volumen basta con cambiar @tickets (máximo 100 millones). La carga de 10 millones de
+-- tickets y unos 30 millones de líneas tarda varios minutos; conviene que innodb_buffer_pool_size
+-- permita tener los índices en memoria para que los tiempos no dependan del disco.
+
+SET @tickets := 10000000;
+SET @batch := 500000;
+SET @locations := 200;
+SET @supermarkets := 50;
+SET @categories := 100;
+SET @products := 20000;
+
+DROP DATABASE IF EXISTS ticket_logger_bench;
+CREATE DATABASE ticket_logger_bench;
+USE ticket_logger_bench;
+
+SOURCE src/main/resources/db/migration/V1__initial_schema.sql
+-- Precio de cada línea de ticket, que usan los agregados por categoría
+SOURCE src/main/resources/db/migration/V5__product_ticket_price.sql
+
+-- Datos sintéticos: los valores se derivan de CRC32 del número de fila para que cada ejecución
+-- genere exactamente los mismos datos, con fechas repartidas de forma uniforme en tres años
+SET FOREIGN_KEY_CHECKS = 0;
+SET UNIQUE_CHECKS = 0;
+
+INSERT INTO supermarkets (id, name)
+SELECT seq, CONCAT('Supermercado ', seq) FROM seq_1_to_100000000 WHERE seq <= @supermarkets;
+
+INSERT INTO locations (id, address, city, supermarket_id, province_id)
+SELECT seq, CONCAT('Calle ', seq), CONCAT('Ciudad ', seq % 50), 1 + seq % @supermarkets, NULL
+FROM seq_1_to_100000000 WHERE seq <= @locations;
+
+-- Diez categorías raíz y el resto repartidas entre ellas
+INSERT INTO categories (id, name, parent_id)
+SELECT seq, CONCAT('Categoría ', seq), IF(seq <= 10, NULL, 1 + seq % 10)
+FROM seq_1_to_100000000 WHERE seq <= @categories;
+
+INSERT INTO products (id, name, category_id, price)
+SELECT seq, CONCAT('Producto ', seq), 1 + CRC32(CONCAT('c', seq)) % @categories,
+       (1 + CRC32(CONCAT('p', seq)) % 5000) / 100
+FROM seq_1_to_100000000 WHERE seq <= @products;
+
+DELIMITER //
+CREATE PROCEDURE load_tickets()
+BEGIN
+    DECLARE loaded INT DEFAULT 0;
+    WHILE loaded < @tickets DO
+        INSERT INTO tickets (id, date, discount, subtotal, location_id)
+        SELECT seq,
+               TIMESTAMP('2022-01-01') + INTERVAL CRC32(CONCAT('t', seq)) % 94608000 SECOND,
+               CRC32(CONCAT('d', seq)) % 4 * 5,
+               0,
+               1 + CRC32(CONCAT('l', seq)) % @locations
+        FROM seq_1_to_100000000 WHERE seq > loaded AND seq <= LEAST(loaded + @batch, @tickets);
+
+        -- Tres líneas por ticket (alguna menos si se repite el producto)
+        INSERT IGNORE INTO product_ticket (product_id, ticket_id)
+        SELECT 1 + CRC32(CONCAT(t.seq, '-', k.seq)) % @products, t.seq
+        FROM seq_1_to_100000000 t CROSS JOIN seq_1_to_3 k
+        WHERE t.seq > loaded AND t.seq <= LEAST(loaded + @batch, @tickets);
+
+        SET loaded = loaded + @batch;
+    END WHILE;
+END //
+DELIMITER ;
+
+CALL load_tickets();
+DROP PROCEDURE load_tickets;
+
+UPDATE product_ticket pt JOIN products p ON p.id = pt.product_id
+SET pt.price = p.price;
+
+UPDATE tickets t
+JOIN (SELECT ticket_id, SUM(price) AS subtotal
+      FROM product_ticket
+      GROUP BY ticket_id) s ON s.ticket_id = t.id
+SET t.subtotal = s.subtotal;
+
+SET UNIQUE_CHECKS = 1;
+SET FOREIGN_KEY_CHECKS = 1;
+
+ANALYZE TABLE tickets, product_ticket, products, locations, categories;
+
+SELECT 'Índices de V1' AS fase;
+SOURCE src/test/resources/benchmarks/ticket_hot_paths_queries.sql
+
+SOURCE src/main/resources/db/migration/V3__ticket_hot_path_indexes.sql
+ANALYZE TABLE tickets, products;
+
+SELECT 'Índices de V3' AS fase;
+SOURCE src/test/resources/benchmarks/ticket_hot_paths_queries.sql
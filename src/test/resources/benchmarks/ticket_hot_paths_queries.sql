@@ -0,0 +1,79 @@
+-- Consultas del benchmark ticket_hot_paths.sql, con la misma forma que las que generan los
+-- repositorios. Cada una se ejecuta con ANALYZE FORMAT=JSON: el JSON incluye el plan (índice
+-- usado, filesort, tablas temporales) y los valores reales r_rows y r_total_time_ms.
+
+-- Cursor a mitad del listado y rango de un mes para la analítica
+SET @cursor_id := @tickets DIV 2;
+SELECT date INTO @cursor_date FROM tickets WHERE id = @cursor_id;
+SET @from := TIMESTAMP('2023-03-01');
+SET @to := TIMESTAMP('2023-04-01');
+
+-- TicketRepository.findFirstPage: primera página del listado
+SELECT 'Listado: primera página' AS consulta;
+ANALYZE FORMAT=JSON
+SELECT t.id, t.date, t.discount, t.subtotal, l.id, l.address, l.city
+FROM tickets t LEFT JOIN locations l ON l.id = t.location_id
+ORDER BY t.date DESC, t.id DESC LIMIT 20;
+
+-- TicketRepository.findPageAfter: página siguiente a un cursor (fecha, id)
+SELECT 'Listado: página tras el cursor' AS consulta;
+ANALYZE FORMAT=JSON
+SELECT t.id, t.date, t.discount, t.subtotal, l.id, l.address, l.city
+FROM tickets t LEFT JOIN locations l ON l.id = t.location_id
+WHERE t.date < @cursor_date OR (t.date = @cursor_date AND t.id < @cursor_id)
+ORDER BY t.date DESC, t.id DESC LIMIT 20;
+
+-- TicketRepository.fetchProductsByTicketIds: productos de los tickets de una página
+SELECT 'Listado: productos de la página' AS consulta;
+ANALYZE FORMAT=JSON
+SELECT pt.ticket_id, p.id, p.name, p.price, p.category_id
+FROM product_ticket pt JOIN products p ON p.id = pt.product_id
+WHERE pt.ticket_id IN (SELECT id FROM (SELECT t.id FROM tickets t
+                                       ORDER BY t.date DESC, t.id DESC LIMIT 20) page);
+
+-- TicketRepository.findFirstPageByCategoryIds: listado filtrado por un subárbol de categorías
+SELECT 'Listado: filtro por categoría' AS consulta;
+ANALYZE FORMAT=JSON
+SELECT t.id, t.date, t.discount, t.subtotal
+FROM tickets t
+WHERE EXISTS (SELECT 1 FROM product_ticket pt JOIN products p ON p.id = pt.product_id
+              WHERE pt.ticket_id = t.id AND p.category_id IN (1, 11, 21, 31, 41))
+ORDER BY t.date DESC, t.id DESC LIMIT 20;
+
+-- SpendAnalyticsRepository: gasto diario de un mes sin dimensiones
+SELECT 'Analítica: gasto diario' AS consulta;
+ANALYZE FORMAT=JSON
+SELECT DATE(t.date) AS bucket, COUNT(*) AS tickets,
+       ROUND(SUM(t.subtotal * (1 - t.discount / 100)), 2) AS spend
+FROM tickets t
+WHERE t.date >= @from AND t.date < @to
+GROUP BY bucket ORDER BY bucket;
+
+-- TicketRollupRepository: agregados por ubicación y por categoría desde las tablas base
+SELECT 'Analítica: agregados por ubicación' AS consulta;
+ANALYZE FORMAT=JSON
+SELECT DATE(t.date) AS day, COALESCE(t.location_id, 0) AS k, COUNT(*) AS ticket_count,
+       SUM(t.subtotal) AS gross, SUM(t.subtotal * (1 - t.discount / 100)) AS discounted
+FROM tickets t WHERE t.date >= @from AND t.date < @to
+GROUP BY DATE(t.date), COALESCE(t.location_id, 0);
+
+SELECT 'Analítica: agregados por categoría' AS consulta;
+ANALYZE FORMAT=JSON
+SELECT DATE(t.date) AS day, COALESCE(p.category_id, 0) AS k, COUNT(DISTINCT t.id) AS ticket_count,
+       SUM(pt.price) AS gross, SUM(pt.price * (1 - t.discount / 100)) AS discounted
+FROM tickets t JOIN product_ticket pt ON pt.ticket_id = t.id JOIN products p ON p.id = pt.product_id
+WHERE t.date >= @from AND t.date < @to
+GROUP BY DATE(t.date), COALESCE(p.category_id, 0);
+
+-- ProductRepository.findByCategoryIdInOrderByNameAsc: productos de un subárbol de categorías
+SELECT 'Productos: por categoría' AS consulta;
+ANALYZE FORMAT=JSON
+SELECT p.id, p.name, p.price, p.category_id
+FROM products p WHERE p.category_id IN (1, 11, 21, 31, 41) ORDER BY p.name;
+
+-- AutocompleteRepository: tickets por supermercado
+SELECT 'Autocompletado: uso de supermercados' AS consulta;
+ANALYZE FORMAT=JSON
+SELECT l.supermarket_id, COUNT(*)
+FROM tickets t JOIN locations l ON l.id = t.location_id
+GROUP BY l.supermarket_id;